@@ -42,4 +42,6 @@ public class CacheStatsDTO {
     @NonNull
     @Schema(name = "evictionCount", description = "The number of times an entry has been evicted.")
     private long evictionCount;
+    @Schema(name = "estimatedMemoryUsage", description = "The estimated number of bytes occupied by the cached entries, absent for the caches which are not managed by the cache manager.")
+    private Long estimatedMemoryUsage;
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.app.Blockchain;
+import com.apollocurrency.aplwallet.apl.core.app.Convert2;
+import com.apollocurrency.aplwallet.apl.core.app.TimeService;
+import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManagerImpl;
+import com.apollocurrency.aplwallet.apl.core.db.cdi.transaction.JdbiHandleFactory;
+import com.apollocurrency.aplwallet.apl.util.injectable.DbProperties;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
+
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Produces;
+import javax.inject.Singleton;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Producers of the beans, which are looked up statically by the benchmarked classes (e.g. TransactionType,
+ * DerivedDbTable), but not used on the measured code paths. Blockchain is a stub, database is an in-memory H2
+ * instance with the full Apollo schema, created only when some benchmark needs it.
+ */
+public class BenchmarkBeans {
+    private static volatile String dbUrl;
+
+    /**
+     * Use database with the given url instead of the in-memory one, should be called before the container start
+     * @param url jdbc url or null to use in-memory database
+     */
+    static void setDbUrl(String url) {
+        dbUrl = url;
+    }
+
+    @Produces
+    @Singleton
+    public Blockchain blockchain() {
+        return mock(Blockchain.class);
+    }
+
+    @Produces
+    @Singleton
+    public BlockchainConfig blockchainConfig() {
+        return new BlockchainConfig();
+    }
+
+    @Produces
+    @Singleton
+    public TimeService timeService() {
+        return new TimeService() {
+            @Override
+            public int getEpochTime() {
+                return Convert2.toEpochTime(System.currentTimeMillis());
+            }
+
+            @Override
+            public long systemTime() {
+                return System.currentTimeMillis() / 1000;
+            }
+        };
+    }
+
+    @Produces
+    @Singleton
+    public DatabaseManager databaseManager() {
+        DbProperties dbProperties = new DbProperties()
+                .dbUrl(dbUrl != null ? dbUrl : "jdbc:h2:mem:benchmark" + UUID.randomUUID())
+                .dbType("h2")
+                .dbUsername("sa")
+                .dbPassword("sa")
+                .dbParams("")
+                .chainId(UUID.randomUUID())
+                .maxConnections(10)
+                .loginTimeout(10)
+                .maxMemoryRows(100000)
+                .defaultLockTimeout(10 * 1000);
+        return new DatabaseManagerImpl(dbProperties, new PropertiesHolder(), new JdbiHandleFactory());
+    }
+
+    public void shutdownDatabaseManager(@Disposes DatabaseManager databaseManager) {
+        databaseManager.shutdown();
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.db.DerivedDbTablesRegistryImpl;
+import com.apollocurrency.aplwallet.apl.core.db.fulltext.FullTextConfigImpl;
+import com.apollocurrency.aplwallet.apl.core.tagged.dao.DataTagDao;
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+/**
+ * Minimal CDI container for the benchmarks, which touch classes with static or lazy CDI lookups.
+ * Discovery is disabled, so that only explicitly listed beans are created and startup does not affect measurements.
+ */
+public final class BenchmarkContainer {
+    private static WeldContainer container;
+
+    private BenchmarkContainer() {}
+
+    public static synchronized void start() {
+        if (container == null) {
+            container = new Weld()
+                    .disableDiscovery()
+                    .addBeanClasses(BenchmarkBeans.class, FullTextConfigImpl.class, DerivedDbTablesRegistryImpl.class,
+                            DataTagDao.class)
+                    .initialize();
+        }
+    }
+
+    /**
+     * Start container, which uses database with the given url instead of the in-memory one
+     * @param dbUrl jdbc url of the database
+     * @throws IllegalStateException when container is already started
+     */
+    public static synchronized void start(String dbUrl) {
+        if (container != null) {
+            throw new IllegalStateException("Container is already started");
+        }
+        BenchmarkBeans.setDbUrl(dbUrl);
+        start();
+    }
+
+    public static synchronized <T> T select(Class<T> type) {
+        start();
+        return container.select(type).get();
+    }
+
+    public static synchronized void shutdown() {
+        if (container != null) {
+            container.shutdown();
+            container = null;
+        }
+        BenchmarkBeans.setDbUrl(null);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verification of the transaction/block sized messages through the {@link Crypto} facade,
+ * the same calls, which are done for every transaction and block during push.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoBenchmark {
+    /**
+     * Minimal transaction (ordinary payment) and typical block header sizes
+     */
+    @Param({"176", "1024"})
+    private int messageSize;
+
+    private byte[] message;
+    private byte[] keySeed;
+    private byte[] publicKey;
+    private byte[] signature;
+    private byte[] privateKey;
+    private byte[] theirPublicKey;
+
+    @Setup
+    public void setUp() {
+        message = new byte[messageSize];
+        new Random(messageSize).nextBytes(message);
+        keySeed = Crypto.getKeySeed("benchmark secret phrase");
+        publicKey = Crypto.getPublicKey(keySeed);
+        signature = Crypto.sign(message, keySeed);
+        privateKey = Crypto.getPrivateKey(keySeed);
+        theirPublicKey = Crypto.getPublicKey("another benchmark secret phrase");
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        return Crypto.sign(message, keySeed);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return Crypto.verify(signature, message, publicKey);
+    }
+
+    @Benchmark
+    public byte[] getPublicKey() {
+        return Crypto.getPublicKey(keySeed);
+    }
+
+    @Benchmark
+    public byte[] getSharedKey() {
+        return Crypto.getSharedKey(privateKey, theirPublicKey);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.shard.helper.csv.CsvEscaper;
+import com.apollocurrency.aplwallet.apl.core.shard.helper.csv.CsvEscaperImpl;
+import com.apollocurrency.aplwallet.apl.core.shard.helper.csv.CsvReaderImpl;
+import com.apollocurrency.aplwallet.apl.core.shard.helper.csv.CsvWriterImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the shard csv export and import: {@link CsvWriterImpl} writes the rows of the table, which
+ * resembles the transaction table, {@link CsvReaderImpl} reads them back. Rows are read from the in-memory H2 database
+ * and written to memory, so that only csv processing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvBenchmark {
+    private static final String SELECT_ALL = "SELECT * FROM benchmark_transaction ORDER BY db_id";
+
+    @Param({"10000"})
+    private int rowCount;
+
+    private final CsvEscaper escaper = new CsvEscaperImpl();
+    private Connection connection;
+    private Path dataExportPath;
+    private String csv;
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        dataExportPath = Files.createTempDirectory("csvBenchmark");
+        connection = DriverManager.getConnection("jdbc:h2:mem:csvBenchmark", "sa", "sa");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE benchmark_transaction (db_id BIGINT PRIMARY KEY, id BIGINT NOT NULL, "
+                    + "sender_id BIGINT NOT NULL, amount BIGINT NOT NULL, height INT NOT NULL, "
+                    + "full_hash BINARY(32) NOT NULL, attachment_bytes VARBINARY, has_message BOOLEAN NOT NULL, "
+                    + "message VARCHAR)");
+        }
+        Random random = new Random(rowCount);
+        try (PreparedStatement pstmt = connection.prepareStatement(
+                "INSERT INTO benchmark_transaction VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < rowCount; i++) {
+                byte[] fullHash = new byte[32];
+                random.nextBytes(fullHash);
+                byte[] attachment = new byte[random.nextInt(128)];
+                random.nextBytes(attachment);
+                pstmt.setLong(1, i);
+                pstmt.setLong(2, random.nextLong());
+                pstmt.setLong(3, random.nextLong());
+                pstmt.setLong(4, random.nextInt(Integer.MAX_VALUE));
+                pstmt.setInt(5, i / 10);
+                pstmt.setBytes(6, fullHash);
+                pstmt.setBytes(7, attachment);
+                pstmt.setBoolean(8, i % 2 == 0);
+                pstmt.setString(9, i % 2 == 0 ? "Message, with 'quotes' and \"escapes\" " + i : null);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        csv = write();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException, IOException {
+        connection.close();
+        Files.deleteIfExists(dataExportPath);
+    }
+
+    @Benchmark
+    public String write() throws SQLException {
+        StringWriter output = new StringWriter(rowCount * 200);
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery(SELECT_ALL);
+             CsvWriterImpl csvWriter = new CsvWriterImpl(dataExportPath, null, escaper)) {
+            csvWriter.write(output, rs);
+        }
+        return output.toString();
+    }
+
+    @Benchmark
+    public void read(Blackhole blackhole) throws SQLException, IOException {
+        try (CsvReaderImpl csvReader = new CsvReaderImpl(dataExportPath, escaper);
+             ResultSet rs = csvReader.read(new StringReader(csv), null)) {
+            int columnCount = rs.getMetaData().getColumnCount();
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    blackhole.consume(rs.getObject(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
+import com.apollocurrency.aplwallet.apl.core.db.DbKey;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.core.tagged.dao.DataTagDao;
+import com.apollocurrency.aplwallet.apl.core.tagged.model.DataTag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of the latest entity by key from the multiversion {@link com.apollocurrency.aplwallet.apl.core.db.derived.EntityDbTable}
+ * backed by the embedded in-memory H2 database with the full Apollo schema. Data tag table is used as the simplest
+ * versioned table, every tag has several versions, like frequently updated accounts have.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EntityDbTableBenchmark {
+    private static final int VERSIONS = 3;
+
+    @Param({"10000"})
+    private int entityCount;
+
+    private DataTagDao table;
+    private DbKey[] keys;
+
+    @Setup
+    public void setUp() {
+        table = BenchmarkContainer.select(DataTagDao.class);
+        TransactionalDataSource dataSource = BenchmarkContainer.select(DatabaseManager.class).getDataSource();
+        keys = new DbKey[entityCount];
+        // separate transaction for each version, otherwise same key will be found in the transaction cache
+        for (int height = 1; height <= VERSIONS; height++) {
+            dataSource.begin();
+            try {
+                for (int i = 0; i < entityCount; i++) {
+                    DataTag tag = new DataTag("tag" + i, height, height);
+                    table.insert(tag);
+                    keys[i] = table.newDbKey(tag);
+                }
+                dataSource.commit();
+            } catch (RuntimeException e) {
+                dataSource.rollback();
+                throw e;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContainer.shutdown();
+    }
+
+    @Benchmark
+    public DataTag get() {
+        return table.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public DataTag getConcurrently() {
+        return table.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+}
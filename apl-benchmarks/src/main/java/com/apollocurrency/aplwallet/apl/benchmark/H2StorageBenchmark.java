@@ -0,0 +1,140 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
+import com.apollocurrency.aplwallet.apl.core.db.DbKey;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.core.tagged.dao.DataTagDao;
+import com.apollocurrency.aplwallet.apl.core.tagged.model.DataTag;
+import com.apollocurrency.aplwallet.apl.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block application and trim of the multiversion derived table on the file H2 database with the page store
+ * (MV_STORE=FALSE) and the MVStore (MV_STORE=TRUE) engines.
+ * <p>Every block inserts new versions of the data tags in one transaction, like pushBlock does for accounts, trim
+ * deletes versions older than the max rollback, like the trim after each block does. Group benchmark applies blocks
+ * concurrently with the entity reads, which are done by the API threads during block application.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class H2StorageBenchmark {
+    private static final int MAX_ROLLBACK = 20;
+
+    @Param({"FALSE", "TRUE"})
+    private String mvStore;
+
+    @Param({"10000"})
+    private int entityCount;
+
+    @Param({"200"})
+    private int blockSize;
+
+    private Path dbDir;
+    private DataTagDao table;
+    private TransactionalDataSource dataSource;
+    private DbKey[] keys;
+    private int height;
+
+    @Setup
+    public void setUp() throws IOException {
+        dbDir = Files.createTempDirectory("h2-storage-benchmark");
+        BenchmarkContainer.start("jdbc:h2:file:" + dbDir.resolve("apl").toAbsolutePath()
+                + ";DB_CLOSE_ON_EXIT=FALSE;MVCC=TRUE;MV_STORE=" + mvStore);
+        table = BenchmarkContainer.select(DataTagDao.class);
+        dataSource = BenchmarkContainer.select(DatabaseManager.class).getDataSource();
+        keys = new DbKey[entityCount];
+        height = 1;
+        dataSource.begin();
+        try {
+            for (int i = 0; i < entityCount; i++) {
+                DataTag tag = new DataTag("tag" + i, height, height);
+                table.insert(tag);
+                keys[i] = table.newDbKey(tag);
+            }
+            dataSource.commit();
+        } catch (RuntimeException e) {
+            dataSource.rollback();
+            throw e;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkContainer.shutdown();
+        FileUtils.clearDirectorySilently(dbDir);
+        Files.deleteIfExists(dbDir);
+    }
+
+    @Benchmark
+    public void pushBlock() {
+        applyBlock(false);
+    }
+
+    @Benchmark
+    public void pushBlockAndTrim() {
+        applyBlock(true);
+    }
+
+    @Benchmark
+    @Group("pushBlockWithReads")
+    @GroupThreads(1)
+    public void pushBlockConcurrently() {
+        applyBlock(true);
+    }
+
+    @Benchmark
+    @Group("pushBlockWithReads")
+    @GroupThreads(3)
+    public DataTag readConcurrently() {
+        return table.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    /**
+     * Insert new versions of the consecutive tags, starting from the random one, so that block never updates the
+     * same tag twice
+     */
+    private void applyBlock(boolean trim) {
+        int offset = ThreadLocalRandom.current().nextInt(entityCount);
+        dataSource.begin();
+        try {
+            height++;
+            for (int i = 0; i < blockSize; i++) {
+                table.insert(new DataTag("tag" + (offset + i) % entityCount, height, height));
+            }
+            if (trim) {
+                table.trim(height - MAX_ROLLBACK);
+            }
+            dataSource.commit();
+        } catch (RuntimeException e) {
+            dataSource.rollback();
+            throw e;
+        }
+    }
+}
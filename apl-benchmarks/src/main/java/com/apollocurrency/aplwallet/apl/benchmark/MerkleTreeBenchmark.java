@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.benchmark;
+
+import com.apollocurrency.aplwallet.apl.core.shard.hash.MerkleTree;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Construction of the {@link MerkleTree}, which is used to calculate shard hash over all block signatures
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MerkleTreeBenchmark {
+    @Param({"1000", "100000"})
+    private int leavesCount;
+
+    private List<byte[]> data;
+    private byte[][] dataArray;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(leavesCount);
+        data = new ArrayList<>(leavesCount);
+        for (int i = 0; i < leavesCount; i++) {
+            byte[] blockSignature = new byte[64];
+            random.nextBytes(blockSignature);
+            data.add(blockSignature);
+        }
+        dataArray = data.toArray(new byte[0][]);
+    }
+
+    @Benchmark
+    public MerkleTree buildFromScratch() {
+        return new MerkleTree(Crypto.sha256(), data);
+    }
+
+    @Benchmark
+    public MerkleTree appendLeaves() {
+        MerkleTree tree = new MerkleTree(Crypto.sha256());
+        tree.appendLeaves(dataArray);
+        return tree;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.benchmark.BenchmarkContainer;
+import com.apollocurrency.aplwallet.apl.core.peer.PeerBinaryEncoding;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.util.AplException;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Json serialization of the block, which is done for every block sent to peers (GetNextBlocks, ProcessBlock)
+ * and for api responses, compared with the binary peer encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockBenchmark {
+    @Param({"0", "10", "255"})
+    private int transactionCount;
+
+    private BlockImpl block;
+
+    @Setup
+    public void setUp() throws AplException.NotValidException {
+        BenchmarkContainer.start();
+        List<Transaction> transactions = new ArrayList<>(transactionCount);
+        MessageDigest digest = Crypto.sha256();
+        long totalAmount = 0;
+        long totalFee = 0;
+        int payloadLength = 0;
+        for (int i = 1; i <= transactionCount; i++) {
+            TransactionImpl transaction = TransactionBenchmark.newPayment(i);
+            transactions.add(transaction);
+            digest.update(transaction.getBytes());
+            totalAmount += transaction.getAmountATM();
+            totalFee += transaction.getFeeATM();
+            payloadLength += transaction.getFullSize();
+        }
+        block = new BlockImpl(6, 10_000_100, 1L, totalAmount, totalFee, payloadLength, digest.digest(),
+                TransactionBenchmark.PUBLIC_KEY, new byte[32], new byte[32], 0, transactions, TransactionBenchmark.KEY_SEED);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContainer.shutdown();
+    }
+
+    @Benchmark
+    public JSONObject getJSONObject() {
+        return block.getJSONObject();
+    }
+
+    @Benchmark
+    public String toJSONString() {
+        return block.getJSONObject().toJSONString();
+    }
+
+    @Benchmark
+    public String toBinaryEncodedJSONString() {
+        return PeerBinaryEncoding.getBlockJSONObject(block).toJSONString();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.benchmark.BenchmarkContainer;
+import com.apollocurrency.aplwallet.apl.core.transaction.messages.Attachment;
+import com.apollocurrency.aplwallet.apl.core.transaction.messages.MessageAppendix;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.util.AplException;
+import org.json.simple.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction parsing and serialization, which is done for every transaction received from peers or api.
+ * <p>Placed into the core.app package to reach package private parsing methods of the {@link TransactionImpl}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+    static final byte[] KEY_SEED = Crypto.getKeySeed("benchmark secret phrase");
+    static final byte[] PUBLIC_KEY = Crypto.getPublicKey(KEY_SEED);
+
+    private TransactionImpl transaction;
+    private TransactionImpl.BuilderImpl builder;
+    private byte[] transactionBytes;
+    private JSONObject transactionJson;
+
+    @Setup
+    public void setUp() throws AplException.NotValidException {
+        BenchmarkContainer.start();
+        transaction = newPayment(1);
+        transactionBytes = transaction.getBytes();
+        transactionJson = transaction.getJSONObject();
+        builder = TransactionImpl.newTransactionBuilder(transactionBytes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkContainer.shutdown();
+    }
+
+    /**
+     * Create signed ordinary payment with a plain message, which is the most common transaction in the blockchain
+     * @param index transaction index, which makes message and recipient unique
+     * @return signed transaction with calculated id and full hash
+     */
+    static TransactionImpl newPayment(int index) throws AplException.NotValidException {
+        TransactionImpl transaction = new TransactionImpl.BuilderImpl((byte) 1, PUBLIC_KEY, 100_000_000L * index,
+                100_000_000L, (short) 1440, Attachment.ORDINARY_PAYMENT, 10_000_000 + index)
+                .recipientId(index)
+                .appendix(new MessageAppendix("Benchmark message " + index))
+                .ecBlockHeight(0)
+                .ecBlockId(0)
+                .build(KEY_SEED);
+        transaction.getId();
+        return transaction;
+    }
+
+    @Benchmark
+    public TransactionImpl parseBytes() throws AplException.NotValidException {
+        return TransactionImpl.newTransactionBuilder(transactionBytes).build();
+    }
+
+    @Benchmark
+    public TransactionImpl parseJson() throws AplException.NotValidException {
+        return TransactionImpl.parseTransaction(transactionJson);
+    }
+
+    /**
+     * Transaction caches own bytes, so the transaction is rebuilt from the prepared builder on each invocation
+     * to measure the serialization of the not yet serialized transaction, as it happens for the parsed ones.
+     */
+    @Benchmark
+    public byte[] serializeBytes() throws AplException.NotValidException {
+        return builder.build().getBytes();
+    }
+
+    @Benchmark
+    public JSONObject serializeJson() {
+        return transaction.getJSONObject();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw {@link Curve25519} primitives without hashing and array copying done by the {@link Crypto}.
+ * <p>Placed into the crypto package, because Curve25519 is package private</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Curve25519Benchmark {
+    private byte[] keySeed;
+    private byte[] publicKey;
+    private byte[] signingKey;
+    private byte[] x;
+    private byte[] h;
+    private byte[] v;
+    private byte[] theirPublicKey;
+    private byte[] privateKey;
+
+    @Setup
+    public void setUp() {
+        MessageDigest digest = Crypto.sha256();
+        keySeed = digest.digest("benchmark secret phrase".getBytes());
+        publicKey = new byte[32];
+        signingKey = new byte[32];
+        Curve25519.keygen(publicKey, signingKey, keySeed.clone());
+
+        byte[] m = digest.digest("benchmark message".getBytes());
+        digest.update(m);
+        x = digest.digest(signingKey);
+        byte[] y = new byte[32];
+        Curve25519.keygen(y, null, x.clone());
+        digest.update(m);
+        h = digest.digest(y);
+        v = new byte[32];
+        Curve25519.sign(v, h, x, signingKey);
+
+        privateKey = Crypto.getPrivateKey(keySeed);
+        theirPublicKey = Crypto.getPublicKey("another benchmark secret phrase");
+    }
+
+    @Benchmark
+    public byte[] keygen() {
+        byte[] p = new byte[32];
+        Curve25519.keygen(p, null, keySeed.clone());
+        return p;
+    }
+
+    @Benchmark
+    public byte[] sign() {
+        byte[] signature = new byte[32];
+        Curve25519.sign(signature, h, x, signingKey);
+        return signature;
+    }
+
+    @Benchmark
+    public byte[] verify() {
+        byte[] y = new byte[32];
+        Curve25519.verify(y, v, h, publicKey);
+        return y;
+    }
+
+    @Benchmark
+    public byte[] curve() {
+        byte[] sharedSecret = new byte[32];
+        Curve25519.curve(sharedSecret, privateKey, theirPublicKey);
+        return sharedSecret;
+    }
+}
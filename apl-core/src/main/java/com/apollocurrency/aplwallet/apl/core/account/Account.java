@@ -61,14 +61,13 @@ import javax.enterprise.event.Observes;
 import javax.enterprise.inject.spi.CDI;
 import javax.inject.Singleton;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static com.apollocurrency.aplwallet.apl.util.ThreadUtils.last3Stacktrace;
@@ -107,7 +106,7 @@ public class Account {
     private static AccountGuaranteedBalanceTable guaranteedBalanceTable;
     private static AccountPropertyTable accountPropertyTable;
 
-    private static Cache<DbKey, PublicKey> publicKeyCache = null;
+    private static Cache<Long, PublicKey> publicKeyCache = null;
            
     
     private static final Listeners<Account, Event> listeners = new Listeners<>();
@@ -134,7 +133,7 @@ public class Account {
                             PublicKeyTable pkTable,
                             AccountTable accTable,
                             AccountGuaranteedBalanceTable accountGuaranteedBalanceTable,
-                            Cache<DbKey, PublicKey> cache
+                            Cache<Long, PublicKey> cache
     ) {
         databaseManager = databaseManagerParam;
         blockchainProcessor = blockchainProcessorParam;
@@ -177,16 +176,16 @@ public class Account {
 
         public void onBlockPopped(@Observes @BlockEvent(BlockEventType.BLOCK_POPPED) Block block) {
             if (publicKeyCache != null) {
-                publicKeyCache.invalidate(AccountTable.newKey(block.getGeneratorId()));
+                publicKeyCache.invalidate(block.getGeneratorId());
                 block.getOrLoadTransactions().forEach(transaction -> {
-                    publicKeyCache.invalidate(AccountTable.newKey(transaction.getSenderId()));
+                    publicKeyCache.invalidate(transaction.getSenderId());
                     if (!transaction.getAppendages(appendix -> (appendix instanceof PublicKeyAnnouncementAppendix), false).isEmpty()) {
-                        publicKeyCache.invalidate(AccountTable.newKey(transaction.getRecipientId()));
+                        publicKeyCache.invalidate(transaction.getRecipientId());
                     }
                     if (transaction.getType() == ShufflingTransaction.SHUFFLING_RECIPIENTS) {
                         ShufflingRecipientsAttachment shufflingRecipients = (ShufflingRecipientsAttachment) transaction.getAttachment();
                         for (byte[] publicKey : shufflingRecipients.getRecipientPublicKeys()) {
-                            publicKeyCache.invalidate(AccountTable.newKey(Account.getId(publicKey)));
+                            publicKeyCache.invalidate(Account.getId(publicKey));
                         }
                     }
                 });
@@ -416,9 +415,9 @@ public class Account {
                 if (publicKeyCache != null) {
                     //TODO: what if insert above fails?
                     if (isGenesis) {
-                        publicKeyCache.put(dbKey, genesisPublicKeyTable.get(dbKey, true));
+                        publicKeyCache.put(cacheKey(dbKey), genesisPublicKeyTable.get(dbKey, true));
                     } else {
-                        publicKeyCache.put(dbKey, publicKeyTable.get(dbKey, true));
+                        publicKeyCache.put(cacheKey(dbKey), publicKeyTable.get(dbKey, true));
                     }
                 }
             }
@@ -430,7 +429,7 @@ public class Account {
     private static PublicKey getPublicKey(DbKey dbKey) {
         PublicKey publicKey = null;
         if (publicKeyCache != null) {
-            publicKey = publicKeyCache.getIfPresent(dbKey);
+            publicKey = publicKeyCache.getIfPresent(cacheKey(dbKey));
         }
         if (publicKey == null) {
             publicKey = publicKeyTable.get(dbKey);
@@ -438,7 +437,7 @@ public class Account {
                 publicKey = genesisPublicKeyTable.get(dbKey);
             }
             if (publicKey != null && publicKeyCache != null) {
-                publicKeyCache.put(dbKey, publicKey);
+                publicKeyCache.put(cacheKey(dbKey), publicKey);
             }
         }
         return publicKey;
@@ -485,7 +484,7 @@ public class Account {
             publicKey.publicKey = key;
             publicKey.setHeight(blockchain.getHeight());
             if (publicKeyCache != null) {
-                publicKeyCache.put(dbKey, publicKey);
+                publicKeyCache.put(cacheKey(dbKey), publicKey);
             }
             return true;
         }
@@ -614,45 +613,18 @@ public class Account {
                 lessors.add(iterator.next());
             }
         }
-        Long[] lessorIds = new Long[lessors.size()];
-        long[] balances = new long[lessors.size()];
-        for (int i = 0; i < lessors.size(); i++) {
-            lessorIds[i] = lessors.get(i).getId();
-            balances[i] = lessors.get(i).getBalanceATM();
+        List<Long> lessorIds = new ArrayList<>(lessors.size());
+        for (Account lessor : lessors) {
+            lessorIds.add(lessor.getId());
         }
         int blockchainHeight = blockchain.getHeight();
-        TransactionalDataSource dataSource = databaseManager.getDataSource();
-        try (Connection con = dataSource.getConnection();
-             PreparedStatement pstmt = con.prepareStatement("SELECT account_id, SUM (additions) AS additions "
-                     + "FROM account_guaranteed_balance, TABLE (id BIGINT=?) T WHERE account_id = T.id AND height > ? "
-                     + (height < blockchainHeight ? " AND height <= ? " : "")
-                     + " GROUP BY account_id ORDER BY account_id")) {
-            pstmt.setObject(1, lessorIds);
-            pstmt.setInt(2, height - blockchainConfig.getGuaranteedBalanceConfirmations());
-            if (height < blockchainHeight) {
-                pstmt.setInt(3, height);
-            }
-            long total = 0;
-            int i = 0;
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    long accountId = rs.getLong("account_id");
-                    while (lessorIds[i] < accountId && i < lessorIds.length) {
-                        total += balances[i++];
-                    }
-                    if (lessorIds[i] == accountId) {
-                        total += Math.max(balances[i++] - rs.getLong("additions"), 0);
-                    }
-                }
-            }
-            while (i < balances.length) {
-                total += balances[i++];
-            }
-            return total;
-        }
-        catch (SQLException e) {
-            throw new RuntimeException(e.toString(), e);
+        Map<Long, Long> lessorsAdditions = guaranteedBalanceTable.getAdditions(lessorIds,
+                height - blockchainConfig.getGuaranteedBalanceConfirmations(), height < blockchainHeight ? height : Integer.MAX_VALUE);
+        long total = 0;
+        for (Account lessor : lessors) {
+            total += Math.max(lessor.getBalanceATM() - lessorsAdditions.getOrDefault(lessor.getId(), 0L), 0);
         }
+        return total;
     }
 
     public DbIterator<Account> getLessors() {
@@ -678,23 +650,8 @@ public class Account {
                         height, blockchain.getHeight());
                 throw new IllegalArgumentException("Height " + height + " not available for guaranteed balance calculation, blockchain.Height=" + blockchain.getHeight());
             }
-            TransactionalDataSource dataSource = databaseManager.getDataSource();
-            try (Connection con = dataSource.getConnection();
-                 PreparedStatement pstmt = con.prepareStatement("SELECT SUM (additions) AS additions "
-                         + "FROM account_guaranteed_balance WHERE account_id = ? AND height > ? AND height <= ?")) {
-                pstmt.setLong(1, this.id);
-                pstmt.setInt(2, height);
-                pstmt.setInt(3, currentHeight);
-                try (ResultSet rs = pstmt.executeQuery()) {
-                    if (!rs.next()) {
-                        return balanceATM;
-                    }
-                    return Math.max(Math.subtractExact(balanceATM, rs.getLong("additions")), 0);
-                }
-            }
-            catch (SQLException e) {
-                throw new RuntimeException(e.toString(), e);
-            }
+            long additions = guaranteedBalanceTable.getAdditions(this.id, height, currentHeight);
+            return Math.max(Math.subtractExact(balanceATM, additions), 0);
         }
         finally {
             sync.readUnlock();
@@ -858,7 +815,7 @@ public class Account {
         t.setDbKey(new LongKey(accountId));
         genesisPublicKeyTable.insert(t);
         if (publicKeyCache != null) {
-            publicKeyCache.put(t.getDbKey(), t);
+            publicKeyCache.put(accountId, t);
         }
     }
 
@@ -889,7 +846,7 @@ public class Account {
             }
         } else {
             if (publicKeyCache != null) {
-                publicKeyCache.put(dbKey, publicKey);
+                publicKeyCache.put(cacheKey(dbKey), publicKey);
             }
         }
         this.publicKey = publicKey;
@@ -898,10 +855,17 @@ public class Account {
     private void updateInCache(DbKey dbKey) {
         PublicKey key = publicKeyTable.get(dbKey, true);
         if (key != null) {
-            publicKeyCache.put(dbKey, key);
+            publicKeyCache.put(cacheKey(dbKey), key);
         }
     }
 
+    /**
+     * Public keys are cached in the Guava cache by the account id, cache key is boxed {@link Long}
+     */
+    private static long cacheKey(DbKey dbKey) {
+        return ((LongKey) dbKey).getId();
+    }
+
     public void addToAssetBalanceATU(LedgerEvent event, long eventId, long assetId, long quantityATU) {
         if (quantityATU == 0) {
             return;
@@ -1172,29 +1136,7 @@ public class Account {
         if (amountATM <= 0) {
             return;
         }
-        int blockchainHeight = blockchain.getHeight();
-        TransactionalDataSource dataSource = databaseManager.getDataSource();
-        try (Connection con = dataSource.getConnection();
-             PreparedStatement pstmtSelect = con.prepareStatement("SELECT additions FROM account_guaranteed_balance "
-                     + "WHERE account_id = ? and height = ?");
-             PreparedStatement pstmtUpdate = con.prepareStatement("MERGE INTO account_guaranteed_balance (account_id, "
-                     + " additions, height) KEY (account_id, height) VALUES(?, ?, ?)")) {
-            pstmtSelect.setLong(1, this.id);
-            pstmtSelect.setInt(2, blockchainHeight);
-            try (ResultSet rs = pstmtSelect.executeQuery()) {
-                long additions = amountATM;
-                if (rs.next()) {
-                    additions = Math.addExact(additions, rs.getLong("additions"));
-                }
-                pstmtUpdate.setLong(1, this.id);
-                pstmtUpdate.setLong(2, additions);
-                pstmtUpdate.setInt(3, blockchainHeight);
-                pstmtUpdate.executeUpdate();
-            }
-        }
-        catch (SQLException e) {
-            throw new RuntimeException(e.toString(), e);
-        }
+        guaranteedBalanceTable.addToGuaranteedBalanceATM(this.id, amountATM, blockchain.getHeight());
     }
 
     public void payDividends(final long transactionId, ColoredCoinsDividendPayment attachment) {
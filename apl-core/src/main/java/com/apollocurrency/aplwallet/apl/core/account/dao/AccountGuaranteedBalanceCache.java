@@ -0,0 +1,117 @@
+/*
+ *  Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.account.dao;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory copy of the account_guaranteed_balance table: per-account additions by height.
+ * <p>Additions are indexed by account and by height, so that the sum over the guaranteed balance window is computed
+ * over the account additions only and rollback/trim touch only the accounts with additions at the affected heights.
+ * Cache does not know anything about db transactions, consistency with the table is maintained
+ * by the {@link AccountGuaranteedBalanceTable}</p>
+ */
+public class AccountGuaranteedBalanceCache {
+    private final Map<Long, NavigableMap<Integer, Long>> accountAdditions = new HashMap<>();
+    private final NavigableMap<Integer, Set<Long>> heightAccounts = new TreeMap<>();
+
+    /**
+     * Add amount to the account additions at the given height
+     * @param accountId id of the account
+     * @param amountATM positive amount to add
+     * @param height blockchain height of the addition
+     */
+    public synchronized void add(long accountId, long amountATM, int height) {
+        accountAdditions.computeIfAbsent(accountId, id -> new TreeMap<>()).merge(height, amountATM, Math::addExact);
+        heightAccounts.computeIfAbsent(height, h -> new HashSet<>()).add(accountId);
+    }
+
+    /**
+     * @param accountId id of the account
+     * @param fromHeight exclusive lower bound of the window
+     * @param toHeight inclusive upper bound of the window
+     * @return sum of the account additions within the window or 0, when there are no additions
+     */
+    public synchronized long getAdditions(long accountId, int fromHeight, int toHeight) {
+        NavigableMap<Integer, Long> additions = accountAdditions.get(accountId);
+        if (additions == null || fromHeight >= toHeight) {
+            return 0;
+        }
+        long sum = 0;
+        for (long amount : additions.subMap(fromHeight, false, toHeight, true).values()) {
+            sum = Math.addExact(sum, amount);
+        }
+        return sum;
+    }
+
+    /**
+     * @param accountIds ids of the accounts
+     * @param fromHeight exclusive lower bound of the window
+     * @param toHeight inclusive upper bound of the window
+     * @return sums of the additions within the window for the accounts, which have such additions
+     */
+    public synchronized Map<Long, Long> getAdditions(Collection<Long> accountIds, int fromHeight, int toHeight) {
+        Map<Long, Long> result = new HashMap<>();
+        for (Long accountId : accountIds) {
+            long additions = getAdditions(accountId, fromHeight, toHeight);
+            if (additions != 0) {
+                result.put(accountId, additions);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove additions above the given height
+     * @param height height to rollback to, inclusive
+     */
+    public synchronized void rollback(int height) {
+        removeHeights(heightAccounts.tailMap(height, false));
+    }
+
+    /**
+     * Remove additions below the given height
+     * @param height lowest height to keep
+     */
+    public synchronized void trim(int height) {
+        removeHeights(heightAccounts.headMap(height, false));
+    }
+
+    public synchronized void clear() {
+        accountAdditions.clear();
+        heightAccounts.clear();
+    }
+
+    /**
+     * @return number of the stored (account, height) additions
+     */
+    public synchronized int size() {
+        return accountAdditions.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private void removeHeights(NavigableMap<Integer, Set<Long>> heights) {
+        Iterator<Map.Entry<Integer, Set<Long>>> iterator = heights.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Set<Long>> entry = iterator.next();
+            for (Long accountId : entry.getValue()) {
+                NavigableMap<Integer, Long> additions = accountAdditions.get(accountId);
+                if (additions != null) {
+                    additions.remove(entry.getKey());
+                    if (additions.isEmpty()) {
+                        accountAdditions.remove(accountId);
+                    }
+                }
+            }
+            iterator.remove();
+        }
+    }
+}
@@ -7,22 +7,49 @@ package com.apollocurrency.aplwallet.apl.core.account.dao;
 import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
 import com.apollocurrency.aplwallet.apl.core.db.DbKey;
 import com.apollocurrency.aplwallet.apl.core.db.LongKeyFactory;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
 import com.apollocurrency.aplwallet.apl.core.db.derived.DerivedDbTable;
 import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.core.shard.DbHotSwapConfig;
 import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+/**
+ * Guaranteed balance additions of the accounts by height.
+ * <p>When enabled, whole table is mirrored by the in-memory {@link AccountGuaranteedBalanceCache}, so that guaranteed
+ * and effective balance calculations do not query the db. Cache contains only committed data: table modifications
+ * of the db transaction are buffered and applied to the cache when the transaction is committed. Thread, which
+ * has uncommitted modifications, reads from the db to see them. Cache is loaded lazily, when there are no
+ * uncommitted modifications of the table.</p>
+ */
 @Singleton
 public class AccountGuaranteedBalanceTable extends DerivedDbTable {
     private static final String TABLE_NAME = "account_guaranteed_balance";
     private BlockchainConfig blockchainConfig;
     private int batchCommitSize;
+    private final AccountGuaranteedBalanceCache cache;
+    private volatile boolean cacheLoaded;
+    /**
+     * Cache changes of the current thread db transaction, which are not committed yet
+     */
+    private final ThreadLocal<List<Consumer<AccountGuaranteedBalanceCache>>> pendingChanges = new ThreadLocal<>();
+    /**
+     * Number of the db transactions with pending cache changes, guarded by the cache
+     */
+    private int transactionsInProgress;
 
     private static final LongKeyFactory<AccountGuaranteedBalance>
             accountGuaranteedBalanceLongKeyFactory = new LongKeyFactory<>("account_id") {
@@ -42,18 +69,233 @@ public class AccountGuaranteedBalanceTable extends DerivedDbTable {
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmtDelete = con.prepareStatement("DELETE FROM account_guaranteed_balance "
                      + "WHERE height < ? AND height >= 0 LIMIT " + batchCommitSize)) {
-            pstmtDelete.setInt(1, height - blockchainConfig.getGuaranteedBalanceConfirmations());
+            int trimHeight = height - blockchainConfig.getGuaranteedBalanceConfirmations();
+            pstmtDelete.setInt(1, trimHeight);
             int count;
             do {
                 count = pstmtDelete.executeUpdate();
                 dataSource.commit(false);
             } while (count >= batchCommitSize);
+            // trim is idempotent and is applied to the cache with the next commit
+            if (!recordChange(additions -> additions.trim(trimHeight))) {
+                invalidateCache();
+            }
+        }
+        catch (SQLException e) {
+            throw new RuntimeException(e.toString(), e);
+        }
+    }
+
+    @Override
+    public void rollback(int height) {
+        boolean recorded = recordChange(additions -> additions.rollback(height));
+        super.rollback(height);
+        if (!recorded) {
+            invalidateCache();
+        }
+    }
+
+    @Override
+    public void truncate() {
+        boolean recorded = recordChange(AccountGuaranteedBalanceCache::clear);
+        super.truncate();
+        if (!recorded) {
+            invalidateCache();
+        }
+    }
+
+    public void onDbHotSwapBegin(@Observes DbHotSwapConfig dbHotSwapConfig) {
+        invalidateCache();
+    }
+
+    /**
+     * Add amount to the account guaranteed balance additions at the given height
+     * @param accountId id of the account
+     * @param amountATM positive amount
+     * @param height current blockchain height
+     */
+    public void addToGuaranteedBalanceATM(long accountId, long amountATM, int height) {
+        boolean recorded = recordChange(additions -> additions.add(accountId, amountATM, height));
+        TransactionalDataSource dataSource = getDatabaseManager().getDataSource();
+        try (Connection con = dataSource.getConnection();
+             PreparedStatement pstmtSelect = con.prepareStatement("SELECT additions FROM account_guaranteed_balance "
+                     + "WHERE account_id = ? and height = ?");
+             PreparedStatement pstmtUpdate = con.prepareStatement("MERGE INTO account_guaranteed_balance (account_id, "
+                     + " additions, height) KEY (account_id, height) VALUES(?, ?, ?)")) {
+            pstmtSelect.setLong(1, accountId);
+            pstmtSelect.setInt(2, height);
+            try (ResultSet rs = pstmtSelect.executeQuery()) {
+                long additions = amountATM;
+                if (rs.next()) {
+                    additions = Math.addExact(additions, rs.getLong("additions"));
+                }
+                pstmtUpdate.setLong(1, accountId);
+                pstmtUpdate.setLong(2, additions);
+                pstmtUpdate.setInt(3, height);
+                pstmtUpdate.executeUpdate();
+            }
+        }
+        catch (SQLException e) {
+            throw new RuntimeException(e.toString(), e);
+        }
+        if (!recorded) {
+            invalidateCache();
+        }
+    }
+
+    /**
+     * @param accountId id of the account
+     * @param fromHeight exclusive lower bound of the heights
+     * @param toHeight inclusive upper bound of the heights
+     * @return sum of the account additions within the given heights
+     */
+    public long getAdditions(long accountId, int fromHeight, int toHeight) {
+        if (loadCache()) {
+            return cache.getAdditions(accountId, fromHeight, toHeight);
+        }
+        TransactionalDataSource dataSource = getDatabaseManager().getDataSource();
+        try (Connection con = dataSource.getConnection();
+             PreparedStatement pstmt = con.prepareStatement("SELECT SUM (additions) AS additions "
+                     + "FROM account_guaranteed_balance WHERE account_id = ? AND height > ? AND height <= ?")) {
+            pstmt.setLong(1, accountId);
+            pstmt.setInt(2, fromHeight);
+            pstmt.setInt(3, toHeight);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong("additions") : 0;
+            }
+        }
+        catch (SQLException e) {
+            throw new RuntimeException(e.toString(), e);
+        }
+    }
+
+    /**
+     * @param accountIds ids of the accounts
+     * @param fromHeight exclusive lower bound of the heights
+     * @param toHeight inclusive upper bound of the heights
+     * @return sums of the additions within the given heights for the accounts, which have such additions
+     */
+    public Map<Long, Long> getAdditions(Collection<Long> accountIds, int fromHeight, int toHeight) {
+        if (loadCache()) {
+            return cache.getAdditions(accountIds, fromHeight, toHeight);
+        }
+        Map<Long, Long> result = new HashMap<>();
+        if (accountIds.isEmpty()) {
+            return result;
+        }
+        TransactionalDataSource dataSource = getDatabaseManager().getDataSource();
+        try (Connection con = dataSource.getConnection();
+             PreparedStatement pstmt = con.prepareStatement("SELECT account_id, SUM (additions) AS additions "
+                     + "FROM account_guaranteed_balance, TABLE (id BIGINT=?) T WHERE account_id = T.id AND height > ? "
+                     + "AND height <= ? GROUP BY account_id")) {
+            pstmt.setObject(1, accountIds.toArray(new Long[0]));
+            pstmt.setInt(2, fromHeight);
+            pstmt.setInt(3, toHeight);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getLong("account_id"), rs.getLong("additions"));
+                }
+            }
+            return result;
         }
         catch (SQLException e) {
             throw new RuntimeException(e.toString(), e);
         }
     }
 
+    /**
+     * Load cache from the db, when it is enabled and is not loaded yet
+     * @return true when cache can be used by the current thread, false when db should be used
+     */
+    private boolean loadCache() {
+        if (cache == null || pendingChanges.get() != null) {
+            // uncommitted changes of the current transaction are visible only in the db
+            return false;
+        }
+        if (!cacheLoaded) {
+            synchronized (cache) {
+                if (!cacheLoaded) {
+                    if (transactionsInProgress > 0) {
+                        // db contains uncommitted changes of another transaction
+                        return false;
+                    }
+                    cache.clear();
+                    TransactionalDataSource dataSource = getDatabaseManager().getDataSource();
+                    try (Connection con = dataSource.getConnection();
+                         PreparedStatement pstmt = con.prepareStatement("SELECT account_id, additions, height FROM account_guaranteed_balance");
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            cache.add(rs.getLong("account_id"), rs.getLong("additions"), rs.getInt("height"));
+                        }
+                    }
+                    catch (SQLException e) {
+                        throw new RuntimeException(e.toString(), e);
+                    }
+                    cacheLoaded = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Buffer cache change of the current db transaction until the transaction is committed. Should be called before
+     * the table modification, so that cache is not loaded from the uncommitted data meanwhile.
+     * @param change change to apply to the cache on commit
+     * @return true when change is buffered, false when cache is disabled or modification is not transactional,
+     * so that cache should be invalidated after the modification
+     */
+    private boolean recordChange(Consumer<AccountGuaranteedBalanceCache> change) {
+        TransactionalDataSource dataSource = getDatabaseManager().getDataSource();
+        if (cache == null || !dataSource.isInTransaction()) {
+            return false;
+        }
+        List<Consumer<AccountGuaranteedBalanceCache>> changes = pendingChanges.get();
+        if (changes == null) {
+            changes = new ArrayList<>();
+            synchronized (cache) {
+                transactionsInProgress++;
+            }
+            pendingChanges.set(changes);
+            dataSource.registerCallback(new TransactionCallback() {
+                @Override
+                public void commit() {
+                    completeChanges(true);
+                }
+
+                @Override
+                public void rollback() {
+                    completeChanges(false);
+                }
+            });
+        }
+        changes.add(change);
+        return true;
+    }
+
+    private void completeChanges(boolean commit) {
+        List<Consumer<AccountGuaranteedBalanceCache>> changes = pendingChanges.get();
+        if (changes == null) {
+            return;
+        }
+        pendingChanges.remove();
+        synchronized (cache) {
+            transactionsInProgress--;
+            if (commit && cacheLoaded) {
+                changes.forEach(change -> change.accept(cache));
+            }
+        }
+    }
+
+    private void invalidateCache() {
+        if (cache != null) {
+            synchronized (cache) {
+                cacheLoaded = false;
+                cache.clear();
+            }
+        }
+    }
+
     @Override
     public AccountGuaranteedBalance load(Connection con, ResultSet rs, DbKey dbKey) throws SQLException {
         return new AccountGuaranteedBalance(rs, dbKey);
@@ -64,5 +306,6 @@ public class AccountGuaranteedBalanceTable extends DerivedDbTable {
         super(TABLE_NAME, false);
         this.blockchainConfig = blockchainConfig;
         this.batchCommitSize = propertiesHolder.BATCH_COMMIT_SIZE();
+        this.cache = propertiesHolder.getBooleanProperty("apl.enableGuaranteedBalanceCache", true) ? new AccountGuaranteedBalanceCache() : null;
     }
 }
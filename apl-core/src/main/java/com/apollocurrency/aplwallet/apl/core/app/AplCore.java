@@ -30,10 +30,10 @@ import com.apollocurrency.aplwallet.apl.core.account.dao.AccountGuaranteedBalanc
 import com.apollocurrency.aplwallet.apl.core.addons.AddOns;
 import com.apollocurrency.aplwallet.apl.core.app.mint.CurrencyMint;
 import com.apollocurrency.aplwallet.apl.core.cache.PublicKeyCacheConfig;
+import com.apollocurrency.aplwallet.apl.core.cache.SignatureCacheConfig;
 import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
 import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfigUpdater;
 import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
-import com.apollocurrency.aplwallet.apl.core.db.DbKey;
 import com.apollocurrency.aplwallet.apl.core.db.fulltext.FullTextSearchService;
 import com.apollocurrency.aplwallet.apl.core.http.API;
 import com.apollocurrency.aplwallet.apl.core.http.APIProxy;
@@ -92,14 +92,14 @@ public final class AplCore {
 
     private TimeService time;
     private Blockchain blockchain;
-    private BlockchainProcessor blockchainProcessor;
-    private DatabaseManager databaseManager;
-    private FullTextSearchService fullTextSearchService;
+    private volatile BlockchainProcessor blockchainProcessor;
+    private volatile DatabaseManager databaseManager;
+    private volatile FullTextSearchService fullTextSearchService;
     private static BlockchainConfig blockchainConfig;
-    private static TransportInteractionService transportInteractionService;
+    private static volatile TransportInteractionService transportInteractionService;
 
-    private API apiServer;
-    private IDexMatcherInterface tcs;
+    private volatile API apiServer;
+    private volatile IDexMatcherInterface tcs;
 
     @Inject @Setter
     private PropertiesHolder propertiesHolder;
@@ -157,6 +157,8 @@ public final class AplCore {
             blockchainProcessor.shutdown();
             LOG.info("blockchainProcessor Shutdown...");
         }
+        CDI.current().select(TransactionProcessor.class).get().shutdown();
+        LOG.info("transactionProcessor Shutdown...");
         peers.shutdown();
         fullTextSearchService.shutdown();
         LOG.info("full text service shutdown...");
@@ -181,6 +183,15 @@ public final class AplCore {
 
     private static volatile boolean initialized = false;
 
+    private static final String UPNP_STEP = "UPnP";
+    private static final String DATABASE_STEP = "Database";
+    private static final String FULL_TEXT_SEARCH_STEP = "Full text search";
+    private static final String MIGRATION_STEP = "Apollo Data migration";
+    private static final String GENESIS_STEP = "Genesis accounts";
+    private static final String EXCHANGE_MATCHER_STEP = "Exchange matcher";
+    private static final String PEERS_STEP = "Peer services";
+    private static final String CORE_CLASSES_STEP = "Apollo core classes";
+
 
     private void startUp() {
 
@@ -193,114 +204,75 @@ public final class AplCore {
             try {
                 long startTime = System.currentTimeMillis();
                 checkPorts();
+                AplCoreRuntime.logSystemProperties();
+                Thread secureRandomInitThread = initSecureRandom();
+
+                StartupTaskGraph startupGraph = new StartupTaskGraph(aplAppStatus, initCoreTaskID, 1.0, 70.0,
+                        propertiesHolder.getIntProperty("apl.startupThreads", 4));
                 //TODO: move to application level this UPnP initialization
                 boolean enablePeerUPnP = propertiesHolder.getBooleanProperty("apl.enablePeerUPnP");
                 boolean enableAPIUPnP = propertiesHolder.getBooleanProperty("apl.enableAPIUPnP");
                 if(enableAPIUPnP || enablePeerUPnP){
-                    UPnP.TIMEOUT = propertiesHolder.getIntProperty("apl.upnpDiscoverTimeout",3000);
-                    UPnP upnp = CDI.current().select(UPnP.class).get();
-                    String upnpTid=aplAppStatus.durableTaskStart("UPnP init", "Tryin to get UPnP router",false);
-                    upnp.init();
-                    aplAppStatus.durableTaskFinished(upnpTid, false, "UPnP init done");
+                    startupGraph.add(UPNP_STEP, () -> {
+                        UPnP.TIMEOUT = propertiesHolder.getIntProperty("apl.upnpDiscoverTimeout",3000);
+                        UPnP upnp = CDI.current().select(UPnP.class).get();
+                        String upnpTid=aplAppStatus.durableTaskStart("UPnP init", "Tryin to get UPnP router",false);
+                        upnp.init();
+                        aplAppStatus.durableTaskFinished(upnpTid, false, "UPnP init done");
+                    });
                 }
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  1.0, "API initialization");
-
                 //try to start API as early as possible
-                apiServer = CDI.current().select(API.class).get();
-                apiServer.start();
-
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  5.0, "API initialization done");
-
+                startupGraph.add("API", () -> {
+                    apiServer = CDI.current().select(API.class).get();
+                    apiServer.start();
+                }, enableAPIUPnP ? new String[]{UPNP_STEP} : new String[0]);
 
 //                CDI.current().select(NtpTime.class).get().start();
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  5.5, "Transport control service initialization");
-                transportInteractionService = CDI.current().select(TransportInteractionService.class).get();
-                transportInteractionService.start();
-
-                AplCoreRuntime.logSystemProperties();
-                Thread secureRandomInitThread = initSecureRandom();
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  6.0, "Database initialization");
-
-//                DbProperties dbProperties = CDI.current().select(DbProperties.class).get();
-                databaseManager = CDI.current().select(DatabaseManager.class).get();
-                databaseManager.getDataSource();
-                CDI.current().select(BlockchainConfigUpdater.class).get().updateToLatestConfig();
-                fullTextSearchService = CDI.current().select(FullTextSearchService.class).get();
-                fullTextSearchService.init(); // first time BEFORE migration
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  30.0, "Database initialization done");
-                aplAppStatus.durableTaskUpdate(initCoreTaskID, 30.1, "Apollo Data migration started");
-
-                ApplicationDataMigrationManager migrationManager = CDI.current().select(ApplicationDataMigrationManager.class).get();
-                migrationManager.executeDataMigration();
-                BlockchainConfigUpdater blockchainConfigUpdater = CDI.current().select(BlockchainConfigUpdater.class).get();
-                blockchainConfigUpdater.updateToLatestConfig(); // update config for migrated db
-
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  50.0, "Apollo Data migration done");
-
-                databaseManager.getDataSource(); // retrieve again after migration to have it fresh for everyone
-
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  50.1, "Apollo core cleaases initialization");
-
-
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  52.5, "Exchange matcher initialization");
-
-                tcs = CDI.current().select(IDexMatcherInterface.class).get();
-                tcs.initialize();
-
-
-                TransactionProcessor transactionProcessor = CDI.current().select(TransactionProcessor.class).get();
-                bcValidator = CDI.current().select(DefaultBlockValidator.class).get();
-                blockchainProcessor = CDI.current().select(BlockchainProcessorImpl.class).get();
-                blockchainConfig = CDI.current().select(BlockchainConfig.class).get();
-                blockchain = CDI.current().select(BlockchainImpl.class).get();
-                GlobalSync sync = CDI.current().select(GlobalSync.class).get();
-                peers.init();
-                transactionProcessor.init();
-                PublicKeyTable publicKeyTable = CDI.current().select(PublicKeyTable.class).get();
-                AccountTable accountTable = CDI.current().select(AccountTable.class).get();
-                AccountGuaranteedBalanceTable guaranteedBalanceTable = CDI.current().select(AccountGuaranteedBalanceTable.class).get();
-                //Account initialization
-                Cache<DbKey, PublicKey> publicKeyCache = null;
-                if (propertiesHolder.getBooleanProperty("apl.enablePublicKeyCache")) {
-                    log.debug("'{}' is TURNED ON...", PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
-                    publicKeyCache = cacheManager.acquireCache(PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
-                } else {
-                    log.info("'{}' is TURNED OFF...", PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
-                }
-                Account.init(databaseManager, propertiesHolder, blockchainProcessor, blockchainConfig, blockchain, sync, publicKeyTable, accountTable, guaranteedBalanceTable, publicKeyCache);
-                GenesisAccounts.init();
-                AccountRestrictions.init();
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  55.0, "Apollo Account ledger initialization");
-                AccountLedger.init(databaseManager);
-                Alias.init();
-                Asset.init();
-//                DigitalGoodsStore.init();
-                Order.init();
-                Poll.init();
-                Trade.init();
-                AssetTransfer.init(databaseManager);
-                AssetDelete.init();
-                AssetDividend.init();
-                Vote.init();
-                Currency.init();
-                CurrencyExchangeOffer.init();
-                CurrencyBuyOffer.init();
-                CurrencySellOffer.init();
-                CurrencyFounder.init();
-                CurrencyMint.init();
-                CurrencyTransfer.init();
-                Exchange.init();
-                ExchangeRequest.init();
-                Shuffling.init();
-                ShufflingParticipant.init();
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  60.0, "Apollo Account ledger initialization done");
-                aplAppStatus.durableTaskUpdate(initCoreTaskID,  61.0, "Apollo Peer services initialization started");
-                APIProxy.init();
-                Generator.init();
-                AddOns.init();
-                Helper2FA.init(databaseManager);
-                // do one time '2fa data' migration from db into files. That method is safe for multiple repeatable calls
-                Helper2FA.attemptMoveDataFromDatabase();
+                startupGraph.add("Transport control service", () -> {
+                    transportInteractionService = CDI.current().select(TransportInteractionService.class).get();
+                    transportInteractionService.start();
+                });
+
+                startupGraph.add(DATABASE_STEP, () -> {
+//                    DbProperties dbProperties = CDI.current().select(DbProperties.class).get();
+                    databaseManager = CDI.current().select(DatabaseManager.class).get();
+                    databaseManager.getDataSource();
+                    CDI.current().select(BlockchainConfigUpdater.class).get().updateToLatestConfig();
+                });
+                startupGraph.add(FULL_TEXT_SEARCH_STEP, () -> {
+                    fullTextSearchService = CDI.current().select(FullTextSearchService.class).get();
+                    fullTextSearchService.init(); // first time BEFORE migration
+                }, DATABASE_STEP);
+                startupGraph.add(GENESIS_STEP, GenesisAccounts::init, DATABASE_STEP);
+                // db migration reinitializes full text search
+                startupGraph.add(MIGRATION_STEP, () -> {
+                    ApplicationDataMigrationManager migrationManager = CDI.current().select(ApplicationDataMigrationManager.class).get();
+                    migrationManager.executeDataMigration();
+                    BlockchainConfigUpdater blockchainConfigUpdater = CDI.current().select(BlockchainConfigUpdater.class).get();
+                    blockchainConfigUpdater.updateToLatestConfig(); // update config for migrated db
+                    databaseManager.getDataSource(); // retrieve again after migration to have it fresh for everyone
+                }, FULL_TEXT_SEARCH_STEP);
+
+                startupGraph.add(EXCHANGE_MATCHER_STEP, () -> {
+                    tcs = CDI.current().select(IDexMatcherInterface.class).get();
+                    tcs.initialize();
+                }, MIGRATION_STEP);
+                startupGraph.add(PEERS_STEP, () -> peers.init(),
+                        enablePeerUPnP ? new String[]{MIGRATION_STEP, UPNP_STEP} : new String[]{MIGRATION_STEP});
+                // static initializers of the core classes depend on each other, so that they are executed sequentially
+                startupGraph.add(CORE_CLASSES_STEP, this::initCoreClasses, MIGRATION_STEP);
+                startupGraph.add("2FA", () -> {
+                    Helper2FA.init(databaseManager);
+                    // do one time '2fa data' migration from db into files. That method is safe for multiple repeatable calls
+                    Helper2FA.attemptMoveDataFromDatabase();
+                }, MIGRATION_STEP);
+                startupGraph.add("Core services", () -> {
+                    APIProxy.init();
+                    Generator.init();
+                    AddOns.init();
+                }, CORE_CLASSES_STEP, PEERS_STEP, EXCHANGE_MATCHER_STEP, GENESIS_STEP);
+
+                startupGraph.run();
                 aplAppStatus.durableTaskUpdate(initCoreTaskID,  70.1, "Apollo core classes initialization done");
                 //signal to API that core is ready to serve requests. Should be removed as soon as all API will be on RestEasy
                 ApiSplitFilter.isCoreReady = true;
@@ -353,6 +325,57 @@ public final class AplCore {
             }
         }
 
+    private void initCoreClasses() {
+        TransactionProcessor transactionProcessor = CDI.current().select(TransactionProcessor.class).get();
+        bcValidator = CDI.current().select(DefaultBlockValidator.class).get();
+        blockchainProcessor = CDI.current().select(BlockchainProcessorImpl.class).get();
+        blockchainConfig = CDI.current().select(BlockchainConfig.class).get();
+        blockchain = CDI.current().select(BlockchainImpl.class).get();
+        GlobalSync sync = CDI.current().select(GlobalSync.class).get();
+        transactionProcessor.init();
+        PublicKeyTable publicKeyTable = CDI.current().select(PublicKeyTable.class).get();
+        AccountTable accountTable = CDI.current().select(AccountTable.class).get();
+        AccountGuaranteedBalanceTable guaranteedBalanceTable = CDI.current().select(AccountGuaranteedBalanceTable.class).get();
+        //Account initialization
+        Cache<Long, PublicKey> publicKeyCache = null;
+        if (propertiesHolder.getBooleanProperty("apl.enablePublicKeyCache")) {
+            log.debug("'{}' is TURNED ON...", PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
+            publicKeyCache = cacheManager.acquireCache(PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
+        } else {
+            log.info("'{}' is TURNED OFF...", PublicKeyCacheConfig.PUBLIC_KEY_CACHE_NAME);
+        }
+        Account.init(databaseManager, propertiesHolder, blockchainProcessor, blockchainConfig, blockchain, sync, publicKeyTable, accountTable, guaranteedBalanceTable, publicKeyCache);
+        if (propertiesHolder.getBooleanProperty("apl.enableSignatureCache", true)) {
+            log.debug("'{}' is TURNED ON...", SignatureCacheConfig.SIGNATURE_CACHE_NAME);
+            TransactionImpl.setSignatureCache(cacheManager.acquireCache(SignatureCacheConfig.SIGNATURE_CACHE_NAME));
+        } else {
+            log.info("'{}' is TURNED OFF...", SignatureCacheConfig.SIGNATURE_CACHE_NAME);
+        }
+        AccountRestrictions.init();
+        AccountLedger.init(databaseManager);
+        Alias.init();
+        Asset.init();
+//        DigitalGoodsStore.init();
+        Order.init();
+        Poll.init();
+        Trade.init();
+        AssetTransfer.init(databaseManager);
+        AssetDelete.init();
+        AssetDividend.init();
+        Vote.init();
+        Currency.init();
+        CurrencyExchangeOffer.init();
+        CurrencyBuyOffer.init();
+        CurrencySellOffer.init();
+        CurrencyFounder.init();
+        CurrencyMint.init();
+        CurrencyTransfer.init();
+        Exchange.init();
+        ExchangeRequest.init();
+        Shuffling.init();
+        ShufflingParticipant.init();
+    }
+
     private void recoverSharding() {
         CDI.current().select(ShardService.class).get().recoverSharding();
     }
@@ -29,6 +29,7 @@ import com.apollocurrency.aplwallet.apl.core.db.dao.ShardDao;
 import com.apollocurrency.aplwallet.apl.core.db.dao.model.Shard;
 import com.apollocurrency.aplwallet.apl.crypto.Convert;
 import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.crypto.Signatures;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.util.Constants;
 import org.json.simple.JSONArray;
@@ -36,11 +37,13 @@ import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 
 import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import javax.enterprise.inject.spi.CDI;
@@ -335,7 +338,15 @@ public final class BlockImpl implements Block {
         return json;
     }
 
+    /**
+     * Parse block and verify its signature. Signatures of the block transactions are not verified here,
+     * they are verified in parallel by the {@link GetNextBlocksTask} for the downloaded blocks or by the
+     * {@link BlockchainProcessorImpl} before the block is pushed, and memoized for the block validation
+     */
     static BlockImpl parseBlock(JSONObject blockData) throws AplException.NotValidException {
+        if (blockData.containsKey("blockBytes")) {
+            return parseBinaryBlock(blockData);
+        }
         try {
             int version = ((Long) blockData.get("version")).intValue();
             int timestamp = ((Long) blockData.get("timestamp")).intValue();
@@ -352,7 +363,7 @@ public final class BlockImpl implements Block {
             int timeout =  !requireTimeout(version) ? 0 : ((Long) timeoutJsonValue).intValue();
             List<Transaction> blockTransactions = new ArrayList<>();
             for (Object transactionData : (JSONArray) blockData.get("transactions")) {
-                blockTransactions.add(TransactionImpl.parseTransaction((JSONObject) transactionData));
+                blockTransactions.add(TransactionImpl.parseTransaction((JSONObject) transactionData, false));
             }
             BlockImpl block = new BlockImpl(version, timestamp, previousBlock, totalAmountATM, totalFeeATM, payloadLength, payloadHash, generatorPublicKey,
                     generationSignature, blockSignature, previousBlockHash, timeout, blockTransactions);
@@ -367,6 +378,65 @@ public final class BlockImpl implements Block {
         }
     }
 
+    /**
+     * Parse block sent using peer binary encoding: base64 encoded block bytes (as returned by {@link #getBytes()})
+     * and list of transactions in any of supported encodings
+     */
+    private static BlockImpl parseBinaryBlock(JSONObject blockData) throws AplException.NotValidException {
+        Object blockBytes = blockData.get("blockBytes");
+        if (!(blockBytes instanceof String)) {
+            throw new AplException.NotValidException("Block bytes are missing or not a string");
+        }
+        Object transactionsData = blockData.get("transactions");
+        if (!(transactionsData instanceof JSONArray)) {
+            throw new AplException.NotValidException("Block transactions are missing or not an array");
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getDecoder().decode((String) blockBytes));
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            int version = buffer.getInt();
+            int timestamp = buffer.getInt();
+            long previousBlock = buffer.getLong();
+            int transactionCount = buffer.getInt();
+            long totalAmountATM = buffer.getLong();
+            long totalFeeATM = buffer.getLong();
+            int payloadLength = buffer.getInt();
+            byte[] payloadHash = new byte[32];
+            buffer.get(payloadHash);
+            byte[] generatorPublicKey = new byte[32];
+            buffer.get(generatorPublicKey);
+            byte[] generationSignature = new byte[32];
+            buffer.get(generationSignature);
+            byte[] previousBlockHash = new byte[32];
+            buffer.get(previousBlockHash);
+            int timeout = requireTimeout(version) ? buffer.getInt() : 0;
+            byte[] blockSignature = new byte[64];
+            buffer.get(blockSignature);
+            if (buffer.hasRemaining()) {
+                throw new AplException.NotValidException("Invalid block bytes length");
+            }
+            JSONArray transactionsArray = (JSONArray) transactionsData;
+            if (transactionsArray.size() != transactionCount) {
+                throw new AplException.NotValidException("Block transaction count " + transactionCount + " does not match transactions size " + transactionsArray.size());
+            }
+            List<Transaction> blockTransactions = new ArrayList<>(transactionCount);
+            for (Object transactionData : transactionsArray) {
+                if (!(transactionData instanceof JSONObject)) {
+                    throw new AplException.NotValidException("Block transaction is not an object: " + transactionData);
+                }
+                blockTransactions.add(TransactionImpl.parseTransaction((JSONObject) transactionData, false));
+            }
+            BlockImpl block = new BlockImpl(version, timestamp, previousBlock, totalAmountATM, totalFeeATM, payloadLength, payloadHash, generatorPublicKey,
+                    generationSignature, blockSignature, previousBlockHash, timeout, blockTransactions);
+            if (!block.checkSignature()) {
+                throw new AplException.NotValidException("Invalid block signature");
+            }
+            return block;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new AplException.NotValidException("Invalid block bytes: " + e.getMessage());
+        }
+    }
+
     @Override
     public byte[] getBytes() {
         return Arrays.copyOf(bytes(), bytes.length);
@@ -414,8 +484,9 @@ public final class BlockImpl implements Block {
 
     private boolean checkSignature() {
         if (! hasValidSignature) {
-            byte[] data = Arrays.copyOf(bytes(), bytes.length - 64);
-            hasValidSignature = blockSignature != null && Crypto.verify(blockSignature, data, getGeneratorPublicKey());
+            byte[] data = bytes();
+            hasValidSignature = blockSignature != null && blockSignature.length == Signatures.SIGNATURE_LENGTH
+                    && Signatures.verify(blockSignature, 0, data, 0, data.length - Signatures.SIGNATURE_LENGTH, getGeneratorPublicKey());
         }
         return hasValidSignature;
     }
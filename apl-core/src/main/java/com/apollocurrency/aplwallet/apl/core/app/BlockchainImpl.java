@@ -298,8 +298,10 @@ public class BlockchainImpl implements Blockchain {
                     blockDao.getBlocksAfter(fromBlockHeight, blockIdList, result, con, prevSize);
                     for (int i = prevSize; i < result.size(); i++) {
                         Block block = result.get(i);
-                        List<Transaction> blockTransactions = transactionDao.findBlockTransactions(con, block.getId());
-                        block.setTransactions(blockTransactions);
+                        if (block.getTransactions() == null) { // cached blocks may already have transactions
+                            List<Transaction> blockTransactions = transactionDao.findBlockTransactions(con, block.getId());
+                            block.setTransactions(blockTransactions);
+                        }
                     }
                     if (result.size() - 1 >= 0) {
                         fromBlockHeight = getBlockHeight(blockIdList.get(result.size() - 1));
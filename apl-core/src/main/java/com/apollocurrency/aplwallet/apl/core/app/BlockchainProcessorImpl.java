@@ -32,9 +32,8 @@ import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfigUpdater;
 import com.apollocurrency.aplwallet.apl.core.chainid.HeightConfig;
 import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
 import com.apollocurrency.aplwallet.apl.core.db.DatabaseManagerImpl;
-import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.db.DerivedTablesRegistry;
-import com.apollocurrency.aplwallet.apl.core.db.FilteringIterator;
+import com.apollocurrency.aplwallet.apl.core.db.H2StorageEngine;
 import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
 import com.apollocurrency.aplwallet.apl.core.db.dao.ShardDao;
 import com.apollocurrency.aplwallet.apl.core.db.derived.DerivedTableInterface;
@@ -137,6 +136,9 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
     private final DatabaseManager databaseManager;
 
     private final ExecutorService networkService = Executors.newCachedThreadPool(new NamedThreadFactory("BlockchainProcessor:networkService"));
+    private final int signatureVerificationThreads = propertiesHolder.getIntProperty("apl.signatureVerificationThreads", Runtime.getRuntime().availableProcessors());
+    private final ExecutorService signatureVerificationService = Executors.newFixedThreadPool(Math.max(1, signatureVerificationThreads),
+            new NamedThreadFactory("BlockchainProcessor:signatureVerificationService", true));
 
 
     private final int defaultNumberOfForkConfirmations = propertiesHolder.getIntProperty("apl.numberOfForkConfirmations");
@@ -511,7 +513,7 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
                     DirProvider dirProvider = RuntimeEnvironment.getInstance().getDirProvider();
                     Path dataExportDir = dirProvider.getDataExportDir();
                     FileUtils.clearDirectorySilently(dataExportDir);
-                    FileUtils.deleteFilesByPattern(dirProvider.getDbDir(), new String[]{".zip", ".h2.db"}, new String[]{"-shard-"});
+                    FileUtils.deleteFilesByPattern(dirProvider.getDbDir(), new String[]{".zip", H2StorageEngine.PAGE_STORE.getFileSuffix(), H2StorageEngine.MV_STORE.getFileSuffix()}, new String[]{"-shard-"});
                     dataSource.commit(false);
                     lookupBlockhainConfigUpdater().rollback(0);
                 }
@@ -666,6 +668,7 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
             //blockchainEvent.select(BlockchainEventType.literal(BlockchainEventType.SHUTDOWN)).fire(blockchainConfig);//TODO: Is this event necessary at this point?
             suspendBlockchainDownloading();
             Tasks.shutdownExecutor("BlockchainProcessorNetworkService", networkService, 5);
+            Tasks.shutdownExecutor("BlockchainProcessorSignatureVerificationService", signatureVerificationService, 5);
             log.info("BlchProcImpl shutdown finished");
         } catch (Exception ex) {
             log.error(ex.getMessage(), ex);
@@ -756,8 +759,10 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
         int curTime = timeService.getEpochTime();
         log.trace("push new block, prev_id = '{}', cutTime={}", block.getPreviousBlockId(), curTime);
         long startTime = System.currentTimeMillis();
+        verifyTransactionSignatures(block);
+        long signatureVerificationTime = System.currentTimeMillis() - startTime;
         globalSync.writeLock();
-        long lockAquireTime = System.currentTimeMillis() - startTime;
+        long lockAquireTime = System.currentTimeMillis() - startTime - signatureVerificationTime;
         try {
             Block previousLastBlock = null;
             TransactionalDataSource dataSource = lookupDataSource();
@@ -786,10 +791,11 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
                 block.setPrevious(previousLastBlock);
                 log.trace("fire block on = {}, id = '{}', '{}'", block.getHeight(), block.getId(), BlockEventType.BEFORE_BLOCK_ACCEPT.name());
                 blockEvent.select(literal(BlockEventType.BEFORE_BLOCK_ACCEPT)).fire(block);
-                lookupTransactionProcessor().requeueAllUnconfirmedTransactions();
+                lookupTransactionProcessor().requeueUnconfirmedTransactions(block.getOrLoadTransactions());
                 addBlock(block);
 
                 accept(block, validPhasedTransactions, invalidPhasedTransactions, duplicates);
+                lookupTransactionProcessor().revalidateUnconfirmedTransactions();
 
                 blockchain.commit(block);
                 dataSource.commit(false);
@@ -816,8 +822,42 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
         log.trace("fire block on = {}, id = '{}', '{}'", block.getHeight(), Long.toUnsignedString(block.getId()), BlockEventType.BLOCK_PUSHED.name());
         blockEvent.select(literal(BlockEventType.BLOCK_PUSHED)).fire(block); // send sync event to TrimObserver component
         blockEvent.select(literal(BlockEventType.BLOCK_PUSHED)).fireAsync(block); // send async event to other components
-        log.debug("Push block at height {} tx cnt: {} took {} ms (lock acquiring: {} ms)",
-                block.getHeight(), block.getTransactions().size(), System.currentTimeMillis() - startTime, lockAquireTime);
+        log.debug("Push block at height {} tx cnt: {} took {} ms (signature verification: {} ms, lock acquiring: {} ms)",
+                block.getHeight(), block.getTransactions().size(), System.currentTimeMillis() - startTime, signatureVerificationTime, lockAquireTime);
+    }
+
+    /**
+     * Verify signatures of the block transactions in parallel before acquiring the global write lock.
+     * Block parsing does not verify transaction signatures, so this is the only verification for the blocks received
+     * by {@link #processPeerBlock(JSONObject)}, downloaded blocks are already verified by {@link GetNextBlocksTask}.
+     * Only stateless check is performed here, results are memoized in {@link TransactionImpl}, so that
+     * {@link #validateTransactions(Block, Block, int, Map, boolean)} will not verify them again under the lock.
+     * Invalid signatures are not reported here, they will be rejected by the serial validation pass.
+     * @param block block to verify transactions for, transactions should be already attached to the block
+     */
+    private void verifyTransactionSignatures(Block block) {
+        List<Transaction> transactions = block.getTransactions();
+        if (transactions == null || transactions.size() < 2 || signatureVerificationThreads <= 1) {
+            return;
+        }
+        int batchSize = (transactions.size() + signatureVerificationThreads - 1) / signatureVerificationThreads;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < transactions.size(); from += batchSize) {
+            List<Transaction> batch = transactions.subList(from, Math.min(from + batchSize, transactions.size()));
+            futures.add(signatureVerificationService.submit(() -> batch.stream()
+                    .filter(transaction -> transaction instanceof TransactionImpl)
+                    .forEach(transaction -> ((TransactionImpl) transaction).checkSignature())));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.debug("Unable to verify transaction signatures for block {} in parallel: {}", block.getStringId(), e.getMessage());
+            }
+        }
     }
 
     private AnnotationLiteral<BlockEvent> literal(BlockEventType blockEventType) {
@@ -1248,12 +1288,8 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
             Map<TransactionType, Map<String, Integer>> duplicates, Block previousBlock, int blockTimestamp, int limit) {
 
         List<UnconfirmedTransaction> orderedUnconfirmedTransactions = new ArrayList<>();
-        DbIterator<UnconfirmedTransaction> allUnconfirmedTransactions = lookupTransactionProcessor().getAllUnconfirmedTransactions();
-        try (FilteringIterator<UnconfirmedTransaction> unconfirmedTransactions = new FilteringIterator<>(
-                allUnconfirmedTransactions,
-                transaction -> referencedTransactionService.hasAllReferencedTransactions(
-                        transaction.getTransaction(), previousBlock.getHeight() + 1))) {
-            for (UnconfirmedTransaction unconfirmedTransaction : unconfirmedTransactions) {
+        for (UnconfirmedTransaction unconfirmedTransaction : lookupTransactionProcessor().getAllUnconfirmedTransactions()) {
+            if (referencedTransactionService.hasAllReferencedTransactions(unconfirmedTransaction.getTransaction(), previousBlock.getHeight() + 1)) {
                 orderedUnconfirmedTransactions.add(unconfirmedTransaction);
             }
         }
@@ -1997,6 +2033,15 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
             long maxResponseTime = 0;
             Peer slowestPeer = null;
             //
+            // Blocks are pushed as soon as a contiguous range is available, while the following
+            // segments are still being downloaded and validated. Pipelining is possible only when
+            // downloaded chain continues our last block, otherwise all blocks are required to process a fork
+            //
+            DownloadedBlocksPusher blocksPusher = new DownloadedBlocksPusher(lookupBlockhain(), globalSync,
+                    BlockchainProcessorImpl.this::pushBlock, chainBlockIds, startHeight);
+            boolean pipelined = lookupBlockhain().getLastBlock().getId() == commonBlock.getId();
+            DownloadedBlocksPusher.Result pushResult = new DownloadedBlocksPusher.Result(1, !pipelined);
+            //
             // Issue the getNextBlocks requests and get the results.  We will repeat
             // a request if the peer didn't respond or returned a partial block list.
             // The download will be aborted if we are unable to get a segment after
@@ -2066,6 +2111,9 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
                         maxResponseTime = nextBlocks.getResponseTime();
                         slowestPeer = nextBlocks.getPeer();
                     }
+                    if (!pushResult.isStopped()) {
+                        pushResult = blocksPusher.push(blockMap, pushResult.getNextIndex());
+                    }
                 }
 
             }
@@ -2082,8 +2130,10 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
 // Maybe better to find another sync solution
             globalSync.writeLock();
             try {
+                // blocks from other peers could be pushed after the pipelined blocks, so fork starts at the last pushed one
+                Block forkCommonBlock = blocksPusher.getForkCommonBlock(pushResult, commonBlock);
                 List<Block> forkBlocks = new ArrayList<>();
-            for (int index = 1; index < chainBlockIds.size() && lookupBlockhain().getHeight() - startHeight < Constants.MAX_AUTO_ROLLBACK; index++) {
+            for (int index = pushResult.getNextIndex(); index < chainBlockIds.size() && lookupBlockhain().getHeight() - startHeight < Constants.MAX_AUTO_ROLLBACK; index++) {
                     PeerBlock peerBlock = blockMap.get(chainBlockIds.get(index));
                     if (peerBlock == null) {
                         break;
@@ -2102,10 +2152,10 @@ public class BlockchainProcessorImpl implements BlockchainProcessor {
                 //
                 // Process a fork
                 //
-                int myForkSize = lookupBlockhain().getHeight() - startHeight;
+                int myForkSize = lookupBlockhain().getHeight() - forkCommonBlock.getHeight();
             if (!forkBlocks.isEmpty() && myForkSize < Constants.MAX_AUTO_ROLLBACK) {
                     log.debug("Will process a fork of {} blocks, mine is {}, feed peer addr: {}", forkBlocks.size(), myForkSize, feederPeer.getHost());
-                    processFork(feederPeer, forkBlocks, commonBlock);
+                    processFork(feederPeer, forkBlocks, forkCommonBlock);
                 }
             } finally {
                 globalSync.writeUnlock();
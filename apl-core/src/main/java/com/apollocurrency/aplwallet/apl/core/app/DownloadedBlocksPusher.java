@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.util.Constants;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Push downloaded blocks, which continue the current blockchain, while the following blocks are still downloading.
+ * <p>Each contiguous range of downloaded blocks is pushed under the global write lock, so that blocks from other
+ * sources can only be pushed between ranges. When such block is pushed, downloaded chain no longer continues our
+ * blockchain, pipelined pushing is stopped and remaining blocks should be processed as a fork of the last pushed
+ * downloaded block, see {@link #getForkCommonBlock(Result, Block)}.</p>
+ */
+class DownloadedBlocksPusher {
+
+    private final Blockchain blockchain;
+    private final GlobalSync globalSync;
+    private final BlockPusher blockPusher;
+    private final List<Long> chainBlockIds;
+    private final int startHeight;
+
+    /**
+     * @param   chainBlockIds           Identifiers of the downloaded chain, the first one is the common block
+     * @param   startHeight             Height of the block from which download was started
+     */
+    DownloadedBlocksPusher(Blockchain blockchain, GlobalSync globalSync, BlockPusher blockPusher, List<Long> chainBlockIds, int startHeight) {
+        this.blockchain = blockchain;
+        this.globalSync = globalSync;
+        this.blockPusher = blockPusher;
+        this.chainBlockIds = chainBlockIds;
+        this.startHeight = startHeight;
+    }
+
+    /**
+     * Push already downloaded blocks which continue the current blockchain
+     *
+     * @param   blockMap                Downloaded blocks
+     * @param   fromIndex               Index of the first block to push in the block identifier list
+     * @return                          Index of the next block to push and whether pipelined pushing should be stopped
+     */
+    Result push(Map<Long, PeerBlock> blockMap, int fromIndex) {
+        globalSync.writeLock();
+        try {
+            int index = fromIndex;
+            for (; index < chainBlockIds.size() && blockchain.getHeight() - startHeight < Constants.MAX_AUTO_ROLLBACK; index++) {
+                PeerBlock peerBlock = blockMap.get(chainBlockIds.get(index));
+                if (peerBlock == null) {
+                    return new Result(index, false);
+                }
+                Block block = peerBlock.getBlock();
+                if (blockchain.getLastBlock().getId() != block.getPreviousBlockId()) {
+                    return new Result(index, true);
+                }
+                try {
+                    blockPusher.push(block);
+                } catch (BlockchainProcessor.BlockNotAcceptedException e) {
+                    peerBlock.getPeer().blacklist(e);
+                    return new Result(index + 1, true);
+                }
+            }
+            return new Result(index, true);
+        } finally {
+            globalSync.writeUnlock();
+        }
+    }
+
+    /**
+     * Return common block for the downloaded blocks, which were not pushed in the pipelined mode
+     *
+     * @param   result                  Result of the last push
+     * @param   commonBlock             Common block of the whole download
+     * @return                          Last downloaded block, which is still in the blockchain, or the download
+     *                                  common block, when no downloaded blocks were pushed
+     */
+    Block getForkCommonBlock(Result result, Block commonBlock) {
+        for (int index = result.getNextIndex() - 1; index > 0; index--) {
+            Block pushedBlock = blockchain.getBlock(chainBlockIds.get(index));
+            if (pushedBlock != null) {
+                return pushedBlock;
+            }
+        }
+        return commonBlock;
+    }
+
+    @FunctionalInterface
+    interface BlockPusher {
+        void push(Block block) throws BlockchainProcessor.BlockNotAcceptedException;
+    }
+
+    static class Result {
+        private final int nextIndex;
+        private final boolean stopped;
+
+        Result(int nextIndex, boolean stopped) {
+            this.nextIndex = nextIndex;
+            this.stopped = stopped;
+        }
+
+        /**
+         * @return index of the next block to push in the block identifier list
+         */
+        int getNextIndex() {
+            return nextIndex;
+        }
+
+        /**
+         * @return true when pipelined pushing should be stopped and remaining blocks processed by the caller
+         */
+        boolean isStopped() {
+            return stopped;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.apollocurrency.aplwallet.apl.crypto.Convert;
 import com.apollocurrency.aplwallet.apl.crypto.Crypto;
 import com.apollocurrency.aplwallet.apl.util.Listener;
 import com.apollocurrency.aplwallet.apl.util.Listeners;
+import com.apollocurrency.aplwallet.apl.util.LongMap;
 import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
 import com.apollocurrency.aplwallet.apl.util.task.Task;
 import org.slf4j.Logger;
@@ -37,10 +38,7 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -70,9 +68,10 @@ public final class Generator implements Comparable<Generator> {
     private static volatile boolean suspendForging = false;
     private static final Listeners<Generator,Event> listeners = new Listeners<>();
 
-    private static final ConcurrentMap<Long, Generator> generators = new ConcurrentHashMap<>();
-    //TODO: OL remove or solve this
-    private static final Collection<Generator> allGenerators = Collections.unmodifiableCollection(generators.values());
+    /**
+     * Forging accounts by account id, guarded by the map monitor
+     */
+    private static final LongMap<Generator> generators = new LongMap<>();
     private static volatile List<Generator> sortedForgers = null;
     private static long lastBlockId;
     private static int delayTime = propertiesHolder.FORGING_DELAY();
@@ -99,7 +98,7 @@ public final class Generator implements Comparable<Generator> {
                             lastBlockId = lastBlock.getId();
                             if (lastBlock.getTimestamp() > timeService.getEpochTime() - 600) {
                                 Block previousBlock = blockchain.getBlock(lastBlock.getPreviousBlockId());
-                                for (Generator generator : generators.values()) {
+                                for (Generator generator : getAllGenerators()) {
                                     generator.setLastBlock(previousBlock);
                                     int timestamp = generator.getTimestamp(generationLimit);
                                     if (timestamp != generationLimit && generator.getHitTime() > 0 && timestamp < lastBlock.getTimestamp() - lastBlock.getTimeout()) {
@@ -115,7 +114,7 @@ public final class Generator implements Comparable<Generator> {
                                 }
                             }
                             List<Generator> forgers = new ArrayList<>();
-                            for (Generator generator : generators.values()) {
+                            for (Generator generator : getAllGenerators()) {
                                 generator.setLastBlock(lastBlock);
                                 if (generator.effectiveBalance.signum() > 0) {
                                     forgers.add(generator);
@@ -178,11 +177,14 @@ public final class Generator implements Comparable<Generator> {
     }
 
     public static Generator startForging(byte[] keySeed) {
-        if (generators.size() >= MAX_FORGERS) {
-            throw new RuntimeException("Cannot forge with more than " + MAX_FORGERS + " accounts on the same node");
-        }
+        checkForgersLimit();
         Generator generator = new Generator(keySeed);
-        Generator old = generators.putIfAbsent(generator.getAccountId(), generator);
+        Generator old;
+        synchronized (generators) {
+            // limit may be reached by the concurrent call meanwhile
+            checkForgersLimit();
+            old = generators.putIfAbsent(generator.getAccountId(), generator);
+        }
         if (old != null) {
             LOG.debug(old + " is already forging");
             return old;
@@ -192,8 +194,19 @@ public final class Generator implements Comparable<Generator> {
         return generator;
     }
 
+    private static void checkForgersLimit() {
+        synchronized (generators) {
+            if (generators.size() >= MAX_FORGERS) {
+                throw new RuntimeException("Cannot forge with more than " + MAX_FORGERS + " accounts on the same node");
+            }
+        }
+    }
+
     public static Generator stopForging(byte[] keySeed) {
-        Generator generator = generators.remove(Convert.getId(Crypto.getPublicKey(keySeed)));
+        Generator generator;
+        synchronized (generators) {
+            generator = generators.remove(Convert.getId(Crypto.getPublicKey(keySeed)));
+        }
         if (generator != null) {
             globalSync.updateLock();
             try {
@@ -208,11 +221,13 @@ public final class Generator implements Comparable<Generator> {
     }
 
     public static int stopForging() {
-        int count = generators.size();
-        Iterator<Generator> iter = generators.values().iterator();
-        while (iter.hasNext()) {
-            Generator generator = iter.next();
-            iter.remove();
+        List<Generator> stopped;
+        synchronized (generators) {
+            stopped = generators.values();
+            generators.clear();
+        }
+        int count = stopped.size();
+        for (Generator generator : stopped) {
             LOG.debug(generator + " stopped");
             listeners.notify(generator, Event.STOP_FORGING);
         }
@@ -226,15 +241,24 @@ public final class Generator implements Comparable<Generator> {
     }
 
     public static Generator getGenerator(long id) {
-        return generators.get(id);
+        synchronized (generators) {
+            return generators.get(id);
+        }
     }
 
     public static int getGeneratorCount() {
-        return generators.size();
+        synchronized (generators) {
+            return generators.size();
+        }
     }
 
+    /**
+     * @return snapshot of all forging generators
+     */
     public static Collection<Generator> getAllGenerators() {
-        return allGenerators;
+        synchronized (generators) {
+            return Collections.unmodifiableList(generators.values());
+        }
     }
 
     public static List<Generator> getSortedForgers() {
@@ -5,10 +5,14 @@ package com.apollocurrency.aplwallet.apl.core.app;
 
 import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
 import com.apollocurrency.aplwallet.apl.core.peer.Peer;
+import com.apollocurrency.aplwallet.apl.core.peer.PeerBinaryEncoding;
 import com.apollocurrency.aplwallet.apl.core.peer.PeerNotConnectedException;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.util.JSON;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
@@ -81,6 +85,9 @@ public class GetNextBlocksTask implements Callable<List<BlockImpl>> {
         request.put("blockIds", idList);
         request.put("blockId", Long.toUnsignedString(blockIds.get(start)));
         request.put("chainId", blockchainConfig.getChain().getChainId());
+        if (PeerBinaryEncoding.isSupportedBy(peer)) {
+            PeerBinaryEncoding.request(request);
+        }
         long startTime = System.currentTimeMillis();
         JSONObject response;
         try {
@@ -96,6 +103,8 @@ public class GetNextBlocksTask implements Callable<List<BlockImpl>> {
         // Get the list of blocks.  We will stop parsing blocks if we encounter
         // an invalid block.  We will return the valid blocks and reset the stop
         // index so no more blocks will be processed.
+        // Stateless validation (payload hash and transaction signatures) is done here,
+        // so that it overlaps with applying of the previously downloaded segments.
         //
         List<JSONObject> nextBlocks = (List<JSONObject>) response.get("nextBlocks");
         if (nextBlocks == null) {
@@ -110,7 +119,9 @@ public class GetNextBlocksTask implements Callable<List<BlockImpl>> {
         try {
             int count = stop - start;
             for (JSONObject blockData : nextBlocks) {
-                blockList.add(BlockImpl.parseBlock(blockData));
+                BlockImpl block = BlockImpl.parseBlock(blockData);
+                validatePayload(block);
+                blockList.add(block);
                 if (--count <= 0) {
                     break;
                 }
@@ -123,6 +134,28 @@ public class GetNextBlocksTask implements Callable<List<BlockImpl>> {
         return blockList;
     }
 
+    /**
+     * Verify block payload hash and signatures of the block transactions. Signature verification
+     * results are memoized by the transactions and will not be repeated when block is pushed.
+     *
+     * @param   block               Parsed block
+     * @throws  AplException.NotValidException  Payload hash or transaction signature is not valid
+     */
+    private void validatePayload(BlockImpl block) throws AplException.NotValidException {
+        MessageDigest digest = Crypto.sha256();
+        for (Transaction transaction : block.getTransactions()) {
+            TransactionImpl transactionImpl = (TransactionImpl) transaction;
+            if (!transactionImpl.checkSignature()) {
+                throw new AplException.NotValidException("Invalid signature of transaction " + transaction.getStringId()
+                        + " in block " + block.getStringId());
+            }
+            digest.update(transactionImpl.bytes());
+        }
+        if (!Arrays.equals(digest.digest(), block.getPayloadHash())) {
+            throw new AplException.NotValidException("Payload hash doesn't match for block " + block.getStringId());
+        }
+    }
+
     /**
      * Return the callable future
      *
@@ -16,4 +16,6 @@ public interface GlobalSync {
     void writeLock();
 
     void writeUnlock();
+
+    boolean isWriteLockedByCurrentThread();
 }
@@ -39,5 +39,10 @@ public class GlobalSyncImpl implements GlobalSync {
     public void writeUnlock() {
         lock.writeLock().unlock();
     }
+
+    @Override
+    public boolean isWriteLockedByCurrentThread() {
+        return lock.writeLock().hasLock();
+    }
 }
 
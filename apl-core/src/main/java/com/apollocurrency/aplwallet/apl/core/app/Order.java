@@ -24,7 +24,6 @@ import com.apollocurrency.aplwallet.apl.core.account.Account;
 import javax.enterprise.inject.spi.CDI;
 
 import com.apollocurrency.aplwallet.apl.core.account.LedgerEvent;
-import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
 import com.apollocurrency.aplwallet.apl.core.db.derived.VersionedDeletableEntityDbTable;
 import com.apollocurrency.aplwallet.apl.core.transaction.messages.ColoredCoinsAskOrderPlacement;
 import com.apollocurrency.aplwallet.apl.core.transaction.messages.ColoredCoinsBidOrderPlacement;
@@ -33,17 +32,22 @@ import com.apollocurrency.aplwallet.apl.core.db.DbClause;
 import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.db.DbKey;
 import com.apollocurrency.aplwallet.apl.core.db.LongKeyFactory;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
 import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.core.shard.DbHotSwapConfig;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.event.Observes;
+import javax.inject.Singleton;
 
 public abstract class Order {
 
     private Blockchain blockchain = CDI.current().select(BlockchainImpl.class).get();
-    private static DatabaseManager databaseManager;
 
     private final long id;
     private final long accountId;
@@ -201,11 +205,153 @@ public abstract class Order {
                 + " height: " + creationHeight + " transactionIndex: " + transactionIndex + " transactionHeight: " + transactionHeight;
     }
 
-    private static TransactionalDataSource lookupDataSource() {
-        if (databaseManager == null) {
-            databaseManager = CDI.current().select(DatabaseManager.class).get();
+    /**
+     * Order table, which maintains in-memory {@link OrderBook} of the latest orders used for matching and for
+     * the sorted order queries instead of 'ORDER BY price' queries.
+     * <p>Book is loaded lazily from the table and is always loaded before any table modification, so that it contains
+     * uncommitted changes only of the thread, which does the modification (under the global write lock). When such
+     * transaction is rolled back, book is invalidated and reloaded from the db on the next access.
+     * Orders, returned by the book queries are loaded from the table by id, so that cached in the current
+     * transaction instances are used for matching.</p>
+     */
+    abstract static class OrderTable<T extends Order> extends VersionedDeletableEntityDbTable<T> {
+        private final LongKeyFactory<T> orderDbKeyFactory;
+        private final OrderBook book;
+        private volatile boolean bookLoaded;
+        private final TransactionCallback bookInvalidationCallback = new TransactionCallback() {
+            @Override
+            public void commit() {}
+
+            @Override
+            public void rollback() {
+                invalidateBook();
+            }
+        };
+
+        OrderTable(String table, LongKeyFactory<T> dbKeyFactory, boolean descendingPrice) {
+            super(table, dbKeyFactory);
+            this.orderDbKeyFactory = dbKeyFactory;
+            this.book = new OrderBook(descendingPrice);
+        }
+
+        @Override
+        public void insert(T order) {
+            loadBook();
+            super.insert(order);
+            book.add(order.getId(), order.getAssetId(), order.getPriceATM(), order.getHeight(), order.getTransactionHeight(),
+                    order.getTransactionIndex());
+            registerBookInvalidation(databaseManager.getDataSource());
+        }
+
+        @Override
+        public boolean delete(T order) {
+            loadBook();
+            boolean deleted = super.delete(order);
+            if (order != null) {
+                book.remove(order.getId());
+                registerBookInvalidation(databaseManager.getDataSource());
+            }
+            return deleted;
+        }
+
+        @Override
+        public void rollback(int height) {
+            super.rollback(height);
+            // reload immediately to not let other threads load the book from the committed data
+            synchronized (book) {
+                invalidateBook();
+                loadBook();
+            }
+        }
+
+        @Override
+        public void truncate() {
+            super.truncate();
+            synchronized (book) {
+                book.clear();
+                bookLoaded = true;
+                registerBookInvalidation(databaseManager.getDataSource());
+            }
+        }
+
+        T getNextOrder(long assetId) {
+            loadBook();
+            Long orderId = book.getFirstOrderId(assetId);
+            if (orderId == null) {
+                return null;
+            }
+            T order = get(orderDbKeyFactory.newKey(orderId));
+            if (order == null) {
+                throw new IllegalStateException("Order " + Long.toUnsignedString(orderId) + " from the " + table
+                        + " book is not found in the db");
+            }
+            return order;
+        }
+
+        List<T> getSortedOrders(long assetId, int from, int to) {
+            loadBook();
+            long[] orderIds = book.getOrderIds(assetId, from, to);
+            List<T> orders = new ArrayList<>(orderIds.length);
+            for (long orderId : orderIds) {
+                // order may be not committed yet by the block processing thread
+                T order = get(orderDbKeyFactory.newKey(orderId));
+                if (order != null) {
+                    orders.add(order);
+                }
+            }
+            return orders;
+        }
+
+        private void loadBook() {
+            if (!bookLoaded) {
+                synchronized (book) {
+                    if (!bookLoaded) {
+                        book.clear();
+                        TransactionalDataSource dataSource = databaseManager.getDataSource();
+                        try (Connection con = dataSource.getConnection();
+                             PreparedStatement pstmt = con.prepareStatement("SELECT id, asset_id, price, creation_height, "
+                                     + "transaction_height, transaction_index FROM " + table + " WHERE latest = TRUE");
+                             ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                book.add(rs.getLong("id"), rs.getLong("asset_id"), rs.getLong("price"), rs.getInt("creation_height"),
+                                        rs.getInt("transaction_height"), rs.getShort("transaction_index"));
+                            }
+                        }
+                        catch (SQLException e) {
+                            throw new RuntimeException(e.toString(), e);
+                        }
+                        // loaded data may contain uncommitted changes of the current transaction
+                        registerBookInvalidation(dataSource);
+                        bookLoaded = true;
+                    }
+                }
+            }
+        }
+
+        private void registerBookInvalidation(TransactionalDataSource dataSource) {
+            if (dataSource.isInTransaction()) {
+                dataSource.registerCallback(bookInvalidationCallback);
+            }
+        }
+
+        private void invalidateBook() {
+            synchronized (book) {
+                bookLoaded = false;
+                book.clear();
+            }
+        }
+    }
+
+    /**
+     * Invalidate order books, when database is switched, books will be reloaded from the new database on the next access
+     */
+    @Singleton
+    public static class OrderObserver {
+
+        public void onDbHotSwapBegin(@Observes DbHotSwapConfig dbHotSwapConfig) {
+            Ask.askOrderTable.invalidateBook();
+            Bid.bidOrderTable.invalidateBook();
         }
-        return databaseManager.getDataSource();
     }
 
     public static final class Ask extends Order {
@@ -219,7 +365,7 @@ public abstract class Order {
 
         };
 
-        private static final VersionedDeletableEntityDbTable<Ask> askOrderTable = new VersionedDeletableEntityDbTable<Ask>("ask_order", askOrderDbKeyFactory) {
+        private static final OrderTable<Ask> askOrderTable = new OrderTable<Ask>("ask_order", askOrderDbKeyFactory, false) {
 
             @Override
             public Ask load(Connection con, ResultSet rs, DbKey dbKey) throws SQLException {
@@ -274,23 +420,15 @@ public abstract class Order {
             return askOrderTable.getManyBy(dbClause, from, to);
         }
 
-        public static DbIterator<Ask> getSortedOrders(long assetId, int from, int to) {
-            return askOrderTable.getManyBy(new DbClause.LongClause("asset_id", assetId), from, to,
-                    " ORDER BY price ASC, creation_height ASC, transaction_height ASC, transaction_index ASC ");
+        /**
+         * @return asset orders in the matching order: price ASC, creation height, transaction height, transaction index
+         */
+        public static List<Ask> getSortedOrders(long assetId, int from, int to) {
+            return askOrderTable.getSortedOrders(assetId, from, to);
         }
 
         private static Ask getNextOrder(long assetId) {
-            try (Connection con = lookupDataSource().getConnection();
-                 PreparedStatement pstmt = con.prepareStatement("SELECT * FROM ask_order WHERE asset_id = ? "
-                         + "AND latest = TRUE ORDER BY price ASC, creation_height ASC, transaction_height ASC, transaction_index ASC LIMIT 1")) {
-                pstmt.setLong(1, assetId);
-                try (DbIterator<Ask> askOrders = askOrderTable.getManyBy(con, pstmt, true)) {
-                    return askOrders.hasNext() ? askOrders.next() : null;
-                }
-            }
-            catch (SQLException e) {
-                throw new RuntimeException(e.toString(), e);
-            }
+            return askOrderTable.getNextOrder(assetId);
         }
 
         public static void addOrder(Transaction transaction, ColoredCoinsAskOrderPlacement attachment) {
@@ -340,7 +478,7 @@ public abstract class Order {
 
         };
 
-        private static final VersionedDeletableEntityDbTable<Bid> bidOrderTable = new VersionedDeletableEntityDbTable<Bid>("bid_order", bidOrderDbKeyFactory) {
+        private static final OrderTable<Bid> bidOrderTable = new OrderTable<Bid>("bid_order", bidOrderDbKeyFactory, true) {
 
             @Override
             public Bid load(Connection con, ResultSet rs, DbKey dbKey) throws SQLException {
@@ -395,23 +533,15 @@ public abstract class Order {
             return bidOrderTable.getManyBy(dbClause, from, to);
         }
 
-        public static DbIterator<Bid> getSortedOrders(long assetId, int from, int to) {
-            return bidOrderTable.getManyBy(new DbClause.LongClause("asset_id", assetId), from, to,
-                    " ORDER BY price DESC, creation_height ASC, transaction_height ASC, transaction_index ASC ");
+        /**
+         * @return asset orders in the matching order: price DESC, creation height, transaction height, transaction index
+         */
+        public static List<Bid> getSortedOrders(long assetId, int from, int to) {
+            return bidOrderTable.getSortedOrders(assetId, from, to);
         }
 
         private static Bid getNextOrder(long assetId) {
-            try (Connection con = lookupDataSource().getConnection();
-                 PreparedStatement pstmt = con.prepareStatement("SELECT * FROM bid_order WHERE asset_id = ? "
-                         + "AND latest = TRUE ORDER BY price DESC, creation_height ASC, transaction_height ASC, transaction_index ASC LIMIT 1")) {
-                pstmt.setLong(1, assetId);
-                try (DbIterator<Bid> bidOrders = bidOrderTable.getManyBy(con, pstmt, true)) {
-                    return bidOrders.hasNext() ? bidOrders.next() : null;
-                }
-            }
-            catch (SQLException e) {
-                throw new RuntimeException(e.toString(), e);
-            }
+            return bidOrderTable.getNextOrder(assetId);
         }
 
         public static void addOrder(Transaction transaction, ColoredCoinsBidOrderPlacement attachment) {
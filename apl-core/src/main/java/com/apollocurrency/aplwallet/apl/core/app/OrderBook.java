@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory price-time priority index of the asset exchange orders of one side (asks or bids).
+ * <p>Only immutable matching keys of the orders are stored: id, asset, price, creation height, transaction height
+ * and transaction index, orders itself (with the current quantity) are loaded from the order table by id. Orders of
+ * each asset are sorted by price (ascending for asks, descending for bids), then by creation height,
+ * transaction height and transaction index, which is the order of the 'ORDER BY' clause used for matching.</p>
+ * <p>Book does not know anything about db transactions, consistency with the order table is maintained
+ * by the {@link Order} table</p>
+ */
+class OrderBook {
+    private static final Comparator<Entry> TIME_PRIORITY = Comparator.<Entry>comparingInt(e -> e.creationHeight)
+            .thenComparingInt(e -> e.transactionHeight)
+            .thenComparingInt(e -> e.transactionIndex)
+            .thenComparingLong(e -> e.orderId);
+
+    private final Comparator<Entry> comparator;
+    private final Map<Long, NavigableSet<Entry>> assetOrders = new HashMap<>();
+    private final Map<Long, Entry> orders = new HashMap<>();
+
+    /**
+     * @param descendingPrice true for the bid orders, which are matched starting from the highest price,
+     *                        false for the ask orders, which are matched starting from the lowest price
+     */
+    OrderBook(boolean descendingPrice) {
+        Comparator<Entry> priceComparator = Comparator.comparingLong(e -> e.priceATM);
+        this.comparator = (descendingPrice ? priceComparator.reversed() : priceComparator).thenComparing(TIME_PRIORITY);
+    }
+
+    /**
+     * Add order to the book, does nothing when order is already present
+     */
+    synchronized void add(long orderId, long assetId, long priceATM, int creationHeight, int transactionHeight, int transactionIndex) {
+        if (orders.containsKey(orderId)) {
+            return;
+        }
+        Entry entry = new Entry(orderId, assetId, priceATM, creationHeight, transactionHeight, transactionIndex);
+        orders.put(orderId, entry);
+        assetOrders.computeIfAbsent(assetId, id -> new TreeSet<>(comparator)).add(entry);
+    }
+
+    /**
+     * Remove order from the book
+     * @return true when order was present in the book
+     */
+    synchronized boolean remove(long orderId) {
+        Entry entry = orders.remove(orderId);
+        if (entry == null) {
+            return false;
+        }
+        NavigableSet<Entry> entries = assetOrders.get(entry.assetId);
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            assetOrders.remove(entry.assetId);
+        }
+        return true;
+    }
+
+    /**
+     * @param assetId id of the asset
+     * @return id of the order with the highest priority for the given asset or null, when there are no orders
+     */
+    synchronized Long getFirstOrderId(long assetId) {
+        NavigableSet<Entry> entries = assetOrders.get(assetId);
+        return entries == null ? null : entries.first().orderId;
+    }
+
+    /**
+     * @param assetId id of the asset
+     * @param from index of the first order to return, inclusive
+     * @param to index of the last order to return, inclusive; negative value means no upper limit
+     * @return ids of the asset orders within the given range of the price-time priority sequence
+     */
+    synchronized long[] getOrderIds(long assetId, int from, int to) {
+        NavigableSet<Entry> entries = assetOrders.get(assetId);
+        int start = Math.max(from, 0);
+        if (entries == null || start >= entries.size() || (to >= 0 && to < start)) {
+            return new long[0];
+        }
+        int end = to >= 0 ? Math.min(to, entries.size() - 1) : entries.size() - 1;
+        long[] ids = new long[end - start + 1];
+        Iterator<Entry> iterator = entries.iterator();
+        for (int i = 0; i <= end; i++) {
+            Entry entry = iterator.next();
+            if (i >= start) {
+                ids[i - start] = entry.orderId;
+            }
+        }
+        return ids;
+    }
+
+    synchronized void clear() {
+        assetOrders.clear();
+        orders.clear();
+    }
+
+    /**
+     * @return number of the orders in the book
+     */
+    synchronized int size() {
+        return orders.size();
+    }
+
+    private static final class Entry {
+        private final long orderId;
+        private final long assetId;
+        private final long priceATM;
+        private final int creationHeight;
+        private final int transactionHeight;
+        private final int transactionIndex;
+
+        private Entry(long orderId, long assetId, long priceATM, int creationHeight, int transactionHeight, int transactionIndex) {
+            this.orderId = orderId;
+            this.assetId = assetId;
+            this.priceATM = priceATM;
+            this.creationHeight = creationHeight;
+            this.transactionHeight = transactionHeight;
+            this.transactionIndex = transactionIndex;
+        }
+    }
+}
@@ -23,7 +23,6 @@ package com.apollocurrency.aplwallet.apl.core.app;
 import com.apollocurrency.aplwallet.apl.core.account.Account;
 import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEvent;
 import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEventType;
-import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.shard.DbHotSwapConfig;
 import com.apollocurrency.aplwallet.apl.core.transaction.FeeCalculator;
 import com.apollocurrency.aplwallet.apl.core.transaction.messages.Attachment;
@@ -506,11 +505,9 @@ public final class Shuffler {
                 return;
             }
         } else {
-            try (DbIterator<UnconfirmedTransaction> unconfirmedTransactions = transactionProcessor.getAllUnconfirmedTransactions()) {
-                if (hasUnconfirmedTransaction(attachment, unconfirmedTransactions)) {
-                    LOG.debug("Transaction already submitted");
-                    return;
-                }
+            if (hasUnconfirmedTransaction(attachment, transactionProcessor.getUnconfirmedTransactionsBySender(accountId))) {
+                LOG.debug("Transaction already submitted");
+                return;
             }
         }
         try {
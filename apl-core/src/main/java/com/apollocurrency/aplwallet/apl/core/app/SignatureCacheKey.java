@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import java.util.Arrays;
+
+/**
+ * Key of the verified transaction signature: transaction full hash covers both the signed bytes and the signature,
+ * so that equal keys always give the same verification result.
+ */
+final class SignatureCacheKey {
+    private final byte[] fullHash;
+    private final byte[] publicKey;
+    private final int hashCode;
+
+    SignatureCacheKey(byte[] fullHash, byte[] publicKey) {
+        this.fullHash = fullHash;
+        this.publicKey = publicKey;
+        this.hashCode = 31 * Arrays.hashCode(fullHash) + Arrays.hashCode(publicKey);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof SignatureCacheKey)) return false;
+        SignatureCacheKey that = (SignatureCacheKey) o;
+        return Arrays.equals(fullHash, that.fullHash) && Arrays.equals(publicKey, that.publicKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
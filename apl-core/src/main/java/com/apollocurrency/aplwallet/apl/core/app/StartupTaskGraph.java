@@ -0,0 +1,174 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.util.task.NamedThreadFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Dependency graph of the node startup steps. Steps are started by {@link #run()} and executed in parallel, each step
+ * starts as soon as all its dependencies are finished. Steps can depend only on the already added steps, so that
+ * graph never contains cycles.
+ * <p>Start and duration of each step are reported as updates of the durable task in {@link AplAppStatus}, percent
+ * of completion grows from startPercent to endPercent with the number of finished steps.</p>
+ * <p>When step fails, its dependent steps are not executed, other steps are finished and the failure of the first
+ * failed step (in order of addition) is rethrown by {@link #run()}.</p>
+ */
+@Slf4j
+class StartupTaskGraph {
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    private final CompletableFuture<Void> start = new CompletableFuture<>();
+    private final AtomicInteger finishedSteps = new AtomicInteger();
+    private final AplAppStatus aplAppStatus;
+    private final String taskId;
+    private final double startPercent;
+    private final double endPercent;
+    private final int threads;
+    private volatile ExecutorService executor;
+
+    /**
+     * @param aplAppStatus status to report progress of the steps
+     * @param taskId id of the durable startup task
+     * @param startPercent percent of the startup task completion before the first step
+     * @param endPercent percent of the startup task completion when all steps are finished
+     * @param threads max number of the steps executed at the same time
+     */
+    StartupTaskGraph(AplAppStatus aplAppStatus, String taskId, double startPercent, double endPercent, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive, got " + threads);
+        }
+        this.aplAppStatus = aplAppStatus;
+        this.taskId = taskId;
+        this.startPercent = startPercent;
+        this.endPercent = endPercent;
+        this.threads = threads;
+    }
+
+    /**
+     * Add step to the graph
+     * @param name unique name of the step
+     * @param task initialization task of the step
+     * @param dependencies names of the already added steps, which should be finished before this step
+     * @return this graph
+     * @throws IllegalArgumentException when step with such name already exists or dependency is unknown
+     * @throws IllegalStateException when graph was already started
+     */
+    StartupTaskGraph add(String name, Runnable task, String... dependencies) {
+        if (start.isDone()) {
+            throw new IllegalStateException("Unable to add step '" + name + "', startup graph was already started");
+        }
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Startup step '" + name + "' already exists");
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture[dependencies.length + 1];
+        futures[0] = start;
+        for (int i = 0; i < dependencies.length; i++) {
+            Step dependency = steps.get(dependencies[i]);
+            if (dependency == null) {
+                throw new IllegalArgumentException("Startup step '" + name + "' depends on unknown step '" + dependencies[i] + "'");
+            }
+            futures[i + 1] = dependency.future;
+        }
+        steps.put(name, new Step(name, task, CompletableFuture.allOf(futures)));
+        return this;
+    }
+
+    /**
+     * Execute all steps and wait until they are finished
+     * @throws RuntimeException or Error thrown by the first failed step
+     */
+    void run() {
+        if (start.isDone()) {
+            throw new IllegalStateException("Startup graph was already started");
+        }
+        executor = Executors.newFixedThreadPool(threads, new NamedThreadFactory("AplCoreStartup", true));
+        try {
+            long startTime = System.currentTimeMillis();
+            start.complete(null);
+            Throwable failure = null;
+            for (Step step : steps.values()) {
+                try {
+                    step.future.join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            log.info("Startup steps took {} ms: {}", System.currentTimeMillis() - startTime, steps.values().stream()
+                    .map(Step::toString)
+                    .collect(Collectors.joining(", ")));
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new RuntimeException(failure);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return duration of the finished step in ms or -1, when step was not executed or failed
+     */
+    long getDuration(String name) {
+        Step step = steps.get(name);
+        if (step == null) {
+            throw new IllegalArgumentException("Unknown startup step '" + name + "'");
+        }
+        return step.duration;
+    }
+
+    private double percent(int finished) {
+        return startPercent + (endPercent - startPercent) * finished / steps.size();
+    }
+
+    private class Step {
+        private final String name;
+        private final Runnable task;
+        private final CompletableFuture<Void> future;
+        private volatile long duration = -1;
+
+        /**
+         * Step is submitted to the executor only after the graph start, when executor is already created
+         */
+        Step(String name, Runnable task, CompletableFuture<Void> dependencies) {
+            this.name = name;
+            this.task = task;
+            this.future = dependencies.thenRunAsync(this::execute, command -> executor.execute(command));
+        }
+
+        private void execute() {
+            aplAppStatus.durableTaskUpdate(taskId, percent(finishedSteps.get()), name + " initialization");
+            long startTime = System.currentTimeMillis();
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                log.error("Startup step '{}' failed after {} ms", name, System.currentTimeMillis() - startTime);
+                throw e;
+            }
+            duration = System.currentTimeMillis() - startTime;
+            log.debug("Startup step '{}' done in {} ms", name, duration);
+            aplAppStatus.durableTaskUpdate(taskId, percent(finishedSteps.incrementAndGet()),
+                    name + " initialization done in " + duration + " ms");
+        }
+
+        @Override
+        public String toString() {
+            return name + (duration >= 0 ? " " + duration + " ms" : " not done");
+        }
+    }
+}
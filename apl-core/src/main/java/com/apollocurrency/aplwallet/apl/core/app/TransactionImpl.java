@@ -42,8 +42,10 @@ import com.apollocurrency.aplwallet.apl.core.transaction.messages.PublicKeyAnnou
 import com.apollocurrency.aplwallet.apl.core.transaction.messages.ShufflingProcessingAttachment;
 import com.apollocurrency.aplwallet.apl.crypto.Convert;
 import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.crypto.Signatures;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.util.Filter;
+import com.google.common.cache.Cache;
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,6 +57,7 @@ import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -64,6 +67,7 @@ public class TransactionImpl implements Transaction {
 
 //    @Inject
     private static BlockchainImpl blockchain;
+    private static volatile Cache<SignatureCacheKey, Boolean> signatureCache;
 
     public static final class BuilderImpl implements Builder {
 
@@ -874,8 +878,31 @@ public class TransactionImpl implements Transaction {
     }
 
     static TransactionImpl parseTransaction(JSONObject transactionData) throws AplException.NotValidException {
-        TransactionImpl transaction = newTransactionBuilder(transactionData).build();
-        if (transaction.getSignature() != null && !transaction.checkSignature()) {
+        return parseTransaction(transactionData, true);
+    }
+
+    /**
+     * Parse transaction in any of the supported peer encodings
+     * @param transactionData json or binary encoded transaction
+     * @param verifySignature false to skip stateless signature verification, when caller verifies signatures by itself
+     * (e.g. block transactions, which are verified in parallel)
+     */
+    static TransactionImpl parseTransaction(JSONObject transactionData, boolean verifySignature) throws AplException.NotValidException {
+        String transactionBytes = (String) transactionData.get("transactionBytes");
+        TransactionImpl transaction;
+        if (transactionBytes != null) {
+            // peer binary encoding, prunable attachments are not part of the transaction bytes
+            byte[] bytes;
+            try {
+                bytes = Base64.getDecoder().decode(transactionBytes);
+            } catch (IllegalArgumentException e) {
+                throw new AplException.NotValidException("Invalid transaction bytes: " + e.getMessage());
+            }
+            transaction = newTransactionBuilder(bytes, (JSONObject) transactionData.get("prunableAttachmentJSON")).build();
+        } else {
+            transaction = newTransactionBuilder(transactionData).build();
+        }
+        if (verifySignature && transaction.getSignature() != null && !transaction.checkSignature()) {
             throw new AplException.NotValidException("Invalid transaction signature for transaction " + transaction.getJSONObject().toJSONString());
         }
         return transaction;
@@ -960,13 +987,39 @@ public class TransactionImpl implements Transaction {
 
     private volatile boolean hasValidSignature = false;
 
-    private boolean checkSignature() {
-        if (!hasValidSignature) {
-            hasValidSignature = signature != null && Crypto.verify(signature, zeroSignature(getBytes()), getSenderPublicKey());
+    /**
+     * Stateless part of the signature verification, does not touch account data, so it can be
+     * performed outside of the global lock. Positive result is memoized and reused by {@link #verifySignature()}
+     * and is shared with other instances of the same transaction through the signature cache (when enabled),
+     * so that transactions, which were verified in the mempool, are not verified again when block is accepted
+     * @return true when signature matches the sender public key
+     */
+    public boolean checkSignature() {
+        if (!hasValidSignature && signature != null) {
+            Cache<SignatureCacheKey, Boolean> cache = signatureCache;
+            SignatureCacheKey key = null;
+            if (cache != null) {
+                key = new SignatureCacheKey(getFullHash(), getSenderPublicKey());
+                if (cache.getIfPresent(key) != null) {
+                    hasValidSignature = true;
+                    return true;
+                }
+            }
+            hasValidSignature = Signatures.verify(signature, zeroSignature(getBytes()), getSenderPublicKey());
+            if (hasValidSignature && cache != null) {
+                cache.put(key, Boolean.TRUE);
+            }
         }
         return hasValidSignature;
     }
 
+    /**
+     * Set cache of the successfully verified signatures, null disables caching
+     */
+    static void setSignatureCache(Cache<SignatureCacheKey, Boolean> cache) {
+        signatureCache = cache;
+    }
+
     private int getSize() {
         return signatureOffset() + 64  + 4 + 4 + 8 + appendagesSize;
     }
@@ -20,7 +20,6 @@
 
 package com.apollocurrency.aplwallet.apl.core.app;
 
-import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -33,13 +32,15 @@ public interface TransactionProcessor {
 
     void init();
 
-    DbIterator<UnconfirmedTransaction> getAllUnconfirmedTransactions();
+    void shutdown();
 
-    DbIterator<? extends Transaction> getAllUnconfirmedTransactions(int from, int to);
+    List<UnconfirmedTransaction> getAllUnconfirmedTransactions();
 
-    DbIterator<? extends Transaction> getAllUnconfirmedTransactions(String sort);
+    List<UnconfirmedTransaction> getAllUnconfirmedTransactions(int from, int to);
 
-    DbIterator<? extends Transaction> getAllUnconfirmedTransactions(int from, int to, String sort);
+    List<UnconfirmedTransaction> getUnconfirmedTransactionsBySender(long senderId);
+
+    int getUnconfirmedTransactionsCount();
 
     Transaction getUnconfirmedTransaction(long transactionId);
 
@@ -53,6 +54,20 @@ public interface TransactionProcessor {
 
     void requeueAllUnconfirmedTransactions();
 
+    /**
+     * Requeue unconfirmed transactions of the senders of the given block transactions, so that the block can be
+     * accepted without undoing the whole unconfirmed pool
+     * @param blockTransactions transactions of the block, which is going to be accepted
+     */
+    void requeueUnconfirmedTransactions(Collection<? extends Transaction> blockTransactions);
+
+    /**
+     * Validate unconfirmed transactions against the state after the block acceptance and remove transactions,
+     * which were invalidated by the block, e.g. alias or currency name was taken or goods were delisted by the
+     * block transactions of another sender
+     */
+    void revalidateUnconfirmedTransactions();
+
     void rebroadcastAllUnconfirmedTransactions();
 
     void removeUnconfirmedTransaction(Transaction transaction);
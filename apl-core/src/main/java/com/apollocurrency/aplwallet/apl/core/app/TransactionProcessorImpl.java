@@ -24,14 +24,15 @@ import com.apollocurrency.aplwallet.apl.core.account.Account;
 import com.apollocurrency.aplwallet.apl.core.app.observer.events.TxEventType;
 import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
 import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
-import com.apollocurrency.aplwallet.apl.core.db.DbClause;
-import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.db.DbKey;
-import com.apollocurrency.aplwallet.apl.core.db.KeyFactory;
-import com.apollocurrency.aplwallet.apl.core.db.LongKeyFactory;
+import com.apollocurrency.aplwallet.apl.core.db.DerivedTablesRegistry;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
 import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
 import com.apollocurrency.aplwallet.apl.core.db.cdi.Transactional;
+import com.apollocurrency.aplwallet.apl.core.db.derived.DerivedDbTable;
+import com.apollocurrency.aplwallet.apl.core.db.derived.DerivedTableInterface;
 import com.apollocurrency.aplwallet.apl.core.db.derived.EntityDbTable;
+import com.apollocurrency.aplwallet.apl.core.db.model.OptionDAO;
 import com.apollocurrency.aplwallet.apl.core.peer.Peer;
 import com.apollocurrency.aplwallet.apl.core.peer.PeerState;
 import com.apollocurrency.aplwallet.apl.core.peer.PeersService;
@@ -59,12 +60,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -111,73 +114,114 @@ public class TransactionProcessorImpl implements TransactionProcessor {
         return databaseManager.getDataSource();
     }
 
-    private final Map<DbKey, UnconfirmedTransaction> transactionCache = new HashMap<>();
-    private volatile boolean cacheInitialized = false;
-    private final LongKeyFactory<UnconfirmedTransaction> transactionKeyFactory;
-    private final EntityDbTable<UnconfirmedTransaction> unconfirmedTransactionTable;
+    private static final String UNCONFIRMED_POOL_SAVED_OPTION = "unconfirmed-pool-saved";
+
+    /**
+     * Order of the pool transactions with the same transaction_height, uses only immutable transaction properties
+     */
+    private static final Comparator<UnconfirmedTransaction> poolTransactionComparator =
+                    comparingLong(UnconfirmedTransaction::getFeePerByte).reversed() // Sort by fee_per_byte DESC
+                    .thenComparingLong(UnconfirmedTransaction::getArrivalTimestamp) // Sort by arrival_timestamp ASC
+                    .thenComparingLong(UnconfirmedTransaction::getId); // Sort by transaction ID ASC
+
+    private static final Comparator<UnconfirmedTransaction> cachedUnconfirmedTransactionComparator =
+                    comparingInt(UnconfirmedTransaction::getHeight) // Sort by transaction_height ASC
+                    .thenComparing(poolTransactionComparator);
+
+    private final UnconfirmedTransactionPool transactionPool = new UnconfirmedTransactionPool(poolTransactionComparator);
+    private volatile boolean poolLoaded = false;
+    private final DerivedDbTable<UnconfirmedTransaction> unconfirmedTransactionTable;
     private final TransactionValidator validator;
     private final TransactionApplier transactionApplier;
     @Inject
-    public TransactionProcessorImpl(LongKeyFactory<UnconfirmedTransaction> transactionKeyFactory, TransactionValidator validator, TransactionApplier applier, javax.enterprise.event.Event<List<Transaction>> txEvent) {
-        this.transactionKeyFactory = transactionKeyFactory;
-        this.unconfirmedTransactionTable = createUnconfirmedTransactionTable(transactionKeyFactory);
+    public TransactionProcessorImpl(TransactionValidator validator, TransactionApplier applier, javax.enterprise.event.Event<List<Transaction>> txEvent) {
+        this.unconfirmedTransactionTable = createUnconfirmedTransactionTable();
         this.validator = validator;
         this.transactionApplier = applier;
         this.txsEvent = Objects.requireNonNull(txEvent);
     }
 
-    private EntityDbTable<UnconfirmedTransaction> createUnconfirmedTransactionTable(KeyFactory<UnconfirmedTransaction> keyFactory) {
+    /**
+     * Unconfirmed transactions are kept in the {@link UnconfirmedTransactionPool}, db table is used only to save the pool
+     * between restarts. Table is still registered as derived table to follow blockchain rollbacks, rescans and resets.
+     */
+    private DerivedDbTable<UnconfirmedTransaction> createUnconfirmedTransactionTable() {
         return
-                new EntityDbTable<>("unconfirmed_transaction", keyFactory) {
+                new DerivedDbTable<>("unconfirmed_transaction") {
 
                     @Override
                     public UnconfirmedTransaction load(Connection con, ResultSet rs, DbKey dbKey) throws SQLException {
                         return new UnconfirmedTransaction(rs);
                     }
 
-                    @Override
-                    public void save(Connection con, UnconfirmedTransaction unconfirmedTransaction) throws SQLException {
-                        unconfirmedTransaction.save(con);
-                        if (transactionCache.size() < maxUnconfirmedTransactions) {
-                            DbKey dbKey = transactionKeyFactory.newKey(unconfirmedTransaction.getId());
-                            transactionCache.put(dbKey, unconfirmedTransaction);
-                        }
-                    }
-
                     @Override
                     public void rollback(int height) {
-                        try (Connection con = lookupDataSource().getConnection();
-                             PreparedStatement pstmt = con.prepareStatement("SELECT * FROM unconfirmed_transaction WHERE height > ?")) {
-                            pstmt.setInt(1, height);
-                            try (ResultSet rs = pstmt.executeQuery()) {
-                                while (rs.next()) {
-                                    UnconfirmedTransaction unconfirmedTransaction = load(con, rs, null);
-                                    waitingTransactions.add(unconfirmedTransaction);
-                                    DbKey dbKey = transactionKeyFactory.newKey(unconfirmedTransaction.getId());
-                                    transactionCache.remove(dbKey);
-                                }
-                            }
-                        } catch (SQLException e) {
-                            throw new RuntimeException(e.toString(), e);
-                        }
-                        super.rollback(height);
+                        List<UnconfirmedTransaction> removed = transactionPool.removeFromHeight(height);
+                        waitingTransactions.addAll(removed);
+                        saveUnconfirmedDuplicates();
                         unconfirmedDuplicates.clear();
+                        onRollback(() -> {
+                            waitingTransactions.removeAll(removed);
+                            removed.forEach(tx -> transactionPool.add(tx, height + 1));
+                        });
                     }
 
                     @Override
                     public void truncate() {
                         super.truncate();
-                        clearCache();
-                    }
-
-                    @Override
-                    protected String defaultSort() {
-                        return " ORDER BY transaction_height ASC, fee_per_byte DESC, arrival_timestamp ASC, id ASC ";
+                        transactionPool.clear();
                     }
 
                 };
     }
 
+    /**
+     * Pool changes are not transactional, so revert them when db transaction, which changed
+     * unconfirmed balances, is rolled back
+     * @param action action to revert pool changes
+     */
+    private void onRollback(Runnable action) {
+        TransactionalDataSource dataSource = lookupDataSource();
+        if (dataSource.isInTransaction()) {
+            dataSource.registerCallback(new TransactionCallback() {
+                @Override
+                public void commit() {
+                }
+
+                @Override
+                public void rollback() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Save unconfirmed duplicates once per db transaction to restore them, when transaction is rolled back.
+     * Rollback callbacks are not ordered, so several changes of the duplicates in the same db transaction
+     * should restore the state saved before the first change
+     */
+    private void saveUnconfirmedDuplicates() {
+        TransactionalDataSource dataSource = lookupDataSource();
+        if (savedUnconfirmedDuplicates != null || !dataSource.isInTransaction()) {
+            return;
+        }
+        savedUnconfirmedDuplicates = new HashMap<>(unconfirmedDuplicates);
+        dataSource.registerCallback(new TransactionCallback() {
+            @Override
+            public void commit() {
+                savedUnconfirmedDuplicates = null;
+            }
+
+            @Override
+            public void rollback() {
+                unconfirmedDuplicates.clear();
+                unconfirmedDuplicates.putAll(savedUnconfirmedDuplicates);
+                savedUnconfirmedDuplicates = null;
+            }
+        });
+    }
+
     private final Map<Transaction, Transaction> txToBroadcastWhenConfirmed = new ConcurrentHashMap<>();
     private final Set<Transaction> broadcastedTransactions = Collections.newSetFromMap(new ConcurrentHashMap<>());
 //    private final Listeners<List<? extends Transaction>,Event> transactionListeners = new Listeners<>();
@@ -216,6 +260,7 @@ public class TransactionProcessorImpl implements TransactionProcessor {
     };
 
     private final Map<TransactionType, Map<String, Integer>> unconfirmedDuplicates = new HashMap<>();
+    private Map<TransactionType, Map<String, Integer>> savedUnconfirmedDuplicates;
 
 
     private Runnable createRemoveUnconfirmedTransactionsThread() {
@@ -225,13 +270,7 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                     if (lookupBlockchainProcessor().isDownloading()) {
                         return;
                     }
-                    List<UnconfirmedTransaction> expiredTransactions = new ArrayList<>();
-                    try (DbIterator<UnconfirmedTransaction> iterator = unconfirmedTransactionTable.getManyBy(
-                            new DbClause.IntClause("expiration", DbClause.Op.LT, timeService.getEpochTime()), 0, -1, "")) {
-                        while (iterator.hasNext()) {
-                            expiredTransactions.add(iterator.next());
-                        }
-                    }
+                    List<UnconfirmedTransaction> expiredTransactions = transactionPool.getExpired(timeService.getEpochTime());
                     if (expiredTransactions.size() > 0) {
                         globalSync.writeLock();
                         try {
@@ -306,7 +345,9 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                 JSONObject request = new JSONObject();
                 request.put("requestType", "getUnconfirmedTransactions");
                 JSONArray exclude = new JSONArray();
-                getAllUnconfirmedTransactionIds().forEach(transactionId -> exclude.add(Long.toUnsignedString(transactionId)));
+                for (long transactionId : transactionPool.getAllIds()) {
+                    exclude.add(Long.toUnsignedString(transactionId));
+                }
                 Collections.sort(exclude);
                 request.put("exclude", exclude);
                 request.put("chainId", blockchainConfig.getChain().getChainId());
@@ -357,6 +398,87 @@ public class TransactionProcessorImpl implements TransactionProcessor {
         int n = propertiesHolder.getIntProperty("apl.maxUnconfirmedTransactions");
         maxUnconfirmedTransactions = n <= 0 ? Integer.MAX_VALUE : n;
         blockchain = CDI.current().select(Blockchain.class).get();
+        loadUnconfirmedTransactions();
+    }
+
+    /**
+     * Save unconfirmed transactions pool into the db table to restore it on the next start
+     */
+    @Override
+    public void shutdown() {
+        if (!poolLoaded) {
+            return;
+        }
+        globalSync.writeLock();
+        try {
+            TransactionalDataSource dataSource = lookupDataSource();
+            dataSource.begin();
+            try (Connection con = dataSource.getConnection()) {
+                deleteSavedTransactions(con);
+                for (UnconfirmedTransaction unconfirmedTransaction : transactionPool.getAll()) {
+                    unconfirmedTransaction.save(con);
+                }
+                new OptionDAO(databaseManager).set(UNCONFIRMED_POOL_SAVED_OPTION, "true");
+                dataSource.commit();
+                LOG.info("Saved {} unconfirmed transactions", transactionPool.size());
+            } catch (Exception e) {
+                LOG.error("Unable to save unconfirmed transactions", e);
+                dataSource.rollback();
+            }
+        } finally {
+            globalSync.writeUnlock();
+        }
+    }
+
+    private void clearCommittedCaches(String... tables) {
+        DerivedTablesRegistry registry = CDI.current().select(DerivedTablesRegistry.class).get();
+        for (String table : tables) {
+            DerivedTableInterface derivedTable = registry.getDerivedTable(table);
+            if (derivedTable instanceof EntityDbTable) {
+                ((EntityDbTable<?>) derivedTable).clearCommittedCache();
+            }
+        }
+    }
+
+    /**
+     * Restore unconfirmed transactions pool saved on shutdown. When node was not stopped properly, pool cannot be restored,
+     * so unconfirmed balances of the accounts are reset to the confirmed ones, as if the pool was cleared.
+     */
+    private void loadUnconfirmedTransactions() {
+        globalSync.writeLock();
+        try {
+            TransactionalDataSource dataSource = lookupDataSource();
+            OptionDAO optionDAO = new OptionDAO(databaseManager);
+            Connection con = dataSource.begin();
+            try {
+                if ("false".equals(optionDAO.get(UNCONFIRMED_POOL_SAVED_OPTION))) {
+                    LOG.warn("Unconfirmed transactions were not saved on the last shutdown, reset unconfirmed balances");
+                    try (Statement stmt = con.createStatement()) {
+                        stmt.executeUpdate("UPDATE account SET unconfirmed_balance = balance WHERE latest = TRUE");
+                        stmt.executeUpdate("UPDATE account_asset SET unconfirmed_quantity = quantity WHERE latest = TRUE");
+                        stmt.executeUpdate("UPDATE account_currency SET unconfirmed_units = units WHERE latest = TRUE");
+                    }
+                    clearCommittedCaches("account", "account_asset", "account_currency");
+                } else {
+                    try (PreparedStatement pstmt = con.prepareStatement("SELECT * FROM unconfirmed_transaction");
+                         ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            transactionPool.add(new UnconfirmedTransaction(rs), rs.getInt("height"));
+                        }
+                    }
+                }
+                deleteSavedTransactions(con);
+                optionDAO.set(UNCONFIRMED_POOL_SAVED_OPTION, "false");
+                dataSource.commit();
+                poolLoaded = true;
+                LOG.info("Loaded {} unconfirmed transactions", transactionPool.size());
+            } catch (Exception e) {
+                dataSource.rollback();
+                throw new RuntimeException(e.toString(), e);
+            }
+        } finally {
+            globalSync.writeUnlock();
+        }
     }
 
     private void configureBackgroundTasks() {
@@ -397,57 +519,35 @@ public class TransactionProcessorImpl implements TransactionProcessor {
         }
     }
 
-    @Override
-    public DbIterator<UnconfirmedTransaction> getAllUnconfirmedTransactions() {
-        return unconfirmedTransactionTable.getAll(0, -1);
+    private void deleteSavedTransactions(Connection con) throws SQLException {
+        try (Statement stmt = con.createStatement()) {
+            stmt.executeUpdate("DELETE FROM unconfirmed_transaction");
+        }
     }
 
     @Override
-    public DbIterator<UnconfirmedTransaction> getAllUnconfirmedTransactions(int from, int to) {
-        return unconfirmedTransactionTable.getAll(from, to);
+    public List<UnconfirmedTransaction> getAllUnconfirmedTransactions() {
+        return transactionPool.getAll();
     }
 
     @Override
-    public DbIterator<UnconfirmedTransaction> getAllUnconfirmedTransactions(String sort) {
-        return unconfirmedTransactionTable.getAll(0, -1, sort);
+    public List<UnconfirmedTransaction> getAllUnconfirmedTransactions(int from, int to) {
+        return transactionPool.getAll(from, to);
     }
 
     @Override
-    public DbIterator<UnconfirmedTransaction> getAllUnconfirmedTransactions(int from, int to, String sort) {
-        return unconfirmedTransactionTable.getAll(from, to, sort);
+    public List<UnconfirmedTransaction> getUnconfirmedTransactionsBySender(long senderId) {
+        return transactionPool.getBySender(senderId);
     }
 
     @Override
-    public Transaction getUnconfirmedTransaction(long transactionId) {
-        DbKey dbKey = transactionKeyFactory.newKey(transactionId);
-        return getUnconfirmedTransaction(dbKey);
+    public int getUnconfirmedTransactionsCount() {
+        return transactionPool.size();
     }
 
-    Transaction getUnconfirmedTransaction(DbKey dbKey) {
-        globalSync.readLock();
-        try {
-            Transaction transaction = transactionCache.get(dbKey);
-            if (transaction != null) {
-                return transaction;
-            }
-        } finally {
-            globalSync.readUnlock();
-        }
-        return unconfirmedTransactionTable.get(dbKey);
-    }
-
-    private List<Long> getAllUnconfirmedTransactionIds() {
-        List<Long> result = new ArrayList<>();
-        try (Connection con = lookupDataSource().getConnection();
-             PreparedStatement pstmt = con.prepareStatement("SELECT id FROM unconfirmed_transaction");
-             ResultSet rs = pstmt.executeQuery()) {
-            while (rs.next()) {
-                result.add(rs.getLong("id"));
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException(e.toString(), e);
-        }
-        return result;
+    @Override
+    public Transaction getUnconfirmedTransaction(long transactionId) {
+        return transactionPool.get(transactionId);
     }
 
     @Override
@@ -485,8 +585,7 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                 LOG.info("Transaction " + transaction.getStringId() + " already in blockchain, will not broadcast again");
                 return;
             }
-            DbKey dbKey = transactionKeyFactory.newKey(transaction.getId());
-            if (getUnconfirmedTransaction(dbKey) != null) {
+            if (transactionPool.contains(transaction.getId())) {
                 if (enableTransactionRebroadcasting) {
                     broadcastedTransactions.add(transaction);
                     LOG.info("Transaction " + transaction.getStringId() + " already in unconfirmed pool, will re-broadcast");
@@ -531,23 +630,20 @@ public class TransactionProcessorImpl implements TransactionProcessor {
             TransactionalDataSource dataSource = lookupDataSource();
             try {
                 dataSource.begin();
-                try (DbIterator<UnconfirmedTransaction> unconfirmedTransactions = getAllUnconfirmedTransactions()) {
-                    for (UnconfirmedTransaction unconfirmedTransaction : unconfirmedTransactions) {
-                        transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
-                        removed.add(unconfirmedTransaction.getTransaction());
-                    }
+                for (UnconfirmedTransaction unconfirmedTransaction : transactionPool.getAll()) {
+                    transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
+                    removed.add(unconfirmedTransaction.getTransaction());
                 }
-                unconfirmedTransactionTable.truncate();
                 dataSource.commit();
             } catch (Exception e) {
                 LOG.error(e.toString(), e);
                 dataSource.rollback();
                 throw e;
             }
+            transactionPool.clear();
             unconfirmedDuplicates.clear();
             waitingTransactions.clear();
             broadcastedTransactions.clear();
-            transactionCache.clear();
             txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(removed);
         } finally {
             globalSync.writeUnlock();
@@ -572,18 +668,22 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                 return;
             }
             List<Transaction> removed = new ArrayList<>();
-            try (DbIterator<UnconfirmedTransaction> unconfirmedTransactions = getAllUnconfirmedTransactions()) {
-                for (UnconfirmedTransaction unconfirmedTransaction : unconfirmedTransactions) {
-                    transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
-                    if (removed.size() < maxUnconfirmedTransactions) {
-                        removed.add(unconfirmedTransaction.getTransaction());
-                    }
-                    waitingTransactions.add(unconfirmedTransaction);
+            List<UnconfirmedTransaction> requeued = transactionPool.getAll();
+            int height = blockchain.getHeight();
+            for (UnconfirmedTransaction unconfirmedTransaction : requeued) {
+                transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
+                if (removed.size() < maxUnconfirmedTransactions) {
+                    removed.add(unconfirmedTransaction.getTransaction());
                 }
+                waitingTransactions.add(unconfirmedTransaction);
             }
-            unconfirmedTransactionTable.truncate();
+            transactionPool.clear();
+            saveUnconfirmedDuplicates();
             unconfirmedDuplicates.clear();
-            transactionCache.clear();
+            onRollback(() -> {
+                waitingTransactions.removeAll(requeued);
+                requeued.forEach(tx -> transactionPool.add(tx, height));
+            });
             txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(removed);
         } finally {
             globalSync.writeUnlock();
@@ -591,16 +691,129 @@ public class TransactionProcessorImpl implements TransactionProcessor {
     }
 
     @Override
-    public void rebroadcastAllUnconfirmedTransactions() {
+    public void requeueUnconfirmedTransactions(Collection<? extends Transaction> blockTransactions) {
         globalSync.writeLock();
         try {
-            try (DbIterator<UnconfirmedTransaction> oldNonBroadcastedTransactions = getAllUnconfirmedTransactions()) {
-                for (UnconfirmedTransaction unconfirmedTransaction : oldNonBroadcastedTransactions) {
+            TransactionalDataSource dataSource = lookupDataSource();
+            if (!dataSource.isInTransaction()) {
+                try {
+                    dataSource.begin();
+                    requeueUnconfirmedTransactions(blockTransactions);
+                    dataSource.commit();
+                } catch (Exception e) {
+                    LOG.error(e.toString(), e);
+                    dataSource.rollback();
+                    throw e;
+                }
+                return;
+            }
+            Set<Long> blockTransactionIds = new HashSet<>();
+            Set<Long> senders = new HashSet<>();
+            for (Transaction transaction : blockTransactions) {
+                blockTransactionIds.add(transaction.getId());
+                senders.add(transaction.getSenderId());
+            }
+            // only unconfirmed balances of the block transactions senders should be restored to accept the block
+            List<UnconfirmedTransaction> requeued = new ArrayList<>();
+            for (long senderId : senders) {
+                requeued.addAll(transactionPool.getBySender(senderId));
+            }
+            if (requeued.isEmpty()) {
+                return;
+            }
+            List<Transaction> removed = new ArrayList<>();
+            List<UnconfirmedTransaction> waiting = new ArrayList<>();
+            int height = blockchain.getHeight();
+            for (UnconfirmedTransaction unconfirmedTransaction : requeued) {
+                transactionPool.remove(unconfirmedTransaction.getId());
+                transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
+                if (removed.size() < maxUnconfirmedTransactions) {
+                    removed.add(unconfirmedTransaction.getTransaction());
+                }
+                if (!blockTransactionIds.contains(unconfirmedTransaction.getId())) {
+                    waiting.add(unconfirmedTransaction);
+                }
+            }
+            waitingTransactions.addAll(waiting);
+            // requeued transactions will be checked for duplicates again, when they are processed,
+            // duplicates of the remaining pool transactions are rebuilt by the revalidateUnconfirmedTransactions
+            onRollback(() -> {
+                waitingTransactions.removeAll(waiting);
+                requeued.forEach(tx -> transactionPool.add(tx, height));
+            });
+            txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(removed);
+        } finally {
+            globalSync.writeUnlock();
+        }
+    }
+
+    @Override
+    public void revalidateUnconfirmedTransactions() {
+        globalSync.writeLock();
+        try {
+            TransactionalDataSource dataSource = lookupDataSource();
+            if (!dataSource.isInTransaction()) {
+                try {
+                    dataSource.begin();
+                    revalidateUnconfirmedTransactions();
+                    dataSource.commit();
+                } catch (Exception e) {
+                    LOG.error(e.toString(), e);
+                    dataSource.rollback();
+                    throw e;
+                }
+                return;
+            }
+            saveUnconfirmedDuplicates();
+            unconfirmedDuplicates.clear();
+            List<UnconfirmedTransaction> evicted = new ArrayList<>();
+            List<UnconfirmedTransaction> waiting = new ArrayList<>();
+            for (UnconfirmedTransaction unconfirmedTransaction : transactionPool.getAll()) {
+                try {
+                    validator.validate(unconfirmedTransaction);
                     if (unconfirmedTransaction.getTransaction().isUnconfirmedDuplicate(unconfirmedDuplicates)) {
-                        LOG.debug("Skipping duplicate unconfirmed transaction " + unconfirmedTransaction.getTransaction().getJSONObject().toString());
-                    } else if (enableTransactionRebroadcasting) {
-                        broadcastedTransactions.add(unconfirmedTransaction.getTransaction());
+                        throw new AplException.NotCurrentlyValidException("Duplicate unconfirmed transaction");
                     }
+                    continue;
+                } catch (AplException.NotCurrentlyValidException e) {
+                    // may become valid again after the block rollback, so keep it as waiting like processWaitingTransactions does
+                    waiting.add(unconfirmedTransaction);
+                } catch (AplException.ValidationException | RuntimeException e) {
+                    LOG.debug("Unconfirmed transaction {} is not valid anymore: {}", unconfirmedTransaction.getStringId(), e.toString());
+                }
+                evicted.add(unconfirmedTransaction);
+            }
+            if (evicted.isEmpty()) {
+                return;
+            }
+            int height = blockchain.getHeight();
+            List<Transaction> removed = new ArrayList<>();
+            for (UnconfirmedTransaction unconfirmedTransaction : evicted) {
+                transactionPool.remove(unconfirmedTransaction.getId());
+                transactionApplier.undoUnconfirmed(unconfirmedTransaction.getTransaction());
+                broadcastedTransactions.remove(unconfirmedTransaction.getTransaction());
+                removed.add(unconfirmedTransaction.getTransaction());
+            }
+            waitingTransactions.addAll(waiting);
+            onRollback(() -> {
+                waitingTransactions.removeAll(waiting);
+                evicted.forEach(tx -> transactionPool.add(tx, height));
+            });
+            txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(removed);
+        } finally {
+            globalSync.writeUnlock();
+        }
+    }
+
+    @Override
+    public void rebroadcastAllUnconfirmedTransactions() {
+        globalSync.writeLock();
+        try {
+            for (UnconfirmedTransaction unconfirmedTransaction : transactionPool.getAll()) {
+                if (unconfirmedTransaction.getTransaction().isUnconfirmedDuplicate(unconfirmedDuplicates)) {
+                    LOG.debug("Skipping duplicate unconfirmed transaction " + unconfirmedTransaction.getTransaction().getJSONObject().toString());
+                } else if (enableTransactionRebroadcasting) {
+                    broadcastedTransactions.add(unconfirmedTransaction.getTransaction());
                 }
             }
         } finally {
@@ -622,19 +835,12 @@ public class TransactionProcessorImpl implements TransactionProcessor {
             }
             return;
         }
-        try (Connection con = dataSource.getConnection();
-             PreparedStatement pstmt = con.prepareStatement("DELETE FROM unconfirmed_transaction WHERE id = ?")) {
-            pstmt.setLong(1, transaction.getId());
-            int deleted = pstmt.executeUpdate();
-            if (deleted > 0) {
-                transactionApplier.undoUnconfirmed(transaction);
-                DbKey dbKey = transactionKeyFactory.newKey(transaction.getId());
-                transactionCache.remove(dbKey);
-                txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(Collections.singletonList(transaction));
-            }
-        } catch (SQLException e) {
-            LOG.error(e.toString(), e);
-            throw new RuntimeException(e.toString(), e);
+        int height = blockchain.getHeight();
+        UnconfirmedTransaction removed = transactionPool.remove(transaction.getId());
+        if (removed != null) {
+            onRollback(() -> transactionPool.add(removed, height));
+            transactionApplier.undoUnconfirmed(transaction);
+            txsEvent.select(TxEventType.literal(TxEventType.REMOVED_UNCONFIRMED_TRANSACTIONS)).fire(Collections.singletonList(transaction));
         }
     }
 
@@ -706,8 +912,7 @@ public class TransactionProcessorImpl implements TransactionProcessor {
             try {
                 Transaction transaction = TransactionImpl.parseTransaction((JSONObject) transactionData);
                 receivedTransactions.add(transaction);
-                DbKey dbKey = transactionKeyFactory.newKey(transaction.getId());
-                if (getUnconfirmedTransaction(dbKey) != null || blockchain.hasTransaction(transaction.getId())) {
+                if (transactionPool.contains(transaction.getId()) || blockchain.hasTransaction(transaction.getId())) {
                     continue;
                 }
                 validator.validate(transaction);
@@ -760,8 +965,7 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                 if (blockchain.getHeight() < blockchainConfig.getLastKnownBlock()) {
                     throw new AplException.NotCurrentlyValidException("Blockchain not ready to accept transactions");
                 }
-                DbKey dbKey = transactionKeyFactory.newKey(transaction.getId());
-                if (getUnconfirmedTransaction(dbKey) != null || blockchain.hasTransaction(transaction.getId())) {
+                if (transactionPool.contains(transaction.getId()) || blockchain.hasTransaction(transaction.getId())) {
                     throw new AplException.ExistingTransactionException("Transaction already processed");
                 }
 
@@ -781,9 +985,8 @@ public class TransactionProcessorImpl implements TransactionProcessor {
                     throw new AplException.NotCurrentlyValidException("Duplicate unconfirmed transaction");
                 }
 
-                unconfirmedTransactionTable.insert(unconfirmedTransaction);
-
                 dataSource.commit();
+                transactionPool.add(unconfirmedTransaction, blockchain.getHeight());
             } catch (Exception e) {
                 dataSource.rollback();
                 throw e;
@@ -793,12 +996,6 @@ public class TransactionProcessorImpl implements TransactionProcessor {
         }
     }
 
-    private static final Comparator<UnconfirmedTransaction> cachedUnconfirmedTransactionComparator =
-                    comparingInt(UnconfirmedTransaction::getHeight) // Sort by transaction_height ASC
-                    .thenComparing(comparingLong(UnconfirmedTransaction::getFeePerByte).reversed()) // Sort by fee_per_byte DESC
-                    .thenComparingLong(UnconfirmedTransaction::getArrivalTimestamp) // Sort by arrival_timestamp ASC
-                    .thenComparingLong(UnconfirmedTransaction::getId); // Sort by transaction ID ASC
-
     /**
      * Get the cached unconfirmed transactions
      *
@@ -807,33 +1004,11 @@ public class TransactionProcessorImpl implements TransactionProcessor {
     @Override
     public SortedSet<? extends Transaction> getCachedUnconfirmedTransactions(List<String> exclude) {
         SortedSet<UnconfirmedTransaction> transactionSet = new TreeSet<>(cachedUnconfirmedTransactionComparator);
-        globalSync.readLock();
-        try {
-            //
-            // Initialize the unconfirmed transaction cache if it hasn't been done yet
-            //
-            synchronized(transactionCache) {
-                if (!cacheInitialized) {
-                    DbIterator<UnconfirmedTransaction> it = getAllUnconfirmedTransactions();
-                    while (it.hasNext()) {
-                        UnconfirmedTransaction unconfirmedTransaction = it.next();
-                        DbKey dbKey = transactionKeyFactory.newKey(unconfirmedTransaction.getId());
-                        transactionCache.put(dbKey, unconfirmedTransaction);
-                    }
-                    cacheInitialized = true;
-                }
+        transactionPool.getAll().forEach(transaction -> {
+            if (Collections.binarySearch(exclude, transaction.getStringId()) < 0) {
+                transactionSet.add(transaction);
             }
-            //
-            // Build the result set
-            //
-            transactionCache.values().forEach(transaction -> {
-                if (Collections.binarySearch(exclude, transaction.getStringId()) < 0) {
-                    transactionSet.add(transaction);
-                }
-            });
-        } finally {
-            globalSync.readUnlock();
-        }
+        });
         return transactionSet;
     }
 
@@ -15,15 +15,23 @@ import com.apollocurrency.aplwallet.apl.core.db.derived.DerivedTableInterface;
 import com.apollocurrency.aplwallet.apl.core.shard.observer.TrimData;
 import com.apollocurrency.aplwallet.apl.util.Constants;
 import com.apollocurrency.aplwallet.apl.util.ThreadUtils;
+import com.apollocurrency.aplwallet.apl.util.task.NamedThreadFactory;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PreDestroy;
 import javax.enterprise.event.Event;
 import javax.enterprise.util.AnnotationLiteral;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.apollocurrency.aplwallet.apl.util.Constants.DEFAULT_PRUNABLE_UPDATE_PERIOD;
@@ -40,11 +48,29 @@ public class TrimService {
     private final GlobalSync globalSync;
     private final TimeService timeService;
     private final ReentrantLock lock = new ReentrantLock();
+    private final AplAppStatus aplAppStatus;
+    private final int trimThreads;
+    /**
+     * Executor for the concurrent trim of the derived tables, null when tables are trimmed one by one
+     */
+    private final ExecutorService trimExecutor;
 
     private Event<TrimData> trimEvent;
     private Event<TrimConfig> trimConfigEvent;
 
 
+    public TrimService(DatabaseManager databaseManager,
+                       DerivedTablesRegistry derivedDbTablesRegistry,
+                       GlobalSync globalSync,
+                       TimeService timeService,
+                       Event<TrimData> trimEvent,
+                       Event<TrimConfig> trimConfigEvent,
+                       TrimDao trimDao,
+                       int maxRollback
+    ) {
+        this(databaseManager, derivedDbTablesRegistry, globalSync, timeService, trimEvent, trimConfigEvent, trimDao, null, maxRollback, 1);
+    }
+
     @Inject
     public TrimService(DatabaseManager databaseManager,
                        DerivedTablesRegistry derivedDbTablesRegistry,
@@ -53,9 +79,16 @@ public class TrimService {
                        Event<TrimData> trimEvent,
                        Event<TrimConfig> trimConfigEvent,
                        TrimDao trimDao,
-                       @Property(value = "apl.maxRollback", defaultValue = "720") int maxRollback
+                       AplAppStatus aplAppStatus,
+                       @Property(value = "apl.maxRollback", defaultValue = "720") int maxRollback,
+                       @Property(value = "apl.trimThreads", defaultValue = "1") int trimThreads
     ) {
         this.maxRollback = maxRollback;
+        this.aplAppStatus = aplAppStatus;
+        this.trimThreads = Math.max(trimThreads, 1);
+        this.trimExecutor = this.trimThreads > 1
+            ? Executors.newFixedThreadPool(this.trimThreads, new NamedThreadFactory("TrimService-worker", true))
+            : null;
         this.trimDao = Objects.requireNonNull(trimDao, "trimDao is NULL");
         this.dbManager = Objects.requireNonNull(databaseManager, "Database manager cannot be null");
         this.dbTablesRegistry = Objects.requireNonNull(derivedDbTablesRegistry, "Db tables registry cannot be null");
@@ -115,7 +148,7 @@ public class TrimService {
                     dataSource.begin();
                 }
                 long startTime = System.currentTimeMillis();
-                doTrimDerivedTablesOnBlockchainHeight(height, async);
+                doTrimDerivedTablesOnBlockchainHeight(height, async, inTransaction);
                 dataSource.commit(!inTransaction);
                 log.info("Total trim time: {} ms on height '{}', InTr?=('{}')",
                         (System.currentTimeMillis() - startTime), height, inTransaction);
@@ -130,6 +163,10 @@ public class TrimService {
     }
 
     public void doTrimDerivedTablesOnBlockchainHeight(int blockchainHeight, boolean async) {
+        doTrimDerivedTablesOnBlockchainHeight(blockchainHeight, async, dbManager.getDataSource().isInTransaction());
+    }
+
+    private void doTrimDerivedTablesOnBlockchainHeight(int blockchainHeight, boolean async, boolean callerInTransaction) {
         log.debug("TRIM: doTrimDerivedTablesOnBlockchainHeight on height {} as async operation (? = {})", blockchainHeight, async);
         lock.lock();
         try {
@@ -143,7 +180,7 @@ public class TrimService {
                     trimDao.clear();
                     trimEntry = trimDao.save(trimEntry);
                     dbManager.getDataSource().commit(false);
-                    int pruningTime = doTrimDerivedTablesOnHeight(trimHeight, false);
+                    int pruningTime = doTrimDerivedTablesOnHeight(trimHeight, false, callerInTransaction);
                     if (async) {
                         log.debug("Fire doTrimDerived event height '{}' Async, trimHeight={}", blockchainHeight, trimHeight);
                         trimEvent.select(new AnnotationLiteral<TrimEvent>() {
@@ -200,15 +237,22 @@ public class TrimService {
         int res = 0;
         lock.lock();
         try {
-            res = doTrimDerivedTablesOnHeight(height, isSharding);
+            res = doTrimDerivedTablesOnHeight(height, isSharding, dbManager.getDataSource().isInTransaction());
         } finally {
             lock.unlock();
         }
         return res;
     }
 
+    /**
+     * Trim derived tables concurrently, when it is enabled and safe: caller should not hold the global write lock,
+     * which is required by the worker threads in the read mode, and should not have its own open transaction, which
+     * may hold db locks and uncommitted changes invisible for the workers connections. Otherwise tables are trimmed
+     * one by one in the caller thread.
+     * @param callerInTransaction true when the transaction was opened by the caller of the trim service
+     */
     @Transactional
-    private int doTrimDerivedTablesOnHeight(int height, boolean isSharding) {
+    private int doTrimDerivedTablesOnHeight(int height, boolean isSharding, boolean callerInTransaction) {
         log.debug("TRIM: doTrimDerivedTablesOnHeight on height={}, isSharding={}", height, isSharding);
         long start = System.currentTimeMillis();
 
@@ -218,31 +262,116 @@ public class TrimService {
         if (!inTransaction) {
             dataSource.begin();
         }
-        long onlyTrimTime = 0;
         int epochTime = timeService.getEpochTime();
         int pruningTime = epochTime - epochTime % DEFAULT_PRUNABLE_UPDATE_PERIOD;
+        List<DerivedTableInterface> tables = dbTablesRegistry.getDerivedTables();
+        String taskId = aplAppStatus == null ? null
+            : aplAppStatus.durableTaskStart("Trim", "Trim " + tables.size() + " derived tables at height " + height, false);
+        boolean concurrently = trimExecutor != null && !isSharding && !callerInTransaction
+            && !globalSync.isWriteLockedByCurrentThread();
+        long onlyTrimTime = 0;
+        try {
+            if (concurrently) {
+                onlyTrimTime = trimTablesConcurrently(tables, height, pruningTime, taskId);
+            } else {
+                for (DerivedTableInterface table : tables) {
+                    log.trace("Try to acquire lock...");
+                    globalSync.readLock();
+                    log.trace("Got it.");
+                    try {
+                        long startTime = System.currentTimeMillis();
+                        table.prune(pruningTime);
+                        table.trim(height, isSharding);
+                        dataSource.commit(false);
+                        long duration = System.currentTimeMillis() - startTime;
+                        reportTableTrimmed(taskId, table, duration, tables.size());
+                        onlyTrimTime += duration;
+                    } finally {
+                        globalSync.readUnlock();
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            if (taskId != null) {
+                aplAppStatus.durableTaskFinished(taskId, true, "Trim at height " + height + " failed: " + e.getMessage());
+            }
+            throw e;
+        }
+        long fullTime = System.currentTimeMillis() - start;
+        if (taskId != null) {
+            aplAppStatus.durableTaskFinished(taskId, false, "Trim at height " + height + " took " + fullTime + " ms, tables trim time " + onlyTrimTime + " ms");
+        }
+        log.info("Trim time onlyTrim/full: {} / {} ms, pruning='{}' on height='{}', threads={}",
+                onlyTrimTime, fullTime, pruningTime, height, concurrently ? trimThreads : 1);
+        return pruningTime;
+    }
 
-            for (DerivedTableInterface table : dbTablesRegistry.getDerivedTables()) {
-                log.trace("Try to acquire lock...");
-                globalSync.readLock();
-                log.trace("Got it.");
-                try {
-                    long startTime = System.currentTimeMillis();
-                    table.prune(pruningTime);
-                    table.trim(height, isSharding);
-                    dataSource.commit(false);
-                    long duration = System.currentTimeMillis() - startTime;
-                    // do not log trim duration here, instead go to the logback config and enable trace logs for BasicDbTable class
-                    //                    log.trace("Trim of {} took {} ms", table.getName(), duration);
-                    onlyTrimTime += duration;
-                } finally {
-                    globalSync.readUnlock();
+    /**
+     * Trim each table in the separate db transaction on the worker thread. Workers use their own connections,
+     * so that trim result of the each table is committed independently from the caller transaction.
+     * @return sum of the tables trim time
+     */
+    private long trimTablesConcurrently(List<DerivedTableInterface> tables, int height, int pruningTime, String taskId) {
+        List<Future<Long>> futures = new ArrayList<>(tables.size());
+        for (DerivedTableInterface table : tables) {
+            futures.add(trimExecutor.submit(() -> trimTableInTransaction(table, height, pruningTime, taskId, tables.size())));
+        }
+        long onlyTrimTime = 0;
+        RuntimeException trimException = null;
+        // wait for all tables even if some of them failed to not leave running trim behind
+        for (Future<Long> future : futures) {
+            try {
+                onlyTrimTime += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                trimException = new RuntimeException("Interrupted while waiting for trim at height " + height, e);
+            } catch (ExecutionException e) {
+                if (trimException == null) {
+                    trimException = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
                 }
             }
+        }
+        if (trimException != null) {
+            throw trimException;
+        }
+        return onlyTrimTime;
+    }
 
-        log.info("Trim time onlyTrim/full: {} / {} ms, pruning='{}' on height='{}'",
-                onlyTrimTime, System.currentTimeMillis() - start, pruningTime, height);
-        return pruningTime;
+    private long trimTableInTransaction(DerivedTableInterface table, int height, int pruningTime, String taskId, int tablesCount) {
+        TransactionalDataSource dataSource = dbManager.getDataSource();
+        globalSync.readLock();
+        try {
+            long startTime = System.currentTimeMillis();
+            dataSource.begin();
+            try {
+                table.prune(pruningTime);
+                table.trim(height, false);
+                dataSource.commit();
+            } catch (RuntimeException e) {
+                log.warn("Unable to trim table " + table.getName() + " at height " + height, e);
+                dataSource.rollback();
+                throw e;
+            }
+            long duration = System.currentTimeMillis() - startTime;
+            reportTableTrimmed(taskId, table, duration, tablesCount);
+            return duration;
+        } finally {
+            globalSync.readUnlock();
+        }
+    }
+
+    private void reportTableTrimmed(String taskId, DerivedTableInterface table, long duration, int tablesCount) {
+        log.trace("Trim of {} took {} ms", table.getName(), duration);
+        if (taskId != null) {
+            aplAppStatus.durableTaskUpdate(taskId, "Table '" + table.getName() + "' trimmed in " + duration + " ms", 100.0 / tablesCount);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (trimExecutor != null) {
+            trimExecutor.shutdown();
+        }
     }
 
     public void updateTrimConfig(boolean enableTrim, boolean clearQueue) {
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.util.LongMap;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory pool of unconfirmed transactions, which replaces the unconfirmed_transaction db table.
+ * <p>Transactions are indexed by id, by sender and kept ordered by the transaction height and the given comparator
+ * (usually fee per byte, arrival time), so that lookup and removal are O(1) and O(log n) and ordered iteration does
+ * not require sorting.</p>
+ * <p>Transaction height is changed when transaction is included into the block, so pool orders transactions by the
+ * height snapshot taken on addition and the given comparator should use only immutable transaction properties.</p>
+ * <p>Id and sender indexes are {@link LongMap}s, which do not box transaction and account ids, and are guarded by
+ * the pool monitor. Ordered readers do not require any lock. Modifications are expected to be done under the global
+ * write lock, but pool keeps its indexes consistent by itself</p>
+ */
+public class UnconfirmedTransactionPool {
+
+    private final LongMap<Entry> transactions = new LongMap<>();
+    private final NavigableSet<Entry> orderedTransactions;
+    private final LongMap<Set<Entry>> senderTransactions = new LongMap<>();
+
+    /**
+     * @param comparator order of the transactions with the same height, should be consistent with equals
+     */
+    public UnconfirmedTransactionPool(Comparator<UnconfirmedTransaction> comparator) {
+        this.orderedTransactions = new ConcurrentSkipListSet<>(Comparator.<Entry>comparingInt(entry -> entry.transactionHeight)
+                .thenComparing(entry -> entry.transaction, comparator));
+    }
+
+    /**
+     * Add transaction to the pool
+     * @param unconfirmedTransaction transaction to add
+     * @param height blockchain height, at which transaction was added, used by the {@link #removeFromHeight(int)}
+     * @return true if transaction was added, false when transaction with the same id already exists in the pool
+     */
+    public synchronized boolean add(UnconfirmedTransaction unconfirmedTransaction, int height) {
+        Entry entry = new Entry(unconfirmedTransaction, height);
+        if (transactions.putIfAbsent(unconfirmedTransaction.getId(), entry) != null) {
+            return false;
+        }
+        orderedTransactions.add(entry);
+        Set<Entry> senderSet = senderTransactions.get(unconfirmedTransaction.getSenderId());
+        if (senderSet == null) {
+            senderSet = new HashSet<>();
+            senderTransactions.put(unconfirmedTransaction.getSenderId(), senderSet);
+        }
+        senderSet.add(entry);
+        return true;
+    }
+
+    /**
+     * Remove transaction from the pool
+     * @param transactionId id of the transaction to remove
+     * @return removed transaction or null, when pool does not contain such transaction
+     */
+    public synchronized UnconfirmedTransaction remove(long transactionId) {
+        Entry entry = transactions.remove(transactionId);
+        if (entry == null) {
+            return null;
+        }
+        orderedTransactions.remove(entry);
+        Set<Entry> senderSet = senderTransactions.get(entry.senderId);
+        if (senderSet != null) {
+            senderSet.remove(entry);
+            if (senderSet.isEmpty()) {
+                senderTransactions.remove(entry.senderId);
+            }
+        }
+        return entry.transaction;
+    }
+
+    /**
+     * Remove transactions, which were added to the pool after given height
+     * @param height blockchain height
+     * @return removed transactions in pool order
+     */
+    public synchronized List<UnconfirmedTransaction> removeFromHeight(int height) {
+        List<UnconfirmedTransaction> removed = orderedTransactions.stream()
+                .filter(entry -> entry.height > height)
+                .map(entry -> entry.transaction)
+                .collect(Collectors.toList());
+        removed.forEach(tx -> remove(tx.getId()));
+        return removed;
+    }
+
+    /**
+     * Remove all transactions from the pool
+     * @return removed transactions in pool order
+     */
+    public synchronized List<UnconfirmedTransaction> clear() {
+        List<UnconfirmedTransaction> removed = getAll();
+        transactions.clear();
+        orderedTransactions.clear();
+        senderTransactions.clear();
+        return removed;
+    }
+
+    public synchronized UnconfirmedTransaction get(long transactionId) {
+        Entry entry = transactions.get(transactionId);
+        return entry == null ? null : entry.transaction;
+    }
+
+    public synchronized boolean contains(long transactionId) {
+        return transactions.containsKey(transactionId);
+    }
+
+    public synchronized int size() {
+        return transactions.size();
+    }
+
+    /**
+     * @return snapshot of ids of all pool transactions
+     */
+    public synchronized long[] getAllIds() {
+        return transactions.keys();
+    }
+
+    /**
+     * @return snapshot of all pool transactions in pool order
+     */
+    public List<UnconfirmedTransaction> getAll() {
+        return orderedTransactions.stream()
+                .map(entry -> entry.transaction)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Return pool transactions in pool order, using the same index semantics as the db pagination
+     * @param from index of the first transaction
+     * @param to index of the last transaction inclusive, negative value means no upper limit
+     * @return snapshot of the requested transactions
+     */
+    public List<UnconfirmedTransaction> getAll(int from, int to) {
+        long limit = to < 0 ? Long.MAX_VALUE : (long) to - from + 1;
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        return orderedTransactions.stream()
+                .skip(Math.max(from, 0))
+                .limit(limit)
+                .map(entry -> entry.transaction)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param senderId id of the sender account
+     * @return snapshot of the sender transactions in pool order
+     */
+    public synchronized List<UnconfirmedTransaction> getBySender(long senderId) {
+        Set<Entry> senderSet = senderTransactions.get(senderId);
+        if (senderSet == null) {
+            return Collections.emptyList();
+        }
+        return senderSet.stream()
+                .sorted(orderedTransactions.comparator())
+                .map(entry -> entry.transaction)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @param epochTime current epoch time
+     * @return snapshot of transactions, which expired before the given time
+     */
+    public List<UnconfirmedTransaction> getExpired(int epochTime) {
+        return orderedTransactions.stream()
+                .map(entry -> entry.transaction)
+                .filter(tx -> tx.getExpiration() < epochTime)
+                .collect(Collectors.toList());
+    }
+
+    private static class Entry {
+        private final UnconfirmedTransaction transaction;
+        private final int height;
+        private final int transactionHeight;
+        private final long senderId;
+
+        private Entry(UnconfirmedTransaction transaction, int height) {
+            this.transaction = transaction;
+            this.height = height;
+            this.transactionHeight = transaction.getHeight();
+            this.senderId = transaction.getSenderId();
+        }
+    }
+}
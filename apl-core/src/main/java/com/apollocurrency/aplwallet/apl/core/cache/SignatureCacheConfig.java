@@ -0,0 +1,26 @@
+/*
+ * Copyright (c)  2018-2019. Apollo Foundation.
+ */
+
+package com.apollocurrency.aplwallet.apl.core.cache;
+
+import com.apollocurrency.aplwallet.apl.util.cache.CacheConfigurator;
+import com.apollocurrency.aplwallet.apl.util.cache.InMemoryCacheManager;
+
+public class SignatureCacheConfig extends CacheConfigurator {
+
+    public static final String SIGNATURE_CACHE_NAME = "SIGNATURE_CACHE";
+
+    public SignatureCacheConfig(int priority) {
+        super(SIGNATURE_CACHE_NAME,
+                InMemoryCacheManager.newCalc()
+                        .addAggregation(32) // key object
+                        .addArrayExtra(32) // transaction full hash
+                        .addArrayExtra(32) // sender public key
+                        .addReference() // verified flag
+                        .calc(),
+                priority);
+
+        cacheBuilder().recordStats();
+    }
+}
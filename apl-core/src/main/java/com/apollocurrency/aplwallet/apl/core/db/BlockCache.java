@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.db;
+
+import com.apollocurrency.aplwallet.apl.core.app.Block;
+import com.google.common.cache.CacheStats;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Size bounded cache of the most recent blocks indexed by id and by height. Transactions are loaded lazily by the
+ * cached blocks, so that blocks keep their transactions while stay in the cache.
+ * <p>Only committed blocks should be put into cache. To avoid caching of the stale block, which was read
+ * concurrently with the invalidation, block can be put only with the cache version obtained before the block was read,
+ * every invalidation increments version and rejects such puts.</p>
+ * <p>When cache is full, blocks with the lowest height are evicted</p>
+ */
+public class BlockCache {
+    public static final String BLOCK_CACHE_NAME = "BLOCK_CACHE";
+
+    private final int capacity;
+    private final Map<Long, Block> blocks = new HashMap<>();
+    private final NavigableMap<Integer, Block> heightMap = new TreeMap<>();
+    private long version;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public BlockCache(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public boolean isEnabled() {
+        return capacity > 0;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized Block get(long blockId) {
+        return count(blocks.get(blockId));
+    }
+
+    public synchronized Block getAtHeight(int height) {
+        return count(heightMap.get(height));
+    }
+
+    /**
+     * Put block into the cache
+     * @param block committed block, loaded from the db
+     * @param version version of the cache, obtained before block was loaded
+     */
+    public synchronized void put(Block block, long version) {
+        if (!isEnabled() || version != this.version) {
+            return;
+        }
+        int height = block.getHeight();
+        if (heightMap.size() >= capacity && height < heightMap.firstKey()) {
+            return;
+        }
+        Block previous = heightMap.put(height, block);
+        if (previous != null) {
+            blocks.remove(previous.getId());
+        }
+        blocks.put(block.getId(), block);
+        while (heightMap.size() > capacity) {
+            Block evicted = heightMap.pollFirstEntry().getValue();
+            blocks.remove(evicted.getId());
+            evictionCount++;
+        }
+    }
+
+    public synchronized void invalidate(long blockId) {
+        version++;
+        Block block = blocks.remove(blockId);
+        if (block != null) {
+            heightMap.remove(block.getHeight());
+        }
+    }
+
+    public synchronized void clear() {
+        version++;
+        blocks.clear();
+        heightMap.clear();
+    }
+
+    public synchronized int size() {
+        return heightMap.size();
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hitCount, missCount, 0, 0, 0, evictionCount);
+    }
+
+    private Block count(Block block) {
+        if (isEnabled()) {
+            if (block != null) {
+                hitCount++;
+            } else {
+                missCount++;
+            }
+        }
+        return block;
+    }
+}
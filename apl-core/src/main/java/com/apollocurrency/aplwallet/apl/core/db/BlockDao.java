@@ -24,7 +24,7 @@ public interface BlockDao {
 
     long findBlockIdAtHeight(int height, TransactionalDataSource dataSource);
 
-//    Map<Long, Block> getBlockCache();
+    BlockCache getBlockCache();
 
 //    SortedMap<Integer, Block> getHeightMap();
 
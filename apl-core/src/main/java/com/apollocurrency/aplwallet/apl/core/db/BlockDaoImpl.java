@@ -24,8 +24,11 @@ import com.apollocurrency.aplwallet.apl.core.app.Block;
 import com.apollocurrency.aplwallet.apl.core.app.BlockImpl;
 import com.apollocurrency.aplwallet.apl.core.app.BlockNotFoundException;
 import com.apollocurrency.aplwallet.apl.core.db.cdi.Transactional;
+import com.apollocurrency.aplwallet.apl.core.shard.DbHotSwapConfig;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
 import org.slf4j.Logger;
 
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.math.BigInteger;
@@ -46,31 +49,80 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class BlockDaoImpl implements BlockDao {
     private static final Logger LOG = getLogger(BlockDaoImpl.class);
 
-//    @Inject
-//    @CacheProducer
-//    @CacheType(PUBLIC_KEY_CACHE_NAME)
-//    private Cache<Long, BlockIndex> publicKeyCache;
+    /**
+     * Default number of the most recent blocks to cache, should cover EC block lookups (720 blocks back)
+     */
+    public static final int DEFAULT_BLOCK_CACHE_SIZE = 800;
 
     private final DatabaseManager databaseManager;
+    private final BlockCache blockCache;
 
     @Inject
+    public BlockDaoImpl(DatabaseManager databaseManager, PropertiesHolder propertiesHolder) {
+        this(databaseManager, propertiesHolder.getIntProperty("apl.blockCacheSize", DEFAULT_BLOCK_CACHE_SIZE));
+    }
+
     public BlockDaoImpl(DatabaseManager databaseManager) {
-        // this.blockCacheSize = blockCacheSize;
+        this(databaseManager, DEFAULT_BLOCK_CACHE_SIZE);
+    }
+
+    public BlockDaoImpl(DatabaseManager databaseManager, int blockCacheSize) {
         this.databaseManager = Objects.requireNonNull(databaseManager, "DatabaseManager cannot be null");
+        this.blockCache = new BlockCache(blockCacheSize);
+    }
+
+    public void onDbHotSwapBegin(@Observes DbHotSwapConfig dbHotSwapConfig) {
+        clearBlockCache();
+    }
+
+    @Override
+    public BlockCache getBlockCache() {
+        return blockCache;
     }
 
     private void clearBlockCache() {
-//        synchronized (blockCache) {
-//            blockCache.clear();
-//            heightMap.clear();
-//            transactionCache.clear();
-//        }
+        blockCache.clear();
+    }
+
+    /**
+     * Invalidate cache now and again when current db transaction ends, so that blocks, which were read and cached
+     * by other threads before the transaction was committed, will not stay in the cache
+     */
+    private void invalidateOnTransactionEnd(TransactionalDataSource dataSource, Runnable invalidation) {
+        invalidation.run();
+        if (dataSource.isInTransaction()) {
+            dataSource.registerCallback(new TransactionCallback() {
+                @Override
+                public void commit() {
+                    invalidation.run();
+                }
+
+                @Override
+                public void rollback() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Blocks, read inside db transaction, may be not committed yet and should not be cached
+     */
+    private void cacheBlock(Block block, long cacheVersion) {
+        if (!databaseManager.getDataSource().isInTransaction()) {
+            blockCache.put(block, cacheVersion);
+        }
     }
 
     @Transactional(readOnly = true)
     @Override
     public Block findBlock(long blockId, TransactionalDataSource dataSource) {
         // Check the block cache
+        Block cachedBlock = blockCache.get(blockId);
+        if (cachedBlock != null) {
+            return cachedBlock;
+        }
+        long cacheVersion = blockCache.getVersion();
         // Search the database
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmt = con.prepareStatement("SELECT * FROM block WHERE id = ?")) {
@@ -79,6 +131,7 @@ public class BlockDaoImpl implements BlockDao {
                 Block block = null;
                 if (rs.next()) {
                     block = loadBlock(con, rs);
+                    cacheBlock(block, cacheVersion);
                 }
                 return block;
             }
@@ -116,6 +169,10 @@ public class BlockDaoImpl implements BlockDao {
     @Override
     public boolean hasBlock(long blockId, int height, TransactionalDataSource dataSource) {
         // Check the block cache
+        Block cachedBlock = blockCache.get(blockId);
+        if (cachedBlock != null) {
+            return cachedBlock.getHeight() <= height;
+        }
         // Search the database
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmt = con.prepareStatement(
@@ -134,6 +191,10 @@ public class BlockDaoImpl implements BlockDao {
     @Override
     public long findBlockIdAtHeight(int height, TransactionalDataSource dataSource) {
         // Check the cache
+        Block cachedBlock = blockCache.getAtHeight(height);
+        if (cachedBlock != null) {
+            return cachedBlock.getId();
+        }
         // Search the database
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmt = con.prepareStatement("SELECT id FROM block WHERE height = ?")) {
@@ -154,6 +215,11 @@ public class BlockDaoImpl implements BlockDao {
     @Override
     public Block findBlockAtHeight(int height, TransactionalDataSource dataSource) {
         // Check the cache
+        Block cachedBlock = blockCache.getAtHeight(height);
+        if (cachedBlock != null) {
+            return cachedBlock;
+        }
+        long cacheVersion = blockCache.getVersion();
         // Search the database
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmt = con.prepareStatement("SELECT * FROM block WHERE height = ?")) {
@@ -162,6 +228,7 @@ public class BlockDaoImpl implements BlockDao {
                 Block block;
                 if (rs.next()) {
                     block = loadBlock(con, rs);
+                    cacheBlock(block, cacheVersion);
                 } else {
                     throw new BlockNotFoundException("Block at height " + height + " not found in database!");
                 }
@@ -353,6 +420,20 @@ public class BlockDaoImpl implements BlockDao {
 
     @Override
     public List<Block> getBlocksAfter(int height, List<Long> blockIdList, List<Block> result, Connection con, int index) {
+        // Check the block cache
+        while (index < blockIdList.size()) {
+            Block cachedBlock = blockCache.getAtHeight(height + 1);
+            if (cachedBlock == null || cachedBlock.getId() != blockIdList.get(index)) {
+                break;
+            }
+            result.add(cachedBlock);
+            index++;
+            height++;
+        }
+        if (index >= blockIdList.size()) {
+            return result;
+        }
+        long cacheVersion = blockCache.getVersion();
         // Search the database
         try (PreparedStatement pstmt = con.prepareStatement("SELECT * FROM block "
                      + "WHERE height > ? "
@@ -366,6 +447,7 @@ public class BlockDaoImpl implements BlockDao {
                         LOG.debug("Block id {} not equal to {}", block.getId(), blockIdList.get(index - 1));
                         break;
                     }
+                    cacheBlock(block, cacheVersion);
                     result.add(block);
                 }
             }
@@ -503,14 +585,8 @@ public class BlockDaoImpl implements BlockDao {
                     pstmt.setLong(2, block.getPreviousBlockId());
                     pstmt.executeUpdate();
                 }
-//                Update next block id for cached block
-//                Block previousBlock;
-//                synchronized (blockCache) {
-//                    previousBlock = blockCache.get(block.getPreviousBlockId());
-//                }
-//                if (previousBlock != null) {
-//                    previousBlock.setNextBlockId(block.getId());
-//                }
+                // next block id of the cached previous block is changed
+                invalidateOnTransactionEnd(databaseManager.getDataSource(), () -> blockCache.invalidate(block.getPreviousBlockId()));
             }
         }
         catch (SQLException e) {
@@ -530,6 +606,7 @@ public class BlockDaoImpl implements BlockDao {
         catch (SQLException e) {
             throw new RuntimeException(e.toString(), e);
         }
+        invalidateOnTransactionEnd(dataSource, () -> blockCache.invalidate(block.getId()));
     }
 
     @Override
@@ -621,7 +698,7 @@ public class BlockDaoImpl implements BlockDao {
             throw new RuntimeException(e.toString(), e);
         }
         finally {
-//            clearBlockCache();
+            invalidateOnTransactionEnd(dataSource, this::clearBlockCache);
         }
     }
 
@@ -641,6 +718,7 @@ public class BlockDaoImpl implements BlockDao {
             return;
         }
         LOG.debug("Deleting blockchain...");
+        invalidateOnTransactionEnd(dataSource, this::clearBlockCache);
         try (Connection con = dataSource.getConnection();
              Statement stmt = con.createStatement()) {
             try {
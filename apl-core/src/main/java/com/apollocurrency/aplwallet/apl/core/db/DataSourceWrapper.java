@@ -126,8 +126,12 @@ public class DataSourceWrapper implements DataSource {
     private final int loginTimeout;
     private final int defaultLockTimeout;
     private final int maxMemoryRows;
+    private final int minIdleConnections;
+    private final long idleTimeout;
+    private final boolean readOnly;
     private volatile boolean initialized = false;
     private volatile boolean shutdown = false;
+    private volatile long lastUseTime;
 
     public HikariPoolMXBean getJmxBean() {
         return jmxBean;
@@ -145,7 +149,21 @@ public class DataSourceWrapper implements DataSource {
             if (m.find()) { // if found
                 shardId = m.group(); // store shard id
             }
-            dbUrl = String.format("jdbc:%s:file:%s;%s", dbProperties.getDbType(), dbProperties.getDbDir() + "/" + dbFileName, dbProperties.getDbParams());
+            String dbPath = dbProperties.getDbDir() + "/" + dbFileName;
+            String dbParams = dbProperties.getDbParams();
+            if ("h2".equals(dbProperties.getDbType())) {
+                H2StorageEngine engine = H2StorageEngine.resolve(dbPath, dbParams);
+                if (engine != H2StorageEngine.configured(dbParams)) {
+                    log.warn("Database {} uses {} storage, configured storage is ignored, use 'mvstore' tool command to convert database",
+                            dbPath, engine);
+                }
+                dbParams = engine.applyTo(dbParams);
+                if (dbProperties.isReadOnly()) {
+                    // open database file read-only, without lock file, write operations fail
+                    dbParams += ";ACCESS_MODE_DATA=r";
+                }
+            }
+            dbUrl = String.format("jdbc:%s:file:%s;%s", dbProperties.getDbType(), dbPath, dbParams);
         }
         if (!dbUrl.contains("MV_STORE=")) {
             dbUrl += ";MV_STORE=FALSE";
@@ -161,6 +179,9 @@ public class DataSourceWrapper implements DataSource {
         this.loginTimeout = dbProperties.getLoginTimeout();
         this.defaultLockTimeout = dbProperties.getDefaultLockTimeout();
         this.maxMemoryRows = dbProperties.getMaxMemoryRows();
+        this.minIdleConnections = dbProperties.getMinIdleConnections();
+        this.idleTimeout = dbProperties.getIdleTimeout();
+        this.readOnly = dbProperties.isReadOnly();
     }
 
     /**
@@ -186,26 +207,40 @@ public class DataSourceWrapper implements DataSource {
         config.setUsername(dbUsername);
         config.setPassword(dbPassword);
         config.setMaximumPoolSize(maxConnections);
+        if (minIdleConnections >= 0) {
+            config.setMinimumIdle(minIdleConnections); // pool grows on demand and shrinks after idle timeout
+        }
         config.setConnectionTimeout(TimeUnit.SECONDS.toMillis(loginTimeout));
         config.setLeakDetectionThreshold(60_000 * 5); // 5 minutes
-        config.setIdleTimeout(60_000 * 20); // 20 minutes in milliseconds
+        config.setIdleTimeout(idleTimeout);
         config.setPoolName(shardId);
         log.debug("Creating DataSource pool '{}', path = {}", shardId, dbUrl);
         updateTransactionTable(config, dbVersion);
         dataSource = new HikariDataSource(config);
         jmxBean = dataSource.getHikariPoolMXBean();
+        try {
+            initDatabase(dbVersion);
+        } catch (RuntimeException e) {
+            dataSource.close(); // release database file, when it can't be initialized
+            throw e;
+        }
+    }
+
+    private void initDatabase(DbVersion dbVersion) {
 /*
         dataSource = JdbcConnectionPool.create(dbUrl, dbUsername, dbPassword);
         dataSource.setMaxConnections(maxConnections);
         dataSource.setLoginTimeout(loginTimeout);
 */
         log.debug("Attempting to create DataSource by path = {}...", dbUrl);
-        try (Connection con = dataSource.getConnection();
-             Statement stmt = con.createStatement()) {
-            stmt.executeUpdate("SET DEFAULT_LOCK_TIMEOUT " + defaultLockTimeout);
-            stmt.executeUpdate("SET MAX_MEMORY_ROWS " + maxMemoryRows);
-        } catch (SQLException e) {
-            throw new RuntimeException(e.toString(), e);
+        if (!readOnly) { // database settings are persistent and can't be changed in the read-only database
+            try (Connection con = dataSource.getConnection();
+                 Statement stmt = con.createStatement()) {
+                stmt.executeUpdate("SET DEFAULT_LOCK_TIMEOUT " + defaultLockTimeout);
+                stmt.executeUpdate("SET MAX_MEMORY_ROWS " + maxMemoryRows);
+            } catch (SQLException e) {
+                throw new RuntimeException(e.toString(), e);
+            }
         }
         log.debug("Before starting Db schema init {}...", dbVersion);
         dbVersion.init(this);
@@ -272,7 +307,7 @@ public class DataSourceWrapper implements DataSource {
         try {
             Connection con = dataSource.getConnection();
             Statement stmt = con.createStatement();
-            stmt.execute("SHUTDOWN COMPACT");
+            stmt.execute(readOnly ? "SHUTDOWN" : "SHUTDOWN COMPACT");
             shutdown = true;
             initialized = false;
             dataSource.close();
@@ -289,6 +324,30 @@ public class DataSourceWrapper implements DataSource {
         return shutdown;
     }
 
+    /**
+     * @return true when database was opened in the read-only mode
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * @param timeout time in ms
+     * @return true when some connections of the pool are in use or data source was used less than timeout ago
+     */
+    public boolean isInUse(long timeout) {
+        return (jmxBean != null && jmxBean.getActiveConnections() > 0)
+                || System.currentTimeMillis() - lastUseTime < timeout;
+    }
+
+    /**
+     * Mark data source as used now, it should be done when data source is handed out, so that it is not considered
+     * unused before the caller requests a connection
+     */
+    public void markUsed() {
+        lastUseTime = System.currentTimeMillis();
+    }
+
     public void analyzeTables() {
         try (Connection con = dataSource.getConnection();
              Statement stmt = con.createStatement()) {
@@ -309,6 +368,7 @@ public class DataSourceWrapper implements DataSource {
 
     protected Connection getPooledConnection() throws SQLException {
         Connection con = dataSource.getConnection();
+        markUsed();
         if (jmxBean != null) {
             if (log.isDebugEnabled()){
                 int totalConnections = jmxBean.getTotalConnections();
@@ -11,8 +11,6 @@ import com.apollocurrency.aplwallet.apl.util.StringValidator;
 import com.apollocurrency.aplwallet.apl.util.ThreadUtils;
 import com.apollocurrency.aplwallet.apl.util.injectable.DbProperties;
 import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.RemovalListener;
 import org.jdbi.v3.core.Jdbi;
 import org.slf4j.Logger;
 
@@ -25,14 +23,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.stream.Collectors;
 
@@ -45,47 +45,39 @@ import static org.slf4j.LoggerFactory.getLogger;
 @Singleton
 public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
     private static final Logger log = getLogger(DatabaseManagerImpl.class);
+    private static final int DEFAULT_MAX_OPEN_SHARD_DATA_SOURCES = 8;
+    private static final long DEFAULT_SHARD_IN_USE_TIMEOUT = 30_000;
+    private static final long DEFAULT_SHARD_DRAIN_TIMEOUT = 2 * DEFAULT_SHARD_IN_USE_TIMEOUT;
+    private static final long SHARD_DRAIN_CHECK_INTERVAL = 10;
 
     private DbProperties baseDbProperties; // main database properties
     private PropertiesHolder propertiesHolder;
     private volatile TransactionalDataSource currentTransactionalDataSource; // main/shard database
 
     /**
-     * Shard data sources cache loader
+     * Open shard data sources in the access order, the least recently used shard goes first. Guarded by the lock
      */
-    private CacheLoader<Long, TransactionalDataSource> loader = new CacheLoader<>() {
-        public TransactionalDataSource load(Long shardId) throws CacheLoader.InvalidCacheLoadException {
-            log.debug("Put DS shardId = '{}' into cache...", shardId);
-            TransactionalDataSource dataSource = createAndAddShard(shardId);
-            if(dataSource == null){
-                throw new CacheLoader.InvalidCacheLoadException("Value can't be null");
-            }
-            return dataSource;
-        }
-    };
-
+    private final Map<Long, TransactionalDataSource> connectedShardDataSourceMap = new LinkedHashMap<>(16, 0.75f, true); // secondary shards
     /**
-     * Listener to close + remove evicted shard data source
+     * Full shards, which are being opened in the read-only mode outside of the lock. Guarded by the lock
      */
-    private RemovalListener<Long, TransactionalDataSource> listener = dataSource -> {
-        if (dataSource.wasEvicted()) {
-            String cause = dataSource.getCause().name();
-            log.debug("Evicted DS, shutdown shardId = '{}', cause = {}", dataSource.getKey(), cause);
-            dataSource.getValue().shutdown();
-        }
-    };
-    private Map<Long, TransactionalDataSource> connectedShardDataSourceMap = new ConcurrentHashMap<>(); // secondary shards
+    private final Map<Long, CompletableFuture<TransactionalDataSource>> openingShardDataSources = new HashMap<>();
     /**
-     * Cached shard data sources with timed eviction policy
+     * Max number of the open shard data sources, each of them holds database file, H2 page cache and connection pool
      */
-/*
-    private LoadingCache<Long, TransactionalDataSource> connectedShardDataSourceMap = CacheBuilder.newBuilder()
-            .maximumSize(MAX_CACHED_SHARDS_NUMBER) // 6 by default
-            .expireAfterAccess(SHARD_EVICTION_TIME, TimeUnit.MINUTES) // 15 minutes
-            .weakKeys()
-            .removalListener(listener)
-            .build(loader);
-*/
+    private int maxOpenShardDataSources = DEFAULT_MAX_OPEN_SHARD_DATA_SOURCES;
+    /**
+     * Open full (completed) shards in the read-only mode
+     */
+    private boolean readOnlyFullShards = true;
+    /**
+     * Shard data source, which was used recently, may be still referenced by the caller, so that it is not closed
+     */
+    private long shardInUseTimeout = DEFAULT_SHARD_IN_USE_TIMEOUT;
+    /**
+     * Max time to wait until read-only shard data source is no longer used to reopen it for writing
+     */
+    private long shardDrainTimeout = DEFAULT_SHARD_DRAIN_TIMEOUT;
 
     private Jdbi jdbi;
     private JdbiHandleFactory jdbiHandleFactory;
@@ -109,6 +101,18 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         this.available = available;
     }
 
+    void setMaxOpenShardDataSources(int maxOpenShardDataSources) {
+        this.maxOpenShardDataSources = maxOpenShardDataSources;
+    }
+
+    void setShardInUseTimeout(long shardInUseTimeout) {
+        this.shardInUseTimeout = shardInUseTimeout;
+    }
+
+    void setShardDrainTimeout(long shardDrainTimeout) {
+        this.shardDrainTimeout = shardDrainTimeout;
+    }
+
     /**
      * Create main db instance with db properties, all other properties injected by CDI
      * @param dbProperties database only properties from CDI
@@ -119,6 +123,8 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         this.baseDbProperties = Objects.requireNonNull(dbProperties, "Db Properties is NULL");
         this.propertiesHolder = Objects.requireNonNull(propertiesHolderParam, "Properties holder is NULL");
         this.jdbiHandleFactory = Objects.requireNonNull(jdbiHandleFactory, "jdbiHandleFactory is NULL");
+        this.maxOpenShardDataSources = propertiesHolder.getIntProperty("apl.maxOpenShardDataSources", DEFAULT_MAX_OPEN_SHARD_DATA_SOURCES);
+        this.readOnlyFullShards = propertiesHolder.getBooleanProperty("apl.readOnlyFullShards", true);
         initDatasource();
         this.available = true;
     }
@@ -166,50 +172,165 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         return result;
     }
 
-    private TransactionalDataSource createAndAddShard(Long shardId) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public TransactionalDataSource createOrUpdateShard(Long shardId, DbVersion dbVersion) {
+        Objects.requireNonNull(dbVersion, "dbVersion is null");
+        long start = System.currentTimeMillis();
+        waitAvailability();
+        while (true) {
+            CompletableFuture<TransactionalDataSource> opening;
+            synchronized (lock) {
+                opening = openingShardDataSources.get(shardId);
+                if (opening == null) {
+                    TransactionalDataSource dataSource = connectedShardDataSourceMap.get(shardId);
+                    if (dataSource != null && dataSource.isReadOnly()) {
+                        log.debug("Reopen read-only SHARD '{}' for writing", shardId);
+                        drainReadOnlyShard(shardId, dataSource);
+                        dataSource = null;
+                    }
+                    if (dataSource != null) {
+                        dataSource.update(dbVersion);
+                        dataSource.markUsed();
+                        log.debug("Init existing SHARD using db version'{}' in {} ms", dbVersion, System.currentTimeMillis() - start);
+                        return dataSource;
+                    } else {
+                        return createShardDatasource(shardId, dbVersion);
+                    }
+                }
+            }
+            // shard is being opened in the read-only mode, wait for it and reopen it for writing then
+            opening.handle((dataSource, e) -> dataSource).join();
+        }
+    }
+
+    /**
+     * Wait until read-only shard data source is no longer used and close it. Lock is held meanwhile, so that shard
+     * is not handed out to the new callers. Read-only database has no file lock and its page cache does not see
+     * the changes of the writable one, so that they are never open together.
+     * @throws IllegalStateException when shard is still in use after {@link #shardDrainTimeout}
+     */
+    private void drainReadOnlyShard(Long shardId, TransactionalDataSource dataSource) {
+        long deadline = System.currentTimeMillis() + shardDrainTimeout;
+        while (dataSource.isInUse(shardInUseTimeout)) {
+            if (System.currentTimeMillis() >= deadline) {
+                throw new IllegalStateException("Unable to reopen SHARD '" + shardId + "' for writing, read-only SHARD is still in use");
+            }
+            ThreadUtils.sleep(SHARD_DRAIN_CHECK_INTERVAL);
+        }
+        connectedShardDataSourceMap.remove(shardId);
+        dataSource.shutdown();
+    }
+
+    private TransactionalDataSource createShardDatasource(Long shardId, DbVersion dbVersion) {
         long start = System.currentTimeMillis();
         waitAvailability();
         ShardDataSourceCreateHelper shardDataSourceCreateHelper =
                 new ShardDataSourceCreateHelper(this, shardId).createUninitializedDataSource();
         TransactionalDataSource shardDb = shardDataSourceCreateHelper.getShardDb();
-        shardDb.init(new ShardInitTableSchemaVersion());
+        shardDb.init(dbVersion);
+        shardDb.markUsed();
         connectedShardDataSourceMap.put(shardDataSourceCreateHelper.getShardId(), shardDb);
-        log.debug("new SHARD '{}' is CREATED in {} ms", shardDataSourceCreateHelper.getShardName(), System.currentTimeMillis() - start);
+        closeLeastRecentlyUsedShards(shardDataSourceCreateHelper.getShardId());
+        log.debug("new {}SHARD datasource'{}' is ADDED in {} ms", shardDb.isReadOnly() ? "read-only " : "",
+                shardDataSourceCreateHelper.getShardName(), System.currentTimeMillis() - start);
         return shardDb;
     }
 
     /**
-     * {@inheritDoc}
+     * Get open full shard data source or open it in the read-only mode (when enabled), shard is reopened for writing,
+     * when its schema is not up to date. Database file is opened outside of the lock, so that access to the other
+     * shards is not blocked, concurrent callers for the same shard wait for the single opening
      */
-    @Override
-    public TransactionalDataSource createOrUpdateShard(Long shardId, DbVersion dbVersion) {
-        Objects.requireNonNull(dbVersion, "dbVersion is null");
-        long start = System.currentTimeMillis();
+    private TransactionalDataSource getOrOpenFullShardDataSource(long shardId) {
+        DbVersion dbVersion = new ShardAddConstraintsSchemaVersion();
+        if (!readOnlyFullShards) {
+            return getOrCreateShardDataSourceById(shardId, dbVersion);
+        }
         waitAvailability();
-//        if (connectedShardDataSourceMap.getIfPresent(shardId) == null) {
-//            TransactionalDataSource dataSource = connectedShardDataSourceMap.getUnchecked(shardId);
-        if (connectedShardDataSourceMap.containsKey(shardId)) {
-            TransactionalDataSource dataSource = connectedShardDataSourceMap.get(shardId);
-            dataSource.update(dbVersion);
-            log.debug("Init existing SHARD using db version'{}' in {} ms", dbVersion, System.currentTimeMillis() - start);
+        CompletableFuture<TransactionalDataSource> opening;
+        while (true) {
+            synchronized (lock) {
+                TransactionalDataSource dataSource = connectedShardDataSourceMap.get(shardId);
+                if (dataSource != null) {
+                    dataSource.markUsed();
+                    return dataSource;
+                }
+                opening = openingShardDataSources.get(shardId);
+                if (opening == null) {
+                    opening = new CompletableFuture<>();
+                    openingShardDataSources.put(shardId, opening);
+                    break;
+                }
+            }
+            // opened data source is taken under the lock, so that it is marked as used before it can be closed
+            opening.join();
+        }
+        TransactionalDataSource dataSource = null;
+        try {
+            dataSource = openReadOnlyShardDataSource(shardId, dbVersion);
+        } catch (RuntimeException e) {
+            log.info("Unable to open SHARD '{}' in the read-only mode, open for writing: {}", shardId, e.toString());
+        }
+        synchronized (lock) {
+            // createOrUpdateShard waits for the opening, so that shard can not be opened for writing meanwhile
+            openingShardDataSources.remove(shardId);
+            if (dataSource != null) {
+                dataSource.markUsed();
+                connectedShardDataSourceMap.put(shardId, dataSource);
+                closeLeastRecentlyUsedShards(shardId);
+            }
+        }
+        try {
+            if (dataSource == null) {
+                dataSource = createOrUpdateShard(shardId, dbVersion);
+            }
+            opening.complete(dataSource);
             return dataSource;
-        } else {
-            return createShardDatasource(shardId, dbVersion);
+        } catch (RuntimeException e) {
+            opening.completeExceptionally(e);
+            throw e;
         }
     }
 
-    private TransactionalDataSource createShardDatasource(Long shardId, DbVersion dbVersion) {
+    private TransactionalDataSource openReadOnlyShardDataSource(long shardId, DbVersion dbVersion) {
         long start = System.currentTimeMillis();
-        waitAvailability();
         ShardDataSourceCreateHelper shardDataSourceCreateHelper =
-                new ShardDataSourceCreateHelper(this, shardId).createUninitializedDataSource();
+                new ShardDataSourceCreateHelper(this, shardId).createUninitializedDataSource(true);
         TransactionalDataSource shardDb = shardDataSourceCreateHelper.getShardDb();
-        shardDb.init(dbVersion);
-        connectedShardDataSourceMap.put(shardId, shardDb);
-        log.debug("new SHARD datasource'{}' is ADDED in {} ms", shardDataSourceCreateHelper.getShardName(), System.currentTimeMillis() - start);
+        try {
+            shardDb.init(dbVersion);
+        } catch (RuntimeException e) {
+            shardDb.shutdown();
+            throw e;
+        }
+        log.debug("new {}SHARD datasource'{}' is OPENED in {} ms", shardDb.isReadOnly() ? "read-only " : "",
+                shardDataSourceCreateHelper.getShardName(), System.currentTimeMillis() - start);
         return shardDb;
     }
 
+    /**
+     * Close least recently used shard data sources over the {@link #maxOpenShardDataSources} limit. Data sources
+     * in use and temporary database are never closed, so that limit can be exceeded temporarily.
+     * @param openedShardId id of the just opened shard, which is kept open
+     */
+    private void closeLeastRecentlyUsedShards(Long openedShardId) {
+        int toClose = connectedShardDataSourceMap.size() - maxOpenShardDataSources;
+        Iterator<Map.Entry<Long, TransactionalDataSource>> iterator = connectedShardDataSourceMap.entrySet().iterator();
+        while (toClose > 0 && iterator.hasNext()) {
+            Map.Entry<Long, TransactionalDataSource> entry = iterator.next();
+            TransactionalDataSource dataSource = entry.getValue();
+            if (entry.getKey() != TEMP_DB_IDENTITY && !entry.getKey().equals(openedShardId)
+                    && !dataSource.isInUse(shardInUseTimeout)) {
+                iterator.remove();
+                log.debug("Close least recently used SHARD '{}'", entry.getKey());
+                dataSource.shutdown();
+                toClose--;
+            }
+        }
+    }
 
     /**
      * {@inheritDoc}
@@ -219,13 +340,11 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         List<TransactionalDataSource> dataSources;
         if (numberOfShards != null) {
             dataSources = fullShardIds.stream().limit(numberOfShards).sorted(
-                    Comparator.reverseOrder()).map(id -> getOrCreateShardDataSourceById(
-                    id, new ShardAddConstraintsSchemaVersion())).collect(Collectors.toList());
+                    Comparator.reverseOrder()).map(this::getOrOpenFullShardDataSource).collect(Collectors.toList());
         } else {
             fullShardIds = findAllFullShardId();
             dataSources = fullShardIds.stream().sorted(
-                    Comparator.reverseOrder()).map(id -> getOrCreateShardDataSourceById(
-                    id, new ShardAddConstraintsSchemaVersion())).collect(Collectors.toList());
+                    Comparator.reverseOrder()).map(this::getOrOpenFullShardDataSource).collect(Collectors.toList());
         }
         return dataSources;
     }
@@ -237,8 +356,7 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
     public Iterator<TransactionalDataSource> getAllFullDataSourcesIterator() {
         Set<Long> allFullShards = findAllFullShardId();
         Iterator<TransactionalDataSource> dataSourcesIterator = allFullShards.stream().sorted(
-                    Comparator.reverseOrder()).map(id -> getOrCreateShardDataSourceById(
-                    id, new ShardAddConstraintsSchemaVersion())).iterator();
+                    Comparator.reverseOrder()).map(this::getOrOpenFullShardDataSource).iterator();
         return dataSourcesIterator;
     }
 
@@ -246,18 +364,18 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
      * {@inheritDoc}
      */
     @Override
-    public synchronized long closeAllShardDataSources() {
-        log.debug("Prepare closing [{}] shard data source(s)", connectedShardDataSourceMap.size());
-        long closedDataSources = 0;
-//        for (TransactionalDataSource dataSource : connectedShardDataSourceMap.asMap().values()) {
-        for (TransactionalDataSource dataSource : connectedShardDataSourceMap.values()) {
-            dataSource.shutdown();
-            closedDataSources++;
+    public long closeAllShardDataSources() {
+        synchronized (lock) {
+            log.debug("Prepare closing [{}] shard data source(s)", connectedShardDataSourceMap.size());
+            long closedDataSources = 0;
+            for (TransactionalDataSource dataSource : connectedShardDataSourceMap.values()) {
+                dataSource.shutdown();
+                closedDataSources++;
+            }
+            log.debug("Closed [{}] data source(s)", closedDataSources);
+            connectedShardDataSourceMap.clear();
+            return closedDataSources;
         }
-        log.debug("Closed [{}] data source(s)", closedDataSources);
-//        connectedShardDataSourceMap.invalidateAll();
-        connectedShardDataSourceMap.clear();
-        return closedDataSources;
     }
 
 
@@ -277,16 +395,23 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
 
         TransactionalDataSource temporaryDataSource = new TransactionalDataSource(shardDbProperties, propertiesHolder);
         temporaryDataSource.init(new AplDbVersion());
-        connectedShardDataSourceMap.put(TEMP_DB_IDENTITY, temporaryDataSource); // put temporary DS with special ID
+        synchronized (lock) {
+            connectedShardDataSourceMap.put(TEMP_DB_IDENTITY, temporaryDataSource); // put temporary DS with special ID
+        }
         log.debug("new temporaryDataSource '{}' is CREATED in {} ms", temporaryDatabaseName, System.currentTimeMillis() - start);
         return temporaryDataSource;
     }
 
     @Override
-    public /*synchronized*/ TransactionalDataSource getShardDataSourceById(long shardId) {
+    public TransactionalDataSource getShardDataSourceById(long shardId) {
         waitAvailability();
-//        return connectedShardDataSourceMap.getUnchecked(shardId);
-        return connectedShardDataSourceMap.get(shardId);
+        synchronized (lock) {
+            TransactionalDataSource dataSource = connectedShardDataSourceMap.get(shardId);
+            if (dataSource != null) {
+                dataSource.markUsed();
+            }
+            return dataSource;
+        }
     }
 
     @Override
@@ -321,13 +446,13 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
     @Override
     public TransactionalDataSource getOrCreateShardDataSourceById(Long shardId, DbVersion dbVersion) {
         Objects.requireNonNull(dbVersion, "dbVersion is null");
-//        if (shardId != null && connectedShardDataSourceMap.getIfPresent(shardId) == null) {
-//            return connectedShardDataSourceMap.getUnchecked(shardId);
-        if (shardId != null && connectedShardDataSourceMap.containsKey(shardId)) {
-            return connectedShardDataSourceMap.get(shardId);
-        } else {
-            return createOrUpdateShard(shardId, dbVersion);
+        if (shardId != null) {
+            TransactionalDataSource dataSource = getShardDataSourceById(shardId);
+            if (dataSource != null) {
+                return dataSource;
+            }
         }
+        return createOrUpdateShard(shardId, dbVersion);
     }
 
     /**
@@ -338,7 +463,7 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         waitAvailability();
         Set<Long> fullShards = findAllFullShardId();
         if (fullShards.contains(shardId)) {
-            return getOrCreateShardDataSourceById(shardId, new ShardAddConstraintsSchemaVersion());
+            return getOrOpenFullShardDataSource(shardId);
         } else {
             return null;
         }
@@ -373,6 +498,15 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         }
     }
 
+    /**
+     * @return number of the open shard data sources, including temporary database
+     */
+    public int getOpenShardDataSourcesNumber() {
+        synchronized (lock) {
+            return connectedShardDataSourceMap.size();
+        }
+    }
+
     @Override
     public UUID getChainId() {
         return baseDbProperties.getChainId();
@@ -385,7 +519,7 @@ public class DatabaseManagerImpl implements ShardManagement, DatabaseManager {
         return "DatabaseManager{" + "baseDbProperties=" + baseDbProperties +
                 ", propertiesHolder=" + propertiesHolder +
                 ", currentTransactionalDataSource=" + currentTransactionalDataSource +
-                ", connectedShardDataSourceMap=" + connectedShardDataSourceMap.size() +
+                ", connectedShardDataSourceMap=" + getOpenShardDataSourcesNumber() +
                 '}';
     }
 
@@ -27,7 +27,7 @@ import java.util.NoSuchElementException;
 
 public final class FilteringIterator<T> implements Iterator<T>, Iterable<T>, AutoCloseable {
 
-    private final DbIterator<T> dbIterator;
+    private final Iterator<T> dbIterator;
     private final Filter<T> filter;
     private final int from;
     private final int to;
@@ -36,15 +36,15 @@ public final class FilteringIterator<T> implements Iterator<T>, Iterable<T>, Aut
     private boolean iterated;
     private int count;
 
-    public FilteringIterator(DbIterator<T> dbIterator, Filter<T> filter) {
+    public FilteringIterator(Iterator<T> dbIterator, Filter<T> filter) {
         this(dbIterator, filter, 0, Integer.MAX_VALUE);
     }
 
-    public FilteringIterator(DbIterator<T> dbIterator, int from, int to) {
+    public FilteringIterator(Iterator<T> dbIterator, int from, int to) {
         this(dbIterator, t -> true, from, to);
     }
 
-    public FilteringIterator(DbIterator<T> dbIterator, Filter<T> filter, int from, int to) {
+    public FilteringIterator(Iterator<T> dbIterator, Filter<T> filter, int from, int to) {
         this.dbIterator = dbIterator;
         this.filter = filter;
         this.from = from;
@@ -93,7 +93,9 @@ public final class FilteringIterator<T> implements Iterator<T>, Iterable<T>, Aut
 
     @Override
     public void close() {
-        dbIterator.close();
+        if (dbIterator instanceof DbIterator) {
+            ((DbIterator<T>) dbIterator).close();
+        }
     }
 
     @Override
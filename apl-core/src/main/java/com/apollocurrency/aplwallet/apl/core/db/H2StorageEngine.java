@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.db;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Storage engines of the H2 1.4 database, which are selected by the MV_STORE url parameter.
+ * <p>H2 does not convert database files between engines, when MV_STORE parameter does not match the format of the
+ * existing database file, H2 silently creates new empty database. So that engine of the existing database file
+ * always wins over the configured one, databases are converted offline by the 'mvstore' command of the apl-tools.</p>
+ */
+public enum H2StorageEngine {
+    /**
+     * Legacy page store with table level locks, used when MV_STORE parameter is not set
+     */
+    PAGE_STORE(".h2.db", "FALSE"),
+    /**
+     * Multi-version store, which allows concurrent reads during the block application
+     */
+    MV_STORE(".mv.db", "TRUE");
+
+    private static final Pattern MV_STORE_PARAM = Pattern.compile("MV_STORE=(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    private final String fileSuffix;
+    private final String paramValue;
+
+    H2StorageEngine(String fileSuffix, String paramValue) {
+        this.fileSuffix = fileSuffix;
+        this.paramValue = paramValue;
+    }
+
+    /**
+     * @return suffix, which H2 appends to the database path to name the database file
+     */
+    public String getFileSuffix() {
+        return fileSuffix;
+    }
+
+    /**
+     * @param dbPath database path without suffix, as specified in the jdbc url
+     * @return true when database file of this engine exists
+     */
+    public boolean exists(String dbPath) {
+        return Files.exists(Paths.get(dbPath + fileSuffix));
+    }
+
+    /**
+     * Set MV_STORE parameter of this engine, replacing configured one
+     * @param dbParams semicolon-separated url parameters, may be null or empty
+     * @return url parameters with the MV_STORE parameter of this engine
+     */
+    public String applyTo(String dbParams) {
+        String param = "MV_STORE=" + paramValue;
+        if (dbParams == null || dbParams.isEmpty()) {
+            return param;
+        }
+        Matcher matcher = MV_STORE_PARAM.matcher(dbParams);
+        if (matcher.find()) {
+            return matcher.replaceFirst(param);
+        }
+        return dbParams.endsWith(";") ? dbParams + param : dbParams + ";" + param;
+    }
+
+    /**
+     * @param dbParams semicolon-separated url parameters, may be null or empty
+     * @return engine, selected by the MV_STORE parameter, or {@link #PAGE_STORE} when parameter is not set
+     */
+    public static H2StorageEngine configured(String dbParams) {
+        if (dbParams != null) {
+            Matcher matcher = MV_STORE_PARAM.matcher(dbParams);
+            if (matcher.find() && Boolean.parseBoolean(matcher.group(1))) {
+                return MV_STORE;
+            }
+        }
+        return PAGE_STORE;
+    }
+
+    /**
+     * @param dbPath database path without suffix, as specified in the jdbc url
+     * @return engine of the existing database file or empty, when there is no database file. When files of both
+     * engines exist (e.g. conversion was interrupted), the configured engine should be used
+     */
+    public static Optional<H2StorageEngine> detect(String dbPath) {
+        boolean pageStore = PAGE_STORE.exists(dbPath);
+        boolean mvStore = MV_STORE.exists(dbPath);
+        if (pageStore == mvStore) {
+            return Optional.empty();
+        }
+        return Optional.of(mvStore ? MV_STORE : PAGE_STORE);
+    }
+
+    /**
+     * @param dbPath database path without suffix, as specified in the jdbc url
+     * @param dbParams configured url parameters
+     * @return engine of the existing database file, or configured engine for the new database
+     */
+    public static H2StorageEngine resolve(String dbPath, String dbParams) {
+        return detect(dbPath).orElseGet(() -> configured(dbParams));
+    }
+}
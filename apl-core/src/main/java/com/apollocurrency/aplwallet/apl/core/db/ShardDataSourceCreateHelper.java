@@ -24,8 +24,9 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class ShardDataSourceCreateHelper {
     private static final Logger log = getLogger(ShardDataSourceCreateHelper.class);
     public static final int MAX_CACHE_SIZE = 16 * 1024; // 16mb
-    public static final int MAX_CONNECTIONS = 60;
+    public static final int MAX_CONNECTIONS = 10;
     public static final int MAX_MEMORY_ROWS = 10_000;
+    public static final long IDLE_TIMEOUT = 60_000; // 1 minute
 
     private final DatabaseManager databaseManager;
     private Long shardId;
@@ -64,14 +65,30 @@ public class ShardDataSourceCreateHelper {
      * @return helper class
      */
     public ShardDataSourceCreateHelper createUninitializedDataSource() {
+        return createUninitializedDataSource(false);
+    }
+
+    /**
+     * Create data source of the shard, which pool keeps no idle connections, so that rarely used shard holds
+     * only the database file.
+     * @param readOnly open existing shard database in the read-only mode, new shard database is always writable
+     * @return helper class
+     */
+    public ShardDataSourceCreateHelper createUninitializedDataSource(boolean readOnly) {
         checkGenerateShardName();
         log.debug("Create new SHARD '{}'", shardName);
 //        logStackTrace("Dump stack on DS creation...", Thread.currentThread().getStackTrace());
+        DbProperties baseDbProperties = databaseManager.getBaseDbProperties();
+        // new shard database can't be created in the read-only mode
+        boolean openReadOnly = readOnly && H2StorageEngine.detect(baseDbProperties.getDbDir() + "/" + shardName).isPresent();
         DbProperties shardDbProperties = null;
-        shardDbProperties = databaseManager.getBaseDbProperties().deepCopy()
+        shardDbProperties = baseDbProperties.deepCopy()
                 .dbFileName(shardName) // change file name
                 .maxCacheSize(MAX_CACHE_SIZE)
-                .maxConnections(MAX_CONNECTIONS)
+                .maxConnections(databaseManager.getPropertiesHolder().getIntProperty("apl.maxShardDbConnections", MAX_CONNECTIONS))
+                .minIdleConnections(0)
+                .idleTimeout(IDLE_TIMEOUT)
+                .readOnly(openReadOnly)
                 .maxMemoryRows(MAX_MEMORY_ROWS)
                 .dbUrl(null)  // nullify dbUrl intentionally!;
                 .dbIdentity(shardId); // put shard related info
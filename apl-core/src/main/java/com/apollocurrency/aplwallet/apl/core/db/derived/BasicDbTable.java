@@ -15,9 +15,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -25,6 +24,10 @@ import java.util.Set;
  */
 public abstract class BasicDbTable<T> extends DerivedDbTable<T> {
     private static final Logger LOG = getLogger(BasicDbTable.class);
+    /**
+     * Number of records to delete in one jdbc batch during trim, transaction is committed after each batch
+     */
+    private static final int TRIM_BATCH_SIZE = 500;
 
     protected KeyFactory<T> keyFactory;
     protected boolean multiversion;
@@ -52,48 +55,45 @@ public abstract class BasicDbTable<T> extends DerivedDbTable<T> {
         }
     }
 
+    /**
+     * <p>Delete all records above the target height and restore latest flag for the last remaining version
+     * of each entity, which had versions above the target height.</p>
+     * <p>Latest flags are restored by the single set-based update before deletion, so that the number of statements
+     * does not depend on the number of rolled back entities. Affected keys are selected only to evict them from the
+     * transaction cache, when it is not empty</p>
+     * @param height target height of blockchain, records at this height are kept
+     */
     private void doMultiversionRollback(int height) {
         TransactionalDataSource dataSource = databaseManager.getDataSource();
         if (!dataSource.isInTransaction()) {
             throw new IllegalStateException("Not in transaction");
         }
         long startTime = System.currentTimeMillis();
-        String sql = "UPDATE " + table
-                + " SET latest = TRUE " + keyFactory.getPKClause() + " AND height ="
-                + " (SELECT MAX(height) FROM " + table + keyFactory.getPKClause() + ")";
-        LOG.trace(sql);
+        Map<DbKey, Object> cache = dataSource.getCache(table);
         try (Connection con = dataSource.getConnection();
-             PreparedStatement pstmtSelectToDelete = con.prepareStatement("SELECT DISTINCT " + keyFactory.getPKColumns()
-                     + " FROM " + table + " WHERE height > ?");
-             PreparedStatement pstmtDelete = con.prepareStatement("DELETE FROM " + table
-                     + " WHERE height > ?");
-             PreparedStatement pstmtSetLatest = con.prepareStatement(sql)) {
-            pstmtSelectToDelete.setInt(1, height);
-            List<DbKey> dbKeys = new ArrayList<>();
-            try (ResultSet rs = pstmtSelectToDelete.executeQuery()) {
-                while (rs.next()) {
-                    dbKeys.add(keyFactory.newKey(rs));
-                }
+             // last versions at or below target height of the entities, which have versions above target height
+             PreparedStatement pstmtSetLatest = con.prepareStatement("UPDATE " + table + " AS a SET latest = TRUE "
+                     + "WHERE a.height <= ? AND a.latest = FALSE "
+                     + "AND EXISTS (SELECT 1 FROM " + table + " AS b WHERE " + keyFactory.getSelfJoinClause() + " AND b.height > ?) "
+                     + "AND NOT EXISTS (SELECT 1 FROM " + table + " AS b WHERE " + keyFactory.getSelfJoinClause()
+                     + " AND b.height > a.height AND b.height <= ?)");
+             PreparedStatement pstmtDelete = con.prepareStatement("DELETE FROM " + table + " WHERE height > ?")) {
+            if (!cache.isEmpty()) {
+                evictRolledBackKeys(con, cache, height);
             }
-
-            if (dbKeys.size() > 0) {
-                LOG.trace("Rollback table {} found {} records to update to latest", table, dbKeys.size());
+            pstmtSetLatest.setInt(1, height);
+            pstmtSetLatest.setInt(2, height);
+            pstmtSetLatest.setInt(3, height);
+            int updatedRecordsCount = pstmtSetLatest.executeUpdate();
+            if (updatedRecordsCount > 0) {
+                LOG.trace("Rollback table {} updated {} records to latest", table, updatedRecordsCount);
             }
 
             pstmtDelete.setInt(1, height);
             int deletedRecordsCount = pstmtDelete.executeUpdate();
-
             if (deletedRecordsCount > 0) {
                 LOG.trace("Rollback table {} deleting {} records", table, deletedRecordsCount);
             }
-
-            for (DbKey dbKey : dbKeys) {
-                int i = 1;
-                i = dbKey.setPK(pstmtSetLatest, i);
-                i = dbKey.setPK(pstmtSetLatest, i);
-                pstmtSetLatest.executeUpdate();
-                dataSource.getCache(table).remove(dbKey);
-            }
         }
         catch (SQLException e) {
             LOG.error("Error", e);
@@ -102,6 +102,21 @@ public abstract class BasicDbTable<T> extends DerivedDbTable<T> {
         LOG.trace("Rollback for table {} took {} ms", table, System.currentTimeMillis() - startTime);
     }
 
+    private void evictRolledBackKeys(Connection con, Map<DbKey, Object> cache, int height) throws SQLException {
+        Set<DbKey> dbKeys = new HashSet<>();
+        try (PreparedStatement pstmtSelectKeys = con.prepareStatement("SELECT DISTINCT " + keyFactory.getPKColumns()
+                + " FROM " + table + " WHERE height > ?")) {
+            pstmtSelectKeys.setInt(1, height);
+            try (ResultSet rs = pstmtSelectKeys.executeQuery()) {
+                while (rs.next()) {
+                    dbKeys.add(keyFactory.newKey(rs));
+                }
+            }
+        }
+        cache.keySet().removeAll(dbKeys);
+        LOG.trace("Rollback table {} evicted {} keys from cache", table, dbKeys.size());
+    }
+
 
     @Override
     public void trim(int height) {
@@ -153,44 +168,31 @@ public abstract class BasicDbTable<T> extends DerivedDbTable<T> {
         }
         long startTime = System.currentTimeMillis();
         try (Connection con = dataSource.getConnection();
-             //find acc and max_height of last written record (accounts with one record will be omitted)
-             PreparedStatement pstmtSelect = con.prepareStatement("SELECT " + keyFactory.getPKColumns() + ", MAX(height) AS max_height"
-                     + " FROM " + table + " WHERE height < ? GROUP BY " + keyFactory.getPKColumns() + " HAVING COUNT(DISTINCT height) > 1")) {
-            pstmtSelect.setInt(1, height);
-            long startDeleteTime;
-            long deleted = 0L;
-            long deleteStm = 0L;
-            long startSelectTime = System.currentTimeMillis();
-            try (ResultSet rs = pstmtSelect.executeQuery();
-                 PreparedStatement pstmtDeleteById =
-                         con.prepareStatement("DELETE FROM " + table + " WHERE db_id = ?");
-                 PreparedStatement selectDbIdStatement =
-                         con.prepareStatement("SELECT db_id, height FROM " + table + " " + keyFactory.getPKClause())) {
-                LOG.trace("Select {} time: {}", table, System.currentTimeMillis() - startSelectTime);
-                startDeleteTime = System.currentTimeMillis();
-                while (rs.next()) {
-                    List<Long> keys = selectDbIds(selectDbIdStatement, rs);
-                    // TODO migrate to PreparedStatement.addBatch for another db
-                    for (Long dbId :keys) {
-                        pstmtDeleteById.setLong(1, dbId);
-                        pstmtDeleteById.executeUpdate();
-                        deleted++;
-                        deleteStm++;
-                        if (deleted % 100 == 0) {
-                            dataSource.commit(false);
-                        }
-                    }
-                }
-                dataSource.commit(false);
-                LOG.trace("Delete time {} for table {}: stm - {}, deleted - {}", System.currentTimeMillis() - startDeleteTime, table,
-                        deleteStm, deleted);
-                long startDeleteDeletedTime = System.currentTimeMillis();
-                int totalDeleteDeleted = deleteDeletedNewAlgo(height);
-                LOG.trace("Delete deleted time for table {} is: {}, deleted - {}", table, System.currentTimeMillis() - startDeleteDeletedTime, totalDeleteDeleted);
-            }
+             // records, which have newer version before target height
+             PreparedStatement pstmtSelectOutdated = con.prepareStatement("SELECT a.db_id FROM " + table + " AS a "
+                     + "WHERE a.height < ? AND a.height >= 0 AND EXISTS (SELECT 1 FROM " + table + " AS b WHERE "
+                     + keyFactory.getSelfJoinClause() + " AND b.height > a.height AND b.height < ?)");
+             // 'deleted' records, which have no versions at target height and after
+             PreparedStatement pstmtSelectDeleted = con.prepareStatement("SELECT a.db_id FROM " + table + " AS a "
+                     + "WHERE a.height < ? AND a.height >= 0 AND a.latest = FALSE AND NOT EXISTS (SELECT 1 FROM " + table
+                     + " AS b WHERE " + keyFactory.getSelfJoinClause() + " AND b.height >= ?)");
+             PreparedStatement pstmtDeleteById = con.prepareStatement("DELETE FROM " + table + " WHERE db_id = ?")) {
+            pstmtSelectOutdated.setInt(1, height);
+            pstmtSelectOutdated.setInt(2, height);
+            int outdated = deleteSelected(dataSource, pstmtSelectOutdated, pstmtDeleteById);
+            long deleteOutdatedTime = System.currentTimeMillis() - startTime;
+            LOG.trace("Delete outdated time {} for table {}, deleted - {}", deleteOutdatedTime, table, outdated);
+
+            pstmtSelectDeleted.setInt(1, height);
+            pstmtSelectDeleted.setInt(2, height);
+            int deleted = deleteSelected(dataSource, pstmtSelectDeleted, pstmtDeleteById);
+            LOG.trace("Delete deleted time {} for table {}, deleted - {}", System.currentTimeMillis() - startTime - deleteOutdatedTime,
+                    table, deleted);
+
             long trimTime = System.currentTimeMillis() - startTime;
+            int total = outdated + deleted;
             if (trimTime > 1000) {
-                LOG.debug("Trim for table {} took {} ms", table, trimTime);
+                LOG.debug("Trim for table {} took {} ms, deleted {} rows, {} rows/s", table, trimTime, total, total * 1000L / trimTime);
             }
         }
         catch (SQLException e) {
@@ -198,72 +200,39 @@ public abstract class BasicDbTable<T> extends DerivedDbTable<T> {
         }
     }
 
-    private  List<Long> selectDbIds(PreparedStatement selectDbIdStatement, ResultSet rs) throws SQLException {
-        DbKey dbKey = keyFactory.newKey(rs);
-        dbKey.setPK(selectDbIdStatement);
-        List<Long> keys = new ArrayList<>();
-        int maxHeight = rs.getInt("max_height");
-        try (ResultSet dbIdsSet = selectDbIdStatement.executeQuery()) {
-            while (dbIdsSet.next()) {
-                int currentHeight = dbIdsSet.getInt(2);
-                if (currentHeight < maxHeight && currentHeight >= 0) {
-                    keys.add(dbIdsSet.getLong(1));
-                }
-            }
-        }
-        return keys;
-    }
-
-    // changed algo - select all dbkeys from query and insert to hashset, create index for height and latest and select db_key and
-    // db_id from table using index. Next filter each account_id from set and delete it.
-    private int deleteDeletedNewAlgo(int height) throws SQLException {
+    /**
+     * Delete records with db_ids returned by the select statement, using jdbc batches
+     * with commit after each batch to keep transaction small
+     * @return number of deleted records
+     */
+    private int deleteSelected(TransactionalDataSource dataSource, PreparedStatement pstmtSelect,
+                               PreparedStatement pstmtDeleteById) throws SQLException {
         int deleted = 0;
-        TransactionalDataSource dataSource = databaseManager.getDataSource();
-        try (Connection con = dataSource.getConnection()) {
-            Set<DbKey> dbKeys = selectExistingDbKeys(con, height);
-            try (
-                    PreparedStatement pstmtSelectDeleteCandidates =
-                            con.prepareStatement("SELECT DB_ID, " + keyFactory.getPKColumns() + " FROM " + table + " WHERE height < ? AND height >= 0 " +
-                                    "AND latest = FALSE ")) {
-                pstmtSelectDeleteCandidates.setInt(1, height);
-
-                try (ResultSet candidatesRs = pstmtSelectDeleteCandidates.executeQuery();
-                     PreparedStatement pstmtDeleteByDbId =
-                             con.prepareStatement("DELETE FROM " + table + " WHERE db_id = ?")) {
-                    while (candidatesRs.next()) {
-                        DbKey dbKey = keyFactory.newKey(candidatesRs);
-                        if (!dbKeys.contains(dbKey)) {
-                            long dbId = candidatesRs.getLong(1);
-                            deleteByDbId(pstmtDeleteByDbId, dbId);
-                            if (++deleted % 100 == 0) {
-                                dataSource.commit(false);
-                            }
-                        }
-                    }
+        int batchSize = 0;
+        try (ResultSet rs = pstmtSelect.executeQuery()) {
+            while (rs.next()) {
+                pstmtDeleteById.setLong(1, rs.getLong(1));
+                pstmtDeleteById.addBatch();
+                if (++batchSize == TRIM_BATCH_SIZE) {
+                    deleted += executeBatch(pstmtDeleteById);
+                    dataSource.commit(false);
+                    batchSize = 0;
                 }
             }
         }
+        if (batchSize > 0) {
+            deleted += executeBatch(pstmtDeleteById);
+        }
         dataSource.commit(false);
         return deleted;
     }
 
-    private int deleteByDbId(PreparedStatement pstmtDeleteByDbId, long dbId) throws SQLException {
-        pstmtDeleteByDbId.setLong(1, dbId);
-        return pstmtDeleteByDbId.executeUpdate();
-
-    }
-
-    private Set<DbKey> selectExistingDbKeys(Connection con, int height) throws SQLException {
-        Set<DbKey> dbKeys = new HashSet<>();
-        try (PreparedStatement pstmtSelectExistingIds = con.prepareStatement("SELECT " + keyFactory.getPKColumns() + " FROM " + table + " WHERE height >= ?")) {
-            pstmtSelectExistingIds.setInt(1, height);
-            try (ResultSet idsRs = pstmtSelectExistingIds.executeQuery()) {
-                while (idsRs.next()) {
-                    dbKeys.add(keyFactory.newKey(idsRs));
-                }
-            }
+    private int executeBatch(PreparedStatement pstmt) throws SQLException {
+        int deleted = 0;
+        for (int count : pstmt.executeBatch()) {
+            deleted += Math.max(count, 0);
         }
-        return dbKeys;
+        return deleted;
     }
 
     protected void clearCache() {
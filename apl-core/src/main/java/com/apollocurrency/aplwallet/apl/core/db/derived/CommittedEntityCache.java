@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.db.derived;
+
+import com.apollocurrency.aplwallet.apl.core.db.DbKey;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Size-bounded cache of the latest committed entities of the {@link EntityDbTable}, shared between threads.
+ * <p>Cache is filled by the reads outside of the db transaction and is never used inside transaction, since entities
+ * are mutable and transaction code modifies them. Keys, modified by the transaction, are evicted when transaction is
+ * committed or rolled back, table rollback, trim and truncate evict all keys. Entity, which was read from the db
+ * concurrently with the eviction, is not cached, so that the cache never returns overwritten version.</p>
+ * @param <T> type of the table entity
+ */
+class CommittedEntityCache<T> {
+    private final Cache<DbKey, T> cache;
+    private final ThreadLocal<Changes> changes = new ThreadLocal<>();
+    private final TransactionCallback evictionCallback = new TransactionCallback() {
+        @Override
+        public void commit() {
+            evictChanges();
+        }
+
+        @Override
+        public void rollback() {
+            evictChanges();
+        }
+    };
+    private long generation;
+
+    CommittedEntityCache(int size) {
+        this.cache = CacheBuilder.newBuilder().maximumSize(size).build();
+    }
+
+    T get(DbKey dbKey) {
+        return cache.getIfPresent(dbKey);
+    }
+
+    /**
+     * @return current generation of the cache, which should be passed to the {@link #put(DbKey, Object, long)}
+     * for the entity, read from the db after this call
+     */
+    synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Cache entity, when there were no evictions since the given generation
+     */
+    synchronized void put(DbKey dbKey, T entity, long generation) {
+        if (this.generation == generation) {
+            cache.put(dbKey, entity);
+        }
+    }
+
+    /**
+     * Evict entity when transaction ends or immediately, when there is no transaction
+     */
+    void invalidate(TransactionalDataSource dataSource, DbKey dbKey) {
+        if (dataSource.isInTransaction()) {
+            Changes txChanges = getChanges(dataSource);
+            if (!txChanges.all) {
+                txChanges.keys.add(dbKey);
+            }
+        } else {
+            evict(dbKey);
+        }
+    }
+
+    /**
+     * Evict all entities when transaction ends or immediately, when there is no transaction
+     */
+    void invalidateAll(TransactionalDataSource dataSource) {
+        if (dataSource.isInTransaction()) {
+            Changes txChanges = getChanges(dataSource);
+            txChanges.all = true;
+            txChanges.keys.clear();
+        } else {
+            clear();
+        }
+    }
+
+    synchronized void clear() {
+        generation++;
+        cache.invalidateAll();
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private synchronized void evict(DbKey dbKey) {
+        generation++;
+        cache.invalidate(dbKey);
+    }
+
+    private Changes getChanges(TransactionalDataSource dataSource) {
+        Changes txChanges = changes.get();
+        if (txChanges == null) {
+            txChanges = new Changes();
+            changes.set(txChanges);
+        }
+        // callbacks are cleared on each commit, so register again
+        dataSource.registerCallback(evictionCallback);
+        return txChanges;
+    }
+
+    private void evictChanges() {
+        Changes txChanges = changes.get();
+        if (txChanges == null) {
+            return;
+        }
+        changes.remove();
+        synchronized (this) {
+            generation++;
+            if (txChanges.all) {
+                cache.invalidateAll();
+            } else {
+                cache.invalidateAll(txChanges.keys);
+            }
+        }
+    }
+
+    private static class Changes {
+        private final Set<DbKey> keys = new HashSet<>();
+        private boolean all;
+    }
+}
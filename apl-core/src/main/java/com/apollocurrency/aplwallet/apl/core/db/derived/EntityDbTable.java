@@ -33,12 +33,14 @@ import com.apollocurrency.aplwallet.apl.core.db.DbUtils;
 import com.apollocurrency.aplwallet.apl.core.db.KeyFactory;
 import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
 import com.apollocurrency.aplwallet.apl.core.db.fulltext.FullTextSearchService;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
 import org.slf4j.Logger;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import javax.enterprise.inject.Instance;
 import javax.enterprise.inject.spi.CDI;
 
 public abstract class EntityDbTable<T> extends BasicDbTable<T> {
@@ -49,6 +51,10 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
     private  Blockchain blockchain;
     private BlockchainProcessor blockchainProcessor;
     private FullTextSearchService fullText;
+    /**
+     * Latest committed entities, which are read outside of the db transaction, null when disabled
+     */
+    private final CommittedEntityCache<T> committedCache;
 
     protected EntityDbTable(String table, KeyFactory<T> dbKeyFactory) {
         this(table, dbKeyFactory, false, null);
@@ -66,6 +72,13 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
         super(table, dbKeyFactory, multiversion, init);
         this.defaultSort = " ORDER BY " + (multiversion ? dbKeyFactory.getPKColumns() : " height DESC, db_id DESC ");
         this.fullTextSearchColumns = fullTextSearchColumns;
+        int committedCacheSize = lookupCommittedCacheSize();
+        this.committedCache = committedCacheSize > 0 ? new CommittedEntityCache<>(committedCacheSize) : null;
+    }
+
+    private static int lookupCommittedCacheSize() {
+        Instance<PropertiesHolder> propertiesHolder = CDI.current().select(PropertiesHolder.class);
+        return propertiesHolder.isResolvable() ? propertiesHolder.get().getIntProperty("apl.entityCacheSize", 0) : 0;
     }
 
     EntityDbTable(String table, KeyFactory<T> dbKeyFactory, boolean multiversion, String fullTextSearchColumns) {
@@ -83,6 +96,23 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
         dataSource.clearCache(table);
     }
 
+    /**
+     * Evict all committed entities of this table from the shared cache, should be called after table modification,
+     * which bypasses insert/delete/rollback/trim/truncate methods. When called in transaction, entities are evicted
+     * at the end of the transaction
+     */
+    public void clearCommittedCache() {
+        if (committedCache != null) {
+            committedCache.invalidateAll(databaseManager.getDataSource());
+        }
+    }
+
+    void invalidateCommittedEntity(DbKey dbKey) {
+        if (committedCache != null) {
+            committedCache.invalidate(databaseManager.getDataSource(), dbKey);
+        }
+    }
+
     public void checkAvailable(int height) {
         if (multiversion) {
             if (blockchainProcessor == null) blockchainProcessor = CDI.current().select(BlockchainProcessorImpl.class).get();
@@ -126,17 +156,31 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
 
     public final T get(DbKey dbKey, boolean cache) {
         TransactionalDataSource dataSource = databaseManager.getDataSource();
-        if (cache && dataSource.isInTransaction()) {
+        boolean inTransaction = dataSource.isInTransaction();
+        if (cache && inTransaction) {
             T t = (T) dataSource.getCache(table).get(dbKey);
             if (t != null) {
                 return t;
             }
         }
+        boolean useCommittedCache = cache && !inTransaction && committedCache != null;
+        long committedCacheGeneration = 0;
+        if (useCommittedCache) {
+            T t = committedCache.get(dbKey);
+            if (t != null) {
+                return t;
+            }
+            committedCacheGeneration = committedCache.getGeneration();
+        }
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmt = con.prepareStatement("SELECT * FROM " + table + keyFactory.getPKClause()
              + (multiversion ? " AND latest = TRUE LIMIT 1" : ""))) {
             dbKey.setPK(pstmt);
-            return get(con, pstmt, cache);
+            T t = get(con, pstmt, cache);
+            if (useCommittedCache && t != null) {
+                committedCache.put(dbKey, t, committedCacheGeneration);
+            }
+            return t;
         } catch (SQLException e) {
             throw new RuntimeException(e.toString(), e);
         }
@@ -473,6 +517,7 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
             throw new IllegalStateException("Different instance found in DatabaseManager cache, perhaps trying to save an object "
                     + "that was read outside the current transaction");
         }
+        invalidateCommittedEntity(dbKey);
         try (Connection con = dataSource.getConnection()) {
             if (multiversion) {
                 try (PreparedStatement pstmt = con.prepareStatement("UPDATE " + table
@@ -487,6 +532,28 @@ public abstract class EntityDbTable<T> extends BasicDbTable<T> {
         }
     }
 
+    @Override
+    public void rollback(int height) {
+        super.rollback(height);
+        clearCommittedCache();
+    }
+
+    @Override
+    public void trim(int height) {
+        super.trim(height);
+        if (!multiversion) {
+            // latest versions are not trimmed from multiversion tables, other tables may delete entities on trim.
+            // Invalidate after trim batches were committed, since subclasses delete their data after this call
+            clearCommittedCache();
+        }
+    }
+
+    @Override
+    public void truncate() {
+        super.truncate();
+        clearCommittedCache();
+    }
+
 
     @Override
     public final void createSearchIndex(Connection con) throws SQLException {
@@ -61,6 +61,7 @@ public abstract class PrunableDbTable<T> extends EntityDbTable<T> {
                     }
                     dataSource.commit(false);
                 } while (deleted >= propertiesHolder.BATCH_COMMIT_SIZE());
+                clearCommittedCache();
             } catch (SQLException e) {
                 throw new RuntimeException(e.toString(), e);
             }
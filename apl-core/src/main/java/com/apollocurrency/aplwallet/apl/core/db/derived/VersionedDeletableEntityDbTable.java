@@ -52,6 +52,7 @@ public abstract class VersionedDeletableEntityDbTable<T> extends EntityDbTable<T
 
         KeyFactory<T> keyFactory = getDbKeyFactory();
         DbKey dbKey = keyFactory.newKey(t);
+        invalidateCommittedEntity(dbKey);
         try (Connection con = dataSource.getConnection();
              PreparedStatement pstmtCount = con.prepareStatement("SELECT 1 FROM " + table
                      + keyFactory.getPKClause() + " AND height < ? LIMIT 1")) {
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.files;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Persisted ids of the saved chunks of the file being downloaded, which allow to resume interrupted download.
+ * First line of the progress file is the hash of the downloaded file, next lines are ids of the saved chunks.
+ * Ids are appended as chunks are saved, so that progress file is never rewritten during download.
+ */
+@Slf4j
+class DownloadProgress {
+    private final Path path;
+    private BufferedWriter writer;
+
+    DownloadProgress(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @param fileHash hash of the file being downloaded
+     * @return ids of the chunks saved by the previous download of the same file or empty set
+     */
+    synchronized Set<Integer> load(String fileHash) {
+        Set<Integer> res = new HashSet<>();
+        if (!Files.exists(path)) {
+            return res;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String hash = reader.readLine();
+            if (fileHash.equalsIgnoreCase(hash)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        res.add(Integer.parseInt(line.trim()));
+                    } catch (NumberFormatException e) {
+                        log.debug("Skip incomplete progress record '{}' in {}", line, path);
+                    }
+                }
+            } else {
+                log.debug("Progress {} belongs to another file version, ignore it", path);
+            }
+        } catch (IOException e) {
+            log.debug("Unable to read download progress {}: {}", path, e.getMessage());
+        }
+        return res;
+    }
+
+    /**
+     * Rewrite progress file with the given saved chunks and keep it open to append next saved chunks
+     */
+    synchronized void start(String fileHash, Collection<Integer> savedChunks) throws IOException {
+        close();
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        writer.write(fileHash);
+        writer.newLine();
+        for (Integer chunkId : savedChunks) {
+            writer.write(Integer.toString(chunkId));
+            writer.newLine();
+        }
+        writer.flush();
+    }
+
+    synchronized void chunkSaved(int chunkId) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.write(Integer.toString(chunkId));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            log.debug("Unable to save download progress {}: {}", path, e.getMessage());
+        }
+    }
+
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("Unable to close download progress {}: {}", path, e.getMessage());
+            }
+            writer = null;
+        }
+    }
+
+    synchronized void delete() {
+        close();
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.debug("Unable to delete download progress {}: {}", path, e.getMessage());
+        }
+    }
+}
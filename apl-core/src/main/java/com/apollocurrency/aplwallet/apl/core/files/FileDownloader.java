@@ -26,14 +26,21 @@ import javax.enterprise.event.Event;
 import javax.enterprise.util.AnnotationLiteral;
 import javax.inject.Inject;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -52,6 +59,18 @@ public class FileDownloader {
 
 
     public static final int DOWNLOAD_THREADS = 12; //should be enough for good speed
+    /**
+     * Peer stops downloading, when its download rate is that many times lower than the rate of the fastest active peer
+     */
+    static final int SLOW_PEER_FACTOR = 4;
+    /**
+     * Number of requests to measure the peer download rate before the peer may be demoted
+     */
+    static final int MIN_REQUESTS_TO_RATE = 3;
+    /**
+     * Desired duration of one request, number of chunks requested at once is adjusted to the peer download rate
+     */
+    static final long TARGET_REQUEST_MS = 1000;
     private String fileID;
 
     private final DownloadableFilesManager manager;
@@ -69,6 +88,13 @@ public class FileDownloader {
     private FileDownloadStatus status;
     private final Set<Peer> peers = new HashSet<>();
     private final PeersService peersService;
+    private final Map<String, DownloadRate> peerRates = new ConcurrentHashMap<>();
+    /**
+     * Chunks, which are downloaded by the second peer, when there are no more empty chunks
+     */
+    private final Set<Integer> endGameChunks = new HashSet<>();
+    private Path partPath;
+    private DownloadProgress progress;
 
     @Inject
     public FileDownloader(DownloadableFilesManager manager,
@@ -103,16 +129,41 @@ public class FileDownloader {
         });
     }
 
-    private FileChunkInfo getNextEmptyChunk() {
-        FileChunkInfo res = null;
+    /**
+     * Take up to maxChunks adjacent chunks, which are not downloaded yet, to download them by one request.
+     * When there are no such chunks, take one chunk, which is being downloaded by another peer, so that
+     * the download does not wait for the slowest peer at the end
+     * @param maxChunks max number of chunks to take
+     * @return adjacent chunks marked as being downloaded or empty list when there is nothing to download
+     */
+    private List<FileChunkInfo> getNextChunks(int maxChunks) {
+        List<FileChunkInfo> res = new ArrayList<>(maxChunks);
         fileChunksLock.writeLock().lock();
         try {
             for (FileChunkInfo fci : status.fileDownloadInfo.chunks) {
-                if (fci.present.ordinal() < FileChunkState.DOWNLOAD_IN_PROGRESS.ordinal()) {
-                    res = fci;
+                boolean empty = fci.present.ordinal() < FileChunkState.DOWNLOAD_IN_PROGRESS.ordinal();
+                if (!res.isEmpty()) {
+                    FileChunkInfo prev = res.get(res.size() - 1);
+                    if (!empty || fci.offset != prev.offset + prev.size) {
+                        break;
+                    }
+                }
+                if (empty) {
+                    res.add(fci);
                     fci.present=FileChunkState.DOWNLOAD_IN_PROGRESS;
-                    log.trace("getNextEmptyChunk(): state: {}", fci.present);
-                    break;
+                    log.trace("getNextChunks(): chunk {} state: {}", fci.chunkId, fci.present);
+                    if (res.size() >= maxChunks) {
+                        break;
+                    }
+                }
+            }
+            if (res.isEmpty()) {
+                for (FileChunkInfo fci : status.fileDownloadInfo.chunks) {
+                    if (fci.present == FileChunkState.DOWNLOAD_IN_PROGRESS && endGameChunks.add(fci.chunkId)) {
+                        log.trace("getNextChunks(): chunk {} is downloaded by second peer", fci.chunkId);
+                        res.add(fci);
+                        break;
+                    }
                 }
             }
         } finally {
@@ -120,6 +171,7 @@ public class FileDownloader {
         }
         return res;
     }
+
     //TODO: change to more general signal, not shard
     private void signalFinishedOK() {
         log.debug("signaling finished fileID = {}", fileID);
@@ -149,6 +201,10 @@ public class FileDownloader {
     private void setFileChunkState(FileChunkState state, FileChunkInfo fci){
         fileChunksLock.writeLock().lock();
         try {
+            if (fci.present == FileChunkState.SAVED) {
+                // chunk was saved by another peer
+                return;
+            }
             fci.present=state;
             //setting this state means download of chunk failed
             if(state==FileChunkState.PRESENT_IN_PEER){
@@ -159,19 +215,34 @@ public class FileDownloader {
         }
     }
     
-    private boolean downloadAndSaveChunk(FileChunkInfo fci, PeerClient p, ChunkedFileOps fops) {
-        boolean isLast=false;
+    /**
+     * Mark chunk as saved, when it was not saved yet by another peer
+     */
+    private void chunkSaved(FileChunkInfo fci) {
+        fileChunksLock.writeLock().lock();
+        try {
+            if (fci.present == FileChunkState.SAVED) {
+                return;
+            }
+            fci.present = FileChunkState.SAVED;
+        } finally {
+            fileChunksLock.writeLock().unlock();
+        }
+        status.chunksReady.incrementAndGet();
+        progress.chunkSaved(fci.chunkId);
+    }
+
+    /**
+     * @return number of saved bytes
+     */
+    private long downloadAndSaveChunk(FileChunkInfo fci, PeerClient p, ChunkedFileOps fops) {
         FileChunk fc = p.downloadChunk(fci);
         if (fc != null) {
             byte[] data = Base64.getDecoder().decode(fc.mime64data);
             try {
                 fops.writeChunk(fc.info.offset, data, fc.info.crc);
-                setFileChunkState(FileChunkState.SAVED, fci);
-                status.chunksReady.incrementAndGet();
-                //is the very last chunk succeed?
-                if(status.chunksReady.get()>=status.fileDownloadInfo.chunks.size()-1){
-                     isLast=true;
-                }
+                chunkSaved(fci);
+                return data.length;
             } catch (IOException ex) {
                 log.debug("Failed to download or save chunk: {} \n exception: {}",fci.chunkId,ex);
                 setFileChunkState(FileChunkState.PRESENT_IN_PEER, fci); // may be next time we'll get it right
@@ -180,35 +251,146 @@ public class FileDownloader {
             log.debug("Failed to download or save chunk: {}",fci.chunkId);
             setFileChunkState(FileChunkState.PRESENT_IN_PEER, fci);  //well, it exists anyway on some peer
         }
-        if(fci.failedAttempts>=DOWNLOAD_THREADS*2){
-           //Seems that no peer has this chunk, we should finish
-            isLast=true;
+        return 0;
+    }
+
+    /**
+     * Download adjacent chunks by one request of the raw file region and save each chunk, which crc is correct
+     * @return number of saved bytes
+     */
+    private long downloadAndSaveChunks(List<FileChunkInfo> chunks, PeerClient p, ChunkedFileOps fops) {
+        FileChunkInfo first = chunks.get(0);
+        long size = 0;
+        for (FileChunkInfo fci : chunks) {
+            size += fci.size;
+        }
+        byte[] data = p.downloadFileRegion(fileID, first.offset, size);
+        long saved = 0;
+        int position = 0;
+        for (FileChunkInfo fci : chunks) {
+            int chunkSize = fci.size.intValue();
+            // region may be shorter, when peer limits transfer size
+            if (data != null && position + chunkSize <= data.length) {
+                try {
+                    fops.writeChunk(fci.offset, data, position, chunkSize, fci.crc);
+                    chunkSaved(fci);
+                    saved += chunkSize;
+                } catch (IOException ex) {
+                    log.debug("Failed to save chunk: {} \n exception: {}", fci.chunkId, ex);
+                    setFileChunkState(FileChunkState.PRESENT_IN_PEER, fci); // may be next time we'll get it right
+                }
+            } else {
+                log.debug("Failed to download chunk: {}", fci.chunkId);
+                setFileChunkState(FileChunkState.PRESENT_IN_PEER, fci);  //well, it exists anyway on some peer
+            }
+            position += chunkSize;
         }
-        return isLast;
+        return saved;
     }
-    
+
+    /**
+     * @return true, when the peer is much slower than the fastest of the other peers, which still download the file
+     */
+    private boolean isSlowPeer(String peerAddress, DownloadRate rate) {
+        if (rate.getRequests() < MIN_REQUESTS_TO_RATE) {
+            return false;
+        }
+        double bestRate = 0;
+        for (Map.Entry<String, DownloadRate> entry : peerRates.entrySet()) {
+            DownloadRate other = entry.getValue();
+            if (!entry.getKey().equals(peerAddress) && other.isActive() && other.getRequests() >= MIN_REQUESTS_TO_RATE) {
+                bestRate = Math.max(bestRate, other.getRate());
+            }
+        }
+        return rate.getRate() * SLOW_PEER_FACTOR < bestRate;
+    }
+
     private boolean doPeerDownload(PeerClient p) throws IOException {
         boolean res = true;
-        FileChunkInfo fci;
-        ChunkedFileOps fops = new ChunkedFileOps(manager.mapFileIdToLocalPath(fileID));
-        while ((fci = getNextEmptyChunk())!= null) {
-            boolean isLast = downloadAndSaveChunk(fci, p, fops);
-            if(fci.present==FileChunkState.SAVED){
-                long percent = Math.round(status.getPercentCompleted());
-                if(lastPercent.get()+5<percent){
-                    lastPercent.set(percent);
-                    aplAppStatus.durableTaskUpdate(this.taskId, status.getPercentCompleted(), "File downloading: "+this.fileID+"...");
+        ChunkedFileOps fops = new ChunkedFileOps(partPath);
+        String peerAddress = p.gePeer().getHostWithPort();
+        DownloadRate rate = new DownloadRate();
+        peerRates.put(peerAddress, rate);
+        boolean binary = p.supportsBinaryFileChunks();
+        int maxChunks = binary ? Math.max(PeersService.maxFileChunkTransferSize / ChunkedFileOps.FILE_CHUNK_SIZE, 1) : 1;
+        try {
+            List<FileChunkInfo> chunks;
+            while (!(chunks = getNextChunks(rate.getChunksPerRequest(maxChunks))).isEmpty()) {
+                long startTime = System.currentTimeMillis();
+                long saved = binary ? downloadAndSaveChunks(chunks, p, fops) : downloadAndSaveChunk(chunks.get(0), p, fops);
+                rate.update(saved, System.currentTimeMillis() - startTime);
+                if (saved > 0) {
+                    long percent = Math.round(status.getPercentCompleted());
+                    if(lastPercent.get()+5<percent){
+                        lastPercent.set(percent);
+                        aplAppStatus.durableTaskUpdate(this.taskId, status.getPercentCompleted(), "File downloading: "+this.fileID+"...");
+                    }
+                }
+                if (chunks.stream().anyMatch(fci -> fci.failedAttempts >= DOWNLOAD_THREADS * 2)) {
+                    //Seems that no peer has this chunk, we should finish
+                    break;
+                }
+                if (isSlowPeer(peerAddress, rate)) {
+                    log.debug("Peer {} is demoted, download rate {} bytes/ms", peerAddress, rate.getRate());
+                    break;
                 }
             }
-            if(isLast){
-                break;
-            }
+        } finally {
+            rate.finish();
         }
-        log.debug("doPeerDownload() for peer {} finished", p.gePeer().getAnnouncedAddress());
+        log.debug("doPeerDownload() for peer {} finished, download rate {} bytes/ms", p.gePeer().getAnnouncedAddress(), rate.getRate());
         return res;
     }
 
+    /**
+     * Mark chunks, which were saved by the interrupted download of the same file and have correct crc, as saved.
+     * Part file without restored chunks is removed and restored part file is truncated to the file size, so that
+     * trailing bytes of the stale part file do not break the hash of the downloaded file
+     */
+    private void restoreProgress(Path filePath) throws IOException {
+        String fileName = filePath.getFileName().toString();
+        partPath = filePath.resolveSibling(fileName + ".part");
+        progress = new DownloadProgress(filePath.resolveSibling(fileName + ".progress"));
+        String fileHash = status.fileDownloadInfo.fileInfo.hash;
+        Set<Integer> savedChunks = Files.exists(partPath) ? progress.load(fileHash) : Set.of();
+        List<Integer> restored = new ArrayList<>();
+        if (!savedChunks.isEmpty()) {
+            ChunkedFileOps fops = new ChunkedFileOps(partPath);
+            for (FileChunkInfo fci : status.fileDownloadInfo.chunks) {
+                if (savedChunks.contains(fci.chunkId)) {
+                    byte[] buf = new byte[fci.size.intValue()];
+                    int read = fops.readChunk(fci.offset, fci.size, buf);
+                    if (read == buf.length && fops.getLastRDChunkCrc() == fci.crc) {
+                        fci.present = FileChunkState.SAVED;
+                        restored.add(fci.chunkId);
+                    }
+                }
+            }
+            status.chunksReady.set(restored.size());
+            log.info("Resume download of {}, {} of {} chunks are already saved", fileID, restored.size(), status.fileDownloadInfo.chunks.size());
+        }
+        if (restored.isEmpty()) {
+            Files.deleteIfExists(partPath);
+        } else {
+            long fileSize = status.fileDownloadInfo.chunks.stream().mapToLong(fci -> fci.offset + fci.size).max().orElse(0);
+            try (FileChannel channel = FileChannel.open(partPath, StandardOpenOption.WRITE)) {
+                if (channel.size() > fileSize) {
+                    channel.truncate(fileSize);
+                }
+            }
+        }
+        progress.start(fileHash, restored);
+    }
+
     public FileDownloadStatus download() {
+        Path filePath = manager.mapFileIdToLocalPath(fileID);
+        try {
+            restoreProgress(filePath);
+        } catch (IOException e) {
+            log.warn("Unable to start download of {}: {}", fileID, e.getMessage());
+            signalFailed("File downloading failed, can not write progress: " + fileID);
+            return status;
+        }
         int peerCount = 0;
         for (Peer p : peers) {
             Future<Boolean> dn_res = executor.submit(new Callable<Boolean>() {
@@ -239,6 +421,14 @@ public class FileDownloader {
         int chunksReady = status.getChunksReady().get();
         boolean allOk=chunksReady>=chunksTotal;
         if(allOk){
+            progress.delete();
+            try {
+                Files.move(partPath, filePath, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                log.warn("Unable to move downloaded file {} to {}", partPath, filePath, e);
+                signalFailed("File downloading failed, can not move file: " + fileID);
+                return status;
+            }
             FileDownloadInfo fdi = manager.updateFileDownloadInfo(fileID);
             if(fdi.fileInfo.hash.equalsIgnoreCase(status.fileDownloadInfo.fileInfo.hash)){
                 signalFinishedOK();
@@ -246,11 +436,55 @@ public class FileDownloader {
                 signalFailed("File downloading final hash check failed: "+fileID);
             }
         }else{
+            // keep saved chunks to resume download later
+            progress.close();
             signalFailed("File downloading failed, not all chunks: "+fileID);
         }
         return status;
     }
 
+    /**
+     * Download rate of the peer, measured as exponential moving average of the request rates
+     */
+    private static class DownloadRate {
+        private static final double SMOOTHING = 0.3;
+        private volatile double rate;
+        private volatile int requests;
+        private volatile boolean active = true;
+
+        synchronized void update(long bytes, long millis) {
+            double requestRate = (double) bytes / Math.max(millis, 1);
+            rate = requests == 0 ? requestRate : rate + SMOOTHING * (requestRate - rate);
+            requests++;
+        }
+
+        /**
+         * @return number of chunks, which peer downloads in about {@link #TARGET_REQUEST_MS}
+         */
+        int getChunksPerRequest(int maxChunks) {
+            if (requests == 0) {
+                return 1;
+            }
+            long chunks = Math.round(rate * TARGET_REQUEST_MS / ChunkedFileOps.FILE_CHUNK_SIZE);
+            return (int) Math.max(1, Math.min(chunks, maxChunks));
+        }
+
+        double getRate() {
+            return rate;
+        }
+
+        int getRequests() {
+            return requests;
+        }
+
+        boolean isActive() {
+            return active;
+        }
+
+        void finish() {
+            active = false;
+        }
+    }
 
     @PreDestroy
     public void preDestroy(){
@@ -211,6 +211,19 @@ public final class APIServlet extends HttpServlet {
                     if (requireLastBlockId == 0 && requireBlockId != 0 && response instanceof JSONObject) {
                         ((JSONObject) response).put("lastBlock", blockchain.getLastBlock().getStringId());
                     }
+                    if (response instanceof StreamingJSONResponse) {
+                        // rows are read during writing, so buffer the response while required block lock is held
+                        // and send it to the client after the lock and db connection are released
+                        StreamingJSONResponse<?> streamingResponse = (StreamingJSONResponse<?>) response;
+                        if (requireLastBlockId == 0 && requireBlockId != 0) {
+                            streamingResponse.put("lastBlock", blockchain.getLastBlock().getStringId());
+                        }
+                        streamingResponse.setRequestStartTime(startTime);
+                        response = streamingResponse.prepare();
+                        if (logRequestTime) {
+                            LOG.debug("Request \'" + req.getParameter("requestType") + "\' took " + (System.currentTimeMillis() - startTime) + " ms");
+                        }
+                    }
                 } finally {
 //                    if (apiRequestHandler.startDbTransaction()) {
 //                        dataSource.commit(true);
@@ -7,20 +7,29 @@ package com.apollocurrency.aplwallet.apl.core.http;
 import org.slf4j.Logger;
 
 import java.io.IOException;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+/**
+ * Event source of the account, which receives account data from the {@link BlockEventSourceProcessor}.
+ * <p>Messages are sent one at a time by the processor threads. When client is slower than the blockchain, messages,
+ * which were not sent yet, are replaced by the latest one, so that at most one message per client is waiting.</p>
+ */
 public class BlockEventSource implements org.eclipse.jetty.servlets.EventSource {
     public static final Logger LOG = getLogger(BlockEventSource.class);
-    private Emitter emitter;
+    private final BlockEventSourceProcessor processor;
+    private final long accountId;
+    private final AtomicReference<String> pendingMessage = new AtomicReference<>();
+    private volatile Emitter emitter;
     private volatile boolean shutdown = false;
-    private ThreadPoolExecutor threadPoolExecutor;
-    private long accountId;
+    private long lastSequence;
+    private boolean sending;
+
     @Override
     public void onOpen(Emitter emitter) throws IOException {
         this.emitter = emitter;
-        threadPoolExecutor.execute(new BlockEventSourceProcessor(this, accountId));
+        processor.register(this);
     }
 
     public void emitEvent(String dataToSend) throws IOException {
@@ -31,15 +40,61 @@ public class BlockEventSource implements org.eclipse.jetty.servlets.EventSource
     public void onClose() {
         LOG.trace("Close event source");
         shutdown = true;
-
+        processor.unregister(this);
     }
 
-    public BlockEventSource(ThreadPoolExecutor threadPoolExecutor, long accountId) {
-        this.threadPoolExecutor = threadPoolExecutor;
+    public BlockEventSource(BlockEventSourceProcessor processor, long accountId) {
+        this.processor = processor;
         this.accountId = accountId;
     }
 
     public boolean isShutdown() {
         return shutdown;
     }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * Queue message for sending, replacing the message, which was not sent yet
+     * @param sequence sequence number of the message, messages older than the last offered one are ignored
+     * @param message message to send
+     */
+    void offer(long sequence, String message) {
+        synchronized (this) {
+            if (shutdown || sequence <= lastSequence) {
+                return;
+            }
+            lastSequence = sequence;
+            pendingMessage.set(message);
+            if (sending) {
+                return;
+            }
+            sending = true;
+        }
+        processor.send(this);
+    }
+
+    void send() {
+        while (true) {
+            String message = pendingMessage.getAndSet(null);
+            if (message == null || shutdown) {
+                synchronized (this) {
+                    if (pendingMessage.get() == null || shutdown) {
+                        sending = false;
+                        return;
+                    }
+                }
+                continue;
+            }
+            try {
+                emitEvent(message);
+            } catch (IOException e) {
+                LOG.debug("Unable to send sse event for account {}: {}", Long.toUnsignedString(accountId), e.toString());
+                emitter.close();
+                onClose();
+            }
+        }
+    }
 }
@@ -4,11 +4,6 @@
 
 package com.apollocurrency.aplwallet.apl.core.http;
 
-import javax.enterprise.inject.spi.CDI;
-import java.io.IOException;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
-
 import com.apollocurrency.aplwallet.apl.core.account.Account;
 import com.apollocurrency.aplwallet.apl.core.account.AccountAsset;
 import com.apollocurrency.aplwallet.apl.core.account.AccountAssetTable;
@@ -19,52 +14,113 @@ import com.apollocurrency.aplwallet.apl.core.app.Alias;
 import com.apollocurrency.aplwallet.apl.core.app.Block;
 import com.apollocurrency.aplwallet.apl.core.app.Blockchain;
 import com.apollocurrency.aplwallet.apl.core.app.Transaction;
+import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEvent;
+import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEventType;
+import com.apollocurrency.aplwallet.apl.core.config.Property;
 import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.dgs.DGSService;
 import com.apollocurrency.aplwallet.apl.core.dgs.model.DGSPurchase;
 import com.apollocurrency.aplwallet.apl.crypto.Convert;
+import com.apollocurrency.aplwallet.apl.util.task.NamedThreadFactory;
+import com.apollocurrency.aplwallet.apl.util.task.Tasks;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class BlockEventSourceProcessor implements Runnable {
+import javax.annotation.PreDestroy;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes account data to the subscribed {@link BlockEventSource}s, when block is accepted or popped off.
+ * <p>Account data is loaded once per block for each subscribed account and is sent to all event sources of
+ * this account. Updates of the account are coalesced: while update of the account is waiting for execution,
+ * new blocks do not schedule another update. Slow event sources receive only the latest message, see
+ * {@link BlockEventSource#offer(long, String)}.</p>
+ */
+@Singleton
+public class BlockEventSourceProcessor {
     private static final Logger LOG = LoggerFactory.getLogger(BlockEventSourceProcessor.class);
-    private final BlockEventSource eventSource;
-    private final long accountId;
-    private final Blockchain blockchain = CDI.current().select(Blockchain.class).get();
-    private DGSService service = CDI.current().select(DGSService.class).get();
-
-    public BlockEventSourceProcessor(BlockEventSource eventSource, long accountId) {
-        this.eventSource = eventSource;
-        this.accountId = accountId;
+    private final Blockchain blockchain;
+    private final DGSService service;
+    private final ExecutorService executor;
+    private final Map<Long, Set<BlockEventSource>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Long> pendingAccounts = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageSequence = new AtomicLong();
+
+    @Inject
+    public BlockEventSourceProcessor(Blockchain blockchain, DGSService service,
+                                     @Property(value = "apl.sseThreadPoolSize", defaultValue = "4") int threads) {
+        this.blockchain = blockchain;
+        this.service = service;
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), new NamedThreadFactory("BlockEventSourceProcessor", true));
     }
 
-    @Override
-    public void run() {
-        Block block = blockchain.getLastBlock();
-        Block currentBlock;
-        try {
-            eventSource.emitEvent(getMessage());
-            while (!eventSource.isShutdown()) {
+    public void register(BlockEventSource eventSource) {
+        subscriptions.computeIfAbsent(eventSource.getAccountId(), id -> ConcurrentHashMap.newKeySet()).add(eventSource);
+        scheduleUpdate(eventSource.getAccountId());
+    }
 
+    public void unregister(BlockEventSource eventSource) {
+        subscriptions.computeIfPresent(eventSource.getAccountId(), (id, eventSources) -> {
+            eventSources.remove(eventSource);
+            return eventSources.isEmpty() ? null : eventSources;
+        });
+        LOG.trace("Exit event source for account {}", eventSource.getAccountId());
+    }
 
-                currentBlock = blockchain.getLastBlock();
-                if (currentBlock.getHeight() > block.getHeight()) {
+    public void onBlockAccepted(@Observes @BlockEvent(BlockEventType.AFTER_BLOCK_ACCEPT) Block block) {
+        subscriptions.keySet().forEach(this::scheduleUpdate);
+    }
 
-                    eventSource.emitEvent(getMessage());
+    public void onBlockPopped(@Observes @BlockEvent(BlockEventType.BLOCK_POPPED) Block block) {
+        subscriptions.keySet().forEach(this::scheduleUpdate);
+    }
 
-                    block = currentBlock;
-                }
-                TimeUnit.SECONDS.sleep(2);
-            }
-        } catch (IOException | InterruptedException e) {
-            LOG.error("Unable to send sse event", e);
+    void send(BlockEventSource eventSource) {
+        executor.execute(eventSource::send);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Tasks.shutdownExecutor("BlockEventSourceProcessor", executor, 5);
+    }
+
+    private void scheduleUpdate(long accountId) {
+        if (pendingAccounts.add(accountId)) {
+            executor.execute(() -> update(accountId));
+        }
+    }
+
+    private void update(long accountId) {
+        pendingAccounts.remove(accountId);
+        Set<BlockEventSource> eventSources = subscriptions.get(accountId);
+        if (eventSources == null || eventSources.isEmpty()) {
+            return;
+        }
+        long sequence = messageSequence.incrementAndGet();
+        String message;
+        try {
+            message = getMessage(accountId);
+        } catch (RuntimeException e) {
+            LOG.error("Unable to prepare sse event for account " + Long.toUnsignedString(accountId), e);
+            return;
+        }
+        for (BlockEventSource eventSource : eventSources) {
+            eventSource.offer(sequence, message);
         }
-        LOG.trace("Exit event source {}", eventSource.isShutdown());
     }
 
-    protected JSONObject getBlockchainData(Blockchain blockchain) {
+    protected JSONObject getBlockchainData(Blockchain blockchain, long accountId) {
         JSONArray transactionsArray = new JSONArray();
         List<Transaction> list = blockchain.getTransactions(accountId,
                 0, (byte) -1, (byte) -1, 0, false,
@@ -76,7 +132,6 @@ public class BlockEventSourceProcessor implements Runnable {
 
         JSONArray purchasesJSON = new JSONArray();
 
-//        try (DbIterator<DigitalGoodsStore.Purchase> purchases = DigitalGoodsStore.Purchase.getPendingSellerPurchases(accountId, 0, 9)) {
         try (DbIterator<DGSPurchase> purchases = service.getPendingSellerPurchases(accountId, 0, 9)) {
             while (purchases.hasNext()) {
                 purchasesJSON.add(JSONData.purchase(service, purchases.next()));
@@ -114,8 +169,8 @@ public class BlockEventSourceProcessor implements Runnable {
         return jsonObject;
     }
 
-    public String getMessage() {
-        JSONObject jsonObject = getBlockchainData(blockchain);
+    public String getMessage(long accountId) {
+        JSONObject jsonObject = getBlockchainData(blockchain, accountId);
         jsonObject.put("block", JSONData.block(blockchain.getLastBlock(), false, false));
         return jsonObject.toJSONString();
     }
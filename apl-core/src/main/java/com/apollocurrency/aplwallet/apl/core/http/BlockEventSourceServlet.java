@@ -6,14 +6,15 @@ package com.apollocurrency.aplwallet.apl.core.http;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
+import javax.enterprise.inject.spi.CDI;
 import javax.servlet.http.HttpServletRequest;
-import java.util.concurrent.ThreadPoolExecutor;
 
 import org.eclipse.jetty.servlets.EventSource;
 import org.slf4j.Logger;
 
 public class BlockEventSourceServlet extends org.eclipse.jetty.servlets.EventSourceServlet {
     public static final Logger LOG = getLogger(BlockEventSourceServlet.class);
+    private final BlockEventSourceProcessor processor = CDI.current().select(BlockEventSourceProcessor.class).get();
 
     @Override
     protected EventSource newEventSource(HttpServletRequest request) {
@@ -25,7 +26,6 @@ public class BlockEventSourceServlet extends org.eclipse.jetty.servlets.EventSou
             return null;
 
         }
-        return new BlockEventSource((ThreadPoolExecutor) request
-                .getServletContext().getAttribute("executor"), accountId);
+        return new BlockEventSource(processor, accountId);
     }
 }
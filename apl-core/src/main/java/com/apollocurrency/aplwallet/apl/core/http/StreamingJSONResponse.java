@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.http;
+
+import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.simple.JSONStreamAware;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Response of the list request, which is serialized row by row without building json tree of the rows.
+ * <p>Rows are taken from the source iterator and converted to json one by one during writing, so that json
+ * tree of the whole page is never materialized in memory. Response is prepared by the {@link APIServlet} right after
+ * request processing: it is written into the memory buffer and the source (e.g. {@link DbIterator}) is closed, so that
+ * neither db connection nor global lock is held, while the response is sent to the client.</p>
+ * <p>Output has the same format as the json object with the single array of rows: {"rows": [...], "field": value}</p>
+ * @param <T> type of the source rows
+ */
+public class StreamingJSONResponse<T> implements JSONStreamAware, AutoCloseable {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String arrayName;
+    private final Iterator<? extends T> rows;
+    private final AutoCloseable source;
+    private final Function<? super T, ? extends JSONStreamAware> converter;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    private Predicate<? super T> whileCondition = row -> true;
+    private long requestStartTime = -1;
+
+    public StreamingJSONResponse(String arrayName, DbIterator<? extends T> iterator, Function<? super T, ? extends JSONStreamAware> converter) {
+        this(arrayName, iterator, iterator, converter);
+    }
+
+    public StreamingJSONResponse(String arrayName, List<? extends T> rows, Function<? super T, ? extends JSONStreamAware> converter) {
+        this(arrayName, rows.iterator(), null, converter);
+    }
+
+    private StreamingJSONResponse(String arrayName, Iterator<? extends T> rows, AutoCloseable source, Function<? super T, ? extends JSONStreamAware> converter) {
+        this.arrayName = Objects.requireNonNull(arrayName);
+        this.rows = Objects.requireNonNull(rows);
+        this.source = source;
+        this.converter = Objects.requireNonNull(converter);
+    }
+
+    /**
+     * Stop writing rows at the first row, which does not satisfy the given condition
+     * @return this response
+     */
+    public StreamingJSONResponse<T> takeWhile(Predicate<? super T> whileCondition) {
+        this.whileCondition = Objects.requireNonNull(whileCondition);
+        return this;
+    }
+
+    /**
+     * Add field, which will be written after the array of rows
+     * @param value string, number, boolean or null
+     * @return this response
+     */
+    public StreamingJSONResponse<T> put(String name, Object value) {
+        fields.put(name, value);
+        return this;
+    }
+
+    /**
+     * Write 'requestProcessingTime' field, which includes time of the rows writing
+     * @param requestStartTime time of the request start in ms
+     */
+    public void setRequestStartTime(long requestStartTime) {
+        this.requestStartTime = requestStartTime;
+    }
+
+    @Override
+    public void writeJSONString(Writer out) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart(arrayName);
+        StringWriter rowWriter = new StringWriter();
+        while (rows.hasNext()) {
+            T row = rows.next();
+            if (!whileCondition.test(row)) {
+                break;
+            }
+            rowWriter.getBuffer().setLength(0);
+            converter.apply(row).writeJSONString(rowWriter);
+            generator.writeRawValue(rowWriter.toString());
+        }
+        generator.writeEndArray();
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            generator.writeFieldName(field.getKey());
+            generator.writeObject(field.getValue());
+        }
+        if (requestStartTime >= 0) {
+            generator.writeNumberField("requestProcessingTime", System.currentTimeMillis() - requestStartTime);
+        }
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    /**
+     * Write response into the memory buffer and close the source
+     * @return response, which writes the buffered json
+     * @throws IOException when response cannot be written
+     */
+    public JSONStreamAware prepare() throws IOException {
+        StringWriter buffer = new StringWriter();
+        try {
+            writeJSONString(buffer);
+        } finally {
+            close();
+        }
+        String json = buffer.toString();
+        return out -> out.write(json);
+    }
+
+    @Override
+    public void close() {
+        if (source != null) {
+            try {
+                source.close();
+            } catch (Exception e) {
+                throw new RuntimeException(e.toString(), e);
+            }
+        }
+    }
+}
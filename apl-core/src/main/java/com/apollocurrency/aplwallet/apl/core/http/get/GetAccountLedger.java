@@ -30,9 +30,9 @@ import com.apollocurrency.aplwallet.apl.core.http.JSONData;
 import com.apollocurrency.aplwallet.apl.core.http.JSONResponses;
 import com.apollocurrency.aplwallet.apl.core.http.ParameterException;
 import com.apollocurrency.aplwallet.apl.core.http.ParameterParser;
+import com.apollocurrency.aplwallet.apl.core.http.StreamingJSONResponse;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.crypto.Convert;
-import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
 
@@ -293,14 +293,10 @@ public class GetAccountLedger extends AbstractAPIRequestHandler {
         //
         // Return the response
         //
-        JSONArray responseEntries = new JSONArray();
-        for (LedgerEntry entry : ledgerEntries) {
+        return new StreamingJSONResponse<LedgerEntry>("entries", ledgerEntries, entry -> {
             JSONObject responseEntry = new JSONObject();
             JSONData.ledgerEntry(responseEntry, entry, includeTransactions, includeHoldingInfo);
-            responseEntries.add(responseEntry);
-        }
-        JSONObject response = new JSONObject();
-        response.put("entries", responseEntries);
-        return response;
+            return responseEntry;
+        });
     }
 }
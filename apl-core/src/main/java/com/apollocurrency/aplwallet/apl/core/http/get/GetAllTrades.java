@@ -24,12 +24,11 @@ import com.apollocurrency.aplwallet.apl.core.http.APITag;
 import com.apollocurrency.aplwallet.apl.core.http.AbstractAPIRequestHandler;
 import com.apollocurrency.aplwallet.apl.core.http.JSONData;
 import com.apollocurrency.aplwallet.apl.core.http.ParameterParser;
+import com.apollocurrency.aplwallet.apl.core.http.StreamingJSONResponse;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.core.app.Trade;
 import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import javax.enterprise.inject.Vetoed;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
 
 import javax.servlet.http.HttpServletRequest;
@@ -48,19 +47,10 @@ public final class GetAllTrades extends AbstractAPIRequestHandler {
         int lastIndex = ParameterParser.getLastIndex(req);
         boolean includeAssetInfo = "true".equalsIgnoreCase(req.getParameter("includeAssetInfo"));
 
-        JSONObject response = new JSONObject();
-        JSONArray trades = new JSONArray();
-        try (DbIterator<Trade> tradeIterator = Trade.getAllTrades(firstIndex, lastIndex)) {
-            while (tradeIterator.hasNext()) {
-                Trade trade = tradeIterator.next();
-                if (trade.getTimestamp() < timestamp) {
-                    break;
-                }
-                trades.add(JSONData.trade(trade, includeAssetInfo));
-            }
-        }
-        response.put("trades", trades);
-        return response;
+        // iterator is closed by the servlet after the response writing
+        DbIterator<Trade> tradeIterator = Trade.getAllTrades(firstIndex, lastIndex);
+        return new StreamingJSONResponse<Trade>("trades", tradeIterator, trade -> JSONData.trade(trade, includeAssetInfo))
+                .takeWhile(trade -> trade.getTimestamp() >= timestamp);
     }
 
 }
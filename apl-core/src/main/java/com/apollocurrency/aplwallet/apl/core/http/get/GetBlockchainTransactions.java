@@ -31,11 +31,10 @@ import com.apollocurrency.aplwallet.apl.core.http.APITag;
 import com.apollocurrency.aplwallet.apl.core.http.AbstractAPIRequestHandler;
 import com.apollocurrency.aplwallet.apl.core.http.JSONData;
 import com.apollocurrency.aplwallet.apl.core.http.ParameterParser;
+import com.apollocurrency.aplwallet.apl.core.http.StreamingJSONResponse;
 import com.apollocurrency.aplwallet.apl.core.transaction.Payment;
 import com.apollocurrency.aplwallet.apl.core.transaction.TransactionType;
 import com.apollocurrency.aplwallet.apl.util.AplException;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
 
 @Vetoed
@@ -80,15 +79,11 @@ public final class GetBlockchainTransactions extends AbstractAPIRequestHandler {
         int firstIndex = ParameterParser.getFirstIndex(req);
         int lastIndex = ParameterParser.getLastIndex(req);
 
-        JSONArray transactions = new JSONArray();
         List<Transaction> transactionList = lookupBlockchain().getTransactions(accountId, numberOfConfirmations,
                 type, subtype, timestamp, withMessage, phasedOnly, nonPhasedOnly, firstIndex, lastIndex,
                 includeExpiredPrunable, executedOnly, false);
-            transactionList.forEach(tx -> transactions.add(JSONData.transaction(tx, includePhasingResult, false)));
-
-        JSONObject response = new JSONObject();
-        response.put("transactions", transactions);
-        return response;
+        return new StreamingJSONResponse<Transaction>("transactions", transactionList,
+                tx -> JSONData.transaction(tx, includePhasingResult, false));
 
     }
 
@@ -25,16 +25,18 @@ import com.apollocurrency.aplwallet.apl.core.http.APITag;
 import com.apollocurrency.aplwallet.apl.core.http.AbstractAPIRequestHandler;
 import com.apollocurrency.aplwallet.apl.core.http.JSONData;
 import com.apollocurrency.aplwallet.apl.core.http.ParameterParser;
+import com.apollocurrency.aplwallet.apl.core.http.StreamingJSONResponse;
 import com.apollocurrency.aplwallet.apl.util.AplException;
 import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import javax.enterprise.inject.Vetoed;
 
 import lombok.extern.slf4j.Slf4j;
-import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.JSONStreamAware;
 
 import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.function.Function;
 
 @Slf4j
 @Vetoed
@@ -53,25 +55,16 @@ public final class GetBlocks extends AbstractAPIRequestHandler {
         boolean includeTransactions = "true".equalsIgnoreCase(req.getParameter("includeTransactions"));
         boolean includeExecutedPhased = "true".equalsIgnoreCase(req.getParameter("includeExecutedPhased"));
 
-        JSONArray blocks = new JSONArray();
+        Function<Block, JSONObject> converter = block -> JSONData.block(block, includeTransactions, includeExecutedPhased);
         Block lastBlock = lookupBlockchain().getLastBlock();
-        if (lastBlock != null) {
-            try (DbIterator<? extends Block> iterator = lookupBlockchain().getBlocks(firstIndex, lastIndex)) {
-                while (iterator.hasNext()) {
-                    Block block = iterator.next();
-                    if (block.getTimestamp() < timestamp) {
-                        break;
-                    }
-                    blocks.add(JSONData.block(block, includeTransactions, includeExecutedPhased));
-                }
-            }
-        } else {
+        if (lastBlock == null) {
             log.warn("Still no any blocks in db...");
+            return new StreamingJSONResponse<>("blocks", Collections.<Block>emptyList(), converter);
         }
-        JSONObject response = new JSONObject();
-        response.put("blocks", blocks);
-
-        return response;
+        // iterator is closed by the servlet after the response writing
+        DbIterator<? extends Block> iterator = lookupBlockchain().getBlocks(firstIndex, lastIndex);
+        return new StreamingJSONResponse<Block>("blocks", iterator, converter)
+                .takeWhile(block -> block.getTimestamp() >= timestamp);
     }
 
 }
@@ -40,7 +40,7 @@ public final class GetPrivateUnconfirmedTransactions extends AbstractAPIRequestH
         int lastIndex = ParameterParser.getLastIndex(req);
         JSONArray transactions = new JSONArray();
         try (FilteringIterator<? extends Transaction> transactionsIterator = new FilteringIterator<>(
-                lookupTransactionProcessor().getAllUnconfirmedTransactions(0, -1),
+                lookupTransactionProcessor().getAllUnconfirmedTransactions().iterator(),
                 transaction -> data.getAccountId() == transaction.getSenderId() || data.getAccountId() == transaction.getRecipientId(),
                 firstIndex, lastIndex)) {
             while (transactionsIterator.hasNext()) {
@@ -26,7 +26,6 @@ import com.apollocurrency.aplwallet.apl.core.account.Account;
 import com.apollocurrency.aplwallet.apl.core.app.GlobalSync;
 import com.apollocurrency.aplwallet.apl.core.app.Transaction;
 import com.apollocurrency.aplwallet.apl.core.app.TransactionSchedulerService;
-import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.http.APITag;
 import com.apollocurrency.aplwallet.apl.core.http.JSONData;
 import com.apollocurrency.aplwallet.apl.core.http.JSONResponses;
@@ -120,14 +119,12 @@ public final class ScheduleCurrencyBuy extends CreateTransaction {
                     response.put("broadcasted", true);
                     return response;
                 }
-                try (DbIterator<? extends Transaction> unconfirmedTransactions = lookupTransactionProcessor().getAllUnconfirmedTransactions()) {
-                    while (unconfirmedTransactions.hasNext()) {
-                        if (filter.test(unconfirmedTransactions.next())) {
-                            LOG.debug("Exchange offer found in unconfirmed pool, broadcasting transaction " + transaction.getStringId());
-                            lookupTransactionProcessor().broadcast(transaction);
-                            response.put("broadcasted", true);
-                            return response;
-                        }
+                for (Transaction unconfirmedTransaction : lookupTransactionProcessor().getAllUnconfirmedTransactions()) {
+                    if (filter.test(unconfirmedTransaction)) {
+                        LOG.debug("Exchange offer found in unconfirmed pool, broadcasting transaction " + transaction.getStringId());
+                        lookupTransactionProcessor().broadcast(transaction);
+                        response.put("broadcasted", true);
+                        return response;
                     }
                 }
                 if (apw.checkPassword(req)) {
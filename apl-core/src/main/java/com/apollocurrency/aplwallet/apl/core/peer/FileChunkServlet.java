@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.peer;
+
+import com.apollocurrency.aplwallet.apl.core.files.DownloadableFilesManager;
+import com.apollocurrency.aplwallet.apl.util.ChunkedFileOps;
+import org.eclipse.jetty.server.HttpOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.inject.spi.CDI;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Serves raw bytes of the downloadable file region, which is used by peers instead of
+ * base64 encoded json chunks of the 'getFileChunk' request.
+ * <p>Request: GET {@value #PATH}?fileId=&lt;file id&gt;&amp;offset=&lt;offset&gt;&amp;size=&lt;size&gt;.
+ * Size may be reduced by the server to the {@link PeersService#maxFileChunkTransferSize} and to the remaining file size,
+ * actual size is returned in the Content-Length header. Region is mapped to memory and sent without
+ * copying to the heap. Crc is not calculated here, downloader verifies each chunk against crc from the file download info</p>
+ */
+public final class FileChunkServlet extends HttpServlet {
+    private static final Logger LOG = LoggerFactory.getLogger(FileChunkServlet.class);
+    public static final String PATH = "/file-chunk";
+
+    private volatile DownloadableFilesManager downloadableFilesManager;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String fileId = req.getParameter("fileId");
+        long offset;
+        long size;
+        try {
+            offset = Long.parseLong(req.getParameter("offset"));
+            size = Long.parseLong(req.getParameter("size"));
+        } catch (NumberFormatException e) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "Incorrect offset or size");
+            return;
+        }
+        if (fileId == null || fileId.isEmpty() || offset < 0 || size <= 0) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST, "fileId, offset and size are required");
+            return;
+        }
+        Path filePath = lookupFilesManager().mapFileIdToLocalPath(fileId);
+        if (filePath == null || !filePath.toFile().exists()) {
+            resp.sendError(HttpServletResponse.SC_NOT_FOUND, "File not found: " + fileId);
+            return;
+        }
+        ChunkedFileOps ops = new ChunkedFileOps(filePath.toAbsolutePath());
+        long fileSize = ops.getFileSize();
+        if (offset >= fileSize) {
+            resp.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, "Offset is out of file: " + fileId);
+            return;
+        }
+        long sendSize = Math.min(Math.min(size, PeersService.maxFileChunkTransferSize), fileSize - offset);
+        LOG.trace("Send file {} region offset={}, size={}", fileId, offset, sendSize);
+        ByteBuffer region = ops.mapChunk(offset, sendSize);
+        resp.setStatus(HttpServletResponse.SC_OK);
+        resp.setContentType("application/octet-stream");
+        resp.setContentLengthLong(sendSize);
+        ServletOutputStream out = resp.getOutputStream();
+        if (out instanceof HttpOutput) {
+            ((HttpOutput) out).sendContent(region);
+        } else {
+            WritableByteChannel channel = Channels.newChannel(out);
+            while (region.hasRemaining()) {
+                channel.write(region);
+            }
+        }
+    }
+
+    private DownloadableFilesManager lookupFilesManager() {
+        if (downloadableFilesManager == null) {
+            downloadableFilesManager = CDI.current().select(DownloadableFilesManager.class).get();
+        }
+        return downloadableFilesManager;
+    }
+}
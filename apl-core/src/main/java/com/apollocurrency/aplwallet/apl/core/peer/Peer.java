@@ -27,6 +27,7 @@ import org.json.simple.JSONStreamAware;
 
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public interface Peer extends Comparable<Peer> {
 
@@ -35,7 +36,9 @@ public interface Peer extends Comparable<Peer> {
         PRUNABLE(2),                    // Stores expired prunable messages
         API(4),                         // Provides open API access over http
         API_SSL(8),                     // Provides open API access over https
-        CORS(16);                       // API CORS enabled
+        CORS(16),                       // API CORS enabled
+        BINARY_ENCODING(32),            // Understands binary encoding of blocks and transactions
+        BINARY_FILE_CHUNKS(64);         // Serves raw file chunks over http
 
         private final long code;        // Service code - must be a power of 2
 
@@ -127,6 +130,15 @@ public interface Peer extends Comparable<Peer> {
 
     JSONObject send(JSONStreamAware request, UUID chainId) throws PeerNotConnectedException;
 
+    /**
+     * Send request to the peer without blocking the caller until the response is received
+     * @param request request to send
+     * @param chainId id of the chain
+     * @return future of the response, which is completed by null when request failed or timed out,
+     * or completed exceptionally by {@link PeerNotConnectedException} when peer is not connected
+     */
+    CompletableFuture<JSONObject> sendAsync(JSONStreamAware request, UUID chainId);
+
     public boolean isTrusted();
 
     public PeerTrustLevel getTrustLevel();
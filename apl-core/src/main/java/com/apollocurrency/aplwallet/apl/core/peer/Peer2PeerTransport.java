@@ -29,7 +29,9 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 /**
@@ -162,6 +164,33 @@ public class Peer2PeerTransport {
         return res;
     }
 
+    /**
+     * Send request without waiting for the response. Response is delivered by the {@link #onIncomingMessage}
+     * with the same request id, so that no thread is blocked per outstanding request.
+     * @param request request message
+     * @return future of the response message, which is completed by null when request was not sent
+     * or response was not received during {@link PeersService#readTimeout}
+     */
+    public CompletableFuture<String> sendAsync(String request) {
+        Long rqId = nextRequestId();
+        ResponseWaiter wsrw = new ResponseWaiter();
+        requestMap.put(rqId, wsrw);
+        CompletableFuture<String> response = wsrw.getFuture()
+                .orTimeout(PeersService.readTimeout, TimeUnit.MILLISECONDS)
+                .handle((res, ex) -> {
+                    requestMap.remove(rqId);
+                    if (ex != null) {
+                        log.trace("Timeout excided while waiting response from: {} ID: {}", which(), rqId);
+                    }
+                    return res;
+                });
+        if (!send(request, rqId)) {
+            log.debug("Exception while sending to websocket of {}", which());
+            wsrw.setResponse(null);
+        }
+        return response;
+    }
+
     public String getResponse(Long rqId){
         String res = null;
         ResponseWaiter wsrw = requestMap.get(rqId);
@@ -205,7 +234,10 @@ public class Peer2PeerTransport {
             });
         }
         toDelete.forEach((key) -> {
-            requestMap.remove(key);
+            ResponseWaiter wsrw = requestMap.remove(key);
+            if (wsrw != null) {
+                wsrw.setResponse(null);
+            }
         });
     }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.peer;
+
+import com.apollocurrency.aplwallet.apl.core.app.Block;
+import com.apollocurrency.aplwallet.apl.core.app.Transaction;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+import java.util.Base64;
+
+/**
+ * Compact peer encoding of blocks and transactions.
+ * <p>Instead of the full json tree of every block and transaction field, the canonical block header bytes
+ * and transaction bytes are sent (base64 encoded inside the usual json message), only prunable attachments,
+ * which are not part of the transaction bytes, are sent as json. Parsing is done by
+ * BlockImpl.parseBlock and TransactionImpl.parseTransaction, which accept both encodings.</p>
+ * <p>Encoding is negotiated through the {@link Peer.Service#BINARY_ENCODING} service advertised in the GetInfo
+ * handshake, json encoding is used for peers, which do not support it.</p>
+ */
+public final class PeerBinaryEncoding {
+    /**
+     * Request parameter, which asks remote peer to respond using binary encoding
+     */
+    public static final String ENCODING_PARAMETER = "encoding";
+    public static final String BINARY_ENCODING = "binary";
+
+    private PeerBinaryEncoding() {}
+
+    /**
+     * @param peer remote peer
+     * @return true when both we and remote peer support binary encoding
+     */
+    public static boolean isSupportedBy(Peer peer) {
+        return PeersService.useBinaryEncoding && peer.providesService(Peer.Service.BINARY_ENCODING);
+    }
+
+    /**
+     * @param request peer request
+     * @return true when remote peer asked for binary encoded response and binary encoding is enabled
+     */
+    public static boolean isRequested(JSONObject request) {
+        return PeersService.useBinaryEncoding && BINARY_ENCODING.equals(request.get(ENCODING_PARAMETER));
+    }
+
+    public static void request(JSONObject request) {
+        request.put(ENCODING_PARAMETER, BINARY_ENCODING);
+    }
+
+    public static JSONObject getBlockJSONObject(Block block) {
+        JSONObject json = new JSONObject();
+        json.put("blockBytes", Base64.getEncoder().encodeToString(block.getBytes()));
+        JSONArray transactionsData = new JSONArray();
+        block.getOrLoadTransactions().forEach(transaction -> transactionsData.add(getTransactionJSONObject(transaction)));
+        json.put("transactions", transactionsData);
+        return json;
+    }
+
+    public static JSONObject getTransactionJSONObject(Transaction transaction) {
+        JSONObject json = new JSONObject();
+        json.put("transactionBytes", Base64.getEncoder().encodeToString(transaction.getBytes()));
+        JSONObject prunableAttachment = transaction.getPrunableAttachmentJSON();
+        if (prunableAttachment != null) {
+            json.put("prunableAttachmentJSON", prunableAttachment);
+        }
+        return json;
+    }
+}
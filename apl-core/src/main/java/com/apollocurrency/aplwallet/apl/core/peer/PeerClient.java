@@ -20,6 +20,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.enterprise.inject.Vetoed;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -117,6 +123,62 @@ public class PeerClient {
         return fc;
     }
 
+    /**
+     * @return true when peer serves raw file chunks, see {@link FileChunkServlet}
+     */
+    public boolean supportsBinaryFileChunks() {
+        return PeersService.useBinaryFileChunks && peer.providesService(Peer.Service.BINARY_FILE_CHUNKS);
+    }
+
+    /**
+     * Download raw bytes of the file region, which may span several chunks
+     * @param fileId id of the file
+     * @param offset offset of the region
+     * @param size requested size of the region
+     * @return region bytes, which may be shorter than requested, when peer limits transfer size,
+     * or null when request failed
+     */
+    public byte[] downloadFileRegion(String fileId, long offset, long size) {
+        log.trace("downloadFileRegion() fileId = {}, offset = {}, size = {}", fileId, offset, size);
+        if(!checkConnection()){
+            log.debug("Can not connect to peer: {}",peer.getAnnouncedAddress());
+            return null;
+        }
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL("http://" + peer.getHostWithPort() + FileChunkServlet.PATH
+                    + "?fileId=" + URLEncoder.encode(fileId, StandardCharsets.UTF_8) + "&offset=" + offset + "&size=" + size);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(PeersService.connectTimeout);
+            connection.setReadTimeout(PeersService.readTimeout);
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                log.debug("Peer {} responded with HTTP {} on file region request", peer.getHostWithPort(), connection.getResponseCode());
+                return null;
+            }
+            long length = connection.getContentLengthLong();
+            if (length <= 0 || length > size) {
+                log.debug("Peer {} returned file region of incorrect length {}, requested {}", peer.getHostWithPort(), length, size);
+                return null;
+            }
+            byte[] data = new byte[(int) length];
+            try (InputStream is = connection.getInputStream()) {
+                int read = is.readNBytes(data, 0, data.length);
+                if (read != data.length) {
+                    log.debug("Peer {} closed connection after {} of {} bytes", peer.getHostWithPort(), read, length);
+                    return null;
+                }
+            }
+            return data;
+        } catch (IOException e) {
+            log.debug("Error downloading file region from {}: {}", peer.getHostWithPort(), e.getMessage());
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
     public ShardingInfo getShardingInfo(){
         if(!checkConnection()){
             log.debug("Can not connect to peer: {}",peer.getAnnouncedAddress());
@@ -122,6 +122,10 @@ public class PeerHttpServer {
             peerServlet = new PeerServlet();
             ServletHolder peerServletHolder = new ServletHolder(peerServlet);
             ctxHandler.addServlet(peerServletHolder, "/*");
+            boolean enableBinaryFileChunks = propertiesHolder.getBooleanProperty("apl.enablePeerBinaryFileChunks", true);
+            if (enableBinaryFileChunks) {
+                ctxHandler.addServlet(new ServletHolder(new FileChunkServlet()), FileChunkServlet.PATH);
+            }
             if (propertiesHolder.getBooleanProperty("apl.enablePeerServerDoSFilter")) {
                 FilterHolder dosFilterHolder = ctxHandler.addFilter(DoSFilter.class, "/*", EnumSet.of(DispatcherType.REQUEST));
                 dosFilterHolder.setInitParameter("maxRequestsPerSec", propertiesHolder.getStringProperty("apl.peerServerDoSFilter.maxRequestsPerSec"));
@@ -135,6 +139,8 @@ public class PeerHttpServer {
                 gzipHandler.setIncludedMethods("GET", "POST");
                 gzipHandler.setIncludedPaths("/*");
                 gzipHandler.setMinGzipSize(PeersService.MIN_COMPRESS_SIZE);
+                // file chunks are mostly zip archives, do not compress them once again
+                gzipHandler.setExcludedPaths(FileChunkServlet.PATH);
                 ctxHandler.setGzipHandler(gzipHandler);
             }
             peerServer.setHandler(ctxHandler);
@@ -58,6 +58,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -492,20 +493,55 @@ public final class PeerImpl implements Peer {
         }
     }
 
+    @Override
+    public CompletableFuture<JSONObject> sendAsync(final JSONStreamAware request, UUID chainId) {
+        if (getState() != PeerState.CONNECTED) {
+            LOG.debug("sendAsync() called before handshake(). Handshacking to: {}", getHostWithPort());
+            return CompletableFuture.failedFuture(new PeerNotConnectedException("sendAsync() called before handshake(). Handshacking"));
+        }
+        String rq = writeRequest(request);
+        if (rq == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return p2pTransport.sendAsync(rq).thenApply(this::processResponse);
+        } catch (RuntimeException e) {
+            LOG.debug("Exception while sending request to '{}'",getHostWithPort(),e);
+            deactivate("Exception while sending request: "+e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
     private JSONObject send(final JSONStreamAware request) {
+        String rq = writeRequest(request);
+        if (rq == null) {
+            return null;
+        }
+        String resp;
+        try {
+            resp = p2pTransport.sendAndWaitResponse(rq);
+        } catch (RuntimeException e) {
+            LOG.debug("Exception while sending request to '{}'",getHostWithPort(),e);
+            deactivate("Exception while sending request: "+e.getMessage());
+            return null;
+        }
+        return processResponse(resp);
+    }
 
-        JSONObject response =null;
+    private String writeRequest(final JSONStreamAware request) {
         StringWriter wsWriter = new StringWriter(PeersService.MAX_REQUEST_SIZE);
         try {
             request.writeJSONString(wsWriter);
         } catch (IOException ex) {
             LOG.debug("Can not deserialize request");
-            return response;
+            return null;
         }
+        return wsWriter.toString();
+    }
 
+    private JSONObject processResponse(String resp) {
+        JSONObject response = null;
         try {
-            String rq = wsWriter.toString();
-            String resp = p2pTransport.sendAndWaitResponse(rq);
             if(resp==null){
                 LOG.trace("Null response from: {}", getHostWithPort());
                 return response;
@@ -48,6 +48,7 @@ import com.apollocurrency.aplwallet.apl.util.task.TaskOrder;
 import com.apollocurrency.aplwallet.apl.util.task.Tasks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsonorg.JsonOrgModule;
+import com.google.common.base.Suppliers;
 import lombok.Getter;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
@@ -63,17 +64,19 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 @Singleton
 public class PeersService {
@@ -111,6 +114,9 @@ public class PeersService {
     static int webSocketIdleTimeout;
     static boolean useProxy;
     static boolean isGzipEnabled;
+    static boolean useBinaryEncoding;
+    static boolean useBinaryFileChunks;
+    public static int maxFileChunkTransferSize;
     public static boolean useTLS;
 
     private static String myHallmark;
@@ -253,6 +259,9 @@ public class PeersService {
         useWebSockets = propertiesHolder.getBooleanProperty("apl.useWebSockets");
         webSocketIdleTimeout = propertiesHolder.getIntProperty("apl.webSocketIdleTimeout");
         isGzipEnabled = propertiesHolder.getBooleanProperty("apl.enablePeerServerGZIPFilter");
+        useBinaryEncoding = propertiesHolder.getBooleanProperty("apl.enablePeerBinaryEncoding", true);
+        useBinaryFileChunks = propertiesHolder.getBooleanProperty("apl.enablePeerBinaryFileChunks", true);
+        maxFileChunkTransferSize = propertiesHolder.getIntProperty("apl.maxFileChunkTransferSize", 1024 * 1024);
         blacklistingPeriod = propertiesHolder.getIntProperty("apl.blacklistingPeriod") / 1000;
         sendToPeersLimit = propertiesHolder.getIntProperty("apl.sendToPeersLimit");
         usePeersDb = propertiesHolder.getBooleanProperty("apl.usePeersDb") && !propertiesHolder.isOffline();
@@ -394,6 +403,13 @@ public class PeersService {
             }
         }
 
+        if (useBinaryEncoding) {
+            servicesList.add(Peer.Service.BINARY_ENCODING);
+        }
+        if (useBinaryFileChunks && peerHttpServer.isShareMyAddress()) {
+            servicesList.add(Peer.Service.BINARY_FILE_CHUNKS);
+        }
+
         long services = 0;
         for (Peer.Service service : servicesList) {
             services |= service.getCode();
@@ -717,84 +733,123 @@ public class PeersService {
     }
 
     public void sendToSomePeers(Block block) {
-        JSONObject request = block.getJSONObject();
-        request.put("requestType", "processBlock");
         LOG.debug("Pushing block: {} at height: {}", block.getId(), block.getHeight());
-        sendToSomePeers(request);
+        sendToSomePeers(() -> {
+            JSONObject request = block.getJSONObject();
+            request.put("requestType", "processBlock");
+            return request;
+        }, () -> {
+            JSONObject binaryRequest = PeerBinaryEncoding.getBlockJSONObject(block);
+            binaryRequest.put("requestType", "processBlock");
+            // ProcessBlock checks these header fields before parsing the whole block
+            binaryRequest.put("previousBlock", Long.toUnsignedString(block.getPreviousBlockId()));
+            binaryRequest.put("timestamp", block.getTimestamp());
+            binaryRequest.put("timeout", block.getTimeout());
+            return binaryRequest;
+        });
     }
 
     public void sendToSomePeers(List<? extends Transaction> transactions) {
         int nextBatchStart = 0;
         while (nextBatchStart < transactions.size()) {
-            JSONObject request = new JSONObject();
-            JSONArray transactionsData = new JSONArray();
-            for (int i = nextBatchStart; i < nextBatchStart + sendTransactionsBatchSize && i < transactions.size(); i++) {
-                transactionsData.add(transactions.get(i).getJSONObject());
-            }
-            request.put("requestType", "processTransactions");
-            request.put("transactions", transactionsData);
-            sendToSomePeers(request);
+            List<Transaction> batch = new ArrayList<>(transactions.subList(nextBatchStart,
+                    Math.min(nextBatchStart + sendTransactionsBatchSize, transactions.size())));
+            sendToSomePeers(() -> {
+                JSONArray transactionsData = new JSONArray();
+                batch.forEach(transaction -> transactionsData.add(transaction.getJSONObject()));
+                JSONObject request = new JSONObject();
+                request.put("requestType", "processTransactions");
+                request.put("transactions", transactionsData);
+                return request;
+            }, () -> {
+                JSONArray binaryTransactionsData = new JSONArray();
+                batch.forEach(transaction -> binaryTransactionsData.add(PeerBinaryEncoding.getTransactionJSONObject(transaction)));
+                JSONObject binaryRequest = new JSONObject();
+                binaryRequest.put("requestType", "processTransactions");
+                binaryRequest.put("transactions", binaryTransactionsData);
+                return binaryRequest;
+            });
             nextBatchStart += sendTransactionsBatchSize;
         }
     }
 
-    private void sendToSomePeers(final JSONObject request) {
+    /**
+     * Send request to some connected peers. Each encoding of the request is built only once and only when the
+     * first peer, which accepts it, is found, so that binary encoding is not built, when no connected peers
+     * support it and json encoding is not built, when all of them do.
+     * @param request supplier of the json encoded request
+     * @param binaryRequest supplier of the binary encoded request, which is sent to the peers supporting binary encoding
+     */
+    private void sendToSomePeers(Supplier<JSONObject> request, Supplier<JSONObject> binaryRequest) {
         if (shutdown || suspend) {
             String errorMessage = String.format("Cannot send request to peers. Peer server was %s", suspend ? "suspended" : "shutdown");
             LOG.error(errorMessage);
             throw new RuntimeException(errorMessage);
         }
         sendingService.submit(() -> {
-            request.put("chainId", blockchainConfig.getChain().getChainId());
-            final JSONStreamAware jsonRequest = JSON.prepareRequest(request);
+            Supplier<JSONStreamAware> jsonRequest = Suppliers.memoize(() -> prepareRequest(request.get()));
+            Supplier<JSONStreamAware> jsonBinaryRequest = useBinaryEncoding
+                    ? Suppliers.memoize(() -> prepareRequest(binaryRequest.get()))
+                    : jsonRequest;
 
-            int successful = 0;
-            List<Future<JSONObject>> expectedResponses = new ArrayList<>();
             Set<Peer> peers = new HashSet<>(getPeers(PeerState.CONNECTED));
             int counterOfPeersToSend = peers.size() < sendToPeersLimit ? peers.size() : sendToPeersLimit;
 
-            // peers.addAll(connectablePeers.values());
             LOG.debug("Prepare sending data to CONNECTED peer(s) = [{}]", peers.size());
-            for (final Peer peer : peers) {
-
-                if (enableHallmarkProtection && peer.getWeight() < pushThreshold) {
-                    continue;
-                }
+            sendToPeers(peers.iterator(), jsonRequest, jsonBinaryRequest, counterOfPeersToSend);
+        });
+    }
 
-                if ( !peer.isBlacklisted()
-                     && peer.getState() == PeerState.CONNECTED // skip not connected peers
-                     && peer.getBlockchainState() != BlockchainState.LIGHT_CLIENT
-                   ) {
-                    LOG.trace("Prepare send to peer = {}", peer);
-                    Future<JSONObject> futureResponse = peersExecutorService.submit(() ->
-                        peer.send(jsonRequest, blockchainConfig.getChain().getChainId())
-                    );
-                    expectedResponses.add(futureResponse);
-                }
-                if (expectedResponses.size() >= counterOfPeersToSend - successful) {
-                    for (Future<JSONObject> future : expectedResponses) {
-                        try {
-                            JSONObject response = future.get();
-                            if (response != null && response.get("error") == null) {
-                                successful += 1;
-                            } else {
-                                LOG.debug("Send to peer error");
-                            }
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        } catch (ExecutionException e) {
-                            LOG.debug("Error in sendToSomePeers", e);
-                        }
+    private JSONStreamAware prepareRequest(JSONObject request) {
+        request.put("chainId", blockchainConfig.getChain().getChainId());
+        return JSON.prepareRequest(request);
+    }
 
+    /**
+     * Send request asynchronously to the next {@code counterOfPeersToSend} suitable peers and repeat for the
+     * remaining peers, when not all of them responded successfully. Next round is started by the sending service,
+     * when all responses of the current round are received, so that neither sending service thread
+     * nor peers executor thread waits for the peer responses.
+     */
+    private void sendToPeers(Iterator<Peer> peers, Supplier<JSONStreamAware> jsonRequest, Supplier<JSONStreamAware> jsonBinaryRequest,
+                             int counterOfPeersToSend) {
+        if (counterOfPeersToSend <= 0) {
+            LOG.debug("SendToSomePeers() success.");
+            return;
+        }
+        UUID chainId = blockchainConfig.getChain().getChainId();
+        List<CompletableFuture<Boolean>> expectedResponses = new ArrayList<>();
+        while (expectedResponses.size() < counterOfPeersToSend && peers.hasNext()) {
+            Peer peer = peers.next();
+            if (enableHallmarkProtection && peer.getWeight() < pushThreshold) {
+                continue;
+            }
+            if ( !peer.isBlacklisted()
+                 && peer.getState() == PeerState.CONNECTED // skip not connected peers
+                 && peer.getBlockchainState() != BlockchainState.LIGHT_CLIENT
+               ) {
+                LOG.trace("Prepare send to peer = {}", peer);
+                JSONStreamAware peerRequest = PeerBinaryEncoding.isSupportedBy(peer) ? jsonBinaryRequest.get() : jsonRequest.get();
+                expectedResponses.add(peer.sendAsync(peerRequest, chainId).handle((response, e) -> {
+                    if (e != null) {
+                        LOG.debug("Error in sendToSomePeers", e);
+                        return false;
                     }
-                    expectedResponses.clear();
-                }
-                if (successful >= counterOfPeersToSend) {
-                    LOG.debug("SendToSomePeers() success.");
-                    return;
-                }
+                    if (response == null || response.get("error") != null) {
+                        LOG.debug("Send to peer error");
+                        return false;
+                    }
+                    return true;
+                }));
             }
-        });
+        }
+        if (expectedResponses.isEmpty()) {
+            return;
+        }
+        CompletableFuture.allOf(expectedResponses.toArray(new CompletableFuture[0])).thenRunAsync(() -> {
+            int successful = (int) expectedResponses.stream().filter(CompletableFuture::join).count();
+            sendToPeers(peers, jsonRequest, jsonBinaryRequest, counterOfPeersToSend - successful);
+        }, sendingService);
     }
 
     public Peer getAnyPeer(final PeerState state, final boolean applyPullThreshold) {
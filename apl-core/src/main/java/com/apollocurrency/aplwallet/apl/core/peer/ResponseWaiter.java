@@ -4,8 +4,10 @@
 package com.apollocurrency.aplwallet.apl.core.peer;
 
 import java.net.SocketTimeoutException;
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.extern.slf4j.Slf4j;
 
 
@@ -17,10 +19,8 @@ import lombok.extern.slf4j.Slf4j;
 public class ResponseWaiter {
     /** time to live of entry. Entry should de deleted if it is older */
     public static long WSW_TTL_MS=60000; //1 minute
-      /** Request latch */
-    private final CountDownLatch latch = new CountDownLatch(1);
-    /** Response message */
-    private volatile String response;
+    /** Response message, completed by the incoming message with the same request id */
+    private final CompletableFuture<String> response = new CompletableFuture<>();
     private final long createTime = System.currentTimeMillis();
     
     /**
@@ -33,21 +33,28 @@ public class ResponseWaiter {
      */
     public String get(long timeoutMs) throws SocketTimeoutException {
         try {
-            if (!latch.await(timeoutMs, TimeUnit.MILLISECONDS)) {
-                throw new SocketTimeoutException("WebSocket response wait timeout ("+timeoutMs+"ms) exceeded");
-            }
+            return response.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new SocketTimeoutException("WebSocket response wait timeout ("+timeoutMs+"ms) exceeded");
+        } catch (ExecutionException ex) {
+            log.debug("Response completed exceptionally", ex);
         } catch (InterruptedException ex) {
            log.debug("Interruptrd exception while waiting for response",ex);
            //we can not just swallow this exception
-           //but we have to return reuslt below
            Thread.currentThread().interrupt();
         }
+        return null;
+    }
+
+    /**
+     * @return future of the response message, which does not block the caller
+     */
+    public CompletableFuture<String> getFuture() {
         return response;
     }
-    
+
     public void setResponse(String response) {
-        this.response = response;
-        latch.countDown();
+        this.response.complete(response);
     }
 
     public boolean isOld(){
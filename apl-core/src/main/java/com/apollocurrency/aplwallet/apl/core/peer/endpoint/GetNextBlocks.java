@@ -23,6 +23,7 @@ package com.apollocurrency.aplwallet.apl.core.peer.endpoint;
 import com.apollocurrency.aplwallet.apl.core.app.Block;
 import com.apollocurrency.aplwallet.apl.core.app.Blockchain;
 import com.apollocurrency.aplwallet.apl.core.peer.Peer;
+import com.apollocurrency.aplwallet.apl.core.peer.PeerBinaryEncoding;
 import com.apollocurrency.aplwallet.apl.crypto.Convert;
 import com.apollocurrency.aplwallet.apl.util.JSON;
 import org.json.simple.JSONArray;
@@ -68,7 +69,11 @@ public final class GetNextBlocks extends PeerRequestHandler {
         List<Long> idList = new ArrayList<>();
         stringList.forEach(stringId -> idList.add(Convert.parseUnsignedLong(stringId)));
         blocks = blockchain.getBlocksAfter(blockId, idList);
-        blocks.forEach(block -> nextBlocksArray.add(block.getJSONObject()));
+        if (PeerBinaryEncoding.isRequested(request)) {
+            blocks.forEach(block -> nextBlocksArray.add(PeerBinaryEncoding.getBlockJSONObject(block)));
+        } else {
+            blocks.forEach(block -> nextBlocksArray.add(block.getJSONObject()));
+        }
         response.put("nextBlocks", nextBlocksArray);
 
         return response;
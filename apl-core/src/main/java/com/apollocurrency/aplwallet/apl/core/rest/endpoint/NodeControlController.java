@@ -9,6 +9,8 @@ import com.apollocurrency.aplwallet.api.response.ApolloX509Response;
 import com.apollocurrency.aplwallet.api.response.CacheStatsResponse;
 import com.apollocurrency.aplwallet.api.response.NodeHealthResponse;
 import com.apollocurrency.aplwallet.api.response.NodeStatusResponse;
+import com.apollocurrency.aplwallet.apl.core.db.BlockCache;
+import com.apollocurrency.aplwallet.apl.core.db.BlockDao;
 import com.apollocurrency.aplwallet.apl.core.rest.converter.Converter;
 import com.apollocurrency.aplwallet.apl.core.rest.service.BackendControlService;
 import com.apollocurrency.aplwallet.apl.core.rest.utils.ResponseBuilder;
@@ -50,6 +52,8 @@ public class NodeControlController {
 
     private Converter<CacheStats, CacheStatsDTO> statsConverter;
 
+    private BlockDao blockDao;
+
     /**
      * Empty constructor re quired by REstEasy
      */
@@ -60,10 +64,11 @@ public class NodeControlController {
     }
 
     @Inject
-    public NodeControlController(BackendControlService bcService, InMemoryCacheManager cacheManager, Converter<CacheStats, CacheStatsDTO> statsConverter) {
+    public NodeControlController(BackendControlService bcService, InMemoryCacheManager cacheManager, Converter<CacheStats, CacheStatsDTO> statsConverter, BlockDao blockDao) {
         this.bcService = bcService;
         this.cacheManager = cacheManager;
         this.statsConverter = statsConverter;
+        this.blockDao = blockDao;
     }
     
     @Path("/status")
@@ -160,15 +165,20 @@ public class NodeControlController {
         List<CacheStatsDTO> result = new ArrayList<>();
         List<String> cacheNames;
         if (cache.equalsIgnoreCase("all")) {
-            cacheNames = cacheManager.getAllocatedCacheNames();
+            cacheNames = new ArrayList<>(cacheManager.getAllocatedCacheNames());
+            cacheNames.add(BlockCache.BLOCK_CACHE_NAME);
         } else {
             cacheNames = List.of(cache);
         }
         cacheNames.forEach(cacheName -> {
-            CacheStats stats = cacheManager.getStats(cacheName);
+            CacheStats stats = BlockCache.BLOCK_CACHE_NAME.equals(cacheName) ? blockDao.getBlockCache().getStats() : cacheManager.getStats(cacheName);
             if (stats != null) {
                 CacheStatsDTO dto = statsConverter.convert(stats);
                 dto.setCacheName(cacheName);
+                long memoryUsage = cacheManager.getEstimatedMemoryUsage(cacheName);
+                if (memoryUsage >= 0) {
+                    dto.setEstimatedMemoryUsage(memoryUsage);
+                }
                 result.add(dto);
             }
         });
@@ -140,7 +140,7 @@ public class ShardService {
                     FileUtils.deleteFilesByFilter(dirProvider.getDbDir(), (p) -> {
                         Path fileName = p.getFileName();
                         int shardIndex = fileName.toString().indexOf("-shard-");
-                        if ( (fileName.toString().endsWith("h2.db") || fileName.toString().endsWith("trace.db")
+                        if ( (fileName.toString().endsWith("h2.db") || fileName.toString().endsWith("mv.db") || fileName.toString().endsWith("trace.db")
                                 || fileName.toString().endsWith("lock.db"))
                                 && shardIndex != -1) {
                             String idString = fileName.toString().substring(shardIndex + 7);
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.exchange.dao;
+
+import com.apollocurrency.aplwallet.apl.eth.utils.EthUtil;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderStatus;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderType;
+import com.apollocurrency.aplwallet.apl.util.LongMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * In-memory index of the open DEX orders used for the counter order matching.
+ * <p>Orders are grouped by side (order type, order currency and pair currency), then by pair rate (in gwei)
+ * and order amount, so that orders with the required rate and amount are found without scanning other orders.
+ * Orders with the same rate and amount are sorted by height and id (oldest first). Only matching keys,
+ * account and finish time of the orders are stored, orders itself should be loaded from the db by id.
+ * Order ids and amounts are indexed by the {@link LongMap}, which does not box keys.</p>
+ * <p>Index does not know anything about db transactions, consistency with the dex_offer table is maintained
+ * by the {@link DexOrderTable}</p>
+ */
+class DexOrderMatchingIndex {
+    private static final Comparator<Entry> AGE_PRIORITY = Comparator.<Entry>comparingInt(e -> e.height)
+            .thenComparingLong(e -> e.orderId);
+
+    private final Map<Integer, NavigableMap<Long, LongMap<NavigableSet<Entry>>>> sides = new HashMap<>();
+    private final LongMap<Entry> orders = new LongMap<>();
+
+    /**
+     * Add or update order in the index. Orders, which are not open, are removed from the index.
+     * @param order latest version of the order
+     */
+    synchronized void put(DexOrder order) {
+        remove(order.getId());
+        if (order.getStatus() != OrderStatus.OPEN) {
+            return;
+        }
+        Entry entry = new Entry(order.getId(), order.getAccountId(),
+                sideKey(order.getType(), order.getOrderCurrency(), order.getPairCurrency()),
+                EthUtil.ethToGwei(order.getPairRate()), order.getOrderAmount(), order.getFinishTime(), order.getHeight());
+        orders.put(entry.orderId, entry);
+        LongMap<NavigableSet<Entry>> amounts = sides.computeIfAbsent(entry.sideKey, k -> new TreeMap<>())
+                .computeIfAbsent(entry.pairRate, r -> new LongMap<>());
+        NavigableSet<Entry> entries = amounts.get(entry.amount);
+        if (entries == null) {
+            entries = new TreeSet<>(AGE_PRIORITY);
+            amounts.put(entry.amount, entries);
+        }
+        entries.add(entry);
+    }
+
+    /**
+     * Remove order from the index
+     * @return true when order was present in the index
+     */
+    synchronized boolean remove(long orderId) {
+        Entry entry = orders.remove(orderId);
+        if (entry == null) {
+            return false;
+        }
+        NavigableMap<Long, LongMap<NavigableSet<Entry>>> rates = sides.get(entry.sideKey);
+        LongMap<NavigableSet<Entry>> amounts = rates.get(entry.pairRate);
+        NavigableSet<Entry> entries = amounts.get(entry.amount);
+        entries.remove(entry);
+        if (entries.isEmpty()) {
+            amounts.remove(entry.amount);
+            if (amounts.isEmpty()) {
+                rates.remove(entry.pairRate);
+                if (rates.isEmpty()) {
+                    sides.remove(entry.sideKey);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param type type of the counter orders
+     * @param orderCurrency order currency of the counter orders
+     * @param pairCurrency pair currency of the counter orders
+     * @param pairRate pair rate of the counter orders in gwei
+     * @param amount order amount of the counter orders
+     * @param currentTime epoch time, orders which finish at or before this time are skipped
+     * @param excludeAccountId account, which orders are skipped
+     * @return ids of the open orders, which match given parameters, oldest first
+     */
+    synchronized List<Long> getMatchingOrderIds(OrderType type, DexCurrency orderCurrency, DexCurrency pairCurrency,
+                                                long pairRate, long amount, int currentTime, long excludeAccountId) {
+        List<Long> result = new ArrayList<>();
+        NavigableMap<Long, LongMap<NavigableSet<Entry>>> rates = sides.get(sideKey(type, orderCurrency, pairCurrency));
+        if (rates == null) {
+            return result;
+        }
+        LongMap<NavigableSet<Entry>> amounts = rates.get(pairRate);
+        NavigableSet<Entry> entries = amounts == null ? null : amounts.get(amount);
+        if (entries == null) {
+            return result;
+        }
+        for (Entry entry : entries) {
+            if (entry.finishTime > currentTime && entry.accountId != excludeAccountId) {
+                result.add(entry.orderId);
+            }
+        }
+        return result;
+    }
+
+    synchronized void clear() {
+        sides.clear();
+        orders.clear();
+    }
+
+    /**
+     * @return number of the indexed open orders
+     */
+    synchronized int size() {
+        return orders.size();
+    }
+
+    private static int sideKey(OrderType type, DexCurrency orderCurrency, DexCurrency pairCurrency) {
+        return type.ordinal() << 16 | orderCurrency.ordinal() << 8 | pairCurrency.ordinal();
+    }
+
+    private static final class Entry {
+        private final long orderId;
+        private final long accountId;
+        private final int sideKey;
+        private final long pairRate;
+        private final long amount;
+        private final int finishTime;
+        private final int height;
+
+        private Entry(long orderId, long accountId, int sideKey, long pairRate, long amount, int finishTime, int height) {
+            this.orderId = orderId;
+            this.accountId = accountId;
+            this.sideKey = sideKey;
+            this.pairRate = pairRate;
+            this.amount = amount;
+            this.finishTime = finishTime;
+            this.height = height;
+        }
+    }
+}
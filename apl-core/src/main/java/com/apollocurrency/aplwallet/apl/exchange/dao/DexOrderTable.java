@@ -8,13 +8,19 @@ import com.apollocurrency.aplwallet.apl.core.app.CollectionUtil;
 import com.apollocurrency.aplwallet.apl.core.db.DbClause;
 import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
 import com.apollocurrency.aplwallet.apl.core.db.DbKey;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
 import com.apollocurrency.aplwallet.apl.core.db.dao.mapper.DexOrderMapper;
 import com.apollocurrency.aplwallet.apl.core.db.derived.EntityDbTable;
+import com.apollocurrency.aplwallet.apl.core.shard.DbHotSwapConfig;
 import com.apollocurrency.aplwallet.apl.eth.utils.EthUtil;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
 import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
 import com.apollocurrency.aplwallet.apl.exchange.model.OrderStatus;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderType;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.sql.Connection;
@@ -28,6 +34,10 @@ import java.util.List;
  * Implemented for backward compatibility with rollback function in the DerivedDbTable.
  * Use DexOfferDao for not transactional operations. (f.e. search)
  * DEX trade in derived table hierarchy is used for exporting/importing shard data.
+ * <p>Open orders are mirrored by the in-memory {@link DexOrderMatchingIndex}, which is used to find counter orders.
+ * Index is loaded lazily and is always loaded before any table modification, so that it contains uncommitted
+ * changes only of the thread, which does the modification. When such transaction is rolled back, index is
+ * invalidated and reloaded from the db on the next access.</p>
  */
 @Singleton
 @Slf4j
@@ -36,6 +46,17 @@ public class DexOrderTable extends EntityDbTable<DexOrder> {
     private static final String TABLE_NAME = "dex_offer";
     private DexOrderMapper dexOrderMapper = new DexOrderMapper();
     private static DexOrderKeyFactory keyFactory = new DexOrderKeyFactory();
+    private final DexOrderMatchingIndex matchingIndex = new DexOrderMatchingIndex();
+    private volatile boolean matchingIndexLoaded;
+    private final TransactionCallback indexInvalidationCallback = new TransactionCallback() {
+        @Override
+        public void commit() {}
+
+        @Override
+        public void rollback() {
+            invalidateMatchingIndex();
+        }
+    };
 
     @Inject
     public DexOrderTable() {
@@ -51,6 +72,101 @@ public class DexOrderTable extends EntityDbTable<DexOrder> {
         return get(keyFactory.newKey(transactionId));
     }
 
+    @Override
+    public void insert(DexOrder order) {
+        loadMatchingIndex();
+        super.insert(order);
+        matchingIndex.put(order);
+        registerIndexInvalidation(databaseManager.getDataSource());
+    }
+
+    @Override
+    public void rollback(int height) {
+        super.rollback(height);
+        // reload immediately to not let other threads load the index from the committed data
+        synchronized (matchingIndex) {
+            invalidateMatchingIndex();
+            loadMatchingIndex();
+        }
+    }
+
+    @Override
+    public void truncate() {
+        super.truncate();
+        synchronized (matchingIndex) {
+            matchingIndex.clear();
+            matchingIndexLoaded = true;
+            registerIndexInvalidation(databaseManager.getDataSource());
+        }
+    }
+
+    public void onDbHotSwapBegin(@Observes DbHotSwapConfig dbHotSwapConfig) {
+        invalidateMatchingIndex();
+    }
+
+    /**
+     * Find open orders, which may be matched with the new order, using in-memory index
+     * @param type type of the counter orders
+     * @param orderCurrency order currency of the counter orders
+     * @param pairCurrency pair currency of the counter orders
+     * @param pairRate pair rate of the counter orders in gwei
+     * @param amount order amount of the counter orders
+     * @param currentTime epoch time, orders which finish at or before this time are skipped
+     * @param excludeAccountId account, which orders are skipped (new order sender)
+     * @return matching open orders, oldest first
+     */
+    public List<DexOrder> getOrdersForMatching(OrderType type, DexCurrency orderCurrency, DexCurrency pairCurrency,
+                                               long pairRate, long amount, int currentTime, long excludeAccountId) {
+        loadMatchingIndex();
+        List<Long> orderIds = matchingIndex.getMatchingOrderIds(type, orderCurrency, pairCurrency, pairRate, amount,
+                currentTime, excludeAccountId);
+        List<DexOrder> orders = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            DexOrder order = getByTxId(orderId);
+            // index may contain changes, which are not committed yet by another thread
+            if (order != null && order.getStatus() == OrderStatus.OPEN) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    private void loadMatchingIndex() {
+        if (!matchingIndexLoaded) {
+            synchronized (matchingIndex) {
+                if (!matchingIndexLoaded) {
+                    matchingIndex.clear();
+                    TransactionalDataSource dataSource = databaseManager.getDataSource();
+                    try (Connection con = dataSource.getConnection();
+                         PreparedStatement pstmt = con.prepareStatement("SELECT * FROM dex_offer WHERE latest = true AND status = ?")) {
+                        pstmt.setByte(1, (byte) OrderStatus.OPEN.ordinal());
+                        try (DbIterator<DexOrder> orders = getManyBy(con, pstmt, false)) {
+                            orders.forEach(matchingIndex::put);
+                        }
+                    } catch (SQLException e) {
+                        throw new RuntimeException(e.toString(), e);
+                    }
+                    // loaded data may contain uncommitted changes of the current transaction
+                    registerIndexInvalidation(dataSource);
+                    matchingIndexLoaded = true;
+                }
+            }
+        }
+    }
+
+    private void registerIndexInvalidation(TransactionalDataSource dataSource) {
+        if (dataSource.isInTransaction()) {
+            dataSource.registerCallback(indexInvalidationCallback);
+        }
+    }
+
+    private void invalidateMatchingIndex() {
+        synchronized (matchingIndex) {
+            matchingIndexLoaded = false;
+            matchingIndex.clear();
+        }
+    }
+
     public List<DexOrder> getOverdueOrders(int currentTime) {
         List<DexOrder> dexOrders = new ArrayList<>();
         try (Connection con = getDatabaseManager().getDataSource().getConnection();
@@ -9,17 +9,14 @@ import com.apollocurrency.aplwallet.apl.core.app.TimeService;
 import com.apollocurrency.aplwallet.apl.eth.utils.EthUtil;
 import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
 import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
-import com.apollocurrency.aplwallet.apl.exchange.model.DexOrderDBMatchingRequest;
 import com.apollocurrency.aplwallet.apl.exchange.model.OrderType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import static com.apollocurrency.aplwallet.apl.util.Constants.OFFER_VALIDATE_OK;
 
@@ -165,29 +162,20 @@ public class DexMatcherServiceImpl implements IDexMatcherInterface {
     
         // it should be done the opposite way
         OrderType counterOrderType = createdOrder.getType().isBuy() ? OrderType.SELL : OrderType.BUY;
-        // Be careful: for selling - it should be more expensive. Buying - for cheaper price.
-        String orderBy = createdOrder.getType().isSell() ? "DESC" : "ASC";
-
+        // exact pair rate and amount are required, orders of the same account are skipped by the index
         Integer currentTime = timeService.getEpochTime();
-        BigDecimal offerAmount = new BigDecimal(createdOrder.getOrderAmount());
-        Integer pairCurrency = DexCurrency.getValue(createdOrder.getPairCurrency());
-
-        BigDecimal pairRate = new BigDecimal(EthUtil.ethToGwei(createdOrder.getPairRate()));
+        long offerAmount = createdOrder.getOrderAmount();
+        long pairRate = EthUtil.ethToGwei(createdOrder.getPairRate());
 
-        log.debug("Dumping arguments: type: {}, currentTime: {}, offerAmount: {}, offerCurrency: {}, pairRate: {}, order: {}",
-                counterOrderType, currentTime, offerAmount, pairCurrency, pairRate, orderBy);
+        log.debug("Dumping arguments: type: {}, currentTime: {}, offerAmount: {}, pairCurrency: {}, pairRate: {}",
+                counterOrderType, currentTime, offerAmount, createdOrder.getPairCurrency(), pairRate);
 
-        DexOrderDBMatchingRequest dexOrderDBMatchingRequest = new DexOrderDBMatchingRequest(counterOrderType, currentTime, 0, offerAmount, pairCurrency.intValue(), pairRate, orderBy);
-        List<DexOrder> orders = dexMatchingService.getOffersForMatching(dexOrderDBMatchingRequest, orderBy);
+        List<DexOrder> orders = dexMatchingService.getOffersForMatching(counterOrderType, DexCurrency.APL, createdOrder.getPairCurrency(),
+                pairRate, offerAmount, currentTime, createdOrder.getAccountId());
 
         log.debug("offers found: {}", orders.size());
 
-        //Skip your orders.
-        List<DexOrder> filteredOrders = orders.stream()
-                .filter(order -> !order.getAccountId().equals(createdOrder.getAccountId()))
-                .collect(Collectors.toList());
-
-        for (DexOrder counterOffer : filteredOrders) {
+        for (DexOrder counterOffer : orders) {
             try {
                 if (validateOffer(createdOrder, counterOffer) == OFFER_VALIDATE_OK) {
                     log.debug("match found, id: {}, amount: {}, pairCurrency: {}, pairRate: {}  ", counterOffer.getId(),
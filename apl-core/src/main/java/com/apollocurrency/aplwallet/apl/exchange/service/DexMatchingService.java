@@ -2,8 +2,11 @@ package com.apollocurrency.aplwallet.apl.exchange.service;
 
 import com.apollocurrency.aplwallet.apl.core.db.cdi.Transactional;
 import com.apollocurrency.aplwallet.apl.exchange.dao.DexOrderDao;
+import com.apollocurrency.aplwallet.apl.exchange.dao.DexOrderTable;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
 import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
 import com.apollocurrency.aplwallet.apl.exchange.model.DexOrderDBMatchingRequest;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderType;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -13,14 +16,27 @@ import java.util.List;
 public class DexMatchingService {
 
     private DexOrderDao dexOrderDao;
+    private DexOrderTable dexOrderTable;
 
     @Inject
-    public DexMatchingService(DexOrderDao dexOrderDao) {
+    public DexMatchingService(DexOrderDao dexOrderDao, DexOrderTable dexOrderTable) {
         this.dexOrderDao = dexOrderDao;
+        this.dexOrderTable = dexOrderTable;
     }
 
     @Transactional
     public List<DexOrder> getOffersForMatching(DexOrderDBMatchingRequest dexOrderDBMatchingRequest, String orderby) {
         return dexOrderDao.getOffersForMatchingPure(dexOrderDBMatchingRequest, orderby);
     }
+
+    /**
+     * Same as {@link #getOffersForMatching(DexOrderDBMatchingRequest, String)}, but uses in-memory index of the open orders
+     * instead of the db query and skips orders of the given account
+     * @return open orders with the given type, currencies, pair rate (gwei) and amount, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<DexOrder> getOffersForMatching(OrderType type, DexCurrency orderCurrency, DexCurrency pairCurrency, long pairRate,
+                                               long amount, int currentTime, long excludeAccountId) {
+        return dexOrderTable.getOrdersForMatching(type, orderCurrency, pairCurrency, pairRate, amount, currentTime, excludeAccountId);
+    }
 }
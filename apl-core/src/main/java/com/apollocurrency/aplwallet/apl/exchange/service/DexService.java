@@ -68,6 +68,7 @@ import com.apollocurrency.aplwallet.apl.exchange.model.SwapDataInfo;
 import com.apollocurrency.aplwallet.apl.exchange.model.TransferTransactionInfo;
 import com.apollocurrency.aplwallet.apl.exchange.model.UserAddressesWithOffset;
 import com.apollocurrency.aplwallet.apl.exchange.model.WalletsBalance;
+import com.apollocurrency.aplwallet.apl.exchange.service.graph.DexCandlestickAggregator;
 import com.apollocurrency.aplwallet.apl.exchange.transaction.DEX;
 import com.apollocurrency.aplwallet.apl.exchange.utils.DexCurrencyValidator;
 import com.apollocurrency.aplwallet.apl.util.AplException;
@@ -118,6 +119,7 @@ public class DexService {
     private IDexMatcherInterface dexMatcherService;
     private BlockchainConfig blockchainConfig;
     private DexConfig dexConfig;
+    private DexCandlestickAggregator candlestickAggregator;
 
     private Integer MAX_PAGES_FOR_SEARCH = 10;
     @Inject
@@ -127,7 +129,8 @@ public class DexService {
                       IDexMatcherInterface dexMatcherService, PhasingApprovedResultTable phasingApprovedResultTable, MandatoryTransactionDao mandatoryTransactionDao,
                       BlockchainConfig blockchainConfig,
                       @CacheProducer
-                      @CacheType(DexOrderFreezingCacheConfig.CACHE_NAME) Cache<Long, OrderFreezing> cache, DexConfig dexConfig) {
+                      @CacheType(DexOrderFreezingCacheConfig.CACHE_NAME) Cache<Long, OrderFreezing> cache, DexConfig dexConfig,
+                      DexCandlestickAggregator candlestickAggregator) {
         this.ethereumWalletService = ethereumWalletService;
         this.dexOrderDao = dexOrderDao;
         this.dexOrderTable = dexOrderTable;
@@ -146,6 +149,7 @@ public class DexService {
         this.orderFreezingCache = (LoadingCache<Long, OrderFreezing>) cache;
         this.blockchainConfig = blockchainConfig;
         this.dexConfig = dexConfig;
+        this.candlestickAggregator = candlestickAggregator;
     }
 
 
@@ -867,6 +871,7 @@ public class DexService {
             order.setFinishTime(blockchain.getLastBlockTimestamp());
         }
         saveOrder(order);
+        candlestickAggregator.orderClosed(order);
         return order;
     }
 
@@ -0,0 +1,92 @@
+package com.apollocurrency.aplwallet.apl.exchange.service.graph;
+
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCandlestick;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.apollocurrency.aplwallet.apl.exchange.service.graph.CandlestickUtil.BASE_TIME_INTERVAL;
+
+/**
+ * Fixed size ring buffer of the most recent candlesticks of one currency and time frame.
+ * <p>Candlestick with open time T is stored in the slot (T / interval) mod capacity, so that new candlesticks overwrite
+ * candlesticks, which are older than capacity intervals. Ring contains complete candlesticks starting from the
+ * {@link #getStartTime()}: orders, which belong to the older candlesticks are ignored. Not thread safe.</p>
+ */
+class CandlestickRing {
+    private final TimeFrame timeFrame;
+    private final int interval;
+    private final DexCandlestick[] candlesticks;
+    private int newestOpenTime;
+    private int startTime;
+
+    /**
+     * @param timeFrame time frame of the candlesticks
+     * @param capacity max number of the stored candlesticks
+     * @param currentTime seconds since unix epoch, ring will hold candlesticks which are not older than capacity intervals
+     *                    before this time
+     */
+    CandlestickRing(TimeFrame timeFrame, int capacity, int currentTime) {
+        this.timeFrame = timeFrame;
+        this.interval = timeFrame.muliplier * BASE_TIME_INTERVAL;
+        this.candlesticks = new DexCandlestick[capacity];
+        this.newestOpenTime = CandlestickUtil.openTime(currentTime, timeFrame);
+        this.startTime = newestOpenTime - (capacity - 1) * interval;
+    }
+
+    /**
+     * @return open time of the oldest complete candlestick, which may be stored in the ring
+     */
+    int getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Add closed order to the candlestick, which includes order finish time
+     * @return false when order is older than the ring start time and was ignored
+     */
+    boolean add(DexOrder order) {
+        int finishTime = CandlestickUtil.toUnixFinishTime(order);
+        int openTime = CandlestickUtil.openTime(finishTime, timeFrame);
+        if (openTime < startTime) {
+            return false;
+        }
+        if (openTime > newestOpenTime) {
+            newestOpenTime = openTime;
+            startTime = Math.max(startTime, openTime - (candlesticks.length - 1) * interval);
+        }
+        int slot = slot(openTime);
+        DexCandlestick existing = candlesticks[slot];
+        if (existing != null && existing.getTimestamp() != openTime) {
+            existing = null; // overwrite outdated candlestick
+        }
+        candlesticks[slot] = CandlestickUtil.toCandlestick(order, existing, openTime, finishTime);
+        return true;
+    }
+
+    /**
+     * @param fromTimestamp seconds since unix epoch, inclusive
+     * @param toTimestamp seconds since unix epoch, inclusive
+     * @return copies of the stored candlesticks, which open time is within the given range and not less than the start time,
+     * sorted by open time
+     */
+    List<DexCandlestick> getCandlesticks(int fromTimestamp, int toTimestamp) {
+        List<DexCandlestick> result = new ArrayList<>();
+        int from = Math.max(startTime, CandlestickUtil.openTime(fromTimestamp, timeFrame));
+        int to = Math.min(toTimestamp, newestOpenTime);
+        for (int openTime = from; openTime <= to; openTime += interval) {
+            DexCandlestick candlestick = candlesticks[slot(openTime)];
+            if (candlestick != null && candlestick.getTimestamp() == openTime && openTime >= fromTimestamp) {
+                result.add(new DexCandlestick(candlestick.getCoin(), candlestick.getMin(), candlestick.getMax(), candlestick.getOpen(),
+                        candlestick.getClose(), candlestick.getFromVolume(), candlestick.getToVolume(), candlestick.getTimestamp(),
+                        candlestick.getOpenOrderTimestamp(), candlestick.getCloseOrderTimestamp()));
+            }
+        }
+        return result;
+    }
+
+    private int slot(int openTime) {
+        return Math.floorMod(openTime / interval, candlesticks.length);
+    }
+}
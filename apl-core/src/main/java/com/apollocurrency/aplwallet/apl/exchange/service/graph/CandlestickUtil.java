@@ -16,8 +16,8 @@ public class CandlestickUtil {
 
     public static void convertOrders(List<DexOrder> orders, Map<Integer, DexCandlestick> candlesticks, TimeFrame frame, CandlestickLoader loader) {
         for (DexOrder order : orders) {
-            int unixEpochSeconds = (int) (Convert2.fromEpochTime(order.getFinishTime()) / 1000);
-            int openTime = unixEpochSeconds - unixEpochSeconds % (BASE_TIME_INTERVAL * frame.muliplier);
+            int unixEpochSeconds = toUnixFinishTime(order);
+            int openTime = openTime(unixEpochSeconds, frame);
             DexCandlestick dexCandlestick = candlesticks.get(openTime);
             if (dexCandlestick == null) {
                 dexCandlestick = loader.load(openTime);
@@ -26,7 +26,21 @@ public class CandlestickUtil {
         }
     }
 
-    private static DexCandlestick toCandlestick(DexOrder order, DexCandlestick thisCandlestick, int candlestickTime, int orderUnixFinishTime) {
+    /**
+     * @return order finish time in seconds since unix epoch
+     */
+    static int toUnixFinishTime(DexOrder order) {
+        return (int) (Convert2.fromEpochTime(order.getFinishTime()) / 1000);
+    }
+
+    /**
+     * @return open time of the candlestick of the given time frame, which includes given time (seconds since unix epoch)
+     */
+    static int openTime(int unixEpochSeconds, TimeFrame frame) {
+        return unixEpochSeconds - unixEpochSeconds % (BASE_TIME_INTERVAL * frame.muliplier);
+    }
+
+    static DexCandlestick toCandlestick(DexOrder order, DexCandlestick thisCandlestick, int candlestickTime, int orderUnixFinishTime) {
         BigDecimal aplAmount = EthUtil.atmToEth(order.getOrderAmount());
         if (thisCandlestick != null) {
             thisCandlestick.setFromVolume(thisCandlestick.getFromVolume().add(aplAmount));
@@ -0,0 +1,214 @@
+package com.apollocurrency.aplwallet.apl.exchange.service.graph;
+
+import com.apollocurrency.aplwallet.apl.core.app.Block;
+import com.apollocurrency.aplwallet.apl.core.app.Convert2;
+import com.apollocurrency.aplwallet.apl.core.app.GlobalSync;
+import com.apollocurrency.aplwallet.apl.core.app.TimeService;
+import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEvent;
+import com.apollocurrency.aplwallet.apl.core.app.observer.events.BlockEventType;
+import com.apollocurrency.aplwallet.apl.core.config.Property;
+import com.apollocurrency.aplwallet.apl.exchange.dao.DexOrderDao;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCandlestick;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderDbIdPaginationDbRequest;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Incrementally aggregates closed dex orders into the in-memory candlesticks of the recent time window for each
+ * currency and {@link TimeFrame}, so that trading data requests for the recent time do not scan closed orders in the db.
+ * <p>Candlesticks of the currency are loaded from the closed orders on the first request and then updated by the orders
+ * closed in each accepted block. Orders closed during block processing are collected by {@link #orderClosed(DexOrder)} and
+ * are applied only after the block is committed (AFTER_BLOCK_ACCEPT), loading is done under the global read lock, so that
+ * each order is counted exactly once. All candlesticks are dropped when block is popped off or blockchain is rescanned
+ * and are reloaded on the next request.</p>
+ */
+@Singleton
+@Slf4j
+public class DexCandlestickAggregator {
+    private static final int ORDER_SELECT_LIMIT = 100;
+
+    private final boolean enabled;
+    private final int capacity;
+    private final DexOrderDao orderDao;
+    private final TimeService timeService;
+    private final GlobalSync globalSync;
+    private final Map<DexCurrency, Map<TimeFrame, CandlestickRing>> currencyCandlesticks = new EnumMap<>(DexCurrency.class);
+    private final List<DexOrder> closedOrders = new ArrayList<>();
+    private boolean scanInProgress;
+
+    @Inject
+    public DexCandlestickAggregator(@Property("apl.dex.graph.enableDataCache") boolean enabled,
+                                    @Property(value = "apl.dex.graph.cachedCandlesticks", defaultValue = "500") int capacity,
+                                    DexOrderDao orderDao, TimeService timeService, GlobalSync globalSync) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Number of the cached candlesticks should be positive, got " + capacity);
+        }
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.orderDao = Objects.requireNonNull(orderDao);
+        this.timeService = Objects.requireNonNull(timeService);
+        this.globalSync = Objects.requireNonNull(globalSync);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Register order, which was closed by the block being accepted. Only buy orders are aggregated into candlesticks.
+     * @param order closed order with the actual finish time
+     */
+    public synchronized void orderClosed(DexOrder order) {
+        if (enabled && order.getType().isBuy()) {
+            closedOrders.add(order);
+        }
+    }
+
+    public synchronized void onBlockAcceptStarted(@Observes @BlockEvent(BlockEventType.BEFORE_BLOCK_ACCEPT) Block block) {
+        closedOrders.clear(); // orders of the failed block
+    }
+
+    public synchronized void onBlockAccepted(@Observes @BlockEvent(BlockEventType.AFTER_BLOCK_ACCEPT) Block block) {
+        for (DexOrder order : closedOrders) {
+            Map<TimeFrame, CandlestickRing> rings = currencyCandlesticks.get(order.getPairCurrency());
+            if (rings != null) {
+                rings.values().forEach(ring -> ring.add(order));
+            }
+        }
+        closedOrders.clear();
+    }
+
+    public synchronized void onBlockPopped(@Observes @BlockEvent(BlockEventType.BLOCK_POPPED) Block block) {
+        invalidate();
+    }
+
+    public synchronized void onRescanStarted(@Observes @BlockEvent(BlockEventType.RESCAN_BEGIN) Block block) {
+        scanInProgress = true;
+        invalidate();
+    }
+
+    public synchronized void onRescanFinished(@Observes @BlockEvent(BlockEventType.RESCAN_END) Block block) {
+        scanInProgress = false;
+        invalidate();
+    }
+
+    /**
+     * @param currency paired currency
+     * @param timeFrame time frame of the candlesticks
+     * @param fromTimestamp seconds since unix epoch, inclusive
+     * @param toTimestamp seconds since unix epoch, inclusive
+     * @return cached candlesticks for the given time range or null, when cache is disabled or not available
+     */
+    public CachedCandlesticks getCandlesticks(DexCurrency currency, TimeFrame timeFrame, int fromTimestamp, int toTimestamp) {
+        if (!enabled || currency == DexCurrency.APL) {
+            return null;
+        }
+        synchronized (this) {
+            if (scanInProgress) {
+                return null;
+            }
+            Map<TimeFrame, CandlestickRing> rings = currencyCandlesticks.get(currency);
+            if (rings != null) {
+                return getCandlesticks(rings.get(timeFrame), fromTimestamp, toTimestamp);
+            }
+        }
+        // do not let blocks to be accepted while candlesticks are loaded (lock order: global lock, then this)
+        globalSync.readLock();
+        try {
+            synchronized (this) {
+                if (scanInProgress) {
+                    return null;
+                }
+                Map<TimeFrame, CandlestickRing> rings = currencyCandlesticks.get(currency);
+                if (rings == null) {
+                    rings = load(currency);
+                    currencyCandlesticks.put(currency, rings);
+                }
+                return getCandlesticks(rings.get(timeFrame), fromTimestamp, toTimestamp);
+            }
+        } finally {
+            globalSync.readUnlock();
+        }
+    }
+
+    private CachedCandlesticks getCandlesticks(CandlestickRing ring, int fromTimestamp, int toTimestamp) {
+        return new CachedCandlesticks(ring.getStartTime(), ring.getCandlesticks(fromTimestamp, toTimestamp));
+    }
+
+    private Map<TimeFrame, CandlestickRing> load(DexCurrency currency) {
+        long startTime = System.currentTimeMillis();
+        int currentTime = (int) timeService.systemTime();
+        Map<TimeFrame, CandlestickRing> rings = new EnumMap<>(TimeFrame.class);
+        int fromTime = currentTime;
+        for (TimeFrame timeFrame : TimeFrame.values()) {
+            CandlestickRing ring = new CandlestickRing(timeFrame, capacity, currentTime);
+            rings.put(timeFrame, ring);
+            fromTime = Math.min(fromTime, ring.getStartTime());
+        }
+        int fromEpochTime = Convert2.toEpochTime((long) fromTime * 1000);
+        long fromDbId = 0;
+        int count = 0;
+        List<DexOrder> orders;
+        do {
+            orders = orderDao.getOrdersFromDbIdBetweenTimestamps(OrderDbIdPaginationDbRequest.builder()
+                    .limit(ORDER_SELECT_LIMIT)
+                    .coin(currency)
+                    .fromTime(fromEpochTime)
+                    .toTime(Integer.MAX_VALUE)
+                    .fromDbId(fromDbId)
+                    .build());
+            for (DexOrder order : orders) {
+                rings.values().forEach(ring -> ring.add(order));
+            }
+            if (!orders.isEmpty()) {
+                fromDbId = orders.get(orders.size() - 1).getDbId();
+            }
+            count += orders.size();
+        } while (orders.size() == ORDER_SELECT_LIMIT);
+        log.debug("Loaded {} candlesticks from {} orders in {} ms", currency, count, System.currentTimeMillis() - startTime);
+        return rings;
+    }
+
+    private void invalidate() {
+        currencyCandlesticks.clear();
+        closedOrders.clear();
+    }
+
+    /**
+     * Cached candlesticks for the requested time range. Candlesticks, which are older than the start time are not cached
+     * and should be loaded from the db.
+     */
+    public static class CachedCandlesticks {
+        private final int startTime;
+        private final List<DexCandlestick> candlesticks;
+
+        CachedCandlesticks(int startTime, List<DexCandlestick> candlesticks) {
+            this.startTime = startTime;
+            this.candlesticks = candlesticks;
+        }
+
+        /**
+         * @return open time (seconds since unix epoch) of the oldest cached candlestick
+         */
+        public int getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return cached candlesticks within requested range, sorted by open time
+         */
+        public List<DexCandlestick> getCandlesticks() {
+            return candlesticks;
+        }
+    }
+}
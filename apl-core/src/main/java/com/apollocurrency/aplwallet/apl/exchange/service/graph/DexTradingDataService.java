@@ -31,9 +31,10 @@ public class DexTradingDataService {
     private static final int  DEFAULT_ORDER_SELECT_LIMIT = 100;
 
     private boolean enableTradingViewGraphDataFeeder; // not yet implemented
-    private boolean enableTradingDataCache; // not yet implemented
+    private boolean enableTradingDataCache;
     private DexCandlestickDao candlestickDao;
     private DexOrderDao orderDao;
+    private DexCandlestickAggregator candlestickAggregator;
     private int orderSelectLimit;
 
 
@@ -42,8 +43,10 @@ public class DexTradingDataService {
     public DexTradingDataService(@Property("apl.dex.graph.enableDataFeeder") boolean enableTradingViewGraphDataFeeder,
                                  @Property("apl.dex.graph.enableDataCache") boolean enableTradingDataCache,
                                  DexCandlestickDao candlestickDao,
-                                 DexOrderDao orderDao) {
+                                 DexOrderDao orderDao,
+                                 DexCandlestickAggregator candlestickAggregator) {
         this(enableTradingViewGraphDataFeeder, enableTradingDataCache, candlestickDao, orderDao, DEFAULT_ORDER_SELECT_LIMIT);
+        this.candlestickAggregator = candlestickAggregator;
     }
 
     public DexTradingDataService(boolean enableTradingViewGraphDataFeeder,
@@ -58,6 +61,15 @@ public class DexTradingDataService {
         this.orderSelectLimit = orderSelectLimit;
     }
 
+    public DexTradingDataService(boolean enableTradingViewGraphDataFeeder,
+                                 DexCandlestickDao candlestickDao,
+                                 DexOrderDao orderDao,
+                                 DexCandlestickAggregator candlestickAggregator,
+                                 int orderSelectLimit) {
+        this(enableTradingViewGraphDataFeeder, candlestickAggregator.isEnabled(), candlestickDao, orderDao, orderSelectLimit);
+        this.candlestickAggregator = candlestickAggregator;
+    }
+
     public List<SimpleTradingEntry> getFromCandlesticks(int fromTimestamp, int toTimestamp, DexCurrency currency, TimeFrame timeFrame) {
         int prevTime = ceilTo(timeFrame, fromTimestamp);
         List<DexCandlestick> candlesticks = candlestickDao.getForTimespan(prevTime, toTimestamp, currency);
@@ -81,7 +93,28 @@ public class DexTradingDataService {
         return time - remainder;
     }
 
+    /**
+     * Recent candlesticks are taken from the {@link DexCandlestickAggregator} (when enabled), older ones are loaded from
+     * the dex_candlestick table and from the closed orders
+     */
     public TradingDataOutput getBars(int fromTimestamp, int toTimestamp, DexCurrency currency, TimeFrame timeFrame) {
+        List<SimpleTradingEntry> data = new ArrayList<>();
+        DexCandlestickAggregator.CachedCandlesticks cached = null;
+        if (enableTradingDataCache && candlestickAggregator != null) {
+            cached = candlestickAggregator.getCandlesticks(currency, timeFrame, ceilTo(timeFrame, fromTimestamp), toTimestamp);
+        }
+        if (cached == null) {
+            data.addAll(getStoredBars(fromTimestamp, toTimestamp, currency, timeFrame));
+        } else {
+            if (ceilTo(timeFrame, fromTimestamp) < cached.getStartTime()) {
+                data.addAll(getStoredBars(fromTimestamp, Math.min(toTimestamp, cached.getStartTime() - 1), currency, timeFrame));
+            }
+            cached.getCandlesticks().stream().map(this::fromCandleStick).forEach(data::add);
+        }
+        return buildTradingDataOutput(currency, timeFrame, fromTimestamp, data);
+    }
+
+    private List<SimpleTradingEntry> getStoredBars(int fromTimestamp, int toTimestamp, DexCurrency currency, TimeFrame timeFrame) {
         int lastCandlestickTimestamp = getLastCandlestickTimestamp(currency);
         List<SimpleTradingEntry> data = new ArrayList<>();
         if (lastCandlestickTimestamp == -1 ||
@@ -95,7 +128,7 @@ public class DexTradingDataService {
             data.addAll(getFromCandlesticks(fromTimestamp, orderFromTimestamp - 1, currency, timeFrame)); // do not include last candlestick
             data.addAll(dexOrderCandlesticks);
         }
-        return buildTradingDataOutput(currency, timeFrame, fromTimestamp, data);
+        return data;
     }
 
     public int getLastCandlestickTimestamp(DexCurrency currency) {
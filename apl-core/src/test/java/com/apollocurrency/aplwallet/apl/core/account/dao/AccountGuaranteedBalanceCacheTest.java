@@ -0,0 +1,82 @@
+/*
+ *  Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.account.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AccountGuaranteedBalanceCacheTest {
+    private static final long ACCOUNT_1 = 100L;
+    private static final long ACCOUNT_2 = -200L;
+
+    private AccountGuaranteedBalanceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new AccountGuaranteedBalanceCache();
+        cache.add(ACCOUNT_1, 10, 1);
+        cache.add(ACCOUNT_1, 20, 2);
+        cache.add(ACCOUNT_1, 5, 2);
+        cache.add(ACCOUNT_1, 40, 4);
+        cache.add(ACCOUNT_2, 100, 2);
+        cache.add(ACCOUNT_2, 300, 3);
+    }
+
+    @Test
+    void testGetAdditionsWithinWindow() {
+        assertEquals(75, cache.getAdditions(ACCOUNT_1, 0, 4));
+        assertEquals(65, cache.getAdditions(ACCOUNT_1, 1, 4));
+        assertEquals(25, cache.getAdditions(ACCOUNT_1, 1, 3));
+        assertEquals(0, cache.getAdditions(ACCOUNT_1, 4, 10));
+        assertEquals(0, cache.getAdditions(1L, 0, 10));
+        assertEquals(5, cache.size());
+    }
+
+    @Test
+    void testGetAdditionsForManyAccounts() {
+        Map<Long, Long> additions = cache.getAdditions(List.of(ACCOUNT_1, ACCOUNT_2, 1L), 2, Integer.MAX_VALUE);
+
+        assertEquals(Map.of(ACCOUNT_1, 40L, ACCOUNT_2, 300L), additions);
+    }
+
+    @Test
+    void testRollback() {
+        cache.rollback(2);
+
+        assertEquals(35, cache.getAdditions(ACCOUNT_1, 0, Integer.MAX_VALUE));
+        assertEquals(100, cache.getAdditions(ACCOUNT_2, 0, Integer.MAX_VALUE));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void testTrim() {
+        cache.trim(3);
+
+        assertEquals(40, cache.getAdditions(ACCOUNT_1, 0, Integer.MAX_VALUE));
+        assertEquals(300, cache.getAdditions(ACCOUNT_2, 0, Integer.MAX_VALUE));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void testRollbackAll() {
+        cache.rollback(0);
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getAdditions(ACCOUNT_1, 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void testAddOverflow() {
+        cache.add(ACCOUNT_2, Long.MAX_VALUE - 300, 3);
+
+        assertThrows(ArithmeticException.class, () -> cache.add(ACCOUNT_2, 1, 3));
+    }
+}
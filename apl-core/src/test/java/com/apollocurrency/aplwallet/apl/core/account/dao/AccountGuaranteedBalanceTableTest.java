@@ -0,0 +1,106 @@
+/*
+ *  Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.account.dao;
+
+import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.extension.DbExtension;
+import com.apollocurrency.aplwallet.apl.testutil.DbUtils;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
+import org.jboss.weld.junit.MockBean;
+import org.jboss.weld.junit5.EnableWeld;
+import org.jboss.weld.junit5.WeldInitiator;
+import org.jboss.weld.junit5.WeldSetup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@EnableWeld
+class AccountGuaranteedBalanceTableTest {
+    private static final long ACCOUNT_ID = 42L;
+    private static final int HEIGHT = 100;
+
+    @RegisterExtension
+    DbExtension extension = new DbExtension();
+
+    @WeldSetup
+    WeldInitiator weld = WeldInitiator.from()
+            .addBeans(MockBean.of(extension.getDatabaseManager(), DatabaseManager.class))
+            .build();
+
+    private PropertiesHolder propertiesHolder = mock(PropertiesHolder.class);
+    private AccountGuaranteedBalanceTable table;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(true).when(propertiesHolder).getBooleanProperty("apl.enableGuaranteedBalanceCache", true);
+        doReturn(100).when(propertiesHolder).BATCH_COMMIT_SIZE();
+        table = new AccountGuaranteedBalanceTable(mock(BlockchainConfig.class), propertiesHolder);
+        DbUtils.inTransaction(extension, con -> table.addToGuaranteedBalanceATM(ACCOUNT_ID, 100, HEIGHT));
+        // load cache
+        assertEquals(100, table.getAdditions(ACCOUNT_ID, 0, HEIGHT));
+    }
+
+    @Test
+    void testUncommittedAdditionsAreVisibleOnlyInWriterTransaction() throws Exception {
+        TransactionalDataSource dataSource = extension.getDatabaseManager().getDataSource();
+        dataSource.begin();
+        try {
+            table.addToGuaranteedBalanceATM(ACCOUNT_ID, 50, HEIGHT + 1);
+
+            assertEquals(150, table.getAdditions(ACCOUNT_ID, 0, HEIGHT + 1));
+            assertEquals(100L, readInAnotherThread());
+
+            dataSource.commit(false);
+
+            assertEquals(150L, readInAnotherThread());
+            assertEquals(150, table.getAdditions(ACCOUNT_ID, 0, HEIGHT + 1));
+        } finally {
+            dataSource.commit();
+        }
+    }
+
+    @Test
+    void testRolledBackAdditionsAreNotCached() throws Exception {
+        TransactionalDataSource dataSource = extension.getDatabaseManager().getDataSource();
+        dataSource.begin();
+        table.addToGuaranteedBalanceATM(ACCOUNT_ID, 50, HEIGHT + 1);
+        table.rollback(HEIGHT - 1);
+
+        assertEquals(0, table.getAdditions(ACCOUNT_ID, 0, HEIGHT + 1));
+        assertEquals(100L, readInAnotherThread());
+
+        dataSource.rollback();
+
+        assertEquals(100L, readInAnotherThread());
+        assertEquals(100, table.getAdditions(ACCOUNT_ID, 0, HEIGHT + 1));
+    }
+
+    @Test
+    void testCacheIsNotLoadedFromUncommittedData() throws Exception {
+        table.onDbHotSwapBegin(null);
+        TransactionalDataSource dataSource = extension.getDatabaseManager().getDataSource();
+        dataSource.begin();
+        try {
+            table.addToGuaranteedBalanceATM(ACCOUNT_ID, 50, HEIGHT + 1);
+
+            assertEquals(100L, readInAnotherThread());
+        } finally {
+            dataSource.rollback();
+        }
+        assertEquals(100L, readInAnotherThread());
+    }
+
+    private long readInAnotherThread() throws Exception {
+        return CompletableFuture.supplyAsync(() -> table.getAdditions(ACCOUNT_ID, 0, HEIGHT + 1)).get();
+    }
+}
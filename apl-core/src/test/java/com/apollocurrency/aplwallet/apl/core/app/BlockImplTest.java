@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
+import com.apollocurrency.aplwallet.apl.core.chainid.HeightConfig;
+import com.apollocurrency.aplwallet.apl.core.peer.PeerBinaryEncoding;
+import com.apollocurrency.aplwallet.apl.core.transaction.messages.Attachment;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.util.AplException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jboss.weld.junit.MockBean;
+import org.jboss.weld.junit5.EnableWeld;
+import org.jboss.weld.junit5.WeldInitiator;
+import org.jboss.weld.junit5.WeldSetup;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@EnableWeld
+class BlockImplTest {
+    private static final byte[] GENERATOR_KEY_SEED = Crypto.getKeySeed("generator secret phrase");
+    private static final byte[] SENDER_KEY_SEED = Crypto.getKeySeed("sender secret phrase");
+
+    private BlockchainConfig blockchainConfig = mock(BlockchainConfig.class);
+    private HeightConfig heightConfig = mock(HeightConfig.class);
+    @WeldSetup
+    WeldInitiator weld = WeldInitiator.from()
+            .addBeans(MockBean.of(blockchainConfig, BlockchainConfig.class))
+            .addBeans(MockBean.of(mock(BlockchainImpl.class), Blockchain.class, BlockchainImpl.class))
+            .build();
+
+    private Cache<SignatureCacheKey, Boolean> signatureCache;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(heightConfig).when(blockchainConfig).getCurrentConfig();
+        doReturn(153722867L).when(heightConfig).getInitialBaseTarget();
+        signatureCache = CacheBuilder.newBuilder().recordStats().build();
+        TransactionImpl.setSignatureCache(signatureCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionImpl.setSignatureCache(null);
+    }
+
+    @Test
+    void testTransactionSignaturesAreVerifiedOnceAfterParsing() throws Exception {
+        BlockImpl block = createBlock(createTransactions(3));
+
+        BlockImpl parsedBlock = BlockImpl.parseBlock(toJson(block.getJSONObject()));
+
+        assertArrayEquals(block.bytes(), parsedBlock.bytes());
+        assertEquals(0, signatureCache.stats().requestCount());
+        // parallel verification before push and then validation of the block under the global lock
+        for (int i = 0; i < 2; i++) {
+            for (Transaction transaction : parsedBlock.getTransactions()) {
+                assertTrue(((TransactionImpl) transaction).checkSignature());
+            }
+        }
+        assertEquals(3, signatureCache.stats().requestCount());
+    }
+
+    @Test
+    void testParseBlockWithInvalidTransactionSignature() throws Exception {
+        List<Transaction> transactions = createTransactions(2);
+        BlockImpl block = createBlock(transactions);
+        JSONObject blockJson = toJson(block.getJSONObject());
+        JSONObject transactionJson = (JSONObject) ((List<?>) blockJson.get("transactions")).get(1);
+        String signature = (String) transactionJson.get("signature");
+        transactionJson.put("signature", (signature.charAt(0) == '0' ? "1" : "0") + signature.substring(1));
+
+        BlockImpl parsedBlock = BlockImpl.parseBlock(blockJson);
+
+        assertTrue(((TransactionImpl) parsedBlock.getTransactions().get(0)).checkSignature());
+        assertFalse(((TransactionImpl) parsedBlock.getTransactions().get(1)).checkSignature());
+    }
+
+    @Test
+    void testParseBinaryEncodedBlock() throws Exception {
+        BlockImpl block = createBlock(createTransactions(3));
+
+        BlockImpl parsedBlock = BlockImpl.parseBlock(toJson(PeerBinaryEncoding.getBlockJSONObject(block)));
+
+        assertArrayEquals(block.bytes(), parsedBlock.bytes());
+        assertEquals(block.getId(), parsedBlock.getId());
+        assertEquals(block.getTimeout(), parsedBlock.getTimeout());
+        assertEquals(3, parsedBlock.getTransactions().size());
+        for (int i = 0; i < 3; i++) {
+            TransactionImpl transaction = (TransactionImpl) block.getTransactions().get(i);
+            TransactionImpl parsedTransaction = (TransactionImpl) parsedBlock.getTransactions().get(i);
+            assertEquals(transaction.getId(), parsedTransaction.getId());
+            assertArrayEquals(transaction.bytes(), parsedTransaction.bytes());
+        }
+    }
+
+    @Test
+    void testParseBinaryEncodedBlockWithoutRequiredFields() {
+        BlockImpl block = createBlock(List.of());
+        JSONObject withoutBytes = toJson(PeerBinaryEncoding.getBlockJSONObject(block));
+        withoutBytes.put("blockBytes", null);
+        JSONObject withoutTransactions = toJson(PeerBinaryEncoding.getBlockJSONObject(block));
+        withoutTransactions.remove("transactions");
+        JSONObject withInvalidBytes = toJson(PeerBinaryEncoding.getBlockJSONObject(block));
+        withInvalidBytes.put("blockBytes", "AAAA");
+
+        assertThrows(AplException.NotValidException.class, () -> BlockImpl.parseBlock(withoutBytes));
+        assertThrows(AplException.NotValidException.class, () -> BlockImpl.parseBlock(withoutTransactions));
+        assertThrows(AplException.NotValidException.class, () -> BlockImpl.parseBlock(withInvalidBytes));
+    }
+
+    private JSONObject toJson(JSONObject json) {
+        return (JSONObject) JSONValue.parse(json.toJSONString());
+    }
+
+    private List<Transaction> createTransactions(int count) throws Exception {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            transactions.add(new TransactionImpl.BuilderImpl((byte) 1, Crypto.getPublicKey(SENDER_KEY_SEED), 100_000_000L * (i + 1), 100_000_000L,
+                    (short) 1440, Attachment.ORDINARY_PAYMENT, 1000 + i)
+                    .recipientId(1000L + i)
+                    .ecBlockHeight(0)
+                    .ecBlockId(0)
+                    .build(SENDER_KEY_SEED));
+        }
+        return transactions;
+    }
+
+    private BlockImpl createBlock(List<Transaction> transactions) {
+        MessageDigest digest = Crypto.sha256();
+        long totalAmount = 0;
+        long totalFee = 0;
+        int payloadLength = 0;
+        for (Transaction transaction : transactions) {
+            digest.update(((TransactionImpl) transaction).bytes());
+            totalAmount += transaction.getAmountATM();
+            totalFee += transaction.getFeeATM();
+            payloadLength += transaction.getFullSize();
+        }
+        return new BlockImpl(Block.REGULAR_BLOCK_VERSION, 2000, 1L, totalAmount, totalFee, payloadLength, digest.digest(),
+                Crypto.getPublicKey(GENERATOR_KEY_SEED), new byte[32], new byte[32], 0, transactions, GENERATOR_KEY_SEED);
+    }
+}
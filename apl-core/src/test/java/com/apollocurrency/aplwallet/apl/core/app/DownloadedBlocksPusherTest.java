@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.core.peer.Peer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+class DownloadedBlocksPusherTest {
+    private Blockchain blockchain = mock(Blockchain.class);
+    private GlobalSync globalSync = spy(new GlobalSyncImpl());
+    private Peer peer = mock(Peer.class);
+    private AtomicReference<Block> lastBlock = new AtomicReference<>();
+    private List<Block> pushed = new ArrayList<>();
+    private List<Long> chainBlockIds = List.of(10L, 11L, 12L, 13L);
+    private Block commonBlock = mockBlock(10L, 0L);
+    private Block block1 = mockBlock(11L, 10L);
+    private Block block2 = mockBlock(12L, 11L);
+    private Block block3 = mockBlock(13L, 12L);
+    private Map<Long, PeerBlock> blockMap = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        lastBlock.set(commonBlock);
+        doAnswer(invocation -> lastBlock.get()).when(blockchain).getLastBlock();
+        doAnswer(invocation -> pushed.size()).when(blockchain).getHeight();
+    }
+
+    @Test
+    void testPushDownloadedBlocksAsTheyBecomeAvailable() {
+        DownloadedBlocksPusher pusher = createPusher(this::push);
+        blockMap.put(11L, new PeerBlock(peer, block1));
+        blockMap.put(12L, new PeerBlock(peer, block2));
+
+        DownloadedBlocksPusher.Result result = pusher.push(blockMap, 1);
+
+        assertEquals(3, result.getNextIndex());
+        assertFalse(result.isStopped());
+        assertEquals(List.of(block1, block2), pushed);
+
+        blockMap.put(13L, new PeerBlock(peer, block3));
+        result = pusher.push(blockMap, result.getNextIndex());
+
+        assertEquals(4, result.getNextIndex());
+        assertTrue(result.isStopped());
+        assertEquals(List.of(block1, block2, block3), pushed);
+        verify(globalSync, times(2)).writeLock();
+        verify(globalSync, times(2)).writeUnlock();
+    }
+
+    @Test
+    void testStopPushingWhenOtherBlockWasPushed() {
+        DownloadedBlocksPusher pusher = createPusher(this::push);
+        blockMap.put(11L, new PeerBlock(peer, block1));
+        DownloadedBlocksPusher.Result result = pusher.push(blockMap, 1);
+        // block from another peer was pushed between the pipelined pushes
+        lastBlock.set(mockBlock(20L, 11L));
+        blockMap.put(12L, new PeerBlock(peer, block2));
+        doReturn(block1).when(blockchain).getBlock(11L);
+
+        result = pusher.push(blockMap, result.getNextIndex());
+
+        assertEquals(2, result.getNextIndex());
+        assertTrue(result.isStopped());
+        assertEquals(List.of(block1), pushed);
+        assertSame(block1, pusher.getForkCommonBlock(result, commonBlock));
+    }
+
+    @Test
+    void testStopPushingWhenBlockWasNotAccepted() {
+        BlockchainProcessor.BlockNotAcceptedException exception = new BlockchainProcessor.BlockNotAcceptedException("Test", null);
+        DownloadedBlocksPusher pusher = createPusher(block -> {
+            if (block == block2) {
+                throw exception;
+            }
+            push(block);
+        });
+        blockMap.put(11L, new PeerBlock(peer, block1));
+        blockMap.put(12L, new PeerBlock(peer, block2));
+        blockMap.put(13L, new PeerBlock(peer, block3));
+        doReturn(block1).when(blockchain).getBlock(11L);
+
+        DownloadedBlocksPusher.Result result = pusher.push(blockMap, 1);
+
+        assertEquals(3, result.getNextIndex());
+        assertTrue(result.isStopped());
+        assertEquals(List.of(block1), pushed);
+        verify(peer).blacklist(exception);
+        assertSame(block1, pusher.getForkCommonBlock(result, commonBlock));
+    }
+
+    @Test
+    void testDoNotPushForkBlocks() {
+        DownloadedBlocksPusher pusher = createPusher(this::push);
+        lastBlock.set(mockBlock(20L, 10L));
+        blockMap.put(11L, new PeerBlock(peer, block1));
+
+        DownloadedBlocksPusher.Result result = pusher.push(blockMap, 1);
+
+        assertEquals(1, result.getNextIndex());
+        assertTrue(result.isStopped());
+        assertEquals(List.of(), pushed);
+        assertSame(commonBlock, pusher.getForkCommonBlock(result, commonBlock));
+        verifyZeroInteractions(peer);
+        verify(blockchain, times(0)).getBlock(anyLong());
+    }
+
+    private DownloadedBlocksPusher createPusher(DownloadedBlocksPusher.BlockPusher blockPusher) {
+        return new DownloadedBlocksPusher(blockchain, globalSync, blockPusher, chainBlockIds, 0);
+    }
+
+    private void push(Block block) {
+        pushed.add(block);
+        lastBlock.set(block);
+    }
+
+    private Block mockBlock(long id, long previousBlockId) {
+        Block block = mock(Block.class);
+        doReturn(id).when(block).getId();
+        doReturn(previousBlockId).when(block).getPreviousBlockId();
+        return block;
+    }
+}
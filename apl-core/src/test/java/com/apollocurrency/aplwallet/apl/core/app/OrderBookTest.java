@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderBookTest {
+    private static final long ASSET_1 = 10;
+    private static final long ASSET_2 = 20;
+
+    @Test
+    void testAskPriceTimePriority() {
+        OrderBook book = new OrderBook(false);
+        book.add(1, ASSET_1, 100, 5, 5, 0);
+        book.add(2, ASSET_1, 90, 7, 7, 1);
+        book.add(3, ASSET_1, 100, 5, 5, 2);
+        book.add(4, ASSET_1, 100, 4, 6, 0);
+        book.add(5, ASSET_2, 1, 1, 1, 0);
+
+        assertArrayEquals(new long[] {2, 4, 1, 3}, book.getOrderIds(ASSET_1, 0, -1));
+        assertEquals(Long.valueOf(2), book.getFirstOrderId(ASSET_1));
+        assertEquals(Long.valueOf(5), book.getFirstOrderId(ASSET_2));
+    }
+
+    @Test
+    void testBidPriceTimePriority() {
+        OrderBook book = new OrderBook(true);
+        book.add(1, ASSET_1, 100, 5, 5, 0);
+        book.add(2, ASSET_1, 90, 3, 3, 0);
+        book.add(3, ASSET_1, 110, 6, 6, 0);
+        book.add(4, ASSET_1, 110, 6, 6, 1);
+
+        assertArrayEquals(new long[] {3, 4, 1, 2}, book.getOrderIds(ASSET_1, 0, -1));
+        assertEquals(Long.valueOf(3), book.getFirstOrderId(ASSET_1));
+    }
+
+    @Test
+    void testGetOrderIdsRange() {
+        OrderBook book = new OrderBook(false);
+        for (int i = 1; i <= 5; i++) {
+            book.add(i, ASSET_1, i * 10, i, i, 0);
+        }
+
+        assertArrayEquals(new long[] {2, 3}, book.getOrderIds(ASSET_1, 1, 2));
+        assertArrayEquals(new long[] {4, 5}, book.getOrderIds(ASSET_1, 3, 100));
+        assertArrayEquals(new long[0], book.getOrderIds(ASSET_1, 5, 10));
+        assertArrayEquals(new long[0], book.getOrderIds(ASSET_1, 3, 2));
+        assertArrayEquals(new long[0], book.getOrderIds(ASSET_2, 0, -1));
+    }
+
+    @Test
+    void testRemove() {
+        OrderBook book = new OrderBook(false);
+        book.add(1, ASSET_1, 100, 5, 5, 0);
+        book.add(2, ASSET_1, 90, 5, 5, 1);
+
+        assertTrue(book.remove(2));
+        assertFalse(book.remove(2));
+        assertEquals(Long.valueOf(1), book.getFirstOrderId(ASSET_1));
+
+        assertTrue(book.remove(1));
+        assertNull(book.getFirstOrderId(ASSET_1));
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    void testAddExistingOrder() {
+        OrderBook book = new OrderBook(false);
+        book.add(1, ASSET_1, 100, 5, 5, 0);
+        book.add(1, ASSET_1, 100, 5, 5, 0);
+
+        assertEquals(1, book.size());
+        assertArrayEquals(new long[] {1}, book.getOrderIds(ASSET_1, 0, -1));
+    }
+}
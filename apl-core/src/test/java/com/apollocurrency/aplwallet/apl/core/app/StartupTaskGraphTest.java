@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class StartupTaskGraphTest {
+    private static final String TASK_ID = "startup";
+
+    private AplAppStatus aplAppStatus = mock(AplAppStatus.class);
+
+    @Test
+    void testDependentStepsAreExecutedInOrder() {
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        StartupTaskGraph graph = new StartupTaskGraph(aplAppStatus, TASK_ID, 0.0, 50.0, 4);
+        graph.add("db", () -> executed.add("db"))
+                .add("migration", () -> executed.add("migration"), "db")
+                .add("peers", () -> executed.add("peers"), "migration")
+                .add("genesis", () -> executed.add("genesis"), "db")
+                .add("services", () -> executed.add("services"), "peers", "genesis");
+
+        graph.run();
+
+        assertEquals(5, executed.size());
+        assertTrue(executed.indexOf("db") < executed.indexOf("migration"));
+        assertTrue(executed.indexOf("migration") < executed.indexOf("peers"));
+        assertTrue(executed.indexOf("db") < executed.indexOf("genesis"));
+        assertEquals("services", executed.get(4));
+        assertTrue(graph.getDuration("services") >= 0);
+        verify(aplAppStatus, times(10)).durableTaskUpdate(eq(TASK_ID), anyDouble(), anyString());
+        verify(aplAppStatus).durableTaskUpdate(eq(TASK_ID), eq(50.0), anyString());
+    }
+
+    @Test
+    void testIndependentStepsAreExecutedInParallel() {
+        CountDownLatch latch = new CountDownLatch(2);
+        Runnable awaitOther = () -> {
+            latch.countDown();
+            try {
+                assertTrue(latch.await(5, TimeUnit.SECONDS), "Steps were not executed in parallel");
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        StartupTaskGraph graph = new StartupTaskGraph(aplAppStatus, TASK_ID, 0.0, 50.0, 2);
+        graph.add("upnp", awaitOther).add("db", awaitOther);
+
+        graph.run();
+
+        assertEquals(0, latch.getCount());
+    }
+
+    @Test
+    void testFailureOfFirstFailedStepIsRethrown() {
+        IllegalStateException dbFailure = new IllegalStateException("db failure");
+        List<String> executed = Collections.synchronizedList(new ArrayList<>());
+        StartupTaskGraph graph = new StartupTaskGraph(aplAppStatus, TASK_ID, 0.0, 50.0, 1);
+        graph.add("db", () -> {throw dbFailure;})
+                .add("api", () -> executed.add("api"))
+                .add("migration", () -> executed.add("migration"), "db")
+                .add("transport", () -> {throw new IllegalArgumentException("transport failure");});
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, graph::run);
+
+        assertSame(dbFailure, ex);
+        assertEquals(List.of("api"), executed);
+        assertEquals(-1, graph.getDuration("migration"));
+        assertEquals(-1, graph.getDuration("db"));
+    }
+
+    @Test
+    void testAddInvalidSteps() {
+        StartupTaskGraph graph = new StartupTaskGraph(aplAppStatus, TASK_ID, 0.0, 50.0, 1);
+        graph.add("db", () -> {});
+
+        assertThrows(IllegalArgumentException.class, () -> graph.add("db", () -> {}));
+        assertThrows(IllegalArgumentException.class, () -> graph.add("migration", () -> {}, "db", "fulltext"));
+
+        graph.run();
+
+        assertThrows(IllegalStateException.class, () -> graph.add("peers", () -> {}, "db"));
+        assertThrows(IllegalStateException.class, graph::run);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.core.peer.PeerBinaryEncoding;
+import com.apollocurrency.aplwallet.apl.core.transaction.messages.Attachment;
+import com.apollocurrency.aplwallet.apl.crypto.Crypto;
+import com.apollocurrency.aplwallet.apl.util.AplException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransactionImplTest {
+    private static final byte[] SENDER_KEY_SEED = Crypto.getKeySeed("sender secret phrase");
+    private static final byte[] OTHER_KEY_SEED = Crypto.getKeySeed("other secret phrase");
+
+    private Cache<SignatureCacheKey, Boolean> signatureCache;
+
+    @BeforeEach
+    void setUp() {
+        signatureCache = CacheBuilder.newBuilder().recordStats().build();
+        TransactionImpl.setSignatureCache(signatureCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionImpl.setSignatureCache(null);
+    }
+
+    @Test
+    void testParseJsonEncodedTransaction() throws Exception {
+        TransactionImpl transaction = createTransaction(SENDER_KEY_SEED, 1000L);
+
+        TransactionImpl parsedTransaction = TransactionImpl.parseTransaction(toJson(transaction.getJSONObject()));
+
+        assertEquals(transaction.getId(), parsedTransaction.getId());
+        assertArrayEquals(transaction.bytes(), parsedTransaction.bytes());
+    }
+
+    @Test
+    void testParseBinaryEncodedTransaction() throws Exception {
+        TransactionImpl transaction = createTransaction(SENDER_KEY_SEED, 1000L);
+
+        TransactionImpl parsedTransaction = TransactionImpl.parseTransaction(toJson(PeerBinaryEncoding.getTransactionJSONObject(transaction)));
+
+        assertEquals(transaction.getId(), parsedTransaction.getId());
+        assertEquals(transaction.getRecipientId(), parsedTransaction.getRecipientId());
+        assertEquals(transaction.getAmountATM(), parsedTransaction.getAmountATM());
+        assertArrayEquals(transaction.bytes(), parsedTransaction.bytes());
+    }
+
+    @Test
+    void testParseBinaryEncodedTransactionWithInvalidBytes() {
+        JSONObject transactionData = new JSONObject();
+        transactionData.put("transactionBytes", "not base64 !");
+
+        assertThrows(AplException.NotValidException.class, () -> TransactionImpl.parseTransaction(transactionData));
+    }
+
+    @Test
+    void testSignatureIsVerifiedOnceForSameTransaction() throws Exception {
+        TransactionImpl transaction = createTransaction(SENDER_KEY_SEED, 1000L);
+        TransactionImpl firstCopy = parseWithoutVerification(transaction.getJSONObject());
+        TransactionImpl secondCopy = parseWithoutVerification(transaction.getJSONObject());
+
+        assertTrue(firstCopy.checkSignature());
+        assertTrue(secondCopy.checkSignature());
+        assertTrue(secondCopy.checkSignature());
+
+        assertEquals(1, signatureCache.size());
+        assertEquals(1, signatureCache.stats().missCount());
+        assertEquals(1, signatureCache.stats().hitCount());
+    }
+
+    @Test
+    void testCacheHitSkipsVerification() throws Exception {
+        TransactionImpl transaction = parseWithoutVerification(tamperSignature(createTransaction(SENDER_KEY_SEED, 1000L)));
+        // cache entry can only be created by the successful verification, put it here to detect skipped verification
+        signatureCache.put(new SignatureCacheKey(transaction.getFullHash(), transaction.getSenderPublicKey()), Boolean.TRUE);
+
+        assertTrue(transaction.checkSignature());
+
+        assertEquals(1, signatureCache.stats().hitCount());
+    }
+
+    @Test
+    void testCacheMissForSameFullHashAndDifferentPublicKey() throws Exception {
+        TransactionImpl transaction = parseWithoutVerification(tamperSignature(createTransaction(SENDER_KEY_SEED, 1000L)));
+        SignatureCacheKey otherKey = new SignatureCacheKey(transaction.getFullHash(), Crypto.getPublicKey(OTHER_KEY_SEED));
+        signatureCache.put(otherKey, Boolean.TRUE);
+
+        assertNotEquals(otherKey, new SignatureCacheKey(transaction.getFullHash(), transaction.getSenderPublicKey()));
+        assertFalse(transaction.checkSignature());
+
+        assertEquals(0, signatureCache.stats().hitCount());
+        assertEquals(1, signatureCache.stats().missCount());
+    }
+
+    @Test
+    void testInvalidSignatureIsNotCached() throws Exception {
+        JSONObject tamperedTransaction = tamperSignature(createTransaction(SENDER_KEY_SEED, 1000L));
+
+        assertFalse(parseWithoutVerification(tamperedTransaction).checkSignature());
+        assertFalse(parseWithoutVerification(tamperedTransaction).checkSignature());
+
+        assertEquals(0, signatureCache.size());
+        assertEquals(2, signatureCache.stats().missCount());
+        assertThrows(AplException.NotValidException.class, () -> TransactionImpl.parseTransaction(tamperedTransaction));
+    }
+
+    private TransactionImpl parseWithoutVerification(JSONObject transactionData) throws AplException.NotValidException {
+        return TransactionImpl.parseTransaction(toJson(transactionData), false);
+    }
+
+    private JSONObject tamperSignature(TransactionImpl transaction) {
+        JSONObject transactionData = toJson(transaction.getJSONObject());
+        String signature = (String) transactionData.get("signature");
+        transactionData.put("signature", (signature.charAt(0) == '0' ? "1" : "0") + signature.substring(1));
+        return transactionData;
+    }
+
+    private JSONObject toJson(JSONObject json) {
+        return (JSONObject) JSONValue.parse(json.toJSONString());
+    }
+
+    private TransactionImpl createTransaction(byte[] keySeed, long recipientId) throws AplException.NotValidException {
+        return new TransactionImpl.BuilderImpl((byte) 1, Crypto.getPublicKey(keySeed), 100_000_000L, 100_000_000L,
+                (short) 1440, Attachment.ORDINARY_PAYMENT, 1000)
+                .recipientId(recipientId)
+                .ecBlockHeight(0)
+                .ecBlockId(0)
+                .build(keySeed);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import com.apollocurrency.aplwallet.apl.core.chainid.BlockchainConfig;
+import com.apollocurrency.aplwallet.apl.core.db.DatabaseManager;
+import com.apollocurrency.aplwallet.apl.core.db.DerivedDbTablesRegistryImpl;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import com.apollocurrency.aplwallet.apl.core.db.fulltext.FullTextConfigImpl;
+import com.apollocurrency.aplwallet.apl.core.peer.PeersService;
+import com.apollocurrency.aplwallet.apl.core.task.TaskDispatchManager;
+import com.apollocurrency.aplwallet.apl.core.transaction.TransactionApplier;
+import com.apollocurrency.aplwallet.apl.core.transaction.TransactionValidator;
+import com.apollocurrency.aplwallet.apl.extension.DbExtension;
+import com.apollocurrency.aplwallet.apl.util.AplException;
+import com.apollocurrency.aplwallet.apl.util.NtpTime;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
+import org.jboss.weld.junit.MockBean;
+import org.jboss.weld.junit5.EnableWeld;
+import org.jboss.weld.junit5.WeldInitiator;
+import org.jboss.weld.junit5.WeldSetup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@EnableWeld
+class TransactionProcessorImplTest {
+    private static final long SENDER_1 = 100L;
+    private static final long SENDER_2 = 200L;
+    private static final long SENDER_3 = 300L;
+
+    @RegisterExtension
+    DbExtension extension = new DbExtension();
+
+    private PropertiesHolder propertiesHolder = mock(PropertiesHolder.class);
+    private TransactionValidator validator = mock(TransactionValidator.class);
+    private TransactionApplier applier = mock(TransactionApplier.class);
+    private BlockchainImpl blockchain = mock(BlockchainImpl.class);
+
+    @WeldSetup
+    WeldInitiator weld = WeldInitiator.from(TransactionProcessorImpl.class, GlobalSyncImpl.class,
+            DerivedDbTablesRegistryImpl.class, FullTextConfigImpl.class)
+            .addBeans(MockBean.of(extension.getDatabaseManager(), DatabaseManager.class))
+            .addBeans(MockBean.of(propertiesHolder, PropertiesHolder.class))
+            .addBeans(MockBean.of(mock(BlockchainConfig.class), BlockchainConfig.class))
+            .addBeans(MockBean.of(mock(NtpTime.class), NtpTime.class))
+            .addBeans(MockBean.of(mock(TimeService.class), TimeService.class))
+            .addBeans(MockBean.of(mock(TaskDispatchManager.class), TaskDispatchManager.class))
+            .addBeans(MockBean.of(mock(PeersService.class), PeersService.class))
+            .addBeans(MockBean.of(blockchain, Blockchain.class, BlockchainImpl.class))
+            .addBeans(MockBean.of(mock(BlockchainProcessorImpl.class), BlockchainProcessor.class, BlockchainProcessorImpl.class))
+            .addBeans(MockBean.of(validator, TransactionValidator.class))
+            .addBeans(MockBean.of(applier, TransactionApplier.class))
+            .build();
+
+    @Inject
+    TransactionProcessorImpl processor;
+
+    private Transaction tx1;
+    private Transaction tx2;
+    private Transaction tx3;
+
+    @BeforeEach
+    void setUp() throws AplException.ValidationException {
+        doReturn(true).when(propertiesHolder).isLightClient();
+        doReturn(10).when(blockchain).getHeight();
+        doReturn(true).when(applier).applyUnconfirmed(any(Transaction.class));
+        processor.init();
+        tx1 = mockTransaction(1L, SENDER_1);
+        tx2 = mockTransaction(2L, SENDER_2);
+        tx3 = mockTransaction(3L, SENDER_3);
+        processor.broadcast(tx1);
+        processor.broadcast(tx2);
+        processor.broadcast(tx3);
+    }
+
+    @Test
+    void testRevalidateMovesTransactionOfAnotherSenderInvalidatedByBlockToWaiting() throws AplException.ValidationException {
+        // e.g. alias assigned by the block transaction of the sender 1 is already owned by another account for the sender 2
+        doThrow(new AplException.NotCurrentlyValidException("Alias already owned by another account"))
+                .when(validator).validate(argThat(tx -> tx.getId() == tx2.getId()));
+
+        pushBlock(tx1);
+
+        assertEquals(Set.of(3L), ids(processor.getAllUnconfirmedTransactions()));
+        assertEquals(Set.of(2L), ids(processor.getWaitingTransactions()));
+        verify(applier).undoUnconfirmed(tx1);
+        verify(applier).undoUnconfirmed(tx2);
+        verify(applier, never()).undoUnconfirmed(tx3);
+    }
+
+    @Test
+    void testRevalidateRemovesNotValidTransactionAndRestoresItOnRollback() throws AplException.ValidationException {
+        doThrow(new AplException.NotValidException("Invalid transaction"))
+                .when(validator).validate(argThat(tx -> tx.getId() == tx2.getId()));
+        TransactionalDataSource dataSource = extension.getDatabaseManager().getDataSource();
+        dataSource.begin();
+
+        processor.revalidateUnconfirmedTransactions();
+
+        assertEquals(Set.of(1L, 3L), ids(processor.getAllUnconfirmedTransactions()));
+        assertEquals(Set.of(), ids(processor.getWaitingTransactions()));
+        verify(applier).undoUnconfirmed(tx2);
+
+        dataSource.rollback();
+
+        assertEquals(Set.of(1L, 2L, 3L), ids(processor.getAllUnconfirmedTransactions()));
+    }
+
+    @Test
+    void testRevalidateRemovesUnconfirmedDuplicate() {
+        doReturn(true).when(tx3).isUnconfirmedDuplicate(any());
+
+        pushBlock(tx1);
+
+        assertEquals(Set.of(2L), ids(processor.getAllUnconfirmedTransactions()));
+        assertEquals(Set.of(3L), ids(processor.getWaitingTransactions()));
+        verify(applier).undoUnconfirmed(tx3);
+    }
+
+    private void pushBlock(Transaction... blockTransactions) {
+        TransactionalDataSource dataSource = extension.getDatabaseManager().getDataSource();
+        dataSource.begin();
+        processor.requeueUnconfirmedTransactions(List.of(blockTransactions));
+        processor.revalidateUnconfirmedTransactions();
+        dataSource.commit();
+    }
+
+    private Set<Long> ids(Collection<UnconfirmedTransaction> transactions) {
+        return transactions.stream().map(UnconfirmedTransaction::getId).collect(Collectors.toSet());
+    }
+
+    private Transaction mockTransaction(long id, long senderId) {
+        Transaction transaction = mock(Transaction.class);
+        doReturn(id).when(transaction).getId();
+        doReturn(Long.toUnsignedString(id)).when(transaction).getStringId();
+        doReturn(senderId).when(transaction).getSenderId();
+        doReturn((byte) 1).when(transaction).getVersion();
+        doReturn(Integer.MAX_VALUE).when(transaction).getExpiration();
+        doReturn(100_000_000L).when(transaction).getFeeATM();
+        doReturn(200).when(transaction).getFullSize();
+        doReturn(true).when(transaction).verifySignature();
+        return transaction;
+    }
+}
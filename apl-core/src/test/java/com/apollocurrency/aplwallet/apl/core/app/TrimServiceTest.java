@@ -18,14 +18,21 @@ import org.junit.jupiter.api.extension.RegisterExtension;
 
 import javax.enterprise.event.Event;
 import javax.enterprise.util.AnnotationLiteral;
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -279,4 +286,105 @@ class TrimServiceTest {
 
         verify(derivedTable, times(2)).trim(2000, false);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDoTrimDerivedTablesOnHeightConcurrently() {
+        AplAppStatus aplAppStatus = mock(AplAppStatus.class);
+        doReturn("trim-task").when(aplAppStatus).durableTaskStart(anyString(), anyString(), anyBoolean());
+        DerivedTableInterface secondTable = mock(DerivedTableInterface.class);
+        doReturn(List.of(derivedTable, secondTable)).when(registry).getDerivedTables();
+        doReturn(7300).when(timeService).getEpochTime();
+        Set<String> trimThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> trimThreads.add(Thread.currentThread().getName())).when(derivedTable).trim(2000, false);
+        doAnswer(invocation -> trimThreads.add(Thread.currentThread().getName())).when(secondTable).trim(2000, false);
+        TrimService concurrentTrimService = new TrimService(databaseManager, registry, globalSync, timeService, event, trimConfigEvent, trimDao, aplAppStatus, 1000, 2);
+        try {
+            concurrentTrimService.doTrimDerivedTablesOnHeightLocked(2000, false);
+        } finally {
+            databaseManager.getDataSource().commit();
+            concurrentTrimService.shutdown();
+        }
+
+        assertFalse(trimThreads.contains(Thread.currentThread().getName()));
+        verify(globalSync, times(2)).readLock();
+        verify(globalSync, times(2)).readUnlock();
+        verify(derivedTable).prune(7200);
+        verify(derivedTable).trim(2000, false);
+        verify(secondTable).prune(7200);
+        verify(secondTable).trim(2000, false);
+        verify(aplAppStatus, times(2)).durableTaskUpdate(eq("trim-task"), anyString(), eq(50.0));
+        verify(aplAppStatus).durableTaskFinished(eq("trim-task"), eq(false), anyString());
+    }
+
+    @Test
+    void testDoTrimDerivedTablesOnHeightConcurrentlyWithException() {
+        AplAppStatus aplAppStatus = mock(AplAppStatus.class);
+        doReturn("trim-task").when(aplAppStatus).durableTaskStart(anyString(), anyString(), anyBoolean());
+        DerivedTableInterface failedTable = mock(DerivedTableInterface.class);
+        doThrow(new IllegalStateException("Test trim error")).when(failedTable).trim(2000, false);
+        doReturn(List.of(failedTable, derivedTable)).when(registry).getDerivedTables();
+        TrimService concurrentTrimService = new TrimService(databaseManager, registry, globalSync, timeService, event, trimConfigEvent, trimDao, aplAppStatus, 1000, 2);
+        try {
+            assertThrows(IllegalStateException.class, () -> concurrentTrimService.doTrimDerivedTablesOnHeightLocked(2000, false));
+        } finally {
+            databaseManager.getDataSource().rollback();
+            concurrentTrimService.shutdown();
+        }
+
+        verify(derivedTable).trim(2000, false);
+        verify(globalSync, times(2)).readUnlock();
+        verify(aplAppStatus).durableTaskFinished(eq("trim-task"), eq(true), anyString());
+    }
+
+    @Test
+    void testTrimDerivedTablesUnderWriteLockWithConcurrentTrimEnabled() {
+        TrimService concurrentTrimService = new TrimService(databaseManager, registry, globalSync, timeService, event, trimConfigEvent, trimDao, mock(AplAppStatus.class), 1000, 2);
+        DerivedTableInterface secondTable = mock(DerivedTableInterface.class);
+        doReturn(List.of(derivedTable, secondTable)).when(registry).getDerivedTables();
+        doReturn(new TrimEntry(1L, 5000, false)).when(trimDao).save(new TrimEntry(null, 5000, false));
+        doReturn(mock(Event.class)).when(event).select(new AnnotationLiteral<TrimEvent>() {
+        });
+        doReturn(7300).when(timeService).getEpochTime();
+        Set<String> trimThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> trimThreads.add(Thread.currentThread().getName())).when(derivedTable).trim(4000, false);
+        doAnswer(invocation -> trimThreads.add(Thread.currentThread().getName())).when(secondTable).trim(4000, false);
+        try {
+            // block scan fires BLOCK_SCANNED and trims tables under the global write lock
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                globalSync.writeLock();
+                try {
+                    concurrentTrimService.trimDerivedTables(5000, false);
+                    assertEquals(Set.of(Thread.currentThread().getName()), trimThreads);
+                } finally {
+                    globalSync.writeUnlock();
+                }
+            });
+        } finally {
+            concurrentTrimService.shutdown();
+        }
+
+        verify(derivedTable).prune(7200);
+        verify(secondTable).prune(7200);
+        verify(trimDao).save(new TrimEntry(1L, 5000, true));
+    }
+
+    @Test
+    void testTrimDerivedTablesInOuterTransactionWithConcurrentTrimEnabled() {
+        TrimService concurrentTrimService = new TrimService(databaseManager, registry, globalSync, timeService, event, trimConfigEvent, trimDao, mock(AplAppStatus.class), 1000, 2);
+        doReturn(List.of(derivedTable)).when(registry).getDerivedTables();
+        doReturn(new TrimEntry(1L, 5000, false)).when(trimDao).save(new TrimEntry(null, 5000, false));
+        doReturn(mock(Event.class)).when(event).select(new AnnotationLiteral<TrimEvent>() {
+        });
+        Set<String> trimThreads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> trimThreads.add(Thread.currentThread().getName())).when(derivedTable).trim(4000, false);
+        try {
+            DbUtils.inTransaction(extension, con -> concurrentTrimService.trimDerivedTables(5000, false));
+        } finally {
+            concurrentTrimService.shutdown();
+        }
+
+        assertEquals(Set.of(Thread.currentThread().getName()), trimThreads);
+        verify(globalSync).readLock();
+        verify(globalSync).readUnlock();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.app;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class UnconfirmedTransactionPoolTest {
+    private static final long SENDER_1 = 100L;
+    private static final long SENDER_2 = 200L;
+
+    private UnconfirmedTransactionPool pool;
+    private UnconfirmedTransaction tx1;
+    private UnconfirmedTransaction tx2;
+    private UnconfirmedTransaction tx3;
+    private UnconfirmedTransaction tx4;
+
+    @BeforeEach
+    void setUp() {
+        pool = new UnconfirmedTransactionPool(Comparator.comparingLong(UnconfirmedTransaction::getFeePerByte).reversed()
+                .thenComparingLong(UnconfirmedTransaction::getId));
+        tx1 = mockTransaction(1L, SENDER_1, 10, 5);
+        tx2 = mockTransaction(2L, SENDER_2, 10, 7);
+        tx3 = mockTransaction(3L, SENDER_1, 5, 1);
+        tx4 = mockTransaction(4L, SENDER_1, 10, 7);
+    }
+
+    @Test
+    void testAdd() {
+        assertTrue(pool.add(tx1, 100));
+        assertTrue(pool.add(tx2, 100));
+        assertTrue(pool.add(tx3, 101));
+        assertTrue(pool.add(tx4, 101));
+
+        assertFalse(pool.add(tx1, 102));
+
+        assertEquals(4, pool.size());
+        assertEquals(List.of(tx3, tx2, tx4, tx1), pool.getAll());
+        assertEquals(List.of(tx2, tx4), pool.getAll(1, 2));
+        assertEquals(List.of(tx4, tx1), pool.getAll(2, -1));
+        assertSame(tx2, pool.get(2L));
+        assertTrue(pool.contains(3L));
+    }
+
+    @Test
+    void testRemove() {
+        addAll();
+
+        assertSame(tx2, pool.remove(2L));
+
+        assertNull(pool.remove(2L));
+        assertNull(pool.get(2L));
+        assertFalse(pool.contains(2L));
+        assertEquals(List.of(tx3, tx4, tx1), pool.getAll());
+        assertEquals(List.of(), pool.getBySender(SENDER_2));
+    }
+
+    @Test
+    void testRemoveTransactionIncludedIntoBlock() {
+        addAll();
+        // transaction height is set, when transaction is included into the block
+        doReturn(1000).when(tx4).getHeight();
+
+        assertSame(tx4, pool.remove(4L));
+
+        assertEquals(List.of(tx3, tx2, tx1), pool.getAll());
+        assertEquals(List.of(tx3, tx1), pool.getBySender(SENDER_1));
+        assertTrue(pool.add(tx4, 102));
+        assertEquals(List.of(tx3, tx2, tx1, tx4), pool.getAll());
+    }
+
+    @Test
+    void testRemoveFromHeight() {
+        addAll();
+
+        List<UnconfirmedTransaction> removed = pool.removeFromHeight(100);
+
+        assertEquals(List.of(tx3, tx4), removed);
+        assertEquals(List.of(tx2, tx1), pool.getAll());
+        assertEquals(List.of(tx1), pool.getBySender(SENDER_1));
+        assertEquals(List.of(), pool.removeFromHeight(100));
+    }
+
+    @Test
+    void testGetBySender() {
+        addAll();
+
+        assertEquals(List.of(tx3, tx4, tx1), pool.getBySender(SENDER_1));
+        assertEquals(List.of(tx2), pool.getBySender(SENDER_2));
+        assertEquals(List.of(), pool.getBySender(300L));
+    }
+
+    @Test
+    void testClear() {
+        addAll();
+
+        assertEquals(List.of(tx3, tx2, tx4, tx1), pool.clear());
+
+        assertEquals(0, pool.size());
+        assertEquals(List.of(), pool.getAll());
+        assertEquals(List.of(), pool.getBySender(SENDER_1));
+    }
+
+    private void addAll() {
+        pool.add(tx1, 100);
+        pool.add(tx2, 100);
+        pool.add(tx3, 101);
+        pool.add(tx4, 101);
+    }
+
+    private UnconfirmedTransaction mockTransaction(long id, long senderId, int height, long feePerByte) {
+        UnconfirmedTransaction transaction = mock(UnconfirmedTransaction.class);
+        doReturn(id).when(transaction).getId();
+        doReturn(senderId).when(transaction).getSenderId();
+        doReturn(height).when(transaction).getHeight();
+        doReturn(feePerByte).when(transaction).getFeePerByte();
+        return transaction;
+    }
+}
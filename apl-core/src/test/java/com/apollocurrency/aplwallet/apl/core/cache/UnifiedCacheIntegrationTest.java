@@ -32,7 +32,7 @@ public class UnifiedCacheIntegrationTest {
     @Inject
     @CacheProducer
     @CacheType(PUBLIC_KEY_CACHE_NAME)
-    Cache<String, byte[]> publicKeyCache;
+    Cache<Long, byte[]> publicKeyCache;
 
 
     @Inject
@@ -53,13 +53,15 @@ public class UnifiedCacheIntegrationTest {
 
     @Test
     void testGuavaCacheInjection() {
-        String key = "first";
-        publicKeyCache.put(key, key.getBytes());
+        Long key = 1L;
+        publicKeyCache.put(key, "first".getBytes());
 
         byte[] value = publicKeyCache.getIfPresent(key);
         assertNotNull(value);
-        assertArrayEquals(key.getBytes(), value);
-        value = publicKeyCache.getIfPresent("second");
+        assertArrayEquals("first".getBytes(), value);
+        value = publicKeyCache.getIfPresent(2L);
+        assertNull(value);
+        value = publicKeyCache.getIfPresent("first");
         assertNull(value);
     }
     private static class CacheLoaderProducer {
@@ -20,6 +20,8 @@ import static com.apollocurrency.aplwallet.apl.data.BlockTestData.GENESIS_BLOCK_
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -326,6 +328,41 @@ class BlockDaoTest {
         assertEquals(td.NEW_BLOCK.getId(), block.getNextBlockId());
     }
 
+    @Test
+    void testFindBlockFromCache() {
+        Block block = blockDao.findBlock(td.BLOCK_7.getId(), extension.getDatabaseManager().getDataSource());
+        Block cachedBlock = blockDao.findBlock(td.BLOCK_7.getId(), extension.getDatabaseManager().getDataSource());
+        Block cachedBlockAtHeight = blockDao.findBlockAtHeight(td.BLOCK_7.getHeight(), extension.getDatabaseManager().getDataSource());
+
+        assertSame(block, cachedBlock);
+        assertSame(block, cachedBlockAtHeight);
+        assertEquals(2, blockDao.getBlockCache().getStats().hitCount());
+    }
+
+    @Test
+    void testDeleteBlocksFromInvalidatesCache() {
+        blockDao.findBlock(td.BLOCK_7.getId(), extension.getDatabaseManager().getDataSource());
+
+        blockDao.deleteBlocksFrom(td.BLOCK_6.getId());
+
+        assertNull(blockDao.findBlock(td.BLOCK_7.getId(), extension.getDatabaseManager().getDataSource()));
+        assertEquals(0, blockDao.getBlockCache().size());
+    }
+
+    @Test
+    void testSaveBlockInvalidatesCachedPreviousBlock() {
+        Block block = blockDao.findBlock(td.LAST_BLOCK.getId(), extension.getDatabaseManager().getDataSource());
+        assertEquals(0, block.getNextBlockId());
+
+        DbUtils.inTransaction(extension, (con)-> {
+            blockDao.saveBlock(con, td.NEW_BLOCK);
+            blockDao.commit(td.NEW_BLOCK);
+        });
+
+        block = blockDao.findBlock(td.LAST_BLOCK.getId(), extension.getDatabaseManager().getDataSource());
+        assertEquals(td.NEW_BLOCK.getId(), block.getNextBlockId());
+    }
+
     @Test
     void testCommitBlock() {
         DbUtils.inTransaction(extension, (con)-> blockDao.commit(td.BLOCK_5));
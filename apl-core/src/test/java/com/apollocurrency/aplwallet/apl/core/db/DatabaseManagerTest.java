@@ -38,6 +38,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
@@ -256,11 +257,165 @@ class DatabaseManagerTest {
         assertTrue(dataSource.getUrl().contains("shard-1"));
     }
 
+    @Test
+    void testOpenFullShardReadOnlyAndReopenForWriting() {
+        databaseManager.setShardInUseTimeout(0);
+        TransactionalDataSource writableDatasource = databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+        assertFalse(writableDatasource.isReadOnly());
+        databaseManager.closeAllShardDataSources();
+
+        TransactionalDataSource readOnlyDatasource = databaseManager.getOrInitFullShardDataSourceById(2L);
+
+        assertTrue(readOnlyDatasource.isReadOnly());
+        assertTrue(readOnlyDatasource.getUrl().contains("ACCESS_MODE_DATA=r"));
+        checkDatasource(readOnlyDatasource);
+        assertSame(readOnlyDatasource, databaseManager.getOrInitFullShardDataSourceById(2L));
+
+        TransactionalDataSource reopenedDatasource = databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+
+        assertTrue(readOnlyDatasource.isShutdown());
+        assertFalse(reopenedDatasource.isReadOnly());
+        checkDatasource(reopenedDatasource);
+    }
+
+    @Test
+    void testFailReopenForWritingWhenReadOnlyShardIsInUse() throws SQLException {
+        databaseManager.setShardInUseTimeout(0);
+        databaseManager.setShardDrainTimeout(100);
+        databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+        databaseManager.closeAllShardDataSources();
+        TransactionalDataSource readOnlyDatasource = databaseManager.getOrInitFullShardDataSourceById(2L);
+
+        try (Connection con = readOnlyDatasource.getConnection()) {
+            assertThrows(IllegalStateException.class,
+                    () -> databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion()));
+
+            assertSame(readOnlyDatasource, databaseManager.getShardDataSourceById(2L));
+            checkDatasource(readOnlyDatasource);
+        }
+        TransactionalDataSource reopenedDatasource = databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+
+        assertTrue(readOnlyDatasource.isShutdown());
+        assertFalse(reopenedDatasource.isReadOnly());
+        checkDatasource(reopenedDatasource);
+    }
+
+    @Test
+    void testWaitForReadOnlyShardInUseBeforeReopenForWriting() throws SQLException, ExecutionException, InterruptedException {
+        databaseManager.setShardInUseTimeout(0);
+        databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+        databaseManager.closeAllShardDataSources();
+        TransactionalDataSource readOnlyDatasource = databaseManager.getOrInitFullShardDataSourceById(2L);
+        Connection con = readOnlyDatasource.getConnection();
+        CompletableFuture<Void> release = CompletableFuture.runAsync(() -> {
+            ThreadUtils.sleep(200);
+            try {
+                con.close();
+            } catch (SQLException e) {
+                throw new RuntimeException(e.toString());
+            }
+        });
+
+        TransactionalDataSource reopenedDatasource = databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+
+        release.get();
+        assertTrue(readOnlyDatasource.isShutdown());
+        assertFalse(reopenedDatasource.isReadOnly());
+        assertSame(reopenedDatasource, databaseManager.getShardDataSourceById(2L));
+        checkDatasource(reopenedDatasource);
+    }
+
+    @Test
+    void testKeepShardHandedOutByLookupOpen() {
+        databaseManager.setMaxOpenShardDataSources(1);
+        databaseManager.setShardInUseTimeout(500);
+        TransactionalDataSource shard1 = databaseManager.getOrCreateShardDataSourceById(1L);
+        ThreadUtils.sleep(600);
+        assertSame(shard1, databaseManager.getShardDataSourceById(1L)); // caller may request connection later
+
+        TransactionalDataSource shard2 = databaseManager.getOrCreateShardDataSourceById(2L);
+
+        assertEquals(2, databaseManager.getOpenShardDataSourcesNumber());
+        checkDatasource(shard1);
+        checkDatasource(shard2);
+    }
+
+    @Test
+    void testOpenFullShardOnceFromThreads() throws ExecutionException, InterruptedException {
+        databaseManager.createOrUpdateShard(2L, new ShardAddConstraintsSchemaVersion());
+        databaseManager.closeAllShardDataSources();
+        List<CompletableFuture<TransactionalDataSource>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> databaseManager.getOrInitFullShardDataSourceById(2L)));
+        }
+
+        TransactionalDataSource dataSource = futures.get(0).get();
+
+        assertTrue(dataSource.isReadOnly());
+        for (CompletableFuture<TransactionalDataSource> future : futures) {
+            assertSame(dataSource, future.get());
+        }
+        assertEquals(1, databaseManager.getOpenShardDataSourcesNumber());
+        checkDatasource(dataSource);
+    }
+
+    @Test
+    void testOpenNotExistingFullShardForWriting() {
+        TransactionalDataSource dataSource = databaseManager.getOrInitFullShardDataSourceById(3L);
+
+        assertFalse(dataSource.isReadOnly());
+        checkDatasource(dataSource);
+    }
+
+    @Test
+    void testCloseLeastRecentlyUsedShards() throws SQLException {
+        databaseManager.setMaxOpenShardDataSources(2);
+        databaseManager.setShardInUseTimeout(0);
+        TransactionalDataSource shard1 = databaseManager.getOrCreateShardDataSourceById(1L);
+        TransactionalDataSource shard2 = databaseManager.getOrCreateShardDataSourceById(2L);
+        assertSame(shard1, databaseManager.getShardDataSourceById(1L)); // shard 2 is least recently used now
+
+        TransactionalDataSource shard3 = databaseManager.getOrCreateShardDataSourceById(3L);
+
+        assertEquals(2, databaseManager.getOpenShardDataSourcesNumber());
+        assertTrue(shard2.isShutdown());
+        assertNull(databaseManager.getShardDataSourceById(2L));
+        checkDatasource(shard1);
+        checkDatasource(shard3);
+
+        try (Connection con = shard1.getConnection()) { // shard in use should not be closed
+            databaseManager.getShardDataSourceById(3L);
+            TransactionalDataSource newShard2 = databaseManager.getOrCreateShardDataSourceById(2L);
+
+            assertNotSame(shard2, newShard2);
+            assertTrue(shard3.isShutdown());
+            assertFalse(shard1.isShutdown());
+            assertEquals(2, databaseManager.getOpenShardDataSourcesNumber());
+        }
+    }
+
+    @Test
+    void testExceedOpenShardsLimitWhenShardsAreInUse() throws SQLException {
+        databaseManager.setMaxOpenShardDataSources(1);
+        TransactionalDataSource shard1 = databaseManager.getOrCreateShardDataSourceById(1L);
+        try (Connection con = shard1.getConnection()) {
+            databaseManager.setShardInUseTimeout(0);
+
+            TransactionalDataSource shard2 = databaseManager.getOrCreateShardDataSourceById(2L);
+
+            assertEquals(2, databaseManager.getOpenShardDataSourcesNumber());
+            checkDatasource(shard1);
+            checkDatasource(shard2);
+        }
+    }
+
     private void checkDatasource(TransactionalDataSource dataSource) {
         try {
             assertFalse(dataSource.isShutdown());
-            ResultSet rs = dataSource.getConnection().createStatement().executeQuery("select 1");
-            assertTrue(rs.next());
+            try (Connection con = dataSource.getConnection();
+                 ResultSet rs = con.createStatement().executeQuery("select 1")) {
+                assertTrue(rs.next());
+            }
         } catch (SQLException e) {
             throw new RuntimeException(e.toString());
         }
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.db;
+
+import com.apollocurrency.aplwallet.apl.extension.TemporaryFolderExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class H2StorageEngineTest {
+    private static final String PARAMS = "DB_CLOSE_ON_EXIT=FALSE;MVCC=TRUE;MV_STORE=FALSE";
+
+    @RegisterExtension
+    TemporaryFolderExtension temporaryFolderExtension = new TemporaryFolderExtension();
+
+    @Test
+    void testConfigured() {
+        assertEquals(H2StorageEngine.PAGE_STORE, H2StorageEngine.configured(PARAMS));
+        assertEquals(H2StorageEngine.MV_STORE, H2StorageEngine.configured("MVCC=TRUE;mv_store=true"));
+        assertEquals(H2StorageEngine.PAGE_STORE, H2StorageEngine.configured("MVCC=TRUE"));
+        assertEquals(H2StorageEngine.PAGE_STORE, H2StorageEngine.configured(null));
+    }
+
+    @Test
+    void testApplyTo() {
+        assertEquals("DB_CLOSE_ON_EXIT=FALSE;MVCC=TRUE;MV_STORE=TRUE", H2StorageEngine.MV_STORE.applyTo(PARAMS));
+        assertEquals(PARAMS, H2StorageEngine.PAGE_STORE.applyTo(PARAMS));
+        assertEquals("MVCC=TRUE;MV_STORE=TRUE", H2StorageEngine.MV_STORE.applyTo("MVCC=TRUE;"));
+        assertEquals("MV_STORE=FALSE", H2StorageEngine.PAGE_STORE.applyTo(""));
+    }
+
+    @Test
+    void testResolveNewDatabase() {
+        String dbPath = dbPath();
+
+        assertEquals(Optional.empty(), H2StorageEngine.detect(dbPath));
+        assertEquals(H2StorageEngine.MV_STORE, H2StorageEngine.resolve(dbPath, "MV_STORE=TRUE"));
+        assertEquals(H2StorageEngine.PAGE_STORE, H2StorageEngine.resolve(dbPath, PARAMS));
+    }
+
+    @Test
+    void testResolveExistingDatabase() throws IOException {
+        String dbPath = dbPath();
+        temporaryFolderExtension.newFile("apl.mv.db");
+
+        assertEquals(H2StorageEngine.MV_STORE, H2StorageEngine.resolve(dbPath, PARAMS));
+
+        temporaryFolderExtension.newFile("apl.h2.db");
+
+        assertEquals(Optional.empty(), H2StorageEngine.detect(dbPath));
+        assertEquals(H2StorageEngine.PAGE_STORE, H2StorageEngine.resolve(dbPath, PARAMS));
+    }
+
+    private String dbPath() {
+        return new File(temporaryFolderExtension.getRoot(), "apl").getAbsolutePath();
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.db.derived;
+
+import com.apollocurrency.aplwallet.apl.core.db.DbKey;
+import com.apollocurrency.aplwallet.apl.core.db.LongKey;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionCallback;
+import com.apollocurrency.aplwallet.apl.core.db.TransactionalDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CommittedEntityCacheTest {
+    private static final DbKey KEY_1 = new LongKey(1);
+    private static final DbKey KEY_2 = new LongKey(2);
+
+    private TransactionalDataSource dataSource = mock(TransactionalDataSource.class);
+    private CommittedEntityCache<String> cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CommittedEntityCache<>(10);
+        cache.put(KEY_1, "first", cache.getGeneration());
+        cache.put(KEY_2, "second", cache.getGeneration());
+    }
+
+    @Test
+    void testPutAndGet() {
+        assertEquals("first", cache.get(KEY_1));
+        assertEquals("second", cache.get(KEY_2));
+        assertNull(cache.get(new LongKey(3)));
+    }
+
+    @Test
+    void testPutIsIgnoredAfterEviction() {
+        long generation = cache.getGeneration();
+        cache.invalidate(dataSource, KEY_1);
+
+        cache.put(KEY_1, "outdated", generation);
+
+        assertNull(cache.get(KEY_1));
+        assertEquals("second", cache.get(KEY_2));
+    }
+
+    @Test
+    void testEvictOnTransactionEnd() {
+        doReturn(true).when(dataSource).isInTransaction();
+
+        cache.invalidate(dataSource, KEY_1);
+
+        assertEquals("first", cache.get(KEY_1));
+        TransactionCallback callback = captureCallback();
+        callback.commit();
+        assertNull(cache.get(KEY_1));
+        assertEquals("second", cache.get(KEY_2));
+    }
+
+    @Test
+    void testEvictAllOnTransactionRollback() {
+        doReturn(true).when(dataSource).isInTransaction();
+
+        cache.invalidateAll(dataSource);
+        cache.invalidate(dataSource, KEY_1);
+
+        assertEquals("second", cache.get(KEY_2));
+        captureCallback().rollback();
+        assertNull(cache.get(KEY_1));
+        assertNull(cache.get(KEY_2));
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        for (int i = 0; i < 100; i++) {
+            cache.put(new LongKey(i), String.valueOf(i), cache.getGeneration());
+        }
+
+        assertTrue(cache.size() <= 10);
+    }
+
+    private TransactionCallback captureCallback() {
+        ArgumentCaptor<TransactionCallback> captor = ArgumentCaptor.forClass(TransactionCallback.class);
+        verify(dataSource, atLeastOnce()).registerCallback(captor.capture());
+        return captor.getValue();
+    }
+}
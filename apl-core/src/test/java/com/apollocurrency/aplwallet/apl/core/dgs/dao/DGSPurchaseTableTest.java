@@ -28,6 +28,7 @@ import com.apollocurrency.aplwallet.apl.core.phasing.PhasingPollService;
 import com.apollocurrency.aplwallet.apl.core.shard.BlockIndexService;
 import com.apollocurrency.aplwallet.apl.core.shard.BlockIndexServiceImpl;
 import com.apollocurrency.aplwallet.apl.data.DGSTestData;
+import com.apollocurrency.aplwallet.apl.testutil.DbUtils;
 import com.apollocurrency.aplwallet.apl.util.NtpTime;
 import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
 import org.jboss.weld.junit.MockBean;
@@ -36,12 +37,16 @@ import org.jboss.weld.junit5.WeldInitiator;
 import org.jboss.weld.junit5.WeldSetup;
 import org.jdbi.v3.core.Jdbi;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import javax.inject.Inject;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 
 @EnableWeld
@@ -82,6 +87,44 @@ public class DGSPurchaseTableTest extends VersionedEntityDbTableTest<DGSPurchase
         dtd = new DGSTestData();
         super.setUp();
     }
+    @Test
+    void testTrimKeepsLatestVersionsAndRemovesDeletedPurchase() throws SQLException {
+        DbUtils.inTransaction(getDatabaseManager(), (con) -> table.trim(dtd.PURCHASE_18.getHeight()));
+
+        List<DGSPurchase> remaining = table.getAllByDbId(0, Integer.MAX_VALUE, Long.MAX_VALUE).getValues();
+        // purchase 3 was deleted at the height of the purchase 17, so that all its versions are trimmed
+        assertEquals(List.of(dtd.PURCHASE_2, dtd.PURCHASE_5, dtd.PURCHASE_8, dtd.PURCHASE_14, dtd.PURCHASE_16, dtd.PURCHASE_18), remaining);
+        assertEquals(remaining, latest(remaining));
+    }
+
+    @Test
+    void testTrimKeepsLastVersionBelowTrimHeight() throws SQLException {
+        DbUtils.inTransaction(getDatabaseManager(), (con) -> table.trim(dtd.PURCHASE_12.getHeight()));
+
+        List<DGSPurchase> remaining = table.getAllByDbId(0, Integer.MAX_VALUE, Long.MAX_VALUE).getValues();
+        assertEquals(List.of(dtd.PURCHASE_2, dtd.PURCHASE_3, dtd.PURCHASE_5, dtd.PURCHASE_8, dtd.PURCHASE_10, dtd.PURCHASE_11,
+                dtd.PURCHASE_12, dtd.PURCHASE_13, dtd.PURCHASE_14, dtd.PURCHASE_15, dtd.PURCHASE_16, dtd.PURCHASE_17, dtd.PURCHASE_18), remaining);
+        assertEquals(List.of(dtd.PURCHASE_2, dtd.PURCHASE_5, dtd.PURCHASE_8, dtd.PURCHASE_14, dtd.PURCHASE_16, dtd.PURCHASE_18), latest(remaining));
+    }
+
+    @Test
+    void testRollbackRestoresLatestFlags() throws SQLException {
+        DbUtils.inTransaction(getDatabaseManager(), (con) -> table.rollback(dtd.PURCHASE_13.getHeight()));
+
+        List<DGSPurchase> remaining = table.getAllByDbId(0, Integer.MAX_VALUE, Long.MAX_VALUE).getValues();
+        assertEquals(14, remaining.size());
+        // last remaining versions of the updated purchases and of the purchase 3, which deletion was rolled back
+        assertEquals(List.of(dtd.PURCHASE_2.getDbId(), dtd.PURCHASE_3.getDbId(), dtd.PURCHASE_5.getDbId(), dtd.PURCHASE_8.getDbId(),
+                dtd.PURCHASE_11.getDbId(), dtd.PURCHASE_13.getDbId()),
+                latest(remaining).stream().map(DGSPurchase::getDbId).collect(Collectors.toList()));
+        assertEquals(dtd.PURCHASE_11.getDbId(), table.get(table.getDbKeyFactory().newKey(dtd.PURCHASE_16)).getDbId());
+        assertEquals(dtd.PURCHASE_3.getDbId(), table.get(table.getDbKeyFactory().newKey(dtd.PURCHASE_17)).getDbId());
+    }
+
+    private List<DGSPurchase> latest(List<DGSPurchase> purchases) {
+        return purchases.stream().filter(DGSPurchase::isLatest).collect(Collectors.toList());
+    }
+
     @Override
     public Blockchain getBlockchain() {
         return blockchain;
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.files;
+
+import com.apollocurrency.aplwallet.apl.extension.TemporaryFolderExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DownloadProgressTest {
+    private static final String FILE_HASH = "a1b2c3";
+    @RegisterExtension
+    TemporaryFolderExtension temporaryFolderExtension = new TemporaryFolderExtension();
+    private Path progressPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        progressPath = temporaryFolderExtension.newFolder().toPath().resolve("shard.zip.progress");
+    }
+
+    @Test
+    void testLoadSavedChunks() throws IOException {
+        DownloadProgress progress = new DownloadProgress(progressPath);
+        progress.start(FILE_HASH, List.of(1, 2));
+        progress.chunkSaved(5);
+        progress.close();
+
+        Set<Integer> savedChunks = new DownloadProgress(progressPath).load(FILE_HASH.toUpperCase());
+
+        assertEquals(Set.of(1, 2, 5), savedChunks);
+    }
+
+    @Test
+    void testLoadProgressOfAnotherFile() throws IOException {
+        DownloadProgress progress = new DownloadProgress(progressPath);
+        progress.start(FILE_HASH, List.of(1, 2));
+        progress.close();
+
+        assertTrue(new DownloadProgress(progressPath).load("ffffff").isEmpty());
+    }
+
+    @Test
+    void testLoadIncompleteRecord() throws IOException {
+        Files.writeString(progressPath, FILE_HASH + "\n3\n4\n1");
+
+        assertEquals(Set.of(3, 4, 1), new DownloadProgress(progressPath).load(FILE_HASH));
+
+        Files.writeString(progressPath, FILE_HASH + "\n3\n4\n1x");
+
+        assertEquals(Set.of(3, 4), new DownloadProgress(progressPath).load(FILE_HASH));
+    }
+
+    @Test
+    void testDelete() throws IOException {
+        DownloadProgress progress = new DownloadProgress(progressPath);
+        progress.start(FILE_HASH, List.of());
+
+        progress.delete();
+
+        assertFalse(Files.exists(progressPath));
+        assertTrue(progress.load(FILE_HASH).isEmpty());
+    }
+}
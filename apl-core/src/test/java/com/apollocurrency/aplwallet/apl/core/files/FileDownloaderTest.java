@@ -0,0 +1,119 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.files;
+
+import com.apollocurrency.aplwallet.api.p2p.FileChunkInfo;
+import com.apollocurrency.aplwallet.api.p2p.FileChunkState;
+import com.apollocurrency.aplwallet.api.p2p.FileDownloadInfo;
+import com.apollocurrency.aplwallet.apl.core.app.AplAppStatus;
+import com.apollocurrency.aplwallet.apl.core.peer.PeersService;
+import com.apollocurrency.aplwallet.apl.extension.TemporaryFolderExtension;
+import com.apollocurrency.aplwallet.apl.util.ChunkedFileOps;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.enterprise.event.Event;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class FileDownloaderTest {
+    private static final String FILE_ID = "shard::1";
+    private static final String FILE_HASH = "a1b2c3";
+    private static final int FILE_SIZE = ChunkedFileOps.FILE_CHUNK_SIZE * 2 + 100;
+
+    @RegisterExtension
+    TemporaryFolderExtension temporaryFolderExtension = new TemporaryFolderExtension();
+
+    private DownloadableFilesManager manager = mock(DownloadableFilesManager.class);
+    private FileDownloader downloader;
+    private Path filePath;
+    private Path partPath;
+    private byte[] content;
+    private FileDownloadInfo downloadInfo;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path folder = temporaryFolderExtension.newFolder().toPath();
+        filePath = folder.resolve("shard.zip");
+        partPath = folder.resolve("shard.zip.part");
+        doReturn(filePath).when(manager).mapFileIdToLocalPath(FILE_ID);
+        downloader = new FileDownloader(manager, mock(Event.class, RETURNS_MOCKS), mock(AplAppStatus.class), mock(PeersService.class));
+
+        content = new byte[FILE_SIZE];
+        new Random(1).nextBytes(content);
+        Path sourcePath = folder.resolve("source.zip");
+        Files.write(sourcePath, content);
+        downloadInfo = new FileDownloadInfo();
+        downloadInfo.fileInfo.fileId = FILE_ID;
+        downloadInfo.fileInfo.hash = FILE_HASH;
+        downloadInfo.fileInfo.size = (long) FILE_SIZE;
+        int chunkId = 0;
+        for (ChunkedFileOps.ChunkInfo chunk : new ChunkedFileOps(sourcePath).getChunksCRC()) {
+            FileChunkInfo fci = new FileChunkInfo();
+            fci.fileId = FILE_ID;
+            fci.chunkId = chunkId++;
+            fci.offset = chunk.offset;
+            fci.size = chunk.size;
+            fci.crc = chunk.crc;
+            fci.present = FileChunkState.PRESENT_IN_PEER;
+            downloadInfo.chunks.add(fci);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        downloader.preDestroy();
+    }
+
+    @Test
+    void testRemoveOversizedStalePartFileWithoutProgress() throws Exception {
+        Files.write(partPath, new byte[FILE_SIZE * 2]);
+
+        FileDownloadStatus status = download();
+
+        assertEquals(0, status.getChunksReady().get());
+        assertFalse(Files.exists(partPath));
+    }
+
+    @Test
+    void testTruncateOversizedPartFileWithRestoredChunks() throws Exception {
+        byte[] partContent = Arrays.copyOf(content, FILE_SIZE * 2);
+        // second chunk is corrupted
+        partContent[ChunkedFileOps.FILE_CHUNK_SIZE + 1]++;
+        Files.write(partPath, partContent);
+        DownloadProgress progress = new DownloadProgress(filePath.resolveSibling("shard.zip.progress"));
+        progress.start(FILE_HASH, List.of(0, 1, 2));
+        progress.close();
+
+        FileDownloadStatus status = download();
+
+        assertEquals(2, status.getChunksReady().get());
+        assertEquals(FILE_SIZE, Files.size(partPath));
+        assertArrayEquals(Arrays.copyOf(content, ChunkedFileOps.FILE_CHUNK_SIZE),
+                Arrays.copyOf(Files.readAllBytes(partPath), ChunkedFileOps.FILE_CHUNK_SIZE));
+        assertEquals(Set.of(0, 2), new DownloadProgress(filePath.resolveSibling("shard.zip.progress")).load(FILE_HASH));
+    }
+
+    private FileDownloadStatus download() throws Exception {
+        FileDownloadStatus status = new FileDownloadStatus(FILE_ID);
+        // there are no peers, so only saved chunks are restored
+        downloader.startDownload(downloadInfo, status, Set.of());
+        downloader.getDownloadTask().get();
+        return status;
+    }
+}
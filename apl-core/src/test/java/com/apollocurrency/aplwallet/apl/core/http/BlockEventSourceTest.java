@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.http;
+
+import org.eclipse.jetty.servlets.EventSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BlockEventSourceTest {
+    private BlockEventSourceProcessor processor = mock(BlockEventSourceProcessor.class);
+    private EventSource.Emitter emitter = mock(EventSource.Emitter.class);
+    private BlockEventSource eventSource;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        eventSource = new BlockEventSource(processor, 1L);
+        eventSource.onOpen(emitter);
+    }
+
+    @Test
+    void testOnlyLatestMessageIsSent() throws IOException {
+        eventSource.offer(1, "first");
+        eventSource.offer(3, "third");
+        eventSource.offer(2, "outdated");
+
+        verify(processor).register(eventSource);
+        verify(processor).send(eventSource);
+        eventSource.send();
+
+        verify(emitter).data("third");
+        verify(emitter, times(1)).data(anyString());
+    }
+
+    @Test
+    void testMessageOfferedWhileSending() throws IOException {
+        doAnswer(invocation -> {
+            eventSource.offer(2, "second");
+            return null;
+        }).when(emitter).data("first");
+        eventSource.offer(1, "first");
+
+        eventSource.send();
+
+        verify(emitter).data("first");
+        verify(emitter).data("second");
+        verify(processor, times(1)).send(eventSource);
+    }
+
+    @Test
+    void testCloseOnSendFailure() throws IOException {
+        doThrow(new IOException("Test")).when(emitter).data("first");
+        eventSource.offer(1, "first");
+
+        eventSource.send();
+        eventSource.offer(2, "second");
+
+        verify(emitter).close();
+        verify(processor).unregister(eventSource);
+        verify(emitter, never()).data("second");
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.core.http;
+
+import com.apollocurrency.aplwallet.apl.core.db.DbIterator;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONStreamAware;
+import org.json.simple.JSONValue;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StreamingJSONResponseTest {
+
+    @Test
+    void testWriteSameAsJSONObject() throws IOException {
+        StreamingJSONResponse<Long> response = new StreamingJSONResponse<Long>("rows", Arrays.asList(1L, 2L, 3L, 0L), this::toJson)
+                .takeWhile(value -> value > 0)
+                .put("lastBlock", "123");
+
+        JSONArray rows = new JSONArray();
+        rows.add(toJson(1L));
+        rows.add(toJson(2L));
+        rows.add(toJson(3L));
+        JSONObject expected = new JSONObject();
+        expected.put("rows", rows);
+        expected.put("lastBlock", "123");
+
+        assertEquals(JSONValue.parse(expected.toJSONString()), JSONValue.parse(write(response)));
+    }
+
+    @Test
+    void testWriteEmpty() throws IOException {
+        StreamingJSONResponse<Long> response = new StreamingJSONResponse<>("rows", Collections.<Long>emptyList(), this::toJson);
+
+        assertEquals("{\"rows\":[]}", write(response));
+    }
+
+    @Test
+    void testWriteRequestProcessingTime() throws IOException {
+        StreamingJSONResponse<Long> response = new StreamingJSONResponse<>("rows", Collections.singletonList(1L), this::toJson);
+        response.setRequestStartTime(System.currentTimeMillis());
+
+        JSONObject json = (JSONObject) JSONValue.parse(write(response));
+
+        assertTrue(json.containsKey("requestProcessingTime"));
+    }
+
+    @Test
+    void testCloseIteratorWhenWritingStopped() throws Exception {
+        Connection con = mock(Connection.class);
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(2L, 1L, 0L);
+        DbIterator<Long> iterator = new DbIterator<>(con, pstmt, (c, r) -> r.getLong(1));
+
+        try (StreamingJSONResponse<Long> response = new StreamingJSONResponse<Long>("rows", iterator, this::toJson)
+                .takeWhile(value -> value > 0)) {
+            assertEquals("{\"rows\":[{\"value\":2},{\"value\":1}]}", write(response));
+            verify(con, never()).close();
+        }
+
+        verify(rs).close();
+        verify(pstmt).close();
+        verify(con).close();
+    }
+
+    @Test
+    void testPrepareClosesIteratorBeforeResponseIsSent() throws Exception {
+        Connection con = mock(Connection.class);
+        PreparedStatement pstmt = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(pstmt.executeQuery()).thenReturn(rs);
+        when(rs.next()).thenReturn(true);
+        when(rs.getLong(1)).thenReturn(2L, 1L, 0L);
+        DbIterator<Long> iterator = new DbIterator<>(con, pstmt, (c, r) -> r.getLong(1));
+
+        JSONStreamAware prepared = new StreamingJSONResponse<Long>("rows", iterator, this::toJson)
+                .takeWhile(value -> value > 0)
+                .put("lastBlock", "123")
+                .prepare();
+
+        verify(rs).close();
+        verify(pstmt).close();
+        verify(con).close();
+        StringWriter writer = new StringWriter();
+        prepared.writeJSONString(writer);
+        assertEquals("{\"rows\":[{\"value\":2},{\"value\":1}],\"lastBlock\":\"123\"}", writer.toString());
+    }
+
+    private JSONObject toJson(Long value) {
+        JSONObject json = new JSONObject();
+        json.put("value", value);
+        return json;
+    }
+
+    private String write(StreamingJSONResponse<?> response) throws IOException {
+        StringWriter writer = new StringWriter();
+        response.writeJSONString(writer);
+        return writer.toString();
+    }
+}
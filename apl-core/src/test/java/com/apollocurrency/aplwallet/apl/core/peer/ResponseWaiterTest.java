@@ -0,0 +1,44 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.core.peer;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseWaiterTest {
+
+    @Test
+    void testGetResponse() throws SocketTimeoutException {
+        ResponseWaiter waiter = new ResponseWaiter();
+        CompletableFuture.runAsync(() -> waiter.setResponse("response"));
+
+        assertEquals("response", waiter.get(5000));
+    }
+
+    @Test
+    void testGetResponseTimeout() {
+        ResponseWaiter waiter = new ResponseWaiter();
+
+        assertThrows(SocketTimeoutException.class, () -> waiter.get(10));
+    }
+
+    @Test
+    void testFutureCompletedByResponse() {
+        ResponseWaiter waiter = new ResponseWaiter();
+        CompletableFuture<Integer> length = waiter.getFuture().thenApply(String::length);
+        assertFalse(length.isDone());
+
+        waiter.setResponse("response");
+
+        assertTrue(length.isDone());
+        assertEquals(8, length.join());
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.exchange.dao;
+
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCurrency;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexOrder;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderStatus;
+import com.apollocurrency.aplwallet.apl.exchange.model.OrderType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DexOrderMatchingIndexTest {
+    private static final BigDecimal RATE = new BigDecimal("0.0001");
+    private static final long RATE_GWEI = 100_000;
+    private static final long AMOUNT = 5_000_000_000L;
+    private static final long ACCOUNT_1 = 100;
+    private static final long ACCOUNT_2 = 200;
+    private static final int FINISH_TIME = 1000;
+
+    private DexOrderMatchingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new DexOrderMatchingIndex();
+    }
+
+    @Test
+    void testGetMatchingOrderIdsOldestFirst() {
+        index.put(order(3L, OrderType.SELL, ACCOUNT_1, AMOUNT, RATE, OrderStatus.OPEN, 20));
+        index.put(order(1L, OrderType.SELL, ACCOUNT_1, AMOUNT, RATE, OrderStatus.OPEN, 10));
+        index.put(order(2L, OrderType.SELL, ACCOUNT_2, AMOUNT, RATE, OrderStatus.OPEN, 15));
+
+        assertEquals(List.of(1L, 2L, 3L), find(OrderType.SELL, AMOUNT, 0L));
+    }
+
+    @Test
+    void testGetMatchingOrderIdsFiltersOrders() {
+        index.put(order(1L, OrderType.SELL, ACCOUNT_1, AMOUNT, RATE, OrderStatus.OPEN, 10));
+        index.put(order(2L, OrderType.SELL, ACCOUNT_2, AMOUNT, RATE, OrderStatus.OPEN, 11));
+        index.put(order(3L, OrderType.SELL, ACCOUNT_2, AMOUNT + 1, RATE, OrderStatus.OPEN, 12));
+        index.put(order(4L, OrderType.SELL, ACCOUNT_2, AMOUNT, new BigDecimal("0.0002"), OrderStatus.OPEN, 13));
+        index.put(order(5L, OrderType.BUY, ACCOUNT_2, AMOUNT, RATE, OrderStatus.OPEN, 14));
+        index.put(order(6L, OrderType.SELL, ACCOUNT_2, AMOUNT, RATE, OrderStatus.PENDING, 15));
+
+        assertEquals(List.of(2L), find(OrderType.SELL, AMOUNT, ACCOUNT_1));
+        assertEquals(List.of(5L), find(OrderType.BUY, AMOUNT, ACCOUNT_1));
+        assertEquals(List.of(), index.getMatchingOrderIds(OrderType.SELL, DexCurrency.APL, DexCurrency.ETH, RATE_GWEI, AMOUNT,
+                FINISH_TIME, ACCOUNT_1));
+        assertEquals(List.of(), index.getMatchingOrderIds(OrderType.SELL, DexCurrency.APL, DexCurrency.PAX, RATE_GWEI, AMOUNT,
+                FINISH_TIME, 0));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void testStatusChangeRemovesOrder() {
+        index.put(order(1L, OrderType.BUY, ACCOUNT_1, AMOUNT, RATE, OrderStatus.OPEN, 10));
+        index.put(order(2L, OrderType.BUY, ACCOUNT_1, AMOUNT, RATE, OrderStatus.OPEN, 11));
+
+        index.put(order(1L, OrderType.BUY, ACCOUNT_1, AMOUNT, RATE, OrderStatus.WAITING_APPROVAL, 12));
+
+        assertEquals(List.of(2L), find(OrderType.BUY, AMOUNT, 0L));
+        assertEquals(1, index.size());
+        assertTrue(index.remove(2L));
+        assertFalse(index.remove(2L));
+        assertEquals(List.of(), find(OrderType.BUY, AMOUNT, 0L));
+    }
+
+    private List<Long> find(OrderType type, long amount, long excludeAccountId) {
+        return index.getMatchingOrderIds(type, DexCurrency.APL, DexCurrency.PAX, RATE_GWEI, amount, FINISH_TIME - 1, excludeAccountId);
+    }
+
+    private static DexOrder order(Long id, OrderType type, long accountId, long amount, BigDecimal rate, OrderStatus status, int height) {
+        return new DexOrder(null, id, type, accountId, DexCurrency.APL, amount, DexCurrency.PAX, rate, FINISH_TIME, status,
+                height, null, null);
+    }
+}
@@ -26,6 +26,7 @@ import com.apollocurrency.aplwallet.apl.exchange.dao.DexOrderDao;
 import com.apollocurrency.aplwallet.apl.exchange.dao.DexOrderTable;
 import com.apollocurrency.aplwallet.apl.exchange.dao.MandatoryTransactionDao;
 import com.apollocurrency.aplwallet.apl.exchange.model.OrderFreezing;
+import com.apollocurrency.aplwallet.apl.exchange.service.graph.DexCandlestickAggregator;
 import com.apollocurrency.aplwallet.apl.exchange.transaction.DEX;
 import com.apollocurrency.aplwallet.apl.testutil.WeldUtils;
 import com.google.common.cache.CacheBuilder;
@@ -69,6 +70,7 @@ class DexServiceIntegrationTest {
         PhasingApprovedResultTable.class,
         BlockchainConfig.class,
         DexConfig.class,
+        DexCandlestickAggregator.class,
         BlockchainImpl.class))
         .addBeans(MockBean.of(mock(PhasingPollService.class), PhasingPollService.class))
         .build();
@@ -0,0 +1,70 @@
+package com.apollocurrency.aplwallet.apl.exchange.service.graph;
+
+import com.apollocurrency.aplwallet.apl.core.app.GenesisImporter;
+import com.apollocurrency.aplwallet.apl.exchange.model.DexCandlestick;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.apollocurrency.aplwallet.apl.exchange.service.graph.CandlestickTestUtil.apl;
+import static com.apollocurrency.aplwallet.apl.exchange.service.graph.CandlestickTestUtil.dec;
+import static com.apollocurrency.aplwallet.apl.exchange.service.graph.CandlestickTestUtil.eOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CandlestickRingTest {
+    private CandlestickRing ring;
+
+    @BeforeEach
+    void setUp() {
+        GenesisImporter.EPOCH_BEGINNING = 0;
+        ring = new CandlestickRing(TimeFrame.QUARTER, 3, 3600);
+    }
+
+    @Test
+    void testAggregateOrders() {
+        assertEquals(1800, ring.getStartTime());
+        assertTrue(ring.add(eOrder(1, 1_901, dec("1.5"), apl(100))));
+        assertTrue(ring.add(eOrder(2, 1_801, dec("1"), apl(50))));
+        assertTrue(ring.add(eOrder(3, 2_001, dec("2"), apl(20))));
+        assertTrue(ring.add(eOrder(4, 3_601, dec("3"), apl(10))));
+
+        List<DexCandlestick> candlesticks = ring.getCandlesticks(0, 10_000);
+
+        assertEquals(2, candlesticks.size());
+        DexCandlestick first = candlesticks.get(0);
+        assertEquals(1800, first.getTimestamp());
+        assertEquals(dec("1"), first.getOpen());
+        assertEquals(dec("2"), first.getClose());
+        assertEquals(dec("1"), first.getMin());
+        assertEquals(dec("2"), first.getMax());
+        assertEquals(0, dec("170").compareTo(first.getFromVolume()));
+        assertEquals(3600, candlesticks.get(1).getTimestamp());
+        assertEquals(List.of(candlesticks.get(1)), ring.getCandlesticks(2_700, 3_600));
+    }
+
+    @Test
+    void testIgnoreOrdersBeforeStartTime() {
+        assertFalse(ring.add(eOrder(1, 1_000, dec("1"), apl(100))));
+
+        assertEquals(List.of(), ring.getCandlesticks(0, 10_000));
+    }
+
+    @Test
+    void testOverwriteOutdatedCandlesticks() {
+        ring.add(eOrder(1, 1_801, dec("1"), apl(100)));
+        ring.add(eOrder(2, 3_601, dec("2"), apl(100)));
+        ring.add(eOrder(3, 4_501, dec("3"), apl(100)));
+
+        List<DexCandlestick> candlesticks = ring.getCandlesticks(0, 10_000);
+
+        assertEquals(2700, ring.getStartTime());
+        assertEquals(2, candlesticks.size());
+        assertEquals(3600, candlesticks.get(0).getTimestamp());
+        assertEquals(4500, candlesticks.get(1).getTimestamp());
+        assertEquals(dec("3"), candlesticks.get(1).getOpen());
+        assertFalse(ring.add(eOrder(4, 2_000, dec("1"), apl(100))));
+    }
+}
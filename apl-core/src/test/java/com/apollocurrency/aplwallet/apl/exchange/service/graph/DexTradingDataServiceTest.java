@@ -26,6 +26,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 class DexTradingDataServiceTest {
 
@@ -239,6 +240,23 @@ class DexTradingDataServiceTest {
         assertEquals(expected, fromTable(dataOutput));
     }
 
+    @Test
+    void testGetBarsFromCachedCandlesticks() {
+        DexCandlestickAggregator aggregator = mock(DexCandlestickAggregator.class);
+        doReturn(true).when(aggregator).isEnabled();
+        service = new DexTradingDataService(true, candlestickDao, orderDao, aggregator, 2);
+        int fromTimestamp = td.ETH_3_CANDLESTICK.getTimestamp();
+        int toTimestamp = fromTimestamp + 3600;
+        doReturn(new DexCandlestickAggregator.CachedCandlesticks(fromTimestamp - 900, List.of(td.ETH_3_CANDLESTICK)))
+                .when(aggregator).getCandlesticks(DexCurrency.ETH, TimeFrame.QUARTER, fromTimestamp, toTimestamp);
+
+        TradingDataOutput dataOutput = service.getBars(fromTimestamp, toTimestamp, DexCurrency.ETH, TimeFrame.QUARTER);
+
+        assertEquals("ok", dataOutput.getS());
+        assertEquals(List.of(fromTimestamp), dataOutput.getT());
+        verifyZeroInteractions(candlestickDao, orderDao);
+    }
+
     private OrderDbIdPaginationDbRequest request(long fromDbId, int fromTimestamp, int toTimestamp, int limit) {
         return OrderDbIdPaginationDbRequest.builder()
                 .fromTime(fromTimestamp )
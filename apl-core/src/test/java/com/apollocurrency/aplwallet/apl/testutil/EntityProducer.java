@@ -18,6 +18,7 @@ import org.json.simple.JSONStreamAware;
 
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class EntityProducer {
 
@@ -206,6 +207,11 @@ public class EntityProducer {
                 return null;
             }
 
+            @Override
+            public CompletableFuture<JSONObject> sendAsync(JSONStreamAware request, UUID chainId) {
+                return CompletableFuture.completedFuture(null);
+            }
+
             @Override
             public String getHostWithPort() {
                 return null;
@@ -11,6 +11,12 @@ package com.apollocurrency.aplwallet.apl.crypto;
  */
 final class Curve25519 {
 
+    /* Scratch buffers of the current thread, so that key generation, signing and
+     * verification do not allocate field elements and temporary arrays on each call.
+     * None of the public methods calls another public method, so buffers are never
+     * used by two nested calls. */
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
     /* key size */
     public static final int KEY_SIZE = 32;
 
@@ -125,16 +131,17 @@ final class Curve25519 {
     public static boolean sign(byte[] v, byte[] h, byte[] x, byte[] s) {
         // v = (x - h) s  mod q
         int w, i;
-        byte[] h1 = new byte[32], x1 = new byte[32];
-        byte[] tmp1 = new byte[64];
-        byte[] tmp2 = new byte[64];
+        State state = STATE.get();
+        byte[] h1 = state.h1, x1 = state.x1;
+        byte[] tmp1 = clear(state.tmp64a);
+        byte[] tmp2 = clear(state.tmp64b);
 
         // Don't clobber the arguments, be nice!
         cpy32(h1, h);
         cpy32(x1, x);
 
         // Reduce modulo group order
-        byte[] tmp3=new byte[32];
+        byte[] tmp3 = clear(state.tmp32);
         divmod(tmp3, h1, 32, ORDER, 32);
         divmod(tmp3, x1, 32, ORDER, 32);
 
@@ -161,15 +168,27 @@ final class Curve25519 {
      *   P  [in]  public key
      */
     public static void verify(byte[] Y, byte[] v, byte[] h, byte[] P) {
+        verify(Y, v, 0, h, 0, P);
+    }
+
+    /* Signature verification primitive with signature value and hash taken at the
+     * given offsets, so that they do not have to be copied out of the signature
+     *   Y  [out] signature public key
+     *   v  [in]  signature value, 32 bytes starting from vOffset
+     *   h  [in]  signature hash, 32 bytes starting from hOffset
+     *   P  [in]  public key
+     */
+    public static void verify(byte[] Y, byte[] v, int vOffset, byte[] h, int hOffset, byte[] P) {
         /* Y = v abs(P) + h G  */
-        byte[] d=new byte[32];
+        State state = STATE.get();
+        byte[] d = state.tmp32;
         long10[]
-                p=new long10[]{new long10(),new long10()},
-                s=new long10[]{new long10(),new long10()},
-                yx=new long10[]{new long10(),new long10(),new long10()},
-                yz=new long10[]{new long10(),new long10(),new long10()},
-                t1=new long10[]{new long10(),new long10(),new long10()},
-                t2=new long10[]{new long10(),new long10(),new long10()};
+                p = state.p,
+                s = state.s,
+                yx = state.yx,
+                yz = state.yz,
+                t1 = state.t1,
+                t2 = state.t2;
 
         int vi = 0, hi = 0, di = 0, nvh=0, i, j, k;
 
@@ -184,7 +203,7 @@ final class Curve25519 {
         /* s[1] = (Py^2 + Gy^2 + 2 Py Gy)/(Px - Gx)^2 - Px - Gx - 486662  */
 
         x_to_y2(t1[0], t2[0], p[1]);	/* t2[0] = Py^2  */
-        sqrt(t1[0], t2[0]);	/* t1[0] = Py or -Py  */
+        sqrt(t1[0], t2[0], state);	/* t1[0] = Py or -Py  */
         j = is_negative(t1[0]);		/*      ... check which  */
         t2[0]._0 += 39420360;		/* t2[0] = Py^2 + Gy^2  */
         mul(t2[1], BASE_2Y, t1[0]);/* t2[1] = 2 Py Gy or -2 Py Gy  */
@@ -193,7 +212,7 @@ final class Curve25519 {
         cpy(t2[0], p[1]);		/* t2[0] = Px  */
         t2[0]._0 -= 9;			/* t2[0] = Px - Gx  */
         sqr(t2[1], t2[0]);		/* t2[1] = (Px - Gx)^2  */
-        recip(t2[0], t2[1], 0);	/* t2[0] = 1/(Px - Gx)^2  */
+        recip(t2[0], t2[1], 0, state);	/* t2[0] = 1/(Px - Gx)^2  */
         mul(s[0], t1[0], t2[0]);	/* s[0] = t1[0]/(Px - Gx)^2  */
         sub(s[0], s[0], p[1]);	/* s[0] = t1[0]/(Px - Gx)^2 - Px  */
         s[0]._0 -= 9 + 486662;		/* s[0] = X(P+G)  */
@@ -206,8 +225,8 @@ final class Curve25519 {
 
         /* prepare the chain  */
         for (i = 0; i < 32; i++) {
-            vi = (vi >> 8) ^ (v[i] & 0xFF) ^ ((v[i] & 0xFF) << 1);
-            hi = (hi >> 8) ^ (h[i] & 0xFF) ^ ((h[i] & 0xFF) << 1);
+            vi = (vi >> 8) ^ (v[vOffset + i] & 0xFF) ^ ((v[vOffset + i] & 0xFF) << 1);
+            hi = (hi >> 8) ^ (h[hOffset + i] & 0xFF) ^ ((h[hOffset + i] & 0xFF) << 1);
             nvh = ~(vi ^ hi);
             di = (nvh & (di & 0x80) >> 7) ^ vi;
             di ^= nvh & (di & 0x01) << 1;
@@ -241,8 +260,8 @@ final class Curve25519 {
 
         /* and go for it! */
         for (i = 32; i--!=0; ) {
-            vi = (vi << 8) | (v[i] & 0xFF);
-            hi = (hi << 8) | (h[i] & 0xFF);
+            vi = (vi << 8) | (v[vOffset + i] & 0xFF);
+            hi = (hi << 8) | (h[hOffset + i] & 0xFF);
             di = (di << 8) | (d[i] & 0xFF);
 
             for (j = 8; j--!=0; ) {
@@ -264,18 +283,24 @@ final class Curve25519 {
         }
 
         k = (vi & 1) + (hi & 1);
-        recip(t1[0], yz[k], 0);
+        recip(t1[0], yz[k], 0, state);
         mul(t1[1], yx[k], t1[0]);
 
         pack(t1[1], Y);
     }
 
     public static boolean isCanonicalSignature(byte[] v) {
-        byte[] vCopy = java.util.Arrays.copyOfRange(v, 0, 32);
-        byte[] tmp = new byte[32];
-        divmod(tmp, vCopy, 32, ORDER, 32);
+        return isCanonicalSignature(v, 0);
+    }
+
+    /* Check that signature value (32 bytes starting from offset) is reduced modulo group order */
+    public static boolean isCanonicalSignature(byte[] v, int offset) {
+        State state = STATE.get();
+        byte[] vCopy = state.x1;
+        System.arraycopy(v, offset, vCopy, 0, 32);
+        divmod(state.tmp32, vCopy, 32, ORDER, 32);
         for (int i = 0; i < 32; i++){
-            if (v[i] != vCopy[i])
+            if (v[offset + i] != vCopy[i])
                 return false;
         }
         return true;
@@ -285,9 +310,10 @@ final class Curve25519 {
         if ( publicKey.length != 32 ) {
             return false;
         }
-        long10 publicKeyUnpacked = new long10();
+        State state = STATE.get();
+        long10 publicKeyUnpacked = state.dx;
         unpack(publicKeyUnpacked, publicKey);
-        byte[] publicKeyCopy = new byte[32];
+        byte[] publicKeyCopy = state.tmp32;
         pack(publicKeyUnpacked, publicKeyCopy);
         for (int i = 0; i < 32; i++){
             if (publicKeyCopy[i] != publicKey[i]) {
@@ -316,6 +342,30 @@ final class Curve25519 {
         public long _0,_1,_2,_3,_4,_5,_6,_7,_8,_9;
     }
 
+    /* Reusable temporaries of one thread. Field elements are always fully written
+     * before they are read, byte arrays which are accumulated into are cleared
+     * before use. */
+    private static final class State {
+        /* core */
+        final long10 dx = new long10(), c1 = new long10(), c2 = new long10(), c3 = new long10(), c4 = new long10();
+        final long10[] x = {new long10(), new long10()}, z = {new long10(), new long10()};
+        /* recip */
+        final long10 r0 = new long10(), r1 = new long10(), r2 = new long10(), r3 = new long10(), r4 = new long10();
+        /* sqrt */
+        final long10 q0 = new long10(), q1 = new long10(), q2 = new long10();
+        /* verify */
+        final long10[]
+                p = {new long10(), new long10()},
+                s = {new long10(), new long10()},
+                yx = {new long10(), new long10(), new long10()},
+                yz = {new long10(), new long10(), new long10()},
+                t1 = {new long10(), new long10(), new long10()},
+                t2 = {new long10(), new long10(), new long10()};
+        /* radix 2^8 math */
+        final byte[] h1 = new byte[32], x1 = new byte[32], tmp32 = new byte[32];
+        final byte[] tmp64a = new byte[64], tmp64b = new byte[64];
+    }
+
     /********************* radix 2^8 math *********************/
 
     private static void cpy32(byte[] d, byte[] s) {
@@ -324,6 +374,11 @@ final class Curve25519 {
             d[i] = s[i];
     }
 
+    private static byte[] clear(byte[] b) {
+        java.util.Arrays.fill(b, (byte) 0);
+        return b;
+    }
+
     /* p[m..n+m-1] = q[m..n+m-1] + z * x */
     /* n is the size of x */
     /* n+m is the size of p and q */
@@ -392,7 +447,7 @@ final class Curve25519 {
      * as 32-byte signed.
      * x and y must have 64 bytes space for temporary use.
      * requires that a[-1] and b[-1] are valid memory locations  */
-    private static byte[] egcd32(byte[] x,byte[] y,byte[] a,byte[] b) {
+    private static byte[] egcd32(byte[] x,byte[] y,byte[] a,byte[] b,byte[] temp) {
         int an, bn = 32, qn, i;
         for (i = 0; i < 32; i++)
             x[i] = y[i] = 0;
@@ -400,7 +455,6 @@ final class Curve25519 {
         an = numsize(a, 32);
         if (an==0)
             return y;	/* division by zero */
-        byte[] temp=new byte[32];
         while (true) {
             qn = bn - an + 1;
             divmod(temp, b, bn, a, an);
@@ -695,13 +749,13 @@ final class Curve25519 {
     /* Calculates a reciprocal.  The output is in reduced form, the inputs need not
      * be.  Simply calculates  y = x^(p-2)  so it's not too fast. */
     /* When sqrtassist is true, it instead calculates y = x^((p-5)/8) */
-    private static void recip(long10 y, long10 x, int sqrtassist) {
+    private static void recip(long10 y, long10 x, int sqrtassist, State state) {
         long10
-                t0=new long10(),
-                t1=new long10(),
-                t2=new long10(),
-                t3=new long10(),
-                t4=new long10();
+                t0=state.r0,
+                t1=state.r1,
+                t2=state.r2,
+                t3=state.r3,
+                t4=state.r4;
         int i;
         /* the chain for x^(2^255-21) is straight from djb's implementation */
         sqr(t1, x);	/*  2 == 2 * 1	*/
@@ -774,10 +828,10 @@ final class Curve25519 {
     }
 
     /* a square root */
-    private static void sqrt(long10 x, long10 u) {
-        long10 v=new long10(), t1=new long10(), t2=new long10();
+    private static void sqrt(long10 x, long10 u, State state) {
+        long10 v=state.q0, t1=state.q1, t2=state.q2;
         add(t1, u, u);	/* t1 = 2u		*/
-        recip(v, t1, 1);	/* v = (2u)^((p-5)/8)	*/
+        recip(v, t1, 1, state);	/* v = (2u)^((p-5)/8)	*/
         sqr(x, v);		/* x = v^2		*/
         mul(t2, t1, x);	/* t2 = 2uv^2		*/
         t2._0--;		/* t2 = 2uv^2-1		*/
@@ -838,15 +892,16 @@ final class Curve25519 {
 
     /* P = kG   and  s = sign(P)/k  */
     private static void core(byte[] Px, byte[] s, byte[] k, byte[] Gx) {
+        State state = STATE.get();
         long10
-                dx=new long10(),
-                t1=new long10(),
-                t2=new long10(),
-                t3=new long10(),
-                t4=new long10();
+                dx=state.dx,
+                t1=state.c1,
+                t2=state.c2,
+                t3=state.c3,
+                t4=state.c4;
         long10[]
-                x=new long10[]{new long10(),new long10()},
-                z=new long10[]{new long10(),new long10()};
+                x=state.x,
+                z=state.z;
         int i, j;
 
         /* unpack the base */
@@ -885,14 +940,14 @@ final class Curve25519 {
             }
         }
 
-        recip(t1, z[0], 0);
+        recip(t1, z[0], 0, state);
         mul(dx, x[0], t1);
         pack(dx, Px);
 
         /* calculate s such that s abs(P) = G  .. assumes G is std base point */
         if (s!=null) {
             x_to_y2(t2, t1, dx);	/* t1 = Py^2  */
-            recip(t3, z[1], 0);	/* where Q=P+G ... */
+            recip(t3, z[1], 0, state);	/* where Q=P+G ... */
             mul(t2, x[1], t3);	/* t2 = Qx  */
             add(t2, t2, dx);	/* t2 = Qx + Px  */
             t2._0 += 9 + 486662;	/* t2 = Qx + Px + Gx + 486662  */
@@ -912,11 +967,11 @@ final class Curve25519 {
             //divmod((dstptr) t1, s, 32, order25519, 32);
 
             /* take reciprocal of s mod q */
-            byte[] temp1=new byte[32];
-            byte[] temp2=new byte[64];
-            byte[] temp3=new byte[64];
+            byte[] temp1=state.h1;
+            byte[] temp2=clear(state.tmp64a);
+            byte[] temp3=clear(state.tmp64b);
             cpy32(temp1, ORDER);
-            cpy32(s, egcd32(temp2, temp3, s, temp1));
+            cpy32(s, egcd32(temp2, temp3, s, temp1, clear(state.tmp32)));
             if ((s[31] & 0x80)!=0)
                 mula_small(s, s, 0, ORDER, 32, 1);
         }
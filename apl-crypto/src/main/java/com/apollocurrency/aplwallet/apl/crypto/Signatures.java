@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.crypto;
+
+import org.slf4j.Logger;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * EC-KCDSA signing and verification over Curve25519, which produces and accepts the same signatures as
+ * {@link Crypto#sign(byte[], byte[])} and {@link Crypto#verify(byte[], byte[], byte[])}, but does not allocate
+ * memory on each call.
+ * <p>SHA-256 digest and all intermediate 32-byte values are kept per thread and reused, signature halves are
+ * read in place instead of being copied. Intended for the hot paths, such as signature verification of the
+ * incoming blocks and transactions.</p>
+ */
+public final class Signatures {
+    private static final Logger LOG = getLogger(Signatures.class);
+
+    public static final int SIGNATURE_LENGTH = 64;
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private Signatures() {}
+
+    /**
+     * Sign message and write signature into the given buffer
+     * @param message message to sign
+     * @param keySeed private key seed, is not modified
+     * @param signature buffer for the signature
+     * @param offset position of the signature in the buffer, buffer should have at least 64 bytes from this position
+     */
+    public static void sign(byte[] message, byte[] keySeed, byte[] signature, int offset) {
+        State state = STATE.get();
+        MessageDigest digest = state.digest;
+        System.arraycopy(keySeed, 0, state.k, 0, 32);
+        Curve25519.keygen(state.P, state.s, state.k);
+
+        digest.update(message);
+        digest(digest, state.m);
+
+        digest.update(state.m);
+        digest.update(state.s);
+        digest(digest, state.x);
+
+        Curve25519.keygen(state.Y, null, state.x);
+
+        digest.update(state.m);
+        digest.update(state.Y);
+        digest(digest, state.h);
+
+        Curve25519.sign(state.v, state.h, state.x, state.s);
+
+        System.arraycopy(state.v, 0, signature, offset, 32);
+        System.arraycopy(state.h, 0, signature, offset + 32, 32);
+    }
+
+    /**
+     * @return new 64-byte signature of the message
+     * @see #sign(byte[], byte[], byte[], int)
+     */
+    public static byte[] sign(byte[] message, byte[] keySeed) {
+        byte[] signature = new byte[SIGNATURE_LENGTH];
+        sign(message, keySeed, signature, 0);
+        return signature;
+    }
+
+    public static boolean verify(byte[] signature, byte[] message, byte[] publicKey) {
+        if (signature.length != SIGNATURE_LENGTH) {
+            return false;
+        }
+        return verify(signature, 0, message, 0, message.length, publicKey);
+    }
+
+    /**
+     * Verify signature of the message part without copying signature and message
+     * @param signature buffer, which contains signature
+     * @param signatureOffset position of the 64-byte signature in the buffer
+     * @param message buffer, which contains signed message
+     * @param messageOffset position of the message in the buffer
+     * @param messageLength length of the message
+     * @param publicKey 32-byte public key of the signer
+     * @return true when signature is canonical and valid
+     */
+    public static boolean verify(byte[] signature, int signatureOffset, byte[] message, int messageOffset, int messageLength, byte[] publicKey) {
+        try {
+            if (signature.length - signatureOffset < SIGNATURE_LENGTH) {
+                return false;
+            }
+            if (!Curve25519.isCanonicalSignature(signature, signatureOffset)) {
+                LOG.debug("Rejecting non-canonical signature");
+                return false;
+            }
+            if (!Curve25519.isCanonicalPublicKey(publicKey)) {
+                LOG.debug("Rejecting non-canonical public key");
+                return false;
+            }
+            State state = STATE.get();
+            MessageDigest digest = state.digest;
+            Curve25519.verify(state.Y, signature, signatureOffset, signature, signatureOffset + 32, publicKey);
+
+            digest.update(message, messageOffset, messageLength);
+            digest(digest, state.m);
+            digest.update(state.m);
+            digest.update(state.Y);
+            digest(digest, state.h);
+
+            int diff = 0;
+            for (int i = 0; i < 32; i++) {
+                diff |= state.h[i] ^ signature[signatureOffset + 32 + i];
+            }
+            return diff == 0;
+        } catch (RuntimeException e) {
+            STATE.get().digest.reset();
+            LOG.error("Error verifying signature", e);
+            return false;
+        }
+    }
+
+    private static void digest(MessageDigest digest, byte[] out) {
+        try {
+            digest.digest(out, 0, 32);
+        } catch (DigestException e) {
+            digest.reset();
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static final class State {
+        private final MessageDigest digest = Crypto.sha256();
+        private final byte[] k = new byte[32];
+        private final byte[] P = new byte[32];
+        private final byte[] s = new byte[32];
+        private final byte[] m = new byte[32];
+        private final byte[] x = new byte[32];
+        private final byte[] Y = new byte[32];
+        private final byte[] h = new byte[32];
+        private final byte[] v = new byte[32];
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *  Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.crypto;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class SignaturesTest {
+    private static final String SECRET_PHRASE = "test secret phrase";
+    private final Random random = new Random(42);
+
+    @Test
+    void testSignSameAsCrypto() {
+        for (int i = 0; i < 20; i++) {
+            byte[] keySeed = Crypto.getKeySeed(SECRET_PHRASE + i);
+            byte[] message = randomBytes(i * 17);
+
+            byte[] expected = Crypto.sign(message, keySeed.clone());
+            byte[] signature = Signatures.sign(message, keySeed);
+
+            assertArrayEquals(expected, signature);
+        }
+    }
+
+    @Test
+    void testSignDoesNotModifyKeySeed() {
+        byte[] keySeed = Crypto.getKeySeed(SECRET_PHRASE);
+        byte[] copy = keySeed.clone();
+
+        Signatures.sign(randomBytes(10), keySeed);
+
+        assertArrayEquals(copy, keySeed);
+    }
+
+    @Test
+    void testVerify() {
+        byte[] keySeed = Crypto.getKeySeed(SECRET_PHRASE);
+        byte[] publicKey = Crypto.getPublicKey(keySeed);
+        byte[] message = randomBytes(100);
+        byte[] signature = Crypto.sign(message, keySeed);
+
+        assertTrue(Signatures.verify(signature, message, publicKey));
+
+        for (int i = 0; i < 64; i++) {
+            byte[] corrupted = signature.clone();
+            corrupted[i] ^= 1 << (i % 8);
+            assertEquals(Crypto.verify(corrupted, message, publicKey), Signatures.verify(corrupted, message, publicKey));
+            assertFalse(Signatures.verify(corrupted, message, publicKey));
+        }
+        assertFalse(Signatures.verify(signature, randomBytes(100), publicKey));
+        assertFalse(Signatures.verify(new byte[63], message, publicKey));
+    }
+
+    @Test
+    void testSignAndVerifyWithOffsets() {
+        byte[] keySeed = Crypto.getKeySeed(SECRET_PHRASE);
+        byte[] message = randomBytes(50);
+        byte[] buffer = new byte[message.length + 10 + Signatures.SIGNATURE_LENGTH];
+        System.arraycopy(message, 0, buffer, 5, message.length);
+
+        Signatures.sign(message, keySeed, buffer, message.length + 10);
+
+        assertTrue(Signatures.verify(buffer, message.length + 10, buffer, 5, message.length, Crypto.getPublicKey(keySeed)));
+        assertFalse(Signatures.verify(buffer, message.length + 11, buffer, 5, message.length, Crypto.getPublicKey(keySeed)));
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -9,12 +9,14 @@ import com.apollocurrency.aplwallet.apl.tools.cmdline.CmdLineArgs;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.CompactDbCmd;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.ConstantsCmd;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.HeightMonitorCmd;
+import com.apollocurrency.aplwallet.apl.tools.cmdline.MvStoreCmd;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.PubKeyCmd;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.SignTxCmd;
 import com.apollocurrency.aplwallet.apl.tools.cmdline.UpdaterUrlCmd;
 import com.apollocurrency.aplwallet.apl.tools.impl.CompactDatabase;
 import com.apollocurrency.aplwallet.apl.tools.impl.ConstantsExporter;
 import com.apollocurrency.aplwallet.apl.tools.impl.GeneratePublicKey;
+import com.apollocurrency.aplwallet.apl.tools.impl.MvStoreConverter;
 import com.apollocurrency.aplwallet.apl.tools.impl.SignTransactions;
 import com.apollocurrency.aplwallet.apl.tools.impl.UpdaterUrlUtils;
 import com.apollocurrency.aplwallet.apl.tools.impl.heightmon.HeightMonitor;
@@ -65,6 +67,7 @@ public class ApolloTools {
     private static Logger log;
     private static final CmdLineArgs args = new CmdLineArgs();
     private static final CompactDbCmd compactDb = new CompactDbCmd();
+    private static final MvStoreCmd mvStoreCmd = new MvStoreCmd();
     private static final HeightMonitorCmd heightMonitorCmd = new HeightMonitorCmd();
     private static final PubKeyCmd pubkey = new PubKeyCmd();
     private static final SignTxCmd signtx = new SignTxCmd();
@@ -149,28 +152,49 @@ public class ApolloTools {
         return res;
     }
 
-    private int compactDB() {
-        if (!compactDb.chainID.isEmpty()) {
+    /**
+     * Switch dir provider to the given chain
+     * @param chainID chain id or empty string to use active chain
+     * @return exit code indication error or success
+     */
+    private int selectChain(String chainID) {
+        if (!chainID.isEmpty()) {
             try {
-                UUID blockchainId = UUID.fromString(compactDb.chainID);
+                UUID blockchainId = UUID.fromString(chainID);
                 Chain c = chains.get(blockchainId);
                 if(c==null){
-                    System.out.println("Chain not coonfigured: "+compactDb.chainID);
+                    System.out.println("Chain not coonfigured: "+chainID);
                     return PosixExitCodes.EX_CONFIG.exitCode();
                 }
                 DirProviderFactory.setup(false, blockchainId, Constants.APPLICATION_DIR_NAME, dirLocations);
                 dirProvider = DirProviderFactory.getProvider();
             } catch (IllegalArgumentException ex) {
-                System.err.println("Can not convert chain ID " + compactDb.chainID + " to UUID");
+                System.err.println("Can not convert chain ID " + chainID + " to UUID");
                 return PosixExitCodes.EX_CONFIG.exitCode();
             }
         }
+        return PosixExitCodes.OK.exitCode();
+    }
+
+    private int compactDB() {
+        int res = selectChain(compactDb.chainID);
+        if (res != PosixExitCodes.OK.exitCode()) {
+            return res;
+        }
         CompactDatabase cdb = new CompactDatabase(propertiesHolder, dirProvider);
         
         return cdb.compactDatabase();
 
     }
 
+    private int mvStore() {
+        int res = selectChain(mvStoreCmd.chainID);
+        if (res != PosixExitCodes.OK.exitCode()) {
+            return res;
+        }
+        return new MvStoreConverter(propertiesHolder, dirProvider).convertDatabases();
+    }
+
     private int heightMonitor() {
         try {
             String peerFile = heightMonitorCmd.peerFile;
@@ -229,6 +253,7 @@ public class ApolloTools {
         JCommander jc = JCommander.newBuilder()
                 .addObject(args)
                 .addCommand(CompactDbCmd.CMD, compactDb)
+                .addCommand(MvStoreCmd.CMD, mvStoreCmd)
                 .addCommand(HeightMonitorCmd.CMD, heightMonitorCmd)
                 .addCommand(PubKeyCmd.CMD, pubkey)
                 .addCommand(SignTxCmd.CMD, signtx)
@@ -255,6 +280,9 @@ public class ApolloTools {
         } else if (jc.getParsedCommand().equalsIgnoreCase(CompactDbCmd.CMD)) {
             toolsApp.readConfigs(args.testnetIdx);
             System.exit(toolsApp.compactDB());
+        } else if (jc.getParsedCommand().equalsIgnoreCase(MvStoreCmd.CMD)) {
+            toolsApp.readConfigs(args.testnetIdx);
+            System.exit(toolsApp.mvStore());
         } else if (jc.getParsedCommand().equalsIgnoreCase(HeightMonitorCmd.CMD)) {
             toolsApp.heightMonitor();
         } else if (jc.getParsedCommand().equalsIgnoreCase(PubKeyCmd.CMD)) {
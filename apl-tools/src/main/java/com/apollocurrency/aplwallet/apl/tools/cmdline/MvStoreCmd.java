@@ -0,0 +1,14 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.tools.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+
+@Parameters(commandDescription = "Convert main and shard databases from H2 page store to MVStore")
+public class MvStoreCmd {
+    public static final String CMD = "mvstore";
+    @Parameter(names = {"--chainId", "-c"}, description = "Chain ID")
+    public String chainID = "";
+}
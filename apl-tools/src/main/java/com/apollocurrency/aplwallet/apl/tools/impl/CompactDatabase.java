@@ -29,9 +29,10 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
-import com.apollocurrency.aplwallet.apl.util.Constants;
+import com.apollocurrency.aplwallet.apl.core.db.H2StorageEngine;
 import com.apollocurrency.aplwallet.apl.util.env.PosixExitCodes;
 import com.apollocurrency.aplwallet.apl.util.env.config.Chain;
 import com.apollocurrency.aplwallet.apl.util.env.config.ChainsConfigLoader;
@@ -95,14 +96,21 @@ public class CompactDatabase {
         //TODO: this SQL script is lost. Dvelop new one and place in resources,
         // read it from resources
         File sqlFile = new File(dbProperties.getDbDir(), "backup.sql.gz");
-        File dbFile = new File(dbProperties.getDbDir(), dbProperties.getDbFileName()+".h2.db");
-        if (!dbFile.exists()) {
-            dbFile = new File(dbProperties.getDbDir(), Constants.APPLICATION_DIR_NAME + ".mv.db");
-            if (!dbFile.exists()) {
-                LOG.error("{} database not found", dbProperties.getDbDir());
-                return 1;
-            }
+        String dbPath = new File(dbProperties.getDbDir(), dbProperties.getDbFileName()).getPath();
+        //
+        // Compacted database keeps storage engine of the existing database file, otherwise H2 would create new empty
+        // database, when configured MV_STORE parameter does not match the file
+        //
+        Optional<H2StorageEngine> detectedEngine = H2StorageEngine.detect(dbPath);
+        if (!detectedEngine.isPresent() && !H2StorageEngine.PAGE_STORE.exists(dbPath)) {
+            LOG.error("{} database not found", dbPath);
+            return 1;
         }
+        H2StorageEngine engine = detectedEngine.orElseGet(() -> H2StorageEngine.configured(dbProperties.getDbParams()));
+        String dbUrl = dbProperties.getDbUrl() != null
+                ? engine.applyTo(dbProperties.getDbUrl())
+                : String.format("jdbc:h2:file:%s;%s", dbPath, engine.applyTo(dbProperties.getDbParams()));
+        File dbFile = new File(dbPath + engine.getFileSuffix());
         File oldFile = new File(dbFile.getPath() + ".bak");
         try {
             //
@@ -114,7 +122,7 @@ public class CompactDatabase {
                     throw new IOException(String.format("Unable to delete '%s'", sqlFile.getPath()));
                 }
             }
-            try (Connection conn = getConnection(dbProperties.getDbUrl(), dbProperties.getDbUsername(), dbProperties.getDbPassword());
+            try (Connection conn = getConnection(dbUrl, dbProperties.getDbUsername(), dbProperties.getDbPassword());
                 Statement s = conn.createStatement()) {
                 s.execute("SCRIPT TO '" + sqlFile.getPath() + "' COMPRESSION GZIP CHARSET 'UTF-8'");
             }
@@ -127,7 +135,7 @@ public class CompactDatabase {
                                                     dbFile.getPath(), oldFile.getPath()));
             }
             phase = 1;
-            try (Connection conn = getConnection(dbProperties.getDbUrl(), dbProperties.getDbUsername(), dbProperties.getDbPassword());
+            try (Connection conn = getConnection(dbUrl, dbProperties.getDbUsername(), dbProperties.getDbPassword());
                 Statement s = conn.createStatement()) {
                 s.execute("RUNSCRIPT FROM '" + sqlFile.getPath() + "' COMPRESSION GZIP CHARSET 'UTF-8'");
                 s.execute("ANALYZE");
@@ -156,18 +164,11 @@ public class CompactDatabase {
                     //
                     // We failed while creating the new database
                     //
-                    File newFile = new File(dbProperties.getDbDir(), Constants.APPLICATION_DIR_NAME + ".h2.db");
+                    File newFile = dbFile;
                     if (newFile.exists()) {
                         if (!newFile.delete()) {
                             LOG.error(String.format("Unable to delete '%s'", newFile.getPath()));
                         }
-                    } else {
-                        newFile = new File(dbProperties.getDbDir(), Constants.APPLICATION_DIR_NAME + ".mv.db");
-                        if (newFile.exists()) {
-                            if (!newFile.delete()) {
-                                LOG.error(String.format("Unable to delete '%s'", newFile.getPath()));
-                            }
-                        }
                     }
                     if (!oldFile.renameTo(dbFile)) {
                         LOG.error(String.format("Unable to rename '%s' to '%s'",
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.tools.impl;
+
+import com.apollocurrency.aplwallet.apl.core.db.H2StorageEngine;
+import com.apollocurrency.aplwallet.apl.util.env.PosixExitCodes;
+import com.apollocurrency.aplwallet.apl.util.env.dirprovider.DirProvider;
+import com.apollocurrency.aplwallet.apl.util.injectable.PropertiesHolder;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Convert the main and shard H2 databases from the page store to the MVStore. The Apollo application must not be
+ * running.
+ * <p>Each database is exported to the compressed SQL script and imported into the new MVStore database, row counts
+ * of all tables are compared before the new database replaces the old one. Old database file is kept with the '.bak'
+ * suffix, application opens converted database as MVStore regardless of the MV_STORE parameter in the apl.dbParams.
+ * Time and file sizes of every conversion are logged to estimate the downtime of the other nodes.</p>
+ * <p>When conversion fails, old database is left untouched and temporary files are removed.</p>
+ */
+public class MvStoreConverter {
+    private static final Logger LOG = getLogger(MvStoreConverter.class);
+    private static final String TEMP_DB_SUFFIX = "-mvstore-tmp";
+    private static final String BACKUP_SUFFIX = ".bak";
+
+    private final PropertiesHolder propertiesHolder;
+    private final DirProvider dirProvider;
+
+    public MvStoreConverter(PropertiesHolder propertiesHolder, DirProvider dirProvider) {
+        this.propertiesHolder = propertiesHolder;
+        this.dirProvider = dirProvider;
+    }
+
+    /**
+     * Convert all page store databases of the chain
+     * @return exit code indication error or success
+     */
+    public int convertDatabases() {
+        if (!"h2".equals(propertiesHolder.getStringProperty("apl.dbType"))) {
+            LOG.error("Database type must be 'h2'");
+            return PosixExitCodes.EX_CONFIG.exitCode();
+        }
+        Path dbDir = dirProvider.getDbDir();
+        List<String> dbPaths;
+        try {
+            dbPaths = findPageStoreDatabases(dbDir);
+        } catch (IOException e) {
+            LOG.error("Unable to list databases in " + dbDir, e);
+            return PosixExitCodes.EX_OSFILE.exitCode();
+        }
+        if (dbPaths.isEmpty()) {
+            LOG.info("No page store databases found in {}", dbDir);
+            return PosixExitCodes.OK.exitCode();
+        }
+        long startTime = System.currentTimeMillis();
+        long oldSize = 0;
+        long newSize = 0;
+        for (String dbPath : dbPaths) {
+            try {
+                oldSize += Files.size(Paths.get(dbPath + H2StorageEngine.PAGE_STORE.getFileSuffix()));
+                newSize += convert(dbPath);
+            } catch (IOException | SQLException | RuntimeException e) {
+                LOG.error("Unable to convert database " + dbPath, e);
+                return PosixExitCodes.EX_OSFILE.exitCode();
+            }
+        }
+        LOG.info("Converted {} databases in {} ms, total size {} -> {} bytes",
+                dbPaths.size(), System.currentTimeMillis() - startTime, oldSize, newSize);
+        return PosixExitCodes.OK.exitCode();
+    }
+
+    /**
+     * @return paths of the page store databases without suffix, which were not converted yet
+     */
+    private List<String> findPageStoreDatabases(Path dbDir) throws IOException {
+        String suffix = H2StorageEngine.PAGE_STORE.getFileSuffix();
+        try (Stream<Path> files = Files.list(dbDir)) {
+            return files
+                    .map(path -> path.toAbsolutePath().toString())
+                    .filter(path -> path.endsWith(suffix))
+                    .map(path -> path.substring(0, path.length() - suffix.length()))
+                    .filter(dbPath -> {
+                        if (H2StorageEngine.MV_STORE.exists(dbPath)) {
+                            LOG.warn("Skip {}, both page store and MVStore databases exist", dbPath);
+                            return false;
+                        }
+                        return true;
+                    })
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @param dbPath path of the page store database without suffix
+     * @return size of the new database file
+     */
+    private long convert(String dbPath) throws IOException, SQLException {
+        String dbParams = propertiesHolder.getStringProperty("apl.dbParams", "");
+        Path pageStoreFile = Paths.get(dbPath + H2StorageEngine.PAGE_STORE.getFileSuffix());
+        Path tempFile = Paths.get(dbPath + TEMP_DB_SUFFIX + H2StorageEngine.MV_STORE.getFileSuffix());
+        Path mvStoreFile = Paths.get(dbPath + H2StorageEngine.MV_STORE.getFileSuffix());
+        Path sqlFile = Paths.get(dbPath + ".sql.gz");
+        LOG.info("Converting {}, size {} bytes", dbPath, Files.size(pageStoreFile));
+        boolean converted = false;
+        try {
+            long startTime = System.currentTimeMillis();
+            Map<String, Long> rowCounts;
+            try (Connection con = getConnection(dbPath, H2StorageEngine.PAGE_STORE.applyTo(dbParams));
+                 Statement stmt = con.createStatement()) {
+                rowCounts = countRows(con);
+                stmt.execute("SCRIPT TO '" + sqlFile + "' COMPRESSION GZIP CHARSET 'UTF-8'");
+            }
+            long exportTime = System.currentTimeMillis() - startTime;
+            try (Connection con = getConnection(dbPath + TEMP_DB_SUFFIX, H2StorageEngine.MV_STORE.applyTo(dbParams));
+                 Statement stmt = con.createStatement()) {
+                stmt.execute("RUNSCRIPT FROM '" + sqlFile + "' COMPRESSION GZIP CHARSET 'UTF-8'");
+                Map<String, Long> convertedRowCounts = countRows(con);
+                if (!rowCounts.equals(convertedRowCounts)) {
+                    throw new SQLException(String.format("Row counts do not match, expected %s, got %s",
+                            rowCounts, convertedRowCounts));
+                }
+                stmt.execute("ANALYZE");
+                stmt.execute("SHUTDOWN COMPACT");
+            }
+            long importTime = System.currentTimeMillis() - startTime - exportTime;
+            Files.move(tempFile, mvStoreFile);
+            converted = true;
+            Files.move(pageStoreFile, Paths.get(pageStoreFile + BACKUP_SUFFIX));
+            long size = Files.size(mvStoreFile);
+            LOG.info("Converted {} in {} ms (export {} ms, import {} ms), {} rows in {} tables, new size {} bytes",
+                    dbPath, exportTime + importTime, exportTime, importTime,
+                    rowCounts.values().stream().mapToLong(Long::longValue).sum(), rowCounts.size(), size);
+            return size;
+        } finally {
+            Files.deleteIfExists(sqlFile);
+            if (!converted) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    private Map<String, Long> countRows(Connection con) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (Statement stmt = con.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT TABLE_SCHEMA, TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                     + "WHERE TABLE_TYPE = 'TABLE' AND TABLE_SCHEMA <> 'INFORMATION_SCHEMA'")) {
+            while (rs.next()) {
+                tables.add("\"" + rs.getString(1) + "\".\"" + rs.getString(2) + "\"");
+            }
+        }
+        Map<String, Long> rowCounts = new TreeMap<>();
+        try (Statement stmt = con.createStatement()) {
+            for (String table : tables) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+                    rs.next();
+                    rowCounts.put(table, rs.getLong(1));
+                }
+            }
+        }
+        return rowCounts;
+    }
+
+    private Connection getConnection(String dbPath, String dbParams) throws SQLException {
+        return DriverManager.getConnection("jdbc:h2:file:" + dbPath + ";" + dbParams,
+                propertiesHolder.getStringProperty("apl.dbUsername"),
+                propertiesHolder.getStringProperty("apl.dbPassword", null, true));
+    }
+}
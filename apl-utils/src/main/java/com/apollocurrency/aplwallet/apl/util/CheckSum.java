@@ -24,4 +24,8 @@ public class CheckSum {
     void update(byte[] dataBuf, int size) {
         cs.update(dataBuf, 0, size);
     }
+
+    public void update(byte[] dataBuf, int offset, int size) {
+        cs.update(dataBuf, offset, size);
+    }
 }
@@ -9,10 +9,13 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -76,9 +79,21 @@ public class ChunkedFileOps {
     }
 
     public synchronized void writeChunk(Long offset, byte[] data, long crc) throws IOException{
-        int res=0;
+        writeChunk(offset, data, 0, data.length, crc);
+    }
+
+    /**
+     * Write part of the buffer, which holds several chunks, without copying it
+     * @param offset offset of the chunk in the file
+     * @param data buffer with the chunk data
+     * @param dataOffset offset of the chunk in the buffer
+     * @param length size of the chunk
+     * @param crc expected chunk crc
+     * @throws IOException when chunk crc does not match or write failed
+     */
+    public synchronized void writeChunk(Long offset, byte[] data, int dataOffset, int length, long crc) throws IOException{
         CheckSum cs = new CheckSum();
-        cs.update(data);
+        cs.update(data, dataOffset, length);
         lastWRChunkCrc=cs.finish();
         if(lastWRChunkCrc != crc){
             throw new BadCheckSumException(absPath.toString());
@@ -88,7 +103,7 @@ public class ChunkedFileOps {
         }
         try (RandomAccessFile rf = new RandomAccessFile(absPath.toFile(), "rw")) {
             rf.seek(offset);
-            rf.write(data);
+            rf.write(data, dataOffset, length);
         } catch (IOException e) {
             log.error("Can not write file: {}", absPath.toAbsolutePath().toString());
             throw e;
@@ -101,15 +116,29 @@ public class ChunkedFileOps {
            res=-2;
            return res;
         }
-        RandomAccessFile rf = new RandomAccessFile(absPath.toFile(),"r");
-        rf.skipBytes(offset.intValue());
-        res = rf.read(dataBuf,0,size.intValue());
+        try (RandomAccessFile rf = new RandomAccessFile(absPath.toFile(),"r")) {
+            rf.seek(offset);
+            res = rf.read(dataBuf,0,size.intValue());
+        }
         CheckSum cs = new CheckSum();
         cs.update(dataBuf,size.intValue());
         lastRDChunkCrc=cs.finish();
         return res;
     }
 
+    /**
+     * Map file region to memory to send it without copying to the heap
+     * @param offset offset of the region in the file
+     * @param size size of the region, not greater than remaining file size
+     * @return read-only buffer of the file region
+     * @throws IOException when file can not be read
+     */
+    public MappedByteBuffer mapChunk(long offset, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(absPath, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        }
+    }
+
     public long getLastWRChunkCrc() {
         return lastWRChunkCrc;
     }
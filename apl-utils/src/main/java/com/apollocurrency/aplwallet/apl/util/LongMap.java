@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.util;
+
+import com.apollocurrency.aplwallet.apl.util.cache.InMemoryCacheManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Hash map with primitive long keys, which stores keys and values in two plain arrays using open addressing with
+ * linear probing.
+ * <p>Unlike {@code HashMap<Long, V>} it does not allocate key objects and map entries, so that memory required
+ * per mapping is the long key and the value reference only. Intended for the big id-indexed collections, such as
+ * accounts, transactions and orders.</p>
+ * <p>Null values are not supported. Map is not thread-safe.</p>
+ * @param <V> type of the values
+ */
+public class LongMap<V> {
+    private static final int MIN_CAPACITY = 8;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int threshold;
+
+    public LongMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize number of mappings, which map can hold without resizing
+     */
+    public LongMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(long key) {
+        return values[indexOf(key)] != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[indexOf(key)];
+    }
+
+    /**
+     * @return previous value or null, when there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "value is NULL");
+        int index = indexOf(key);
+        Object previous = values[index];
+        keys[index] = key;
+        values[index] = value;
+        if (previous == null && ++size > threshold) {
+            resize(keys.length * 2);
+        }
+        return (V) previous;
+    }
+
+    /**
+     * @return current value or null, when value was put
+     */
+    public V putIfAbsent(long key, V value) {
+        V current = get(key);
+        if (current == null) {
+            put(key, value);
+        }
+        return current;
+    }
+
+    /**
+     * @return removed value or null, when there was no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int index = indexOf(key);
+        Object previous = values[index];
+        if (previous != null) {
+            removeAt(index);
+        }
+        return (V) previous;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            allocate(MIN_CAPACITY);
+            size = 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                consumer.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    /**
+     * @return new array of all keys in the map order
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int j = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                result[j++] = keys[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return new list of all values in the map order
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        for (Object value : values) {
+            if (value != null) {
+                result.add((V) value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove first mapping, which is stored at or after the given position of the internal array, and return its key.
+     * Used to evict entries in the array order without keeping any access order data
+     * @param position any number, is wrapped to the array length
+     * @return key of the removed mapping
+     * @throws IllegalStateException when map is empty
+     */
+    public long removeNext(int position) {
+        if (size == 0) {
+            throw new IllegalStateException("Map is empty");
+        }
+        int mask = values.length - 1;
+        int index = position & mask;
+        while (values[index] == null) {
+            index = (index + 1) & mask;
+        }
+        long key = keys[index];
+        removeAt(index);
+        return key;
+    }
+
+    /**
+     * @return estimated number of bytes, occupied by the map without values
+     */
+    public long estimateMemoryUsage() {
+        InMemoryCacheManager.MemoryUsageCalculator calc = InMemoryCacheManager.newCalc()
+                .addReference()
+                .addReference()
+                .addInt()
+                .addInt();
+        return calc.calc()
+                + 2L * calc.getArrayExtra()
+                + (long) keys.length * InMemoryCacheManager.MemoryUsageCalculator.LONG_SIZE
+                + (long) values.length * calc.getRefExtra();
+    }
+
+    private int indexOf(long key) {
+        int mask = values.length - 1;
+        int index = hash(key) & mask;
+        while (values[index] != null && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Remove mapping and shift following mappings of the same probe sequence back, so that lookups do not require
+     * deletion markers
+     */
+    private void removeAt(int index) {
+        int mask = values.length - 1;
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // move mapping to the gap, when its home slot is not in the (gap, next] range
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int index = hash(oldKeys[i]) & mask;
+                while (values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Consumer<V> {
+        void accept(long key, V value);
+    }
+}
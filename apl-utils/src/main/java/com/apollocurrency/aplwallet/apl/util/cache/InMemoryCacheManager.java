@@ -31,6 +31,7 @@ public class InMemoryCacheManager {
     private static final long MIN_MEMORY_SIZE_FOR_CACHES = 16 * 1024 * 1024;//in bytes
 
     private ConcurrentHashMap<String, Cache> inMemoryCaches;
+    private ConcurrentHashMap<String, CacheConfiguration> cacheConfigurations;
 
     @Inject
     public InMemoryCacheManager(InMemoryCacheConfigurator configurator) {
@@ -70,6 +71,7 @@ public class InMemoryCacheManager {
     @SuppressWarnings("unchecked")
     private void allocateAllCaches(InMemoryCacheConfigurator configurator) {
         inMemoryCaches = new ConcurrentHashMap<>();
+        cacheConfigurations = new ConcurrentHashMap<>();
         final int sumPriority = configurator.getConfiguredCaches().stream().mapToInt(CacheConfiguration::getCachePriority).sum();
         configurator.getConfiguredCaches().forEach(config -> {
             CacheBuilder builder = configureCache(config, configurator.getAvailableMemory(), sumPriority);
@@ -82,6 +84,7 @@ public class InMemoryCacheManager {
                 cache = builder.build();
             }
             inMemoryCaches.put(config.getCacheName(), cache);
+            cacheConfigurations.put(config.getCacheName(), config);
             log.debug("Allocated cache={}", config);
         });
     }
@@ -108,6 +111,22 @@ public class InMemoryCacheManager {
         return stats;
     }
 
+    /**
+     * Estimate memory, occupied by the cache, using expected size of the cached entries
+     * @param cacheName name of the cache
+     * @return estimated number of bytes or -1, when cache does not exist
+     */
+    public long getEstimatedMemoryUsage(String cacheName) {
+        Cache cache = inMemoryCaches.get(cacheName);
+        if (cache == null) {
+            return -1;
+        }
+        CacheConfiguration config = cacheConfigurations.get(cacheName);
+        //  key#hashCode:int + value#reference
+        int extra = 4 + newCalc().refExtra;
+        return cache.size() * (config.getExpectedElementSize() + extra);
+    }
+
     /**
      * Return new instance of memory calculator
      */
@@ -24,6 +24,9 @@ public class DbProperties implements Cloneable {
     private int loginTimeout;
     private int defaultLockTimeout;
     private int maxMemoryRows;
+    private int minIdleConnections = -1;
+    private long idleTimeout = 20 * 60_000;
+    private boolean readOnly;
     private Long dbIdentity = null;
 
     public long getMaxCacheSize() {
@@ -74,6 +77,27 @@ public class DbProperties implements Cloneable {
         return maxMemoryRows;
     }
 
+    /**
+     * @return min number of idle connections in the pool or -1, when pool keeps max number of connections
+     */
+    public int getMinIdleConnections() {
+        return minIdleConnections;
+    }
+
+    /**
+     * @return time in ms, after which idle connections above the min number are closed
+     */
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * @return true when database should be opened in the read-only mode
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
     public Optional<Long> getDbIdentity() {
         return Optional.ofNullable(dbIdentity);
     }
@@ -143,6 +167,21 @@ public class DbProperties implements Cloneable {
         return this;
     }
 
+    public DbProperties minIdleConnections(int minIdleConnections) {
+        this.minIdleConnections = minIdleConnections;
+        return this;
+    }
+
+    public DbProperties idleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public DbProperties readOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+        return this;
+    }
+
     public DbProperties dbIdentity(long shardIdOrTempId) {
         if (shardIdOrTempId == 0) {
             return this;
@@ -175,6 +214,9 @@ public class DbProperties implements Cloneable {
                 ", loginTimeout=" + loginTimeout +
                 ", defaultLockTimeout=" + defaultLockTimeout +
                 ", maxMemoryRows=" + maxMemoryRows +
+                ", minIdleConnections=" + minIdleConnections +
+                ", idleTimeout=" + idleTimeout +
+                ", readOnly=" + readOnly +
                 ", dbIdentity=" + dbIdentity +
                 '}';
     }
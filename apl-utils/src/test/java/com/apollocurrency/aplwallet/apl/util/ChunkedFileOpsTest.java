@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+package com.apollocurrency.aplwallet.apl.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChunkedFileOpsTest {
+    @RegisterExtension
+    TemporaryFolderExtension temporaryFolderExtension = new TemporaryFolderExtension();
+
+    @Test
+    void testWriteChunksFromRegion() throws IOException {
+        byte[] region = randomBytes(100);
+        Path file = temporaryFolderExtension.getRoot().toPath().resolve("chunks.bin");
+        ChunkedFileOps ops = new ChunkedFileOps(file);
+
+        ops.writeChunk(0L, region, 0, 40, crc(region, 0, 40));
+        ops.writeChunk(40L, region, 40, 60, crc(region, 40, 60));
+
+        assertArrayEquals(region, Files.readAllBytes(file));
+    }
+
+    @Test
+    void testWriteChunkFromRegionWithBadCrc() {
+        byte[] region = randomBytes(100);
+        Path file = temporaryFolderExtension.getRoot().toPath().resolve("chunks.bin");
+        ChunkedFileOps ops = new ChunkedFileOps(file);
+
+        assertThrows(BadCheckSumException.class, () -> ops.writeChunk(40L, region, 40, 60, crc(region, 0, 60)));
+    }
+
+    @Test
+    void testMapChunk() throws IOException {
+        byte[] content = randomBytes(ChunkedFileOps.FILE_CHUNK_SIZE * 2 + 10);
+        Path file = temporaryFolderExtension.newFile("content.bin").toPath();
+        Files.write(file, content);
+        ChunkedFileOps ops = new ChunkedFileOps(file);
+
+        ByteBuffer region = ops.mapChunk(ChunkedFileOps.FILE_CHUNK_SIZE, ChunkedFileOps.FILE_CHUNK_SIZE + 10);
+
+        byte[] regionBytes = new byte[region.remaining()];
+        region.get(regionBytes);
+        assertEquals(ChunkedFileOps.FILE_CHUNK_SIZE + 10, regionBytes.length);
+        assertArrayEquals(Arrays.copyOfRange(content, ChunkedFileOps.FILE_CHUNK_SIZE, content.length), regionBytes);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long crc(byte[] data, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(data, offset, length);
+        return crc32.getValue();
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2018-2019 Apollo Foundation
+ */
+
+package com.apollocurrency.aplwallet.apl.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongMapTest {
+
+    @Test
+    void testPutGetRemove() {
+        LongMap<String> map = new LongMap<>();
+        assertTrue(map.isEmpty());
+
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(-1L, "minus one"));
+        assertNull(map.put(0L, "zero"));
+        assertEquals("one", map.put(1L, "first"));
+
+        assertEquals(3, map.size());
+        assertEquals("first", map.get(1L));
+        assertEquals("minus one", map.get(-1L));
+        assertEquals("zero", map.get(0L));
+        assertTrue(map.containsKey(0L));
+        assertFalse(map.containsKey(2L));
+
+        assertEquals("minus one", map.remove(-1L));
+        assertNull(map.remove(-1L));
+        assertNull(map.get(-1L));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void testPutIfAbsent() {
+        LongMap<String> map = new LongMap<>();
+
+        assertNull(map.putIfAbsent(5L, "five"));
+        assertEquals("five", map.putIfAbsent(5L, "other"));
+        assertEquals("five", map.get(5L));
+    }
+
+    @Test
+    void testNullValueIsNotAllowed() {
+        assertThrows(NullPointerException.class, () -> new LongMap<String>().put(1L, null));
+    }
+
+    @Test
+    void testSameContentAsHashMapWithRandomOperations() {
+        LongMap<Long> map = new LongMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            // narrow key range to get collisions and removals of the existing keys
+            long key = random.nextInt(5_000) * 0x1_0000_0000L;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(expected.get(key), value));
+        long[] keys = map.keys();
+        Arrays.sort(keys);
+        assertArrayEquals(expected.keySet().stream().mapToLong(Long::longValue).sorted().toArray(), keys);
+        assertEquals(expected.size(), map.values().size());
+    }
+
+    @Test
+    void testRemoveNext() {
+        LongMap<String> map = new LongMap<>();
+        for (long i = 0; i < 100; i++) {
+            map.put(i, String.valueOf(i));
+        }
+
+        for (int i = 0; i < 100; i++) {
+            long key = map.removeNext(i * 7);
+            assertNull(map.get(key));
+            assertEquals(99 - i, map.size());
+        }
+        assertThrows(IllegalStateException.class, () -> map.removeNext(0));
+    }
+
+    @Test
+    void testClearAndMemoryUsage() {
+        LongMap<String> map = new LongMap<>(1000);
+        long emptyUsage = map.estimateMemoryUsage();
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, "value");
+        }
+        assertEquals(emptyUsage, map.estimateMemoryUsage());
+        for (long i = 1000; i < 2000; i++) {
+            map.put(i, "value");
+        }
+        assertTrue(map.estimateMemoryUsage() > emptyUsage);
+
+        map.clear();
+
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1L));
+        assertTrue(map.estimateMemoryUsage() < emptyUsage);
+    }
+}
@@ -20,6 +20,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 
@@ -130,6 +131,22 @@ class InMemoryCacheManagerTest {
         assertArrayEquals(Long.toUnsignedString(i * 1000L).getBytes(), cache.getIfPresent(i));
     }
 
+    @Test
+    void testEstimatedMemoryUsage() {
+        String cacheName = "ESTIMATED_CACHE_NAME";
+        doReturn(64 * 1024 * 1024L).when(configurator).getAvailableMemory();
+        CacheConfigurator<Long, byte[]> cacheCfg = new CacheConfigurator<>(cacheName, 1024 * 1024, 1);
+        doReturn(List.of(cacheCfg)).when(configurator).getConfiguredCaches();
+        manager = new InMemoryCacheManager(configurator);
+
+        Cache<Long, byte[]> cache = manager.acquireCache(cacheName);
+        for (long i = 0; i < 10; i++) {
+            cache.put(i, Long.toUnsignedString(i * 1000L).getBytes());
+        }
+        assertTrue(manager.getEstimatedMemoryUsage(cacheName) > 10 * 1024 * 1024L);
+        assertEquals(-1, manager.getEstimatedMemoryUsage("UNKNOWN_CACHE_NAME"));
+    }
+
     @Test
     void testMemCalculator() {
         int size = new InMemoryCacheManager.MemoryUsageCalculator(64)
@@ -0,0 +1,17 @@
+@REM Convert the apl-blockchain databases to MVStore
+
+@echo *********************************************************************
+
+@echo * This batch file will convert the apl-blockchain databases        *
+
+@echo * to the H2 MVStore. This process can take a long time.             *
+
+@echo * Do not interrupt the batch file or shutdown the computer.         *
+
+@echo *********************************************************************
+
+@echo off
+set DIRP=%~dp0
+call %DIRP%\..\bin\apl-common.bat
+@REM start Apollo tools
+%JAVA_CMD% -jar ${APL_TOOLS} mvstore
\ No newline at end of file
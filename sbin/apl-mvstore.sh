@@ -0,0 +1,21 @@
+#!/bin/sh
+# (C) 2019 Apollo Foundation 
+
+#"***********************************************************************"
+#"* This shell script will convert the apl-blockchain main and shard    *"
+#"* databases from the H2 page store to the MVStore.                    *"
+#"* This process can take a long time.  Do not interrupt the script     *"
+#"* or shutdown the computer until it finishes.                         *"
+#"*                                                                     *"
+#"* To convert the databases used while in a user mode, i.e. located    *"
+#"* under ~/.apl-blockchain/apl-blockchain-db/chainId , invoke this     *"
+#"* script as: ./apl-mvstore.sh -Dapl.runtime.mode=user                 *"
+#echo "*******************************************************************"
+
+SCRIPT=`realpath -s $0`
+DIR=`dirname $SCRIPT`
+ . ${DIR}/../bin/apl-common.sh
+
+${JAVA_CMD}  -jar ${APL_TOOLS_JAR} mvstore
+# $@ 
+exit $?